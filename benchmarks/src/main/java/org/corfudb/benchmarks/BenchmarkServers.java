@@ -0,0 +1,95 @@
+package org.corfudb.benchmarks;
+
+import com.google.common.collect.ImmutableMap;
+import io.netty.channel.ChannelHandlerContext;
+import lombok.Getter;
+import org.corfudb.infrastructure.AbstractServer;
+import org.corfudb.infrastructure.IServerRouter;
+import org.corfudb.infrastructure.ServerContext;
+import org.corfudb.protocols.wireprotocol.CorfuMsg;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-process servers for the benchmarks: messages are handed to the server handlers
+ * directly, without a network or a router thread.
+ */
+final class BenchmarkServers {
+
+    private BenchmarkServers() {
+        // prevent instantiation of this class
+    }
+
+    /**
+     * Returns a server context with the default settings of a server.
+     *
+     * @param logPath log directory, or null for memory mode
+     * @param options options overriding the defaults
+     * @return a new server context
+     */
+    static ServerContext serverContext(String logPath, Map<String, Object> options) {
+        ImmutableMap.Builder<String, Object> builder = ImmutableMap.<String, Object>builder()
+                .put("--initial-token", 0L)
+                .put("--single", false)
+                .put("--memory", logPath == null)
+                .put("--Threads", "0")
+                .put("--HandshakeTimeout", "10")
+                .put("--batch-size", "100")
+                .put("--metadata-retention", "1000")
+                .put("--no-verify", false)
+                .put("--no-sync", true)
+                .put("--address", "localhost")
+                .put("--cache-heap-ratio", "0.5")
+                .put("--enable-tls", false)
+                .put("--enable-tls-mutual-auth", false)
+                .put("--enable-sasl-plain-text-auth", false)
+                .put("--cluster-id", "auto")
+                .put("--implementation", "nio")
+                .put("--Prefix", "benchmark")
+                .put("<port>", 9000);
+        if (logPath != null) {
+            builder.put("--log-path", logPath);
+        }
+
+        Map<String, Object> config = new HashMap<>(builder.build());
+        config.putAll(options);
+        return new ServerContext(config);
+    }
+
+    /**
+     * A router keeping the last response of the server.
+     */
+    static class LastResponseRouter implements IServerRouter {
+
+        @Getter
+        private CorfuMsg lastResponse;
+
+        @Override
+        public void sendResponse(ChannelHandlerContext ctx, CorfuMsg inMsg, CorfuMsg outMsg) {
+            lastResponse = outMsg;
+        }
+
+        @Override
+        public long getServerEpoch() {
+            return 0L;
+        }
+
+        @Override
+        public void setServerEpoch(long newEpoch) {
+            // The benchmarks run in a single epoch
+        }
+
+        @Override
+        public void addServer(AbstractServer server) {
+            // Messages are handed to the server directly
+        }
+
+        @Override
+        public List<AbstractServer> getServers() {
+            return Collections.emptyList();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package org.corfudb.benchmarks;
+
+import org.corfudb.infrastructure.SequencerConflictTable;
+import org.corfudb.util.Utils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups and updates of the sequencer conflict tables, {@code SequencerServerCache} and
+ * {@code FingerprintConflictTable}, filled with {@code cacheSize} keys. Updates pick keys
+ * among {@code 2 * cacheSize} keys, so half of them evict a key.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ConflictTableBenchmark {
+
+    @Param({"10000", "250000", "1000000"})
+    public int cacheSize;
+
+    @Param({"CACHE", "FINGERPRINT"})
+    public SequencerConflictTable.Type conflictTable;
+
+    private final UUID streamId = UUID.randomUUID();
+
+    private SequencerConflictTable table;
+
+    private byte[][] keys;
+
+    private long address = 0L;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        table = conflictTable.create(cacheSize);
+        keys = new byte[2 * cacheSize][];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = Utils.longToBigEndianByteArray(i);
+        }
+        for (int i = 0; i < cacheSize; i++) {
+            table.put(streamId, keys[i], address++);
+        }
+    }
+
+    private byte[] randomKey() {
+        return keys[ThreadLocalRandom.current().nextInt(keys.length)];
+    }
+
+    @Benchmark
+    public long get() {
+        return table.getConflictAddress(streamId, randomKey());
+    }
+
+    @Benchmark
+    public void put() {
+        table.put(streamId, randomKey(), address++);
+    }
+
+    @Benchmark
+    public long getFingerprint() {
+        return table.getConflictAddress(streamId, ThreadLocalRandom.current().nextLong(keys.length));
+    }
+}
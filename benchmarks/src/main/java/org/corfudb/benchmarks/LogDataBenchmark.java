@@ -0,0 +1,77 @@
+package org.corfudb.benchmarks;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import org.corfudb.protocols.wireprotocol.DataType;
+import org.corfudb.protocols.wireprotocol.LogData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wire serialization of {@link LogData}, with the metadata of a stream entry.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class LogDataBenchmark {
+
+    @Param({"64", "4096", "65536"})
+    public int payloadSize;
+
+    private LogData logData;
+
+    private ByteBuf serialized;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        byte[] payload = new byte[payloadSize];
+        ThreadLocalRandom.current().nextBytes(payload);
+        logData = new LogData(DataType.DATA, Unpooled.wrappedBuffer(payload));
+        logData.setGlobalAddress(0L);
+        logData.setBackpointerMap(Collections.singletonMap(UUID.randomUUID(), -1L));
+
+        serialized = Unpooled.buffer();
+        logData.doSerialize(serialized);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        serialized.release();
+    }
+
+    @Benchmark
+    public int serialize() {
+        ByteBuf buf = PooledByteBufAllocator.DEFAULT.buffer();
+        try {
+            logData.doSerialize(buf);
+            return buf.readableBytes();
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Benchmark
+    public LogData deserialize() {
+        return new LogData(serialized.duplicate());
+    }
+}
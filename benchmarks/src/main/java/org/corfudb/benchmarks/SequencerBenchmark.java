@@ -0,0 +1,141 @@
+package org.corfudb.benchmarks;
+
+import org.corfudb.benchmarks.BenchmarkServers.LastResponseRouter;
+import org.corfudb.infrastructure.SequencerServer;
+import org.corfudb.infrastructure.ServerContext;
+import org.corfudb.protocols.wireprotocol.CorfuMsg;
+import org.corfudb.protocols.wireprotocol.CorfuMsgType;
+import org.corfudb.protocols.wireprotocol.Token;
+import org.corfudb.protocols.wireprotocol.TokenRequest;
+import org.corfudb.protocols.wireprotocol.TxResolutionInfo;
+import org.corfudb.util.Utils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token allocation and transaction resolution of the sequencer, i.e. the
+ * {@code handleAllocation} and {@code txnCanCommit} paths, through the TOKEN_REQ handler.
+ *
+ * <p>Each request writes to one stream picked at random among {@code streams}. Transactions
+ * read and write {@code conflictSetSize} keys picked at random among {@code 4 * cacheSize}
+ * keys of their stream, with a snapshot at the current tail so that they commit unless the
+ * conflict table evicted one of their keys.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SequencerBenchmark {
+
+    private static final int KEYS_PER_CACHE_ENTRY = 4;
+
+    @Param({"1", "1000", "100000"})
+    public int streams;
+
+    @Param({"1", "10", "100"})
+    public int conflictSetSize;
+
+    @Param({"250000", "1000000"})
+    public long cacheSize;
+
+    @Param({"cache", "fingerprint"})
+    public String conflictTable;
+
+    private SequencerServer server;
+
+    private final LastResponseRouter router = new LastResponseRouter();
+
+    private UUID[] streamIds;
+
+    private long tail = 0L;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Map<String, Object> options = new HashMap<>();
+        options.put("--sequencer-cache-size", Long.toString(cacheSize));
+        options.put("--sequencer-conflict-table", conflictTable);
+        ServerContext serverContext = BenchmarkServers.serverContext(null, options);
+        serverContext.setServerRouter(router);
+
+        server = new SequencerServer(serverContext);
+        server.setSequencerEpoch(serverContext.getServerEpoch());
+
+        streamIds = new UUID[streams];
+        for (int i = 0; i < streams; i++) {
+            streamIds[i] = UUID.nameUUIDFromBytes(("stream" + i).getBytes());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.shutdown();
+    }
+
+    private UUID randomStream() {
+        return streamIds[ThreadLocalRandom.current().nextInt(streams)];
+    }
+
+    @Benchmark
+    public CorfuMsg streamToken() {
+        server.handleMessage(CorfuMsgType.TOKEN_REQ.payloadMsg(
+                new TokenRequest(1L, Collections.singletonList(randomStream()))), null, router);
+        return router.getLastResponse();
+    }
+
+    @Benchmark
+    public CorfuMsg txToken() {
+        final UUID streamId = randomStream();
+        final long numKeys = cacheSize * KEYS_PER_CACHE_ENTRY;
+        Set<byte[]> conflictParams = new HashSet<>();
+        for (int i = 0; i < conflictSetSize; i++) {
+            conflictParams.add(Utils.longToBigEndianByteArray(ThreadLocalRandom.current().nextLong(numKeys)));
+        }
+        Map<UUID, Set<byte[]>> conflictMap = Collections.singletonMap(streamId, conflictParams);
+
+        server.handleMessage(CorfuMsgType.TOKEN_REQ.payloadMsg(new TokenRequest(1L,
+                Collections.singletonList(streamId),
+                new TxResolutionInfo(UUID.randomUUID(), new Token(0L, tail - 1), conflictMap, conflictMap))),
+                null, router);
+        tail++;
+        return router.getLastResponse();
+    }
+
+    @Benchmark
+    public CorfuMsg txTokenFingerprints() {
+        final UUID streamId = randomStream();
+        final long numKeys = cacheSize * KEYS_PER_CACHE_ENTRY;
+        long[] fingerprints = ThreadLocalRandom.current().longs(conflictSetSize, 0, numKeys)
+                .sorted().distinct().toArray();
+        Map<UUID, long[]> conflictMap = Collections.singletonMap(streamId, fingerprints);
+
+        server.handleMessage(CorfuMsgType.TOKEN_REQ.payloadMsg(new TokenRequest(1L,
+                Collections.singletonList(streamId),
+                TxResolutionInfo.withFingerprints(UUID.randomUUID(), new Token(0L, tail - 1),
+                        conflictMap, conflictMap))),
+                null, router);
+        tail++;
+        return router.getLastResponse();
+    }
+}
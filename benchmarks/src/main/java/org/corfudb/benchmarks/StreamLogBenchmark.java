@@ -0,0 +1,101 @@
+package org.corfudb.benchmarks;
+
+import io.netty.buffer.Unpooled;
+import org.corfudb.infrastructure.ServerContext;
+import org.corfudb.infrastructure.log.StreamLogFiles;
+import org.corfudb.protocols.wireprotocol.DataType;
+import org.corfudb.protocols.wireprotocol.LogData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Appends and reads of {@link StreamLogFiles} in a temporary directory, without syncing.
+ * Reads pick addresses at random among the {@code entries} appended by the setup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class StreamLogBenchmark {
+
+    @Param({"64", "4096", "65536"})
+    public int payloadSize;
+
+    @Param({"10000"})
+    public int entries;
+
+    @Param({"true", "false"})
+    public boolean verifyChecksum;
+
+    private File logDir;
+
+    private StreamLogFiles streamLog;
+
+    private byte[] payload;
+
+    private long address;
+
+    @Setup(Level.Iteration)
+    public void setup() throws IOException {
+        logDir = Files.createTempDirectory("corfu-benchmark").toFile();
+        ServerContext serverContext = BenchmarkServers.serverContext(logDir.getAbsolutePath(),
+                Collections.emptyMap());
+        streamLog = new StreamLogFiles(serverContext, !verifyChecksum);
+
+        payload = new byte[payloadSize];
+        ThreadLocalRandom.current().nextBytes(payload);
+        for (address = 0; address < entries; address++) {
+            streamLog.append(address, newEntry());
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        streamLog.close();
+        deleteRecursively(logDir);
+    }
+
+    private LogData newEntry() {
+        return new LogData(DataType.DATA, Unpooled.wrappedBuffer(payload));
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+
+    @Benchmark
+    public void append() {
+        streamLog.append(address++, newEntry());
+    }
+
+    @Benchmark
+    public LogData read() {
+        return streamLog.read(ThreadLocalRandom.current().nextLong(entries));
+    }
+}
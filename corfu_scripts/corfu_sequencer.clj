@@ -1,11 +1,13 @@
 (in-ns 'org.corfudb.shell) ; so our IDE knows what NS we are using
 
 (import org.docopt.Docopt) ; parse some cmdline opts
+(import org.corfudb.util.Utils)
 
 (def usage "corfu_sequencer, directly interact with a Corfu sequencer.
 Usage:
   corfu_sequencer [-i <stream-id>] -c <config> [-e [-u <keystore> -f <keystore_password_file>] [-r <truststore> -w <truststore_password_file>] [-g -o <username_file> -j <password_file>]] latest
   corfu_sequencer [-i <stream-id>] -c <config> [-e [-u <keystore> -f <keystore_password_file>] [-r <truststore> -w <truststore_password_file>] [-g -o <username_file> -j <password_file>]] next-token <num-tokens>
+  corfu_sequencer -c <config> [-e [-u <keystore> -f <keystore_password_file>] [-r <truststore> -w <truststore_password_file>] [-g -o <username_file> -j <password_file>]] hot-keys <num-keys>
 Options:
   -i <stream-id>, --stream-id <stream-id>                                                ID or name of the stream to work with.
   -c <config>, --config <config>                                                         Configuration string to use.
@@ -34,11 +36,22 @@ Options:
                                                    (java.util.Collections/singleton stream)) num-tokens))
            (getToken))))
 
+(defn print-hot-keys [num-keys]
+  (let [hot-keys (.. (.. (.. (.. (get-layout-view) (getRuntimeLayout)) (getPrimarySequencerClient))
+                         (requestHotConflictKeys num-keys)) (get))]
+    (println "stream conflict-key aborts error")
+    (doseq [hot-key (.. hot-keys (getKeys))]
+      (println (.. hot-key (getStreamId))
+               (Utils/bytesToHex (.. hot-key (getConflictKey)))
+               (.. hot-key (getAbortCount))
+               (.. hot-key (getError))))))
+
 (get-runtime (.. localcmd (get "--config")) localcmd)
 (connect-runtime)
 ; determine what to do
 (cond (.. localcmd (get "latest")) (get-token stream 0)
   (.. localcmd (get "next-token")) (get-token stream (Integer/parseInt (.. localcmd (get "<num-tokens>"))))
+  (.. localcmd (get "hot-keys")) (print-hot-keys (Integer/parseInt (.. localcmd (get "<num-keys>"))))
   :else (println "Unknown arguments.")
   )
 
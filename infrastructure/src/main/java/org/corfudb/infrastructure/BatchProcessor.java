@@ -1,12 +1,21 @@
 package org.corfudb.infrastructure;
 
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -14,10 +23,14 @@ import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Nonnull;
 
+import lombok.Builder;
+import lombok.Builder.Default;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
 import org.corfudb.infrastructure.BatchWriterOperation.Type;
 import org.corfudb.infrastructure.log.StreamLog;
+import org.corfudb.infrastructure.log.StreamLogFiles;
 import org.corfudb.protocols.wireprotocol.CorfuPayloadMsg;
 import org.corfudb.protocols.wireprotocol.LogData;
 import org.corfudb.protocols.wireprotocol.RangeWriteMsg;
@@ -27,20 +40,44 @@ import org.corfudb.protocols.wireprotocol.TrimRequest;
 import org.corfudb.protocols.wireprotocol.WriteRequest;
 import org.corfudb.runtime.exceptions.WrongEpochException;
 import org.corfudb.runtime.exceptions.unrecoverable.UnrecoverableCorfuInterruptedError;
+import org.corfudb.util.CorfuComponent;
 
 /**
  * This class manages access for operations that need ordering while executing against
  * the backing storage.
+ *
+ * <p>Operations are executed in groups (group commit): the processor drains the queue
+ * until the group reaches its operation count or byte budget, consecutive writes are
+ * coalesced into a single append and the whole group is synced to secondary storage
+ * once, before completing any of its operations.
+ *
+ * <p>Groups are sized from the load: the processor tracks the arrival rate of the
+ * operations and the latency of a group sync, and waits for more operations only until
+ * the group holds the operations expected to arrive during one sync. The wait is bounded
+ * by the sync latency and the latency budget, so a lone client never waits, and a group
+ * never waits longer than it takes to sync one.
+ *
+ * <p>The writes of a group are spread over write lanes by log segment. Lanes append
+ * to their segments in parallel, since segments are independent files, and the group
+ * waits for all of them before handling any other operation, which preserves the
+ * ordering of operations on the same address and the seal semantics.
  */
 @Slf4j
 public class BatchProcessor implements AutoCloseable {
 
-    final private int BATCH_SIZE = 50;
+    private static final String METRIC_PREFIX = CorfuComponent.INFRA_LOG_UNIT + "batch-processor.";
+
+    /**
+     * Weight of the latest sample in the moving averages used to size the groups.
+     */
+    private static final double MOVING_AVERAGE_WEIGHT = 0.2;
 
     final private boolean sync;
 
     final private StreamLog streamLog;
 
+    final private Config config;
+
     final private BlockingQueue<BatchWriterOperation> operationsQueue;
 
     private ExecutorService processorService = Executors
@@ -49,6 +86,11 @@ public class BatchProcessor implements AutoCloseable {
                     .setNameFormat("LogUnit-BatchProcessor-%d")
                     .build());
 
+    /**
+     * Appends the writes of different lanes in parallel, null when a single lane is configured.
+     */
+    private final ExecutorService laneService;
+
     /**
      * The sealEpoch is the epoch up to which all operations have been sealed. Any
      * BatchWriterOperation arriving after the sealEpoch with an epoch less than the sealEpoch
@@ -57,6 +99,20 @@ public class BatchProcessor implements AutoCloseable {
      */
     private long sealEpoch;
 
+    /**
+     * Write and range write operations of the current group that haven't been appended yet.
+     */
+    private final List<BatchWriterOperation> pendingWrites = new ArrayList<>();
+
+    private final Set<Long> pendingAddresses = new HashSet<>();
+
+    private final Histogram groupSize = ServerContext.getMetrics().histogram(METRIC_PREFIX + "group-size");
+    private final Histogram groupBytes = ServerContext.getMetrics().histogram(METRIC_PREFIX + "group-bytes");
+    private final Histogram targetGroupSize = ServerContext.getMetrics()
+            .histogram(METRIC_PREFIX + "target-group-size");
+    private final Timer groupLatency = ServerContext.getMetrics().timer(METRIC_PREFIX + "group-latency");
+    private final Meter fsyncs = ServerContext.getMetrics().meter(METRIC_PREFIX + "fsync");
+
     /**
      * Returns a new BatchProcessor for a stream log.
      *
@@ -67,9 +123,31 @@ public class BatchProcessor implements AutoCloseable {
      * @param sync    If true, the batch writer will sync writes to secondary storage
      */
     public BatchProcessor(StreamLog streamLog, long sealEpoch, boolean sync) {
+        this(streamLog, sealEpoch, sync, Config.builder().build());
+    }
+
+    /**
+     * Returns a new BatchProcessor for a stream log.
+     *
+     * @param streamLog the backing log (can be in memory or file)
+     * @param sealEpoch All operations stamped with epoch less than the epochWaterMark are
+     *                  discarded.
+     * @param sync      If true, the batch writer will sync writes to secondary storage
+     * @param config    group commit configuration
+     */
+    public BatchProcessor(StreamLog streamLog, long sealEpoch, boolean sync, Config config) {
         this.sealEpoch = sealEpoch;
         this.sync = sync;
         this.streamLog = streamLog;
+        this.config = config;
+        if (config.getWriteLanes() > 1) {
+            laneService = Executors.newFixedThreadPool(config.getWriteLanes(), new ThreadFactoryBuilder()
+                    .setDaemon(true)
+                    .setNameFormat("LogUnit-WriteLane-%d")
+                    .build());
+        } else {
+            laneService = null;
+        }
         operationsQueue = new LinkedBlockingQueue<>();
         processorService.submit(this::processor);
     }
@@ -93,117 +171,298 @@ public class BatchProcessor implements AutoCloseable {
         }
 
         try {
-            BatchWriterOperation lastOp = null;
-            int processed = 0;
-            List<BatchWriterOperation> res = new LinkedList<>();
+            List<BatchWriterOperation> res = new ArrayList<>();
+            long latencyBudget = TimeUnit.MICROSECONDS.toNanos(config.getLatencyBudgetMicros());
+            // Moving averages of the operation arrival rate (per nanosecond) and of the time
+            // it takes to flush and sync a group
+            double arrivalRate = 0;
+            double syncLatency = 0;
+            long lastGroupStart = 0;
 
             while (true) {
-                BatchWriterOperation currOp;
+                BatchWriterOperation currOp = operationsQueue.take();
+                final long groupStart = System.nanoTime();
+                long bytes = 0;
+                boolean shutdown = false;
+
+                // The operations expected to arrive during one sync are worth waiting for,
+                // since they would otherwise wait for the next group sync
+                int target = (int) Math.min(config.getMaxGroupSize(),
+                        Math.max(1L, Math.round(arrivalRate * syncLatency)));
+                long waitBudget = Math.min(latencyBudget, (long) syncLatency);
+
+                while (currOp != null) {
+                    if (currOp == BatchWriterOperation.SHUTDOWN) {
+                        shutdown = true;
+                        break;
+                    }
+
+                    res.add(currOp);
+                    bytes += process(currOp);
+
+                    if (res.size() >= config.getMaxGroupSize() || bytes >= config.getMaxGroupBytes()) {
+                        break;
+                    }
 
-                if (lastOp == null) {
-                    currOp = operationsQueue.take();
-                } else {
                     currOp = operationsQueue.poll();
 
-                    if (currOp == null || processed == BATCH_SIZE
-                            || currOp == BatchWriterOperation.SHUTDOWN) {
-                        streamLog.sync(sync);
-                        log.trace("Completed {} operations", processed);
+                    // Queued operations always join the group, but it only waits for more
+                    // until it reaches its target size
+                    long remaining = waitBudget - (System.nanoTime() - groupStart);
+                    if (currOp == null && res.size() < target && remaining > 0) {
+                        currOp = operationsQueue.poll(remaining, TimeUnit.NANOSECONDS);
+                    }
+                }
+
+                final long syncStart = System.nanoTime();
+                flushWrites();
+                streamLog.sync(sync);
+                if (sync) {
+                    fsyncs.mark();
+                }
+                syncLatency = movingAverage(syncLatency, System.nanoTime() - syncStart);
+                log.trace("Completed {} operations", res.size());
 
-                        for (BatchWriterOperation operation : res) {
-                            if (!operation.getFutureResult().isCompletedExceptionally()
+                for (BatchWriterOperation operation : res) {
+                    if (!operation.getFutureResult().isCompletedExceptionally()
                             && !operation.getFutureResult().isCancelled()) {
-                                // At this point we need to complete the requests
-                                // that completed successfully (i.e. haven't failed)
-                                operation.getFutureResult().complete(operation.getResultValue());
-                            }
-                        }
-                        res.clear();
-                        processed = 0;
+                        // At this point we need to complete the requests
+                        // that completed successfully (i.e. haven't failed)
+                        operation.getFutureResult().complete(operation.getResultValue());
                     }
                 }
 
-                if (currOp == null) {
-                    lastOp = null;
-                } else if (currOp == BatchWriterOperation.SHUTDOWN) {
+                if (!res.isEmpty()) {
+                    groupSize.update(res.size());
+                    groupBytes.update(bytes);
+                    groupLatency.update(System.nanoTime() - groupStart, TimeUnit.NANOSECONDS);
+                    targetGroupSize.update(target);
+                }
+                if (lastGroupStart != 0) {
+                    // The operations of this group arrived since the previous group started
+                    long interval = Math.max(1L, groupStart - lastGroupStart);
+                    arrivalRate = movingAverage(arrivalRate, (double) res.size() / interval);
+                }
+                lastGroupStart = groupStart;
+                res.clear();
+
+                if (shutdown) {
                     log.warn("Shutting down the write processor");
                     streamLog.sync(true);
                     break;
-                } else if (currOp.getType() == Type.SEAL && currOp.getMsg().getEpoch() >= sealEpoch) {
-                    log.info("batchWriteProcessor: updating from {} to {}", sealEpoch, currOp.getMsg().getEpoch());
-                    sealEpoch = currOp.getMsg().getEpoch();
-                    res.add(currOp);
-                    processed++;
-                    lastOp = currOp;
-                } else if (currOp.getMsg().getEpoch() != sealEpoch) {
-                    log.warn("batchWriteProcessor: wrong epoch on {} msg, seal epoch is {}, and msg epoch is {}",
-                            currOp.getType(), sealEpoch, currOp.getMsg().getEpoch());
-                    currOp.getFutureResult().completeExceptionally(new WrongEpochException(sealEpoch));
-                    res.add(currOp);
-                    processed++;
-                    lastOp = currOp;
-                } else {
-                    try {
-                        switch (currOp.getType()) {
-                            case PREFIX_TRIM:
-                                TrimRequest prefixTrim = (TrimRequest) currOp.getMsg().getPayload();
-                                streamLog.prefixTrim(prefixTrim.getAddress().getSequence());
-                                break;
-                            case WRITE:
-                                WriteRequest write = (WriteRequest) currOp.getMsg().getPayload();
-                                streamLog.append(write.getGlobalAddress(), (LogData) write.getData());
-                                break;
-                            case RANGE_WRITE:
-                                RangeWriteMsg writeRange = (RangeWriteMsg) currOp.getMsg().getPayload();
-                                streamLog.append(writeRange.getEntries());
-                                break;
-                            case RESET:
-                                streamLog.reset();
-                                break;
-                            case TAILS_QUERY:
-                                TailsRequest tailsRequest = (TailsRequest)currOp.getMsg().getPayload();
-                                TailsResponse tails;
-
-                                switch (tailsRequest.getReqType()) {
-                                    case TailsRequest.LOG_TAIL:
-                                        tails = new TailsResponse(streamLog.getLogTail());
-                                        break;
-
-                                    case TailsRequest.STREAMS_TAILS:
-                                        tails = streamLog.getTails(tailsRequest.getStreams());
-                                        break;
-
-                                    default:
-                                        tails = streamLog.getAllTails();
-                                        break;
-                                }
-
-                                currOp.setResultValue(tails);
-                                break;
-                            case LOG_ADDRESS_SPACE_QUERY:
-                                // Retrieve the address space for every stream in the log.
-                                currOp.setResultValue(streamLog.getStreamsAddressSpace());
-                                break;
-                            default:
-                                log.warn("Unknown BatchWriterOperation {}", currOp);
+                }
+            }
+        } catch (Exception e) {
+            log.error("Caught exception in the write processor ", e);
+        }
+    }
+
+    private static double movingAverage(double average, double sample) {
+        return average + MOVING_AVERAGE_WEIGHT * (sample - average);
+    }
+
+    /**
+     * Process an operation of the current group. Write operations are deferred
+     * so that consecutive writes are appended together.
+     *
+     * @param currOp operation to process
+     * @return the number of payload bytes written by the operation
+     */
+    private long process(BatchWriterOperation currOp) {
+        if (currOp.getType() == Type.SEAL && currOp.getMsg().getEpoch() >= sealEpoch) {
+            flushWrites();
+            log.info("batchWriteProcessor: updating from {} to {}", sealEpoch, currOp.getMsg().getEpoch());
+            sealEpoch = currOp.getMsg().getEpoch();
+            return 0;
+        }
+
+        if (currOp.getMsg().getEpoch() != sealEpoch) {
+            log.warn("batchWriteProcessor: wrong epoch on {} msg, seal epoch is {}, and msg epoch is {}",
+                    currOp.getType(), sealEpoch, currOp.getMsg().getEpoch());
+            currOp.getFutureResult().completeExceptionally(new WrongEpochException(sealEpoch));
+            return 0;
+        }
+
+        if (currOp.getType() == Type.WRITE || currOp.getType() == Type.RANGE_WRITE) {
+            List<LogData> entries = getEntries(currOp);
+            for (LogData entry : entries) {
+                if (pendingAddresses.contains(entry.getGlobalAddress())) {
+                    // The same address is written twice, the second write has to observe the first one
+                    flushWrites();
+                    break;
+                }
+            }
+
+            long bytes = 0;
+            for (LogData entry : entries) {
+                pendingAddresses.add(entry.getGlobalAddress());
+                bytes += entry.getSizeEstimate();
+            }
+            pendingWrites.add(currOp);
+            return bytes;
+        }
+
+        flushWrites();
+
+        try {
+            switch (currOp.getType()) {
+                case PREFIX_TRIM:
+                    TrimRequest prefixTrim = (TrimRequest) currOp.getMsg().getPayload();
+                    streamLog.prefixTrim(prefixTrim.getAddress().getSequence());
+                    break;
+                case RESET:
+                    streamLog.reset();
+                    break;
+                case TAILS_QUERY:
+                    TailsRequest tailsRequest = (TailsRequest)currOp.getMsg().getPayload();
+                    TailsResponse tails;
+
+                    switch (tailsRequest.getReqType()) {
+                        case TailsRequest.LOG_TAIL:
+                            tails = new TailsResponse(streamLog.getLogTail());
+                            break;
+
+                        case TailsRequest.STREAMS_TAILS:
+                            tails = streamLog.getTails(tailsRequest.getStreams());
+                            break;
+
+                        default:
+                            tails = streamLog.getAllTails();
+                            break;
+                    }
+
+                    currOp.setResultValue(tails);
+                    break;
+                case LOG_ADDRESS_SPACE_QUERY:
+                    // Retrieve the address space for every stream in the log.
+                    currOp.setResultValue(streamLog.getStreamsAddressSpace());
+                    break;
+                default:
+                    log.warn("Unknown BatchWriterOperation {}", currOp);
+            }
+        } catch (Exception e) {
+            logStreamLogError(e);
+            currOp.getFutureResult().completeExceptionally(e);
+        }
+        return 0;
+    }
+
+    private List<LogData> getEntries(BatchWriterOperation operation) {
+        if (operation.getType() == Type.RANGE_WRITE) {
+            return ((RangeWriteMsg) operation.getMsg().getPayload()).getEntries();
+        }
+        List<LogData> entries = new ArrayList<>(1);
+        entries.add((LogData) ((WriteRequest) operation.getMsg().getPayload()).getData());
+        return entries;
+    }
+
+    /**
+     * Append the pending writes of the current group. The writes are split into lanes by
+     * segment, each lane appends its writes with a single call to the stream log and the
+     * lanes run in parallel. Since the pending writes don't share addresses, the order in
+     * which lanes complete doesn't matter.
+     */
+    private void flushWrites() {
+        if (pendingWrites.isEmpty()) {
+            return;
+        }
+
+        Map<Integer, List<BatchWriterOperation>> lanes = new TreeMap<>();
+        for (BatchWriterOperation operation : pendingWrites) {
+            long segment = getEntries(operation).get(0).getGlobalAddress() / StreamLogFiles.RECORDS_PER_LOG_FILE;
+            int lane = (int) (segment % config.getWriteLanes());
+            lanes.computeIfAbsent(lane, l -> new ArrayList<>()).add(operation);
+        }
+
+        try {
+            if (laneService == null || lanes.size() == 1) {
+                for (List<BatchWriterOperation> operations : lanes.values()) {
+                    writeLane(operations);
+                }
+                return;
+            }
+
+            List<List<BatchWriterOperation>> laneOperations = new ArrayList<>(lanes.values());
+            List<CompletableFuture<Void>> laneFutures = new ArrayList<>(lanes.size());
+            for (List<BatchWriterOperation> operations : laneOperations) {
+                laneFutures.add(CompletableFuture.runAsync(() -> writeLane(operations), laneService));
+            }
+            try {
+                CompletableFuture.allOf(laneFutures.toArray(new CompletableFuture[0])).get();
+            } catch (ExecutionException e) {
+                // Lanes complete their own operations, this is only reached on unexpected errors,
+                // which fail the operations of the lanes that raised them
+                for (int i = 0; i < laneFutures.size(); i++) {
+                    List<BatchWriterOperation> operations = laneOperations.get(i);
+                    laneFutures.get(i).whenComplete((r, error) -> {
+                        if (error != null) {
+                            Throwable cause = error instanceof CompletionException
+                                    ? error.getCause() : error;
+                            log.error("flushWrites: write lane failed", cause);
+                            operations.forEach(operation ->
+                                    operation.getFutureResult().completeExceptionally(cause));
                         }
-                    } catch (Exception e) {
-                        log.error("Stream log error. Batch [queue size={}]. StreamLog: [trim mark: {}, tails: {}].",
-                                operationsQueue.size(), streamLog.getTrimMark(), streamLog.getAllTails(), e
-                        );
-                        currOp.getFutureResult().completeExceptionally(e);
+                    });
+                }
+            }
+        } catch (InterruptedException e) {
+            throw new UnrecoverableCorfuInterruptedError("Interrupted while waiting for write lanes", e);
+        } finally {
+            pendingWrites.clear();
+            pendingAddresses.clear();
+        }
+    }
+
+    /**
+     * Append the writes of a lane, i.e. the single writes with a single call to the stream
+     * log followed by each range write.
+     *
+     * @param operations write and range write operations of the lane
+     */
+    private void writeLane(List<BatchWriterOperation> operations) {
+        List<BatchWriterOperation> writes = new ArrayList<>(operations.size());
+        List<LogData> entries = new ArrayList<>(operations.size());
+        for (BatchWriterOperation operation : operations) {
+            if (operation.getType() == Type.WRITE) {
+                writes.add(operation);
+                entries.add(getEntries(operation).get(0));
+            }
+        }
+
+        if (!entries.isEmpty()) {
+            try {
+                Map<Long, RuntimeException> failures = streamLog.appendAll(entries);
+                for (int i = 0; i < entries.size(); i++) {
+                    RuntimeException failure = failures.get(entries.get(i).getGlobalAddress());
+                    if (failure != null) {
+                        log.debug("writeLane: write to {} failed", entries.get(i).getGlobalAddress(), failure);
+                        writes.get(i).getFutureResult().completeExceptionally(failure);
                     }
-                    res.add(currOp);
+                }
+            } catch (Exception e) {
+                log.error("writeLane: failed to append {} entries", entries.size(), e);
+                writes.forEach(operation -> operation.getFutureResult().completeExceptionally(e));
+            }
+        }
 
-                    processed++;
-                    lastOp = currOp;
+        for (BatchWriterOperation operation : operations) {
+            if (operation.getType() == Type.RANGE_WRITE) {
+                try {
+                    streamLog.append(getEntries(operation));
+                } catch (Exception e) {
+                    log.error("writeLane: range write failed", e);
+                    operation.getFutureResult().completeExceptionally(e);
                 }
             }
-        } catch (Exception e) {
-            log.error("Caught exception in the write processor ", e);
         }
     }
 
+    private void logStreamLogError(Exception e) {
+        log.error("Stream log error. Batch [queue size={}]. StreamLog: [trim mark: {}, tails: {}].",
+                operationsQueue.size(), streamLog.getTrimMark(), streamLog.getAllTails(), e
+        );
+    }
+
     @Override
     public void close() {
         operationsQueue.add(BatchWriterOperation.SHUTDOWN);
@@ -213,6 +472,10 @@ public class BatchProcessor implements AutoCloseable {
                     TimeUnit.MILLISECONDS);
         } catch (InterruptedException e) {
             throw new UnrecoverableCorfuInterruptedError("BatchProcessor close interrupted.", e);
+        } finally {
+            if (laneService != null) {
+                laneService.shutdownNow();
+            }
         }
     }
 
@@ -234,4 +497,40 @@ public class BatchProcessor implements AutoCloseable {
         processorService.awaitTermination(ServerContext.SHUTDOWN_TIMER.toMillis(), TimeUnit.MILLISECONDS);
     }
 
-}
\ No newline at end of file
+    /**
+     * Group commit configuration.
+     */
+    @Builder(toBuilder = true)
+    @Getter
+    public static class Config {
+        public static final int DEFAULT_MAX_GROUP_SIZE = 50;
+        public static final long DEFAULT_MAX_GROUP_BYTES = 4L * 1024 * 1024;
+        public static final long DEFAULT_LATENCY_BUDGET_MICROS = 200L;
+        public static final int DEFAULT_WRITE_LANES = 1;
+
+        /**
+         * Maximum number of operations in a group.
+         */
+        @Default
+        private final int maxGroupSize = DEFAULT_MAX_GROUP_SIZE;
+
+        /**
+         * Maximum number of payload bytes in a group.
+         */
+        @Default
+        private final long maxGroupBytes = DEFAULT_MAX_GROUP_BYTES;
+
+        /**
+         * Maximum time a group waits for more operations to arrive, groups wait less when
+         * a sync takes less or when fewer operations are expected.
+         */
+        @Default
+        private final long latencyBudgetMicros = DEFAULT_LATENCY_BUDGET_MICROS;
+
+        /**
+         * Number of lanes appending the writes of a group to distinct segments in parallel.
+         */
+        @Default
+        private final int writeLanes = DEFAULT_WRITE_LANES;
+    }
+}
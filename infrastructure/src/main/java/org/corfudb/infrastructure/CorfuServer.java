@@ -57,9 +57,17 @@ public class CorfuServer {
                     + "[--logunit-threads=<logunit_threads>] [--management-server-threads=<management_server_threads>]"
                     + "[-e [-u <keystore> -f <keystore_password_file>] [-r <truststore> -w <truststore_password_file>] "
                     + "[-b] [-g -o <username_file> -j <password_file>] "
-                    + "[-k <seqcache>] [-T <threads>] [-B <size>] [-i <channel-implementation>] "
+                    + "[-k <seqcache>] [--sequencer-conflict-table=<table>] "
+                    + "[--sequencer-resolver-threads=<threads>] [--sequencer-bootstrap-chunk-size=<size>] "
+                    + "[--sequencer-standby] [--sequencer-address-map-streams=<count>] "
+                    + "[--sequencer-address-load-timeout=<ms>] "
+                    + "[-T <threads>] [-B <size>] "
+                    + "[-i <channel-implementation>] "
                     + "[-H <seconds>] [-I <cluster-id>] [-x <ciphers>] [-z <tls-protocols>]] "
-                    + "[-P <prefix>] [-R <retention>] [--agent] <port>\n"
+                    + "[-P <prefix>] [-R <retention>] [--off-heap-cache-size=<size>] [--mmap-reads] "
+                    + "[--compaction-rate=<rate>] [--log-compression=<codec>] [--write-group-size=<ops>] "
+                    + "[--write-group-bytes=<bytes>] [--write-group-latency=<micros>] [--write-lanes=<lanes>] "
+                    + "[--agent] <port>\n"
                     + "\n"
                     + "Options:\n"
                     + " -l <path>, --log-path=<path>                                             "
@@ -99,6 +107,12 @@ public class CorfuServer {
                     + "              If there is no log, then this will be the size of the log unit"
                     + "\n                                                                        "
                     + "                evicted entries will be auto-trimmed. [default: 0.5].\n"
+                    + " --off-heap-cache-size=<size>                                             "
+                    + "              Size of the log unit cache kept in direct memory, off the "
+                    + "jvm heap, or 0 to cache entries on the heap (see --cache-heap-ratio).\n"
+                    + "                                                                          "
+                    + "              The jvm max direct memory size has to fit the cache "
+                    + "[default: 0].\n"
                     + " -H <seconds>, --HandshakeTimeout=<seconds>                               "
                     + "              Handshake timeout in seconds [default: 10].\n               "
                     + " -t <token>, --initial-token=<token>                                      "
@@ -108,6 +122,31 @@ public class CorfuServer {
                     + "                                                                          "
                     + " -k <seqcache>, --sequencer-cache-size=<seqcache>                         "
                     + "               The size of the sequencer's cache. [default: 250000].\n    "
+                    + " --sequencer-conflict-table=<table>                                       "
+                    + "              The sequencer's conflict table, cache or fingerprint. The "
+                    + "fingerprint table holds several times more conflict keys in the same memory. "
+                    + "Defaults to fingerprint with resolver threads, which only support the "
+                    + "fingerprint table, and to cache otherwise.\n"
+                    + " --sequencer-resolver-threads=<threads>                                   "
+                    + "              The number of threads resolving transactions in parallel, "
+                    + "partitioned by stream, or 0 to resolve them on the sequencer thread. "
+                    + "Requires the fingerprint conflict table [default: 0].\n"
+                    + " --sequencer-bootstrap-chunk-size=<size>                                  "
+                    + "              The number of stream addresses per message when bootstrapping a "
+                    + "new primary sequencer, or 0 to send them all at once. When set, the sequencer "
+                    + "issues tokens while its address maps are loaded [default: 0].\n"
+                    + " --sequencer-standby                                                      "
+                    + "              Keep the conflict table of a sequencer which isn't the primary "
+                    + "warm with the updates of the primary, to avoid aborting the transactions in "
+                    + "flight when it is promoted.\n"
+                    + " --sequencer-address-map-streams=<count>                                  "
+                    + "              The number of stream address maps the sequencer keeps on the heap, "
+                    + "spilling the least recently used ones to the log directory, or 0 to keep them all "
+                    + "[default: 0].\n"
+                    + " --sequencer-address-load-timeout=<ms>                                    "
+                    + "              The time a sequencer bootstrapped in chunks waits for the next "
+                    + "chunk of address maps before it goes back to NOT_READY to be bootstrapped "
+                    + "again [default: 60000].\n"
                     + " -B <size> --batch-size=<size>                                            "
                     + "              The read/write batch size used for data transfer operations [default: 100].\n"
                     + " -R <retention>, --metadata-retention=<retention>                         "
@@ -125,6 +164,26 @@ public class CorfuServer {
                     + "              Disable checksum computation and verification.\n"
                     + " -N, --no-sync                                                            "
                     + "              Disable syncing writes to secondary storage.\n"
+                    + " --mmap-reads                                                             "
+                    + "              Serve reads of sealed log segments from memory mapped files.\n"
+                    + " --compaction-rate=<rate>                                                 "
+                    + "              Maximum bytes per second copied when rewriting log segments "
+                    + "to reclaim trimmed records [default: 32M].\n"
+                    + " --log-compression=<codec>                                                "
+                    + "              Compression of the records of new log segments, none or "
+                    + "deflate [default: none].\n"
+                    + " --write-group-size=<ops>                                                 "
+                    + "              Maximum number of log unit operations committed as a group "
+                    + "[default: 50].\n"
+                    + " --write-group-bytes=<bytes>                                              "
+                    + "              Maximum payload bytes of a group of log unit operations "
+                    + "[default: 4194304].\n"
+                    + " --write-group-latency=<micros>                                           "
+                    + "              Maximum time in microseconds a group of log unit operations "
+                    + "waits for more operations under load [default: 200].\n"
+                    + " --write-lanes=<lanes>                                                    "
+                    + "              Number of lanes appending writes to distinct log segments "
+                    + "in parallel [default: 1].\n"
                     + " -e, --enable-tls                                                         "
                     + "              Enable TLS.\n"
                     + " -u <keystore>, --keystore=<keystore>                                     "
@@ -0,0 +1,59 @@
+package org.corfudb.infrastructure;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.RatioGauge;
+
+import org.corfudb.util.CorfuComponent;
+
+/**
+ * The metrics of the {@link LogUnitDataCache} of a log unit, shared by the cache
+ * implementations.
+ *
+ * <p>hit-rate is the hit rate since the server started, while hit-rate-1m is the hit
+ * rate over the last minute, which shows the effect of scans such as checkpoints.
+ */
+final class DataCacheMetrics {
+
+    private static final String METRIC_PREFIX = CorfuComponent.INFRA_LOG_UNIT + "cache.";
+
+    /**
+     * Reads served by the cache.
+     */
+    static final Meter READS = ServerContext.getMetrics().meter(METRIC_PREFIX + "reads");
+
+    /**
+     * Reads that had to load the entry from the stream log.
+     */
+    static final Meter MISSES = ServerContext.getMetrics().meter(METRIC_PREFIX + "misses");
+
+    /**
+     * Loaded entries that weren't admitted into the cache.
+     */
+    static final Meter NOT_ADMITTED = ServerContext.getMetrics().meter(METRIC_PREFIX + "not-admitted");
+
+    static {
+        MetricRegistry metrics = ServerContext.getMetrics();
+        try {
+            metrics.register(METRIC_PREFIX + "hit-rate", new RatioGauge() {
+                @Override
+                protected Ratio getRatio() {
+                    return Ratio.of(READS.getCount() - MISSES.getCount(), READS.getCount());
+                }
+            });
+            metrics.register(METRIC_PREFIX + "hit-rate-1m", new RatioGauge() {
+                @Override
+                protected Ratio getRatio() {
+                    return Ratio.of(READS.getOneMinuteRate() - MISSES.getOneMinuteRate(),
+                            READS.getOneMinuteRate());
+                }
+            });
+        } catch (IllegalArgumentException e) {
+            // Already registered, not a problem
+        }
+    }
+
+    private DataCacheMetrics() {
+        // prevent instantiation of this class
+    }
+}
@@ -0,0 +1,336 @@
+package org.corfudb.infrastructure;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.corfudb.runtime.view.Address;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * A conflict table that doesn't allocate on lookups and updates.
+ * <p>
+ * Conflict keys are identified by a 64-bit fingerprint of their stream id and conflict
+ * parameter, stored along with their latest position in an open-addressed table of
+ * primitive arrays (linear probing, backward shift deletion). Two keys sharing a
+ * fingerprint are treated as a single key, which can only cause false aborts.
+ * <p>
+ * Every update is appended to a FIFO of the last {@code maxSize} updates. When the FIFO
+ * is full its oldest update is dropped, and the key is removed if that was its latest
+ * update. Keys are therefore evicted in the order of their latest update, i.e. by
+ * increasing position, which keeps {@link #maxConflictWildcard} as low as possible.
+ * A key takes 16 bytes in the FIFO and 16 bytes per slot of a table sized to be between
+ * 3/8 and 3/4 full, i.e. less than 60 bytes, against a few hundred bytes for a cache entry
+ * of {@link SequencerServerCache}.
+ * <p>
+ * As {@link SequencerServerCache}, this table is updated by the sequencer thread only.
+ * Lookups don't modify the table, so the resolver threads of the sequencer can look up
+ * keys concurrently, as long as no update runs at the same time.
+ */
+@Slf4j
+public class FingerprintConflictTable implements SequencerConflictTable {
+
+    /**
+     * Largest supported number of conflict keys.
+     */
+    public static final long MAX_SIZE = 1L << 29;
+
+    private static final long EMPTY = 0L;
+
+    private static final long SEED = 0x9E3779B97F4A7C15L;
+
+    /**
+     * Fingerprints of the conflict keys, {@link #EMPTY} for a free slot.
+     */
+    private final long[] fingerprints;
+
+    /**
+     * Latest position of the conflict key of each slot.
+     */
+    private final long[] addresses;
+
+    private final int mask;
+
+    private final int maxSize;
+
+    private int size = 0;
+
+    /**
+     * Number of keys evicted to make room for new keys.
+     */
+    @Getter
+    private long evictionCount = 0;
+
+    /**
+     * FIFO of updates, a ring buffer of fingerprints and positions.
+     */
+    private final long[] updateFingerprints;
+    private final long[] updateAddresses;
+    private int updateHead = 0;
+    private int updateCount = 0;
+
+    /**
+     * A "wildcard" representing the maximal update timestamp of
+     * all the conflict keys which were removed from the table
+     */
+    @Getter
+    private long maxConflictWildcard = Address.NOT_FOUND;
+
+    /**
+     * The max update timestamp of all the conflict keys which were removed from
+     * the table by the time this server is elected the primary sequencer.
+     */
+    @Getter
+    private long maxConflictNewSequencer = Address.NOT_FOUND;
+
+    /**
+     * Creates a conflict table.
+     *
+     * @param maxSize maximum number of conflict keys
+     */
+    public FingerprintConflictTable(long maxSize) {
+        if (maxSize <= 0 || maxSize > MAX_SIZE) {
+            throw new IllegalArgumentException("Invalid conflict table size " + maxSize);
+        }
+
+        this.maxSize = (int) maxSize;
+        // Keep the table at most 3/4 full
+        int capacity = Integer.highestOneBit((int) (maxSize + maxSize / 3)) << 1;
+        this.fingerprints = new long[capacity];
+        this.addresses = new long[capacity];
+        this.mask = capacity - 1;
+        this.updateFingerprints = new long[this.maxSize];
+        this.updateAddresses = new long[this.maxSize];
+    }
+
+    @Override
+    public long getConflictAddress(UUID streamId, byte[] conflictParam) {
+        return getConflictAddress(fingerprint(streamId, conflictParam));
+    }
+
+    @Override
+    public long getConflictAddress(UUID streamId, long conflictParamFingerprint) {
+        return getConflictAddress(fingerprint(streamId, conflictParamFingerprint));
+    }
+
+    /**
+     * Returns the latest position of a conflict key given its fingerprint. Lookups
+     * don't modify the table, so they can run concurrently with each other.
+     *
+     * @param fingerprint fingerprint of the conflict key
+     * @return the position of the key, or {@link Address#NON_ADDRESS}
+     */
+    public long getConflictAddress(long fingerprint) {
+        int slot = findSlot(fingerprint);
+        return slot < 0 ? Address.NON_ADDRESS : addresses[slot];
+    }
+
+    @Override
+    public void put(UUID streamId, byte[] conflictParam, long address) {
+        put(fingerprint(streamId, conflictParam), address);
+    }
+
+    @Override
+    public void put(UUID streamId, long conflictParamFingerprint, long address) {
+        put(fingerprint(streamId, conflictParamFingerprint), address);
+    }
+
+    /**
+     * Record the position of a conflict key given its fingerprint.
+     *
+     * @param fingerprint fingerprint of the conflict key
+     * @param address     global-log position of the key
+     */
+    public void put(long fingerprint, long address) {
+        // Every key in the table has its latest update in the FIFO, so making room
+        // in the FIFO also makes room in the table
+        if (updateCount == maxSize) {
+            dropOldestUpdate();
+        }
+
+        int slot = homeSlot(fingerprint);
+        while (fingerprints[slot] != EMPTY && fingerprints[slot] != fingerprint) {
+            slot = (slot + 1) & mask;
+        }
+
+        if (fingerprints[slot] == EMPTY) {
+            fingerprints[slot] = fingerprint;
+            addresses[slot] = address;
+            size++;
+        } else {
+            addresses[slot] = Math.max(addresses[slot], address);
+        }
+
+        int tail = (updateHead + updateCount) % maxSize;
+        updateFingerprints[tail] = fingerprint;
+        updateAddresses[tail] = address;
+        updateCount++;
+    }
+
+    @Override
+    public void invalidateUpTo(long trimMark) {
+        log.debug("Invalidate conflict table. Trim mark: {}", trimMark);
+
+        long entries = 0;
+        int slot = 0;
+        while (slot < fingerprints.length) {
+            if (fingerprints[slot] != EMPTY && addresses[slot] < trimMark) {
+                // Removing shifts the following entry of the cluster into this slot
+                remove(slot);
+                entries++;
+            } else {
+                slot++;
+            }
+        }
+
+        log.info("Invalidated entries: {}", entries);
+    }
+
+    @Override
+    public void invalidateAll() {
+        log.info("Invalidate conflict table");
+        for (int slot = 0; slot < fingerprints.length; slot++) {
+            if (fingerprints[slot] != EMPTY) {
+                maxConflictWildcard = Math.max(addresses[slot], maxConflictWildcard);
+            }
+        }
+
+        Arrays.fill(fingerprints, EMPTY);
+        size = 0;
+        updateHead = 0;
+        updateCount = 0;
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public void updateMaxConflictAddress(long newMaxConflictWildcard) {
+        log.info("updateMaxConflictAddress, new address: {}", newMaxConflictWildcard);
+        maxConflictWildcard = newMaxConflictWildcard;
+        maxConflictNewSequencer = newMaxConflictWildcard;
+    }
+
+    /**
+     * Drop the oldest update of the FIFO, and evict its key if it is the latest
+     * update of the key.
+     */
+    private void dropOldestUpdate() {
+        long fingerprint = updateFingerprints[updateHead];
+        long address = updateAddresses[updateHead];
+        updateHead = (updateHead + 1) % maxSize;
+        updateCount--;
+
+        int slot = findSlot(fingerprint);
+        if (slot >= 0 && addresses[slot] == address) {
+            log.trace("Evicting conflict key {}, address {}", fingerprint, address);
+            remove(slot);
+            evictionCount++;
+        }
+    }
+
+    private int findSlot(long fingerprint) {
+        int slot = homeSlot(fingerprint);
+        while (fingerprints[slot] != EMPTY) {
+            if (fingerprints[slot] == fingerprint) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Remove the entry of a slot, raising the wildcard to its position, and shift
+     * back the following entries of its cluster so that lookups don't need tombstones.
+     */
+    private void remove(int slot) {
+        maxConflictWildcard = Math.max(addresses[slot], maxConflictWildcard);
+        size--;
+
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (fingerprints[next] != EMPTY) {
+            int home = homeSlot(fingerprints[next]);
+            // The entry can fill the hole if its home slot isn't cyclically in (hole, next]
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                fingerprints[hole] = fingerprints[next];
+                addresses[hole] = addresses[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        fingerprints[hole] = EMPTY;
+    }
+
+    private int homeSlot(long fingerprint) {
+        return (int) fingerprint & mask;
+    }
+
+    /**
+     * Computes the fingerprint of a conflict key, never {@link #EMPTY}.
+     *
+     * @param streamId      stream of the conflict key
+     * @param conflictParam conflict parameter
+     * @return 64-bit fingerprint
+     */
+    static long fingerprint(UUID streamId, byte[] conflictParam) {
+        long hash = streamHash(streamId);
+
+        int index = 0;
+        while (index + Long.BYTES <= conflictParam.length) {
+            long word = 0;
+            for (int i = 0; i < Long.BYTES; i++) {
+                word = (word << Byte.SIZE) | (conflictParam[index + i] & 0xFF);
+            }
+            hash = mix(hash ^ word);
+            index += Long.BYTES;
+        }
+
+        long word = 0;
+        while (index < conflictParam.length) {
+            word = (word << Byte.SIZE) | (conflictParam[index] & 0xFF);
+            index++;
+        }
+        hash = mix(hash ^ word);
+        hash = mix(hash ^ conflictParam.length);
+
+        return hash == EMPTY ? SEED : hash;
+    }
+
+    /**
+     * Computes the fingerprint of a conflict key given the fingerprint of its conflict
+     * parameter, equal to the fingerprint of the 8 big-endian bytes of the parameter.
+     *
+     * @param streamId                 stream of the conflict key
+     * @param conflictParamFingerprint fingerprint of the conflict parameter
+     * @return 64-bit fingerprint
+     */
+    static long fingerprint(UUID streamId, long conflictParamFingerprint) {
+        long hash = mix(streamHash(streamId) ^ conflictParamFingerprint);
+        // No trailing bytes, then the length
+        hash = mix(hash);
+        hash = mix(hash ^ Long.BYTES);
+
+        return hash == EMPTY ? SEED : hash;
+    }
+
+    private static long streamHash(UUID streamId) {
+        long hash = mix(SEED ^ streamId.getMostSignificantBits());
+        return mix(hash ^ streamId.getLeastSignificantBits());
+    }
+
+    /**
+     * The murmur3 64-bit finalizer.
+     */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,86 @@
+package org.corfudb.infrastructure;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+
+import java.util.function.LongFunction;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.corfudb.protocols.wireprotocol.ILogData;
+import org.corfudb.protocols.wireprotocol.LogData;
+
+/**
+ * A {@link LogUnitDataCache} that keeps the log entries on the Java heap, bounded by
+ * the size of the entries payloads.
+ *
+ * <p>Admission and eviction are left to Caffeine, whose W-TinyLFU policy only admits a
+ * loaded entry over an eviction victim that was accessed less frequently, so a scan
+ * doesn't flush the frequently read entries out of the cache.
+ */
+@Slf4j
+public class HeapLogUnitDataCache implements LogUnitDataCache {
+
+    private final LoadingCache<Long, ILogData> dataCache;
+
+    private final LongFunction<ILogData> loader;
+
+    /**
+     * Returns a new heap cache.
+     *
+     * @param maxSize maximum size in bytes of the cached payloads
+     * @param loader  loads the entry at an address on a miss
+     */
+    public HeapLogUnitDataCache(long maxSize, LongFunction<ILogData> loader) {
+        this.loader = loader;
+        dataCache = Caffeine.newBuilder()
+                .<Long, ILogData>weigher((k, v) -> ((LogData) v).getData() == null ? 1 : ((LogData) v).getData().length)
+                .maximumWeight(maxSize)
+                .removalListener(this::handleEviction)
+                .build(this::load);
+    }
+
+    private ILogData load(long address) {
+        DataCacheMetrics.MISSES.mark();
+        return loader.apply(address);
+    }
+
+    private void handleEviction(long address, ILogData entry, RemovalCause cause) {
+        log.trace("Eviction[{}]: {}", address, cause);
+    }
+
+    @Override
+    public ILogData get(long address, boolean cacheable) {
+        DataCacheMetrics.READS.mark();
+        if (cacheable) {
+            return dataCache.get(address);
+        }
+
+        ILogData entry = dataCache.getIfPresent(address);
+        if (entry != null) {
+            return entry;
+        }
+
+        entry = load(address);
+        if (entry != null) {
+            DataCacheMetrics.NOT_ADMITTED.mark();
+        }
+        return entry;
+    }
+
+    @Override
+    public void put(long address, ILogData entry) {
+        dataCache.put(address, entry);
+    }
+
+    @Override
+    public void invalidateAll() {
+        dataCache.invalidateAll();
+    }
+
+    @Override
+    public long size() {
+        return dataCache.asMap().size();
+    }
+}
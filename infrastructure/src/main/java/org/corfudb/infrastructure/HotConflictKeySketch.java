@@ -0,0 +1,158 @@
+package org.corfudb.infrastructure;
+
+import org.corfudb.infrastructure.SequencerServerCache.ConflictTxStream;
+import org.corfudb.protocols.wireprotocol.HotConflictKeys.HotConflictKey;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * A Space-Saving sketch of the conflict keys that abort transactions, tracking the
+ * heavy hitters among them in bounded memory.
+ *
+ * <p>The sketch keeps a counter per tracked key, at most capacity of them. A key that
+ * isn't tracked when the sketch is full replaces the key with the smallest count, and
+ * inherits that count as its error. The count of a key therefore overestimates its
+ * aborts by at most its error, and any key with more aborts than the smallest count is
+ * tracked. The counters are kept in a min-heap, so that recording an abort costs a hash
+ * lookup and O(log capacity) steps.</p>
+ *
+ * <p>Aborts are recorded by the sequencer thread and by the resolvers, so the sketch is
+ * synchronized.</p>
+ */
+class HotConflictKeySketch {
+
+    private final int capacity;
+
+    private final Map<ConflictTxStream, Entry> entries = new HashMap<>();
+
+    /**
+     * Min-heap of the entries by count.
+     */
+    private final Entry[] heap;
+
+    private int size = 0;
+
+    private static class Entry {
+        private ConflictTxStream key;
+        private UUID streamId;
+        private byte[] conflictKey;
+        private long count;
+        private long error;
+        private int index;
+    }
+
+    /**
+     * Creates a sketch.
+     *
+     * @param capacity maximum number of tracked keys
+     */
+    HotConflictKeySketch(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Invalid hot key sketch capacity " + capacity);
+        }
+        this.capacity = capacity;
+        this.heap = new Entry[capacity];
+    }
+
+    /**
+     * Record an abort caused by a conflict key.
+     *
+     * @param streamId    stream of the conflict key
+     * @param conflictKey conflict key
+     */
+    synchronized void add(UUID streamId, byte[] conflictKey) {
+        ConflictTxStream key = new ConflictTxStream(streamId, conflictKey);
+        Entry entry = entries.get(key);
+        boolean newLeaf = false;
+
+        if (entry == null) {
+            if (size < capacity) {
+                entry = new Entry();
+                entry.index = size;
+                heap[size++] = entry;
+                newLeaf = true;
+            } else {
+                // Replace the key with the smallest count
+                entry = heap[0];
+                entries.remove(entry.key);
+                entry.error = entry.count;
+            }
+            entry.key = key;
+            entry.streamId = streamId;
+            entry.conflictKey = conflictKey;
+            entries.put(key, entry);
+        }
+
+        entry.count++;
+        if (newLeaf) {
+            // A new leaf may be below keys with higher counts
+            siftUp(entry.index);
+        } else {
+            siftDown(entry.index);
+        }
+    }
+
+    /**
+     * Returns the tracked keys with the highest counts.
+     *
+     * @param count maximum number of keys
+     * @return the keys, by decreasing count
+     */
+    synchronized List<HotConflictKey> getTop(int count) {
+        List<Entry> sorted = new ArrayList<>(entries.values());
+        sorted.sort(Comparator.comparingLong((Entry entry) -> entry.count).reversed());
+
+        List<HotConflictKey> top = new ArrayList<>();
+        for (Entry entry : sorted.subList(0, Math.min(count, sorted.size()))) {
+            top.add(new HotConflictKey(entry.streamId, entry.conflictKey, entry.count, entry.error));
+        }
+        return top;
+    }
+
+    /**
+     * Restore the heap order above a new entry.
+     */
+    private void siftUp(int index) {
+        Entry entry = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (heap[parent].count <= entry.count) {
+                break;
+            }
+            heap[index] = heap[parent];
+            heap[index].index = index;
+            index = parent;
+        }
+        heap[index] = entry;
+        entry.index = index;
+    }
+
+    /**
+     * Restore the heap order below an entry whose count increased.
+     */
+    private void siftDown(int index) {
+        Entry entry = heap[index];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1].count < heap[child].count) {
+                child++;
+            }
+            if (entry.count <= heap[child].count) {
+                break;
+            }
+            heap[index] = heap[child];
+            heap[index].index = index;
+            index = child;
+        }
+        heap[index] = entry;
+        entry.index = index;
+    }
+}
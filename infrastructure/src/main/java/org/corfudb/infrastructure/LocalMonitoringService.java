@@ -71,6 +71,8 @@ class LocalMonitoringService implements MonitoringService {
                 .getRuntimeLayout(layout)
                 .getSequencerClient(serverContext.getLocalEndpoint())
                 .requestMetrics()
+                // Only the status is reported in the node state
+                .thenApply(metrics -> SequencerMetrics.ofStatus(metrics.getSequencerStatus()))
                 //Handle possible exceptions and transform to the sequencer status
                 .exceptionally(ex -> {
                     if (ex.getCause() instanceof ServerNotReadyException) {
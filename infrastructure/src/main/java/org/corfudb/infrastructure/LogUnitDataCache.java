@@ -0,0 +1,85 @@
+package org.corfudb.infrastructure;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import org.corfudb.protocols.wireprotocol.ILogData;
+import org.corfudb.protocols.wireprotocol.LogData;
+
+/**
+ * The cache that services the reads of a {@link LogUnitServer}. Entries are keyed by
+ * global address and, on a miss, are loaded from the stream log backing the cache.
+ */
+public interface LogUnitDataCache {
+
+    /**
+     * Returns the entry at an address, the entry is loaded into the cache on a miss
+     * if the admission policy of the cache admits it.
+     *
+     * @param address global address of the entry
+     * @return the entry at the address, or null if the address isn't written
+     */
+    default ILogData get(long address) {
+        return get(address, true);
+    }
+
+    /**
+     * Returns the entry at an address.
+     *
+     * @param address   global address of the entry
+     * @param cacheable whether the entry may be admitted into the cache on a miss, reads
+     *                  that scan the log (e.g. checkpoints) shouldn't evict the working set
+     * @return the entry at the address, or null if the address isn't written
+     */
+    ILogData get(long address, boolean cacheable);
+
+    /**
+     * Returns whether the cache keeps its entries in the {@link LogData} wire format,
+     * i.e. whether {@link #getSerialized(long, boolean)} is served without serializing.
+     *
+     * @return true if the cache supports serialized reads
+     */
+    default boolean isSerialized() {
+        return false;
+    }
+
+    /**
+     * Returns the entry at an address in the {@link LogData} wire format, without
+     * materializing it if the cache {@link #isSerialized()}. By default the entry is
+     * read from the cache and serialized.
+     *
+     * @param address   global address of the entry
+     * @param cacheable whether the entry may be admitted into the cache on a miss
+     * @return a buffer holding the serialized entry which the caller has to release,
+     * or null if the address isn't written
+     */
+    default ByteBuf getSerialized(long address, boolean cacheable) {
+        ILogData entry = get(address, cacheable);
+        if (entry == null) {
+            return null;
+        }
+        ByteBuf buf = Unpooled.buffer();
+        ((LogData) entry).doSerialize(buf);
+        return buf;
+    }
+
+    /**
+     * Adds an entry to the cache, replacing any entry cached at the same address.
+     *
+     * @param address global address of the entry
+     * @param entry   entry to cache
+     */
+    void put(long address, ILogData entry);
+
+    /**
+     * Discards all the entries of the cache.
+     */
+    void invalidateAll();
+
+    /**
+     * Returns the number of entries in the cache.
+     *
+     * @return the number of entries in the cache
+     */
+    long size();
+}
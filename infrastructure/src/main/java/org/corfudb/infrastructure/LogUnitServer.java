@@ -1,25 +1,28 @@
 package org.corfudb.infrastructure;
 
-import com.github.benmanes.caffeine.cache.Caffeine;
-import com.github.benmanes.caffeine.cache.LoadingCache;
-import com.github.benmanes.caffeine.cache.RemovalCause;
 import com.google.common.annotations.VisibleForTesting;
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.corfudb.infrastructure.log.InMemoryStreamLog;
+import org.corfudb.infrastructure.log.RecordCodec;
 import org.corfudb.infrastructure.log.StreamLog;
 import org.corfudb.infrastructure.log.StreamLogCompaction;
 import org.corfudb.infrastructure.log.StreamLogFiles;
+import org.corfudb.infrastructure.log.StreamLogParams;
 import org.corfudb.protocols.wireprotocol.CorfuMsg;
 import org.corfudb.protocols.wireprotocol.CorfuMsgType;
 import org.corfudb.protocols.wireprotocol.CorfuPayloadMsg;
+import org.corfudb.protocols.wireprotocol.DataType;
 import org.corfudb.protocols.wireprotocol.FillHoleRequest;
 import org.corfudb.protocols.wireprotocol.ILogData;
 import org.corfudb.protocols.wireprotocol.LogData;
 import org.corfudb.protocols.wireprotocol.MultipleReadRequest;
 import org.corfudb.protocols.wireprotocol.RangeWriteMsg;
+import org.corfudb.protocols.wireprotocol.RangeReadRequest;
+import org.corfudb.protocols.wireprotocol.RangeReadResponse;
 import org.corfudb.protocols.wireprotocol.ReadRequest;
 import org.corfudb.protocols.wireprotocol.ReadResponse;
 import org.corfudb.protocols.wireprotocol.StreamsAddressResponse;
@@ -39,6 +42,7 @@ import org.corfudb.util.Utils;
 
 import java.lang.invoke.MethodHandles;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletionException;
@@ -86,9 +90,9 @@ public class LogUnitServer extends AbstractServer {
     /**
      * This cache services requests for data at various addresses. In a memory implementation,
      * it is not backed by anything, but in a disk implementation it is backed by persistent
-     * storage.
+     * storage. The cache is kept off-heap when an off-heap cache size is configured.
      */
-    private final LoadingCache<Long, ILogData> dataCache;
+    private final LogUnitDataCache dataCache;
     private final StreamLog streamLog;
     private final StreamLogCompaction logCleaner;
     private final BatchProcessor batchWriter;
@@ -125,16 +129,27 @@ public class LogUnitServer extends AbstractServer {
                     .convertToByteStringRepresentation(config.getMaxCacheSize()));
             streamLog = new InMemoryStreamLog();
         } else {
-            streamLog = new StreamLogFiles(serverContext, config.isNoVerify());
+            streamLog = new StreamLogFiles(serverContext, config.getStreamLogParams());
         }
 
-        batchWriter = new BatchProcessor(streamLog, serverContext.getServerEpoch(), !config.isNoSync());
+        BatchProcessor.Config batchProcessorConfig = config.getBatchProcessorConfig();
+        if (config.isMemoryMode() && batchProcessorConfig.getWriteLanes() > 1) {
+            // The in-memory log serializes its appends, lanes would only add thread hand-offs
+            log.warn("LogUnitServer: ignoring {} write lanes in memory mode",
+                    batchProcessorConfig.getWriteLanes());
+            batchProcessorConfig = batchProcessorConfig.toBuilder().writeLanes(1).build();
+        }
+
+        batchWriter = new BatchProcessor(streamLog, serverContext.getServerEpoch(), !config.isNoSync(),
+                batchProcessorConfig);
 
-        dataCache = Caffeine.newBuilder()
-                .<Long, ILogData>weigher((k, v) -> ((LogData) v).getData() == null ? 1 : ((LogData) v).getData().length)
-                .maximumWeight(config.getMaxCacheSize())
-                .removalListener(this::handleEviction)
-                .build(this::handleRetrieval);
+        if (config.getOffHeapCacheSize() > 0) {
+            log.info("LogUnitServer: using an off-heap cache of {}",
+                    Utils.convertToByteStringRepresentation(config.getOffHeapCacheSize()));
+            dataCache = new OffHeapLogUnitDataCache(config.getOffHeapCacheSize(), this::handleRetrieval);
+        } else {
+            dataCache = new HeapLogUnitDataCache(config.getMaxCacheSize(), this::handleRetrieval);
+        }
 
         logCleaner = new StreamLogCompaction(streamLog, 10, 45, TimeUnit.MINUTES, ServerContext.SHUTDOWN_TIMER);
     }
@@ -289,38 +304,95 @@ public class LogUnitServer extends AbstractServer {
         log.trace("read: {}", msg.getPayload().getAddress());
         ReadResponse rr = new ReadResponse();
         try {
-            ILogData e = dataCache.get(address);
-            if (e == null) {
-                rr.put(address, LogData.getEmpty(address));
-            } else {
-                rr.put(address, (LogData) e);
-            }
-            r.sendResponse(ctx, msg, CorfuMsgType.READ_RESPONSE.payloadMsg(rr));
+            readEntry(rr, address, true);
         } catch (DataCorruptionException e) {
+            rr.release();
             r.sendResponse(ctx, msg, CorfuMsgType.ERROR_DATA_CORRUPTION.msg());
+            return;
         }
+        // The response is released once it is written
+        r.sendResponse(ctx, msg, CorfuMsgType.READ_RESPONSE.payloadMsg(rr));
     }
 
     @ServerHandler(type = CorfuMsgType.MULTIPLE_READ_REQUEST)
     private void multiRead(CorfuPayloadMsg<MultipleReadRequest> msg, ChannelHandlerContext ctx, IServerRouter r) {
-        log.trace("multiRead: {}", msg.getPayload().getAddresses());
+        log.trace("multiRead: {}, cacheable {}", msg.getPayload().getAddresses(), msg.getPayload().isCacheable());
 
         ReadResponse rr = new ReadResponse();
         try {
             for (Long l : msg.getPayload().getAddresses()) {
-                ILogData e = dataCache.get(l);
-                if (e == null) {
-                    rr.put(l, LogData.getEmpty(l));
-                } else {
-                    rr.put(l, (LogData) e);
+                readEntry(rr, l, msg.getPayload().isCacheable());
+            }
+        } catch (DataCorruptionException e) {
+            rr.release();
+            r.sendResponse(ctx, msg, CorfuMsgType.ERROR_DATA_CORRUPTION.msg());
+            return;
+        }
+        // The response is released once it is written
+        r.sendResponse(ctx, msg, CorfuMsgType.READ_RESPONSE.payloadMsg(rr));
+    }
+
+    /**
+     * Service a range read. The range is read sequentially from the stream log, bypassing
+     * the cache so that scans (e.g. state transfer) don't evict the working set of the cache.
+     * The response covers a prefix of the range whose entries fit in the requested number
+     * of bytes, the client requests the rest of the range once it received the response.
+     */
+    @ServerHandler(type = CorfuMsgType.RANGE_READ_REQUEST)
+    private void rangeRead(CorfuPayloadMsg<RangeReadRequest> msg, ChannelHandlerContext ctx, IServerRouter r) {
+        RangeReadRequest request = msg.getPayload();
+        log.trace("rangeRead: [{}-{}], streams {}", request.getStart(), request.getEnd(), request.getStreams());
+
+        Map<Long, LogData> entries = new HashMap<>();
+        long bytes = 0;
+        long address = request.getStart();
+        try {
+            for (; address <= request.getEnd(); address++) {
+                LogData entry = streamLog.read(address);
+                if (entry == null) {
+                    entries.put(address, LogData.getEmpty(address));
+                } else if (request.getStreams().isEmpty() || entry.getType() != DataType.DATA
+                        || !Collections.disjoint(entry.getStreams(), request.getStreams())) {
+                    entries.put(address, entry);
+                    bytes += entry.getData() == null ? 0 : entry.getData().length;
+                }
+
+                if (bytes >= request.getMaxBytes()) {
+                    break;
                 }
             }
-            r.sendResponse(ctx, msg, CorfuMsgType.READ_RESPONSE.payloadMsg(rr));
+
+            long end = Math.min(address, request.getEnd());
+            r.sendResponse(ctx, msg, CorfuMsgType.RANGE_READ_RESPONSE.payloadMsg(new RangeReadResponse(end, entries)));
         } catch (DataCorruptionException e) {
             r.sendResponse(ctx, msg, CorfuMsgType.ERROR_DATA_CORRUPTION.msg());
         }
     }
 
+    /**
+     * Add the entry at an address to a read response. When the cache keeps serialized
+     * entries, the cached bytes are handed to the response as is, so the entry is never
+     * materialized on the log unit.
+     */
+    private void readEntry(ReadResponse rr, long address, boolean cacheable) {
+        if (dataCache.isSerialized()) {
+            ByteBuf e = dataCache.getSerialized(address, cacheable);
+            if (e == null) {
+                rr.put(address, LogData.getEmpty(address));
+            } else {
+                rr.putSerialized(address, e);
+            }
+            return;
+        }
+
+        ILogData e = dataCache.get(address, cacheable);
+        if (e == null) {
+            rr.put(address, LogData.getEmpty(address));
+        } else {
+            rr.put(address, (LogData) e);
+        }
+    }
+
     @ServerHandler(type = CorfuMsgType.COMPACT_REQUEST)
     private void handleCompactRequest(CorfuMsg msg, ChannelHandlerContext ctx, IServerRouter r) {
         log.debug("handleCompactRequest: received a compact request {}", msg);
@@ -413,10 +485,6 @@ public class LogUnitServer extends AbstractServer {
         return entry;
     }
 
-    private void handleEviction(long address, ILogData entry, RemovalCause cause) {
-        log.trace("Eviction[{}]: {}", address, cause);
-    }
-
     /**
      * Shutdown the server.
      */
@@ -428,7 +496,7 @@ public class LogUnitServer extends AbstractServer {
     }
 
     @VisibleForTesting
-    public LoadingCache<Long, ILogData> getDataCache() {
+    public LogUnitDataCache getDataCache() {
         return dataCache;
     }
 
@@ -464,9 +532,28 @@ public class LogUnitServer extends AbstractServer {
     public static class LogUnitServerConfig {
         private final double cacheSizeHeapRatio;
         private final long maxCacheSize;
+        private final long offHeapCacheSize;
         private final boolean memoryMode;
         private final boolean noVerify;
         private final boolean noSync;
+        private final boolean mmapReads;
+        private final long compactionRate;
+        private final RecordCodec recordCodec;
+        private final BatchProcessor.Config batchProcessorConfig;
+
+        /**
+         * Returns the parameters of the file based stream log derived from this configuration.
+         *
+         * @return stream log parameters
+         */
+        public StreamLogParams getStreamLogParams() {
+            return StreamLogParams.builder()
+                    .verifyChecksum(!noVerify)
+                    .mmapReads(mmapReads)
+                    .compactionRate(compactionRate)
+                    .recordCodec(recordCodec)
+                    .build();
+        }
 
         /**
          * Parse legacy configuration options
@@ -476,13 +563,34 @@ public class LogUnitServer extends AbstractServer {
          */
         public static LogUnitServerConfig parse(Map<String, Object> opts) {
             double cacheSizeHeapRatio = Double.parseDouble((String) opts.get("--cache-heap-ratio"));
+            int writeLanes = (int) Utils.parseLong(opts.getOrDefault("--write-lanes",
+                    BatchProcessor.Config.DEFAULT_WRITE_LANES));
+            if (writeLanes < 1) {
+                throw new IllegalArgumentException("The number of write lanes must be positive, got "
+                        + writeLanes);
+            }
 
             return LogUnitServerConfig.builder()
                     .cacheSizeHeapRatio(cacheSizeHeapRatio)
                     .maxCacheSize((long) (Runtime.getRuntime().maxMemory() * cacheSizeHeapRatio))
+                    .offHeapCacheSize(Utils.parseLong(opts.getOrDefault("--off-heap-cache-size", 0L)))
                     .memoryMode(Boolean.valueOf(opts.get("--memory").toString()))
                     .noVerify((Boolean) opts.get("--no-verify"))
                     .noSync((Boolean) opts.get("--no-sync"))
+                    .mmapReads((Boolean) opts.getOrDefault("--mmap-reads", false))
+                    .compactionRate(Utils.parseLong(opts.getOrDefault("--compaction-rate",
+                            StreamLogParams.DEFAULT_COMPACTION_RATE)))
+                    .recordCodec(RecordCodec.valueOf(opts.getOrDefault("--log-compression", "none")
+                            .toString().toUpperCase()))
+                    .batchProcessorConfig(BatchProcessor.Config.builder()
+                            .maxGroupSize((int) Utils.parseLong(opts.getOrDefault("--write-group-size",
+                                    BatchProcessor.Config.DEFAULT_MAX_GROUP_SIZE)))
+                            .maxGroupBytes(Utils.parseLong(opts.getOrDefault("--write-group-bytes",
+                                    BatchProcessor.Config.DEFAULT_MAX_GROUP_BYTES)))
+                            .latencyBudgetMicros(Utils.parseLong(opts.getOrDefault("--write-group-latency",
+                                    BatchProcessor.Config.DEFAULT_LATENCY_BUDGET_MICROS)))
+                            .writeLanes(writeLanes)
+                            .build())
                     .build();
         }
     }
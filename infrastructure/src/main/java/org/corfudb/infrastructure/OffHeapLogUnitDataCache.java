@@ -0,0 +1,340 @@
+package org.corfudb.infrastructure;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongFunction;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.corfudb.protocols.wireprotocol.ILogData;
+import org.corfudb.protocols.wireprotocol.LogData;
+
+/**
+ * A {@link LogUnitDataCache} that keeps the serialized log entries in pooled direct
+ * memory, off the Java heap, bounded by the size of the serialized entries.
+ *
+ * <p>Entries are indexed by a primitive open addressing hash table (linear probing with
+ * backward shift deletion), so the cache doesn't allocate boxed keys or map nodes per
+ * entry. The entries are evicted with the CLOCK algorithm, i.e. an entry that was read
+ * since the clock hand last passed it is given a second chance. A {@link LogData} is
+ * only materialized when serving a read, and not at all for serialized reads, which
+ * hand the cached bytes to the read response.
+ *
+ * <p>Written entries are always cached, but a loaded entry is only admitted when its
+ * address missed recently, which is tracked by a small table of missed addresses. An
+ * address that is read once, e.g. by a checkpoint scanning the log, is therefore never
+ * admitted and doesn't evict the working set of the cache.
+ *
+ * <p>Concurrent misses on the same address may load the entry more than once, which
+ * is harmless since log entries are immutable once written.
+ */
+@Slf4j
+public class OffHeapLogUnitDataCache implements LogUnitDataCache {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private static final int RECENT_MISSES_SIZE = 4096;
+
+    private final long maxBytes;
+
+    private final LongFunction<ILogData> loader;
+
+    private final ByteBufAllocator allocator = PooledByteBufAllocator.DEFAULT;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // A slot is empty when its value is null
+    private long[] keys;
+    private ByteBuf[] values;
+    private boolean[] referenced;
+
+    private int count;
+    private long bytes;
+    private int clockHand;
+
+    // Recently missed addresses plus one, indexed by hash, zero marks an empty slot.
+    // Racing misses may overwrite each other, which only delays an admission.
+    private final long[] recentMisses = new long[RECENT_MISSES_SIZE];
+
+    /**
+     * Returns a new off-heap cache.
+     *
+     * @param maxBytes maximum size in bytes of the serialized entries
+     * @param loader   loads the entry at an address on a miss
+     */
+    public OffHeapLogUnitDataCache(long maxBytes, LongFunction<ILogData> loader) {
+        this.maxBytes = maxBytes;
+        this.loader = loader;
+        reset(INITIAL_CAPACITY);
+    }
+
+    @Override
+    public ILogData get(long address, boolean cacheable) {
+        DataCacheMetrics.READS.mark();
+        ByteBuf buf = retain(address);
+        if (buf != null) {
+            try {
+                return new LogData(buf);
+            } finally {
+                buf.release();
+            }
+        }
+
+        DataCacheMetrics.MISSES.mark();
+        ILogData entry = loader.apply(address);
+        if (entry != null) {
+            admit(address, entry, cacheable);
+        }
+        return entry;
+    }
+
+    @Override
+    public boolean isSerialized() {
+        return true;
+    }
+
+    @Override
+    public ByteBuf getSerialized(long address, boolean cacheable) {
+        DataCacheMetrics.READS.mark();
+        ByteBuf buf = retain(address);
+        if (buf != null) {
+            return buf;
+        }
+
+        DataCacheMetrics.MISSES.mark();
+        ILogData entry = loader.apply(address);
+        if (entry == null) {
+            return null;
+        }
+
+        if (admit(address, entry, cacheable)) {
+            buf = retain(address);
+        }
+        if (buf == null) {
+            // The entry wasn't admitted, doesn't fit in the cache or was already evicted
+            buf = serialize(entry);
+        }
+        return buf;
+    }
+
+    /**
+     * Caches a loaded entry if the read allows it and its address missed recently.
+     *
+     * @return true if the entry was put in the cache
+     */
+    private boolean admit(long address, ILogData entry, boolean cacheable) {
+        if (cacheable) {
+            int slot = hash(address) & (RECENT_MISSES_SIZE - 1);
+            if (recentMisses[slot] == address + 1) {
+                recentMisses[slot] = 0;
+                put(address, entry);
+                return true;
+            }
+            recentMisses[slot] = address + 1;
+        }
+        DataCacheMetrics.NOT_ADMITTED.mark();
+        return false;
+    }
+
+    /**
+     * Returns a retained view of the cached bytes of an entry.
+     *
+     * @param address global address of the entry
+     * @return a view the caller has to release, or null if the entry isn't cached
+     */
+    private ByteBuf retain(long address) {
+        lock.readLock().lock();
+        try {
+            int slot = indexOf(address);
+            if (slot < 0) {
+                return null;
+            }
+            // Racing readers set the same flag, no need for a write lock
+            referenced[slot] = true;
+            return values[slot].retainedDuplicate();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private ByteBuf serialize(ILogData entry) {
+        ByteBuf buf = allocator.directBuffer();
+        try {
+            ((LogData) entry).doSerialize(buf);
+        } catch (RuntimeException e) {
+            buf.release();
+            throw e;
+        }
+        return buf;
+    }
+
+    @Override
+    public void put(long address, ILogData entry) {
+        ByteBuf buf = serialize(entry);
+        if (buf.readableBytes() > maxBytes) {
+            log.trace("put: entry {} of {} bytes is larger than the cache", address, buf.readableBytes());
+            buf.release();
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            int slot = indexOf(address);
+            if (slot >= 0) {
+                bytes -= values[slot].readableBytes();
+                values[slot].release();
+                values[slot] = buf;
+            } else {
+                if ((count + 1) * 2 > keys.length) {
+                    resize(keys.length * 2);
+                }
+                insert(address, buf);
+                count++;
+            }
+            bytes += buf.readableBytes();
+            evict();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        lock.writeLock().lock();
+        try {
+            for (ByteBuf value : values) {
+                if (value != null) {
+                    value.release();
+                }
+            }
+            reset(INITIAL_CAPACITY);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public long size() {
+        lock.readLock().lock();
+        try {
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the size in bytes of the serialized entries held by the cache.
+     *
+     * @return the size in bytes of the cached entries
+     */
+    @VisibleForTesting
+    long getBytes() {
+        lock.readLock().lock();
+        try {
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void reset(int capacity) {
+        keys = new long[capacity];
+        values = new ByteBuf[capacity];
+        referenced = new boolean[capacity];
+        count = 0;
+        bytes = 0;
+        clockHand = 0;
+    }
+
+    private static int hash(long address) {
+        long h = address * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private int indexOf(long address) {
+        int mask = keys.length - 1;
+        for (int slot = hash(address) & mask; values[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot] == address) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private void insert(long address, ByteBuf buf) {
+        int mask = keys.length - 1;
+        int slot = hash(address) & mask;
+        while (values[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = address;
+        values[slot] = buf;
+        referenced[slot] = false;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        ByteBuf[] oldValues = values;
+        boolean[] oldReferenced = referenced;
+        int oldCount = count;
+        long oldBytes = bytes;
+
+        reset(capacity);
+        for (int slot = 0; slot < oldValues.length; slot++) {
+            if (oldValues[slot] != null) {
+                insert(oldKeys[slot], oldValues[slot]);
+                referenced[indexOf(oldKeys[slot])] = oldReferenced[slot];
+            }
+        }
+        count = oldCount;
+        bytes = oldBytes;
+    }
+
+    /**
+     * Evict entries until the cache fits its size bound.
+     */
+    private void evict() {
+        int mask = keys.length - 1;
+        while (bytes > maxBytes && count > 0) {
+            int slot = clockHand;
+            if (values[slot] == null) {
+                clockHand = (clockHand + 1) & mask;
+            } else if (referenced[slot]) {
+                referenced[slot] = false;
+                clockHand = (clockHand + 1) & mask;
+            } else {
+                log.trace("evict: evicting {}", keys[slot]);
+                // The slot may be refilled by a shifted entry, which is examined next
+                removeAt(slot);
+            }
+        }
+    }
+
+    private void removeAt(int slot) {
+        bytes -= values[slot].readableBytes();
+        values[slot].release();
+        count--;
+
+        // Shift back the following entries of the probe sequence that can fill the gap
+        int mask = keys.length - 1;
+        int gap = slot;
+        for (int next = (gap + 1) & mask; values[next] != null; next = (next + 1) & mask) {
+            int ideal = hash(keys[next]) & mask;
+            if (((next - ideal) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                referenced[gap] = referenced[next];
+                gap = next;
+            }
+        }
+        values[gap] = null;
+        referenced[gap] = false;
+    }
+}
@@ -0,0 +1,146 @@
+package org.corfudb.infrastructure;
+
+import org.corfudb.util.Utils;
+
+import java.util.UUID;
+
+/**
+ * The transaction conflict-resolution table of the sequencer: the latest global-log
+ * position of recently written conflict keys, and a "wildcard" bounding the positions
+ * of the keys that are no longer in the table.
+ * <p>
+ * A key removed from the table, whatever the reason, must raise the wildcard to its
+ * position atomically with its removal, otherwise the sequencer could let a conflicting
+ * transaction commit.
+ * <p>
+ * Implementations are updated by the sequencer thread only. With resolver threads, the
+ * sequencer updates the table under the write lock of its state while the resolvers look
+ * keys up under the read lock, so lookups must not modify the table; only the fingerprint
+ * table is used with resolver threads.
+ */
+public interface SequencerConflictTable {
+
+    /**
+     * Returns the latest global-log position of a conflict key.
+     *
+     * @param streamId      stream of the conflict key
+     * @param conflictParam conflict parameter
+     * @return the position of the key, or {@link org.corfudb.runtime.view.Address#NON_ADDRESS}
+     * if the key isn't in the table
+     */
+    long getConflictAddress(UUID streamId, byte[] conflictParam);
+
+    /**
+     * Record the global-log position of a conflict key.
+     *
+     * @param streamId      stream of the conflict key
+     * @param conflictParam conflict parameter
+     * @param address       global-log position of the key
+     */
+    void put(UUID streamId, byte[] conflictParam, long address);
+
+    /**
+     * Returns the latest global-log position of a conflict key given the fingerprint of its
+     * conflict parameter, which stands for the 8 big-endian bytes of the fingerprint.
+     *
+     * @param streamId                 stream of the conflict key
+     * @param conflictParamFingerprint fingerprint of the conflict parameter
+     * @return the position of the key, or {@link org.corfudb.runtime.view.Address#NON_ADDRESS}
+     * if the key isn't in the table
+     */
+    default long getConflictAddress(UUID streamId, long conflictParamFingerprint) {
+        return getConflictAddress(streamId, Utils.longToBigEndianByteArray(conflictParamFingerprint));
+    }
+
+    /**
+     * Record the global-log position of a conflict key given the fingerprint of its
+     * conflict parameter.
+     *
+     * @param streamId                 stream of the conflict key
+     * @param conflictParamFingerprint fingerprint of the conflict parameter
+     * @param address                  global-log position of the key
+     */
+    default void put(UUID streamId, long conflictParamFingerprint, long address) {
+        put(streamId, Utils.longToBigEndianByteArray(conflictParamFingerprint), address);
+    }
+
+    /**
+     * Invalidate all records up to a trim mark.
+     *
+     * @param trimMark trim mark
+     */
+    void invalidateUpTo(long trimMark);
+
+    /**
+     * Discard all entries in the table.
+     */
+    void invalidateAll();
+
+    /**
+     * The number of entries in the table.
+     *
+     * @return table size
+     */
+    long size();
+
+    /**
+     * The number of conflict keys evicted from the table to make room for new keys,
+     * since the table was created. Keys removed by trimming aren't counted.
+     *
+     * @return eviction count
+     */
+    long getEvictionCount();
+
+    /**
+     * The maximal position of the conflict keys removed from the table.
+     *
+     * @return max conflict wildcard
+     */
+    long getMaxConflictWildcard();
+
+    /**
+     * The maximal position of the conflict keys removed from the table by the time
+     * this server was elected the primary sequencer.
+     *
+     * @return max conflict wildcard when the sequencer was bootstrapped
+     */
+    long getMaxConflictNewSequencer();
+
+    /**
+     * Update max conflict wildcard by a new address
+     *
+     * @param newMaxConflictWildcard new conflict wildcard
+     */
+    void updateMaxConflictAddress(long newMaxConflictWildcard);
+
+    /**
+     * Conflict table implementations.
+     */
+    enum Type {
+        /**
+         * {@link SequencerServerCache}, a Caffeine cache of conflict keys.
+         */
+        CACHE,
+
+        /**
+         * {@link FingerprintConflictTable}, primitive arrays of 64-bit key fingerprints.
+         */
+        FINGERPRINT;
+
+        /**
+         * Creates a conflict table of this type.
+         *
+         * @param size maximum number of conflict keys
+         * @return a new conflict table
+         */
+        public SequencerConflictTable create(long size) {
+            switch (this) {
+                case FINGERPRINT:
+                    return new FingerprintConflictTable(size);
+                case CACHE:
+                default:
+                    return new SequencerServerCache(size);
+            }
+        }
+    }
+}
@@ -1,5 +1,10 @@
 package org.corfudb.infrastructure;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Snapshot;
 import com.codahale.metrics.Timer;
 import com.google.common.collect.ImmutableMap;
 import io.netty.channel.ChannelHandlerContext;
@@ -14,13 +19,18 @@ import org.corfudb.protocols.wireprotocol.StreamAddressRange;
 import org.corfudb.protocols.wireprotocol.StreamsAddressRequest;
 import org.corfudb.protocols.wireprotocol.StreamsAddressResponse;
 import org.roaringbitmap.longlong.Roaring64NavigableMap;
-import org.corfudb.infrastructure.SequencerServerCache.ConflictTxStream;
 import org.corfudb.protocols.wireprotocol.CorfuMsg;
 import org.corfudb.protocols.wireprotocol.CorfuMsgType;
 import org.corfudb.protocols.wireprotocol.CorfuPayloadMsg;
+import org.corfudb.protocols.wireprotocol.ExceptionMsg;
+import org.corfudb.protocols.wireprotocol.HotConflictKeys;
 import org.corfudb.protocols.wireprotocol.SequencerMetrics;
+import org.corfudb.protocols.wireprotocol.SequencerMetrics.Distribution;
 import org.corfudb.protocols.wireprotocol.SequencerMetrics.SequencerStatus;
+import org.corfudb.protocols.wireprotocol.SequencerAddressSpaceChunkMsg;
 import org.corfudb.protocols.wireprotocol.SequencerRecoveryMsg;
+import org.corfudb.protocols.wireprotocol.SequencerStandbyMsg;
+import org.corfudb.protocols.wireprotocol.SequencerTailsRecoveryMsg;
 import org.corfudb.protocols.wireprotocol.Token;
 import org.corfudb.protocols.wireprotocol.TokenRequest;
 import org.corfudb.protocols.wireprotocol.TokenResponse;
@@ -32,16 +42,29 @@ import org.corfudb.util.CorfuComponent;
 import org.corfudb.util.MetricsUtils;
 import org.corfudb.util.Utils;
 
+import java.io.UncheckedIOException;
 import java.lang.invoke.MethodHandles;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * This server implements the sequencer functionality of Corfu.
@@ -79,6 +102,16 @@ import java.util.concurrent.Executors;
  * commits, the sequencer updates the tails of all the streams and the cache
  * of conflict parameters.
  *
+ * <p>Conflict resolution can be parallelized with resolver threads, see
+ * {@link #resolveTxToken}.
+ *
+ * <p>Besides the timers of the token requests, the sequencer measures how long the
+ * requests wait in its queue, counts the requests by the type of their response and the
+ * lookups of the conflict table, and records the conflict-set sizes of the transactions.
+ * These metrics are exposed through the metrics registry and in the response to
+ * SEQUENCER_METRICS_REQUEST. The conflict keys that abort the most transactions are
+ * tracked by a sketch, and reported in the response to SEQUENCER_HOT_KEYS_REQUEST.
+ *
  * <p>Created by mwei on 12/8/15.
  */
 @Slf4j
@@ -108,13 +141,107 @@ public class SequencerServer extends AbstractServer {
      * Per streams map and their corresponding address space (an address space is defined by the stream's addresses
      *  and its latest trim mark)
      */
-    private Map<UUID, StreamAddressSpace> streamsAddressMap = new HashMap<>();
+    private final StreamAddressSpaceStore streamsAddressMap;
+
+    /**
+     * False while the address maps of a chunked bootstrap are being loaded, see
+     * {@link #resetServerTails}.
+     */
+    private boolean addressSpaceLoaded = true;
+
+    /**
+     * Streams address requests received while the address maps are being loaded,
+     * answered once they are loaded.
+     */
+    private final List<Runnable> pendingAddressRequests = new ArrayList<>();
+
+    /**
+     * Number of steps of the current chunked bootstrap (the tails reset and each chunk)
+     * the sequencer went through, to tell whether the load progressed since a check.
+     */
+    private long addressSpaceLoadProgress = 0;
+
+    /**
+     * Time without progress after which the load of the address maps is considered failed.
+     */
+    private final long addressSpaceLoadTimeoutMs;
+
+    /**
+     * Checks that the load of the address maps is progressing, see
+     * {@link #checkAddressSpaceLoad}.
+     */
+    private final ScheduledExecutorService addressSpaceLoadWatchdog;
+
+    private ScheduledFuture<?> addressSpaceLoadCheck;
+
+    private static final String ADDRESS_MAP_SPILL_DIRECTORY = "sequencer-address-maps";
+
+    private static final int STANDBY_BATCH_SIZE = 100_000;
+
+    private static final long STANDBY_FLUSH_INTERVAL_MS = 100;
+
+    private static final int HOT_CONFLICT_KEYS = 1024;
+
+    /**
+     * Replicates the conflict-key updates to the standby sequencers when this sequencer
+     * is the primary, null if standby replication is disabled.
+     */
+    private final SequencerStandbyReplicator standbyReplicator;
+
+    /**
+     * As a standby, the global-log position up to which the conflict-key updates of the
+     * primary were received without gaps, {@link Address#NON_ADDRESS} if the conflict table
+     * isn't warm.
+     */
+    private long standbyTail = Address.NON_ADDRESS;
+
+    /**
+     * Streams written after the last update received as a standby, when this sequencer was
+     * promoted with a warm conflict table. Their conflict keys are unknown up to their tails.
+     */
+    private Map<UUID, Long> streamConflictWildcards = new HashMap<>();
 
     /**
      * A map to cache the name of timers to avoid creating timer names on each call.
      */
     private final Map<Byte, String> timerNameCache = new HashMap<>();
 
+    private static final String METRIC_PREFIX = CorfuComponent.INFRA_SEQUENCER.toString();
+
+    private static final String QUEUE_WAIT = "queue-wait";
+    private static final String RESOLVER_QUEUE_WAIT = "resolver-queue-wait";
+    private static final String CONFLICT_SET_SIZE = "tx-conflict-set-size";
+
+    /**
+     * Time spent by the requests in the queue of the sequencer thread.
+     */
+    private final Timer queueWait = ServerContext.getMetrics().timer(METRIC_PREFIX + QUEUE_WAIT);
+
+    /**
+     * Time spent by the transactions in the queue of the resolver threads.
+     */
+    private final Timer resolverQueueWait = ServerContext.getMetrics().timer(METRIC_PREFIX + RESOLVER_QUEUE_WAIT);
+
+    /**
+     * Number of conflict keys (or streams without conflict keys) in the conflict set of
+     * the transactions.
+     */
+    private final Histogram conflictSetSizes = ServerContext.getMetrics().histogram(METRIC_PREFIX + CONFLICT_SET_SIZE);
+
+    /**
+     * Token requests served, by the type of their response. Unlike the timers, the counters
+     * are always updated, they are reported in the metrics response.
+     */
+    private final Map<TokenType, Counter> tokenCounters = new EnumMap<>(TokenType.class);
+
+    private final Counter conflictLookups = ServerContext.getMetrics().counter(METRIC_PREFIX + "conflict-lookups");
+    private final Counter conflictHits = ServerContext.getMetrics().counter(METRIC_PREFIX + "conflict-hits");
+
+    /**
+     * The conflict keys that aborted transactions.
+     */
+    private final HotConflictKeySketch hotConflictKeys = new HotConflictKeySketch(HOT_CONFLICT_KEYS);
+
     /**
      * Handler for this server.
      */
@@ -122,7 +249,29 @@ public class SequencerServer extends AbstractServer {
     private final CorfuMsgHandler handler = CorfuMsgHandler.generateHandler(MethodHandles.lookup(), this);
 
     @Getter
-    private final SequencerServerCache cache;
+    private final SequencerConflictTable cache;
+
+    /**
+     * The conflict table when conflict resolution is parallel, null otherwise.
+     */
+    private final FingerprintConflictTable fingerprintTable;
+
+    /**
+     * Lookups of {@link #txnCanCommit} in the conflict table.
+     */
+    private final ConflictLookup cacheLookup;
+
+    /**
+     * Resolver threads, partitioned by stream, resolving transactions in parallel.
+     * Empty if transactions are resolved by the sequencer thread.
+     */
+    private final List<ExecutorService> resolvers = new ArrayList<>();
+
+    /**
+     * Guards the state read by the resolvers (stream tails, conflict table, trim mark
+     * and epochs) against the handlers, only used when there are resolvers.
+     */
+    private final ReadWriteLock stateLock = new ReentrantReadWriteLock();
 
     @Getter
     @Setter
@@ -148,16 +297,59 @@ public class SequencerServer extends AbstractServer {
         this.serverContext = serverContext;
         Config config = Config.parse(serverContext.getServerConfig());
 
-        // Sequencer server is single threaded by current design
-        this.executor = Executors.newSingleThreadExecutor(
-                new ServerThreadFactory("sequencer-", new ServerThreadFactory.ExceptionHandler()));
-
+        // The handlers run on this thread. With resolver threads, they update the state
+        // under the write lock of stateLock, while the resolvers read it under its read lock
+        this.executor = newQueueTimedExecutor("sequencer-", queueWait);
+        this.addressSpaceLoadWatchdog = Executors.newSingleThreadScheduledExecutor(
+                new ServerThreadFactory("sequencer-load-watchdog-", new ServerThreadFactory.ExceptionHandler()));
+        this.addressSpaceLoadTimeoutMs = config.getAddressSpaceLoadTimeout();
 
         globalLogTail = config.getInitialToken();
 
-        this.cache = new SequencerServerCache(config.getCacheSize());
+        if (config.getResolverThreads() > 0) {
+            // Config.parse only allows the fingerprint table with resolver threads
+            this.fingerprintTable = new FingerprintConflictTable(config.getCacheSize());
+            this.cache = fingerprintTable;
+            for (int i = 0; i < config.getResolverThreads(); i++) {
+                resolvers.add(newQueueTimedExecutor("sequencer-resolver-" + i + "-", resolverQueueWait));
+            }
+        } else {
+            this.fingerprintTable = null;
+            this.cache = config.getConflictTable().create(config.getCacheSize());
+        }
+        this.cacheLookup = (streamId, conflictParam, fingerprint) -> conflictParam != null
+                ? cache.getConflictAddress(streamId, conflictParam)
+                : cache.getConflictAddress(streamId, fingerprint);
+
+        this.streamsAddressMap = new StreamAddressSpaceStore(config.getAddressMapStreams(),
+                getAddressMapSpillDirectory(config));
+
+        this.standbyReplicator = config.isStandby()
+                ? new SequencerStandbyReplicator(serverContext, STANDBY_BATCH_SIZE, STANDBY_FLUSH_INTERVAL_MS)
+                : null;
 
         setUpTimerNameCache();
+        setUpMetrics();
+    }
+
+    /**
+     * Returns a single-thread executor timing how long its tasks wait in its queue.
+     *
+     * @param threadPrefix prefix of the name of the thread
+     * @param queueWait    timer of the queue wait
+     */
+    private static ExecutorService newQueueTimedExecutor(String threadPrefix, Timer queueWait) {
+        return new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                new ServerThreadFactory(threadPrefix, new ServerThreadFactory.ExceptionHandler())) {
+            @Override
+            public void execute(Runnable command) {
+                Timer.Context context = MetricsUtils.getConditionalContext(queueWait);
+                super.execute(() -> {
+                    MetricsUtils.stopConditionalContext(context);
+                    command.run();
+                });
+            }
+        };
     }
 
     @Override
@@ -167,7 +359,9 @@ public class SequencerServer extends AbstractServer {
         }
 
         if ((sequencerEpoch != serverContext.getServerEpoch())
-                && (!msg.getMsgType().equals(CorfuMsgType.BOOTSTRAP_SEQUENCER))) {
+                && (!msg.getMsgType().equals(CorfuMsgType.BOOTSTRAP_SEQUENCER))
+                && (!msg.getMsgType().equals(CorfuMsgType.BOOTSTRAP_SEQUENCER_TAILS))
+                && (!msg.getMsgType().equals(CorfuMsgType.SEQUENCER_STANDBY_UPDATE))) {
             log.warn("Rejecting msg at sequencer : sequencerStateEpoch:{}, serverEpoch:{}, "
                     + "msg:{}", sequencerEpoch, serverContext.getServerEpoch(), msg);
             return false;
@@ -182,7 +376,26 @@ public class SequencerServer extends AbstractServer {
 
     @Override
     public List<ExecutorService> getExecutors() {
-        return Collections.singletonList(executor);
+        List<ExecutorService> executors = new ArrayList<>(resolvers);
+        executors.add(executor);
+        return executors;
+    }
+
+    @Override
+    public void handleMessage(CorfuMsg msg, ChannelHandlerContext ctx, IServerRouter r) {
+        if (resolvers.isEmpty()) {
+            super.handleMessage(msg, ctx, r);
+            return;
+        }
+
+        // The handlers update the state read by the resolvers
+        Lock lock = stateLock.writeLock();
+        lock.lock();
+        try {
+            super.handleMessage(msg, ctx, r);
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -195,6 +408,22 @@ public class SequencerServer extends AbstractServer {
         timerNameCache.put(TokenRequest.TK_TX, CorfuComponent.INFRA_SEQUENCER + "tx-token");
     }
 
+    /**
+     * Set up the token counters, and the gauges of the conflict table. The gauges are
+     * replaced if they were registered by a previous sequencer of this process.
+     */
+    private void setUpMetrics() {
+        MetricRegistry metrics = ServerContext.getMetrics();
+        for (TokenType tokenType : TokenType.values()) {
+            tokenCounters.put(tokenType, metrics.counter(METRIC_PREFIX + "token." + tokenType.name().toLowerCase()));
+        }
+
+        metrics.remove(METRIC_PREFIX + "conflict-table.size");
+        metrics.register(METRIC_PREFIX + "conflict-table.size", (Gauge<Long>) cache::size);
+        metrics.remove(METRIC_PREFIX + "conflict-table.evictions");
+        metrics.register(METRIC_PREFIX + "conflict-table.evictions", (Gauge<Long>) cache::getEvictionCount);
+    }
+
     /**
      * Checks if an epoch is within a consecutive closed range
      * [{@link this#epochRangeLowerBound}, {@link this#sequencerEpoch}].
@@ -218,9 +447,12 @@ public class SequencerServer extends AbstractServer {
      *               - conflictSet: conflict set of the txn.
      *               if any conflict-param (or stream, if empty) in this set has a later
      *               timestamp than the snapshot, abort
+     * @param lookup the lookup of conflict-params in the conflict table
+     * @param lookupCount counts the lookups in the conflict table, for the caller to record
      * @return an instance of transaction resolution response
      */
-    private TxResolutionResponse txnCanCommit(TxResolutionInfo txInfo) {
+    private TxResolutionResponse txnCanCommit(TxResolutionInfo txInfo, ConflictLookup lookup,
+                                              ConflictLookupCount lookupCount) {
         log.trace("Commit-req[{}]", txInfo);
         final Token txSnapshotTimestamp = txInfo.getSnapshotTimestamp();
 
@@ -240,64 +472,159 @@ public class SequencerServer extends AbstractServer {
             return new TxResolutionResponse(TokenType.TX_ABORT_SEQ_TRIM);
         }
 
-        for (Map.Entry<UUID, Set<byte[]>> conflictStream : txInfo.getConflictSet().entrySet()) {
-
-            // if conflict-parameters are present, check for conflict based on conflict-parameter
-            // updates
-            Set<byte[]> conflictParamSet = conflictStream.getValue();
-            //check for conflict based on streams updates
-            if (conflictParamSet == null || conflictParamSet.isEmpty()) {
+        if (txInfo.hasFingerprints()) {
+            for (Map.Entry<UUID, long[]> conflictStream : txInfo.getConflictFingerprints().entrySet()) {
                 UUID streamId = conflictStream.getKey();
-                Long sequence = streamTailToGlobalTailMap.get(streamId);
-                if (sequence != null && sequence > txSnapshotTimestamp.getSequence()) {
-                    log.debug("ABORT[{}] conflict-stream[{}](ts={})", txInfo, Utils.toReadableId(streamId), sequence);
-                    return new TxResolutionResponse(TokenType.TX_ABORT_CONFLICT);
+                long[] fingerprints = conflictStream.getValue();
+                TxResolutionResponse response = checkConflictStream(txInfo, streamId, fingerprints.length == 0);
+                if (response != null) {
+                    return response;
                 }
+
+                for (long fingerprint : fingerprints) {
+                    long keyAddress = lookup.getConflictAddress(streamId, null, fingerprint);
+                    lookupCount.add(keyAddress);
+                    response = checkConflictKey(txInfo, streamId, keyAddress, null, fingerprint);
+                    if (response != null) {
+                        return response;
+                    }
+                }
+            }
+
+            return new TxResolutionResponse(TokenType.NORMAL);
+        }
+
+        for (Map.Entry<UUID, Set<byte[]>> conflictStream : txInfo.getConflictSet().entrySet()) {
+            UUID streamId = conflictStream.getKey();
+            Set<byte[]> conflictParamSet = conflictStream.getValue();
+            boolean streamConflict = conflictParamSet == null || conflictParamSet.isEmpty();
+            TxResolutionResponse response = checkConflictStream(txInfo, streamId, streamConflict);
+            if (response != null) {
+                return response;
+            }
+            if (streamConflict) {
                 continue;
             }
 
             // for each key pair, check for conflict; if not present, check against the wildcard
             for (byte[] conflictParam : conflictParamSet) {
+                long keyAddress = lookup.getConflictAddress(streamId, conflictParam, 0L);
+                lookupCount.add(keyAddress);
+                response = checkConflictKey(txInfo, streamId, keyAddress, conflictParam, 0L);
+                if (response != null) {
+                    return response;
+                }
+            }
+        }
 
-                Long keyAddress = cache.getIfPresent(new ConflictTxStream(conflictStream.getKey(), conflictParam));
+        return new TxResolutionResponse(TokenType.NORMAL);
+    }
 
-                log.trace("Commit-ck[{}] conflict-key[{}](ts={})", txInfo, conflictParam, keyAddress);
+    private void recordConflictLookups(ConflictLookupCount lookupCount) {
+        conflictLookups.inc(lookupCount.lookups);
+        conflictHits.inc(lookupCount.hits);
+    }
 
-                if (keyAddress != null && keyAddress > txSnapshotTimestamp.getSequence()) {
-                    log.debug("ABORT[{}] conflict-key[{}](ts={})", txInfo, conflictParam, keyAddress);
-                    return new TxResolutionResponse(
-                            TokenType.TX_ABORT_CONFLICT,
-                            keyAddress,
-                            conflictParam,
-                            conflictStream.getKey()
-                    );
-                }
+    /**
+     * The lookups of a transaction in the conflict table, and how many found their key.
+     */
+    private static final class ConflictLookupCount {
+        private long lookups = 0L;
+        private long hits = 0L;
+
+        void add(long keyAddress) {
+            lookups++;
+            if (keyAddress != Address.NON_ADDRESS) {
+                hits++;
+            }
+        }
+    }
 
-                // The maxConflictNewSequencer is modified whenever a server is elected
-                // as the 'new' sequencer, we immediately set its value to the max timestamp
-                // evicted from the cache at that time. If a txSnapshotTimestamp falls
-                // under this threshold we can report that the cause of abort is due to
-                // a NEW_SEQUENCER (not able to hold these in its cache).
-                long maxConflictNewSequencer = cache.getMaxConflictNewSequencer();
-                if (txSnapshotTimestamp.getSequence() < maxConflictNewSequencer) {
-                    log.debug("ABORT[{}] snapshot-ts[{}] WILDCARD New Sequencer ts=[{}]",
-                            txInfo, txSnapshotTimestamp, maxConflictNewSequencer);
-                    return new TxResolutionResponse(TokenType.TX_ABORT_NEWSEQ);
-                }
+    /**
+     * Check a stream of the conflict set of a transaction, before its conflict-params.
+     *
+     * @param txInfo         info provided by corfuRuntime for conflict resolution
+     * @param streamId       stream of the conflict set
+     * @param streamConflict whether the transaction conflicts with any update of the stream,
+     *                       i.e. the stream has no conflict-params
+     * @return the abort response, or null if the transaction may commit
+     */
+    private TxResolutionResponse checkConflictStream(TxResolutionInfo txInfo, UUID streamId,
+                                                     boolean streamConflict) {
+        final Token txSnapshotTimestamp = txInfo.getSnapshotTimestamp();
 
-                // If the txSnapshotTimestamp did not fall under the new sequencer threshold
-                // but it does fall under the latest evicted timestamp we report the cause of
-                // abort as SEQUENCER_OVERFLOW
-                long maxConflictWildcard = cache.getMaxConflictWildcard();
-                if (txSnapshotTimestamp.getSequence() < maxConflictWildcard) {
-                    log.debug("ABORT[{}] snapshot-ts[{}] WILDCARD ts=[{}]",
-                            txInfo, txSnapshotTimestamp, maxConflictWildcard);
-                    return new TxResolutionResponse(TokenType.TX_ABORT_SEQ_OVERFLOW);
-                }
+        //check for conflict based on streams updates
+        if (streamConflict) {
+            Long sequence = streamTailToGlobalTailMap.get(streamId);
+            if (sequence != null && sequence > txSnapshotTimestamp.getSequence()) {
+                log.debug("ABORT[{}] conflict-stream[{}](ts={})", txInfo, Utils.toReadableId(streamId), sequence);
+                return new TxResolutionResponse(TokenType.TX_ABORT_CONFLICT);
             }
+            return null;
         }
 
-        return new TxResolutionResponse(TokenType.NORMAL);
+        // keys of streams written after the last standby update can't be checked
+        Long streamWildcard = streamConflictWildcards.get(streamId);
+        if (streamWildcard != null && txSnapshotTimestamp.getSequence() < streamWildcard) {
+            log.debug("ABORT[{}] snapshot-ts[{}] stream WILDCARD New Sequencer ts=[{}]",
+                    txInfo, txSnapshotTimestamp, streamWildcard);
+            return new TxResolutionResponse(TokenType.TX_ABORT_NEWSEQ);
+        }
+        return null;
+    }
+
+    /**
+     * Check a conflict-param of a transaction, given as a byte array or as a fingerprint.
+     *
+     * @param txInfo        info provided by corfuRuntime for conflict resolution
+     * @param streamId      stream of the conflict-param
+     * @param keyAddress    position of the conflict-param in the conflict table
+     * @param conflictParam the conflict-param, or null if given as a fingerprint
+     * @param fingerprint   the fingerprint of the conflict-param
+     * @return the abort response, or null if the transaction may commit
+     */
+    private TxResolutionResponse checkConflictKey(TxResolutionInfo txInfo, UUID streamId, long keyAddress,
+                                                  byte[] conflictParam, long fingerprint) {
+        final Token txSnapshotTimestamp = txInfo.getSnapshotTimestamp();
+
+        if (log.isTraceEnabled()) {
+            log.trace("Commit-ck[{}] conflict-key[{}](ts={})", txInfo,
+                    conflictParam != null ? conflictParam : fingerprint, keyAddress);
+        }
+
+        if (keyAddress > txSnapshotTimestamp.getSequence()) {
+            byte[] conflictKey = conflictParam != null ? conflictParam : Utils.longToBigEndianByteArray(fingerprint);
+            log.debug("ABORT[{}] conflict-key[{}](ts={})", txInfo, conflictKey, keyAddress);
+            return new TxResolutionResponse(
+                    TokenType.TX_ABORT_CONFLICT,
+                    keyAddress,
+                    conflictKey,
+                    streamId
+            );
+        }
+
+        // The maxConflictNewSequencer is modified whenever a server is elected
+        // as the 'new' sequencer, we immediately set its value to the max timestamp
+        // evicted from the cache at that time. If a txSnapshotTimestamp falls
+        // under this threshold we can report that the cause of abort is due to
+        // a NEW_SEQUENCER (not able to hold these in its cache).
+        long maxConflictNewSequencer = cache.getMaxConflictNewSequencer();
+        if (txSnapshotTimestamp.getSequence() < maxConflictNewSequencer) {
+            log.debug("ABORT[{}] snapshot-ts[{}] WILDCARD New Sequencer ts=[{}]",
+                    txInfo, txSnapshotTimestamp, maxConflictNewSequencer);
+            return new TxResolutionResponse(TokenType.TX_ABORT_NEWSEQ);
+        }
+
+        // If the txSnapshotTimestamp did not fall under the new sequencer threshold
+        // but it does fall under the latest evicted timestamp we report the cause of
+        // abort as SEQUENCER_OVERFLOW
+        long maxConflictWildcard = cache.getMaxConflictWildcard();
+        if (txSnapshotTimestamp.getSequence() < maxConflictWildcard) {
+            log.debug("ABORT[{}] snapshot-ts[{}] WILDCARD ts=[{}]",
+                    txInfo, txSnapshotTimestamp, maxConflictWildcard);
+            return new TxResolutionResponse(TokenType.TX_ABORT_SEQ_OVERFLOW);
+        }
+        return null;
     }
 
     /**
@@ -334,6 +661,7 @@ public class SequencerServer extends AbstractServer {
             }
         }
 
+        tokenCounters.get(TokenType.QUERY).inc();
         r.sendResponse(ctx, msg, CorfuMsgType.TOKEN_RES.payloadMsg(new TokenResponse(
                 TokenType.NORMAL, TokenResponse.NO_CONFLICT_KEY,
                 TokenResponse.NO_CONFLICT_STREAM, token, Collections.emptyMap(), streamTails)));
@@ -349,9 +677,7 @@ public class SequencerServer extends AbstractServer {
             cache.invalidateUpTo(trimMark);
 
             // Remove trimmed addresses from each address map and set new trim mark
-            for(StreamAddressSpace streamAddressSpace : streamsAddressMap.values()) {
-                streamAddressSpace.trim(trimMark);
-            }
+            streamsAddressMap.trim(trimMark);
         }
 
         r.sendResponse(ctx, msg, CorfuMsgType.ACK.msg());
@@ -388,6 +714,16 @@ public class SequencerServer extends AbstractServer {
             return;
         }
 
+        // The address maps of a chunked bootstrap are loaded for a single epoch. If the load
+        // fails, the sequencer goes back to NOT_READY and needs a new full bootstrap.
+        if (bootstrapWithoutTailsUpdate && !addressSpaceLoaded) {
+            log.warn("Cannot update existing sequencer while its address maps are loading. "
+                    + "Require full bootstrap. SequencerEpoch : {}, MsgEpoch : {}", sequencerEpoch, bootstrapMsgEpoch);
+
+            r.sendResponse(ctx, msg, CorfuMsgType.NACK.msg());
+            return;
+        }
+
         // Stale bootstrap request should be discarded.
         if (serverContext.getSequencerEpoch() >= bootstrapMsgEpoch) {
             log.info("Sequencer already bootstrapped at epoch {}. Discarding bootstrap request with epoch {}",
@@ -406,10 +742,7 @@ public class SequencerServer extends AbstractServer {
         // Note, this is correct, but conservative (may lead to false abort).
         // It is necessary because we reset the sequencer.
         if (!bootstrapWithoutTailsUpdate) {
-            // Evict all entries from the cache. This eviction triggers the callback modifying the maxConflictWildcard.
-            cache.invalidateAll();
-            globalLogTail = initialToken;
-            cache.updateMaxConflictAddress(initialToken - 1);
+            final long warmTail = resetConflictState(initialToken);
 
             // Clear the existing map as it could have been populated by an earlier reset.
             streamTailToGlobalTailMap = new HashMap<>();
@@ -422,10 +755,208 @@ public class SequencerServer extends AbstractServer {
             }
 
             // Reset streams address map
-            this.streamsAddressMap = new HashMap<>();
-            this.streamsAddressMap.putAll(addressSpaceMap);
+            streamsAddressMap.clear();
+            addressSpaceMap.forEach(streamsAddressMap::put);
+            streamsAddressMap.spillColdStreams();
+
+            setStreamConflictWildcards(warmTail);
+        }
+
+        setReadyEpoch(bootstrapMsgEpoch);
+        if (standbyReplicator != null) {
+            standbyReplicator.reset(sequencerEpoch, globalLogTail, bootstrapWithoutTailsUpdate);
+        }
+
+        log.info("Sequencer reset with token = {}, size {} streamTailToGlobalTailMap = {}, sequencerEpoch = {}",
+                globalLogTail, streamTailToGlobalTailMap.size(), streamTailToGlobalTailMap, sequencerEpoch);
+        r.sendResponse(ctx, msg, CorfuMsgType.ACK.msg());
+
+        if (!bootstrapWithoutTailsUpdate) {
+            completeAddressSpaceLoad();
+        }
+    }
+
+    /**
+     * Service an incoming request to reset the sequencer with the stream tails only.
+     *
+     * <p>This is the first step of a chunked bootstrap. The tails are all the sequencer needs
+     * to issue tokens and resolve transactions, so it is ready as soon as they are set. The
+     * address maps of the streams, which are much larger, are then loaded in chunks by
+     * {@link #loadAddressSpaceChunk}, and streams address requests are held back until the
+     * last chunk is loaded.</p>
+     */
+    @ServerHandler(type = CorfuMsgType.BOOTSTRAP_SEQUENCER_TAILS)
+    public void resetServerTails(CorfuPayloadMsg<SequencerTailsRecoveryMsg> msg,
+                                 ChannelHandlerContext ctx, IServerRouter r) {
+        log.info("Reset sequencer server tails.");
+        final long initialToken = msg.getPayload().getGlobalTail();
+        final long bootstrapMsgEpoch = msg.getPayload().getSequencerEpoch();
+
+        // Stale bootstrap request should be discarded.
+        if (serverContext.getSequencerEpoch() >= bootstrapMsgEpoch) {
+            log.info("Sequencer already bootstrapped at epoch {}. Discarding bootstrap request with epoch {}",
+                    sequencerEpoch, bootstrapMsgEpoch
+            );
+
+            r.sendResponse(ctx, msg, CorfuMsgType.NACK.msg());
+            return;
+        }
+
+        final long warmTail = resetConflictState(initialToken);
+        streamTailToGlobalTailMap = new HashMap<>(msg.getPayload().getStreamTails());
+        streamsAddressMap.clear();
+        addressSpaceLoaded = false;
+        setStreamConflictWildcards(warmTail);
+        scheduleAddressSpaceLoadCheck(bootstrapMsgEpoch);
+
+        setReadyEpoch(bootstrapMsgEpoch);
+        if (standbyReplicator != null) {
+            standbyReplicator.reset(sequencerEpoch, globalLogTail, false);
+        }
+
+        log.info("Sequencer reset with token = {}, size {}, sequencerEpoch = {}, loading address maps",
+                globalLogTail, streamTailToGlobalTailMap.size(), sequencerEpoch);
+        r.sendResponse(ctx, msg, CorfuMsgType.ACK.msg());
+    }
+
+    /**
+     * Service an incoming chunk of the stream address maps of a chunked bootstrap.
+     *
+     * <p>A chunk is merged with the addresses allocated since the sequencer was bootstrapped,
+     * and trimmed by the current trim mark. A chunk can only raise the tail of a stream.</p>
+     */
+    @ServerHandler(type = CorfuMsgType.SEQUENCER_ADDRESS_SPACE_CHUNK)
+    public void loadAddressSpaceChunk(CorfuPayloadMsg<SequencerAddressSpaceChunkMsg> msg,
+                                      ChannelHandlerContext ctx, IServerRouter r) {
+        final SequencerAddressSpaceChunkMsg chunk = msg.getPayload();
+
+        if (addressSpaceLoaded || chunk.getSequencerEpoch() != sequencerEpoch) {
+            log.warn("loadAddressSpaceChunk: Discarding chunk of epoch {}, sequencerEpoch {}, loaded {}",
+                    chunk.getSequencerEpoch(), sequencerEpoch, addressSpaceLoaded);
+            r.sendResponse(ctx, msg, CorfuMsgType.NACK.msg());
+            return;
+        }
+
+        for (Map.Entry<UUID, StreamAddressSpace> stream : chunk.getStreamsAddressMap().entrySet()) {
+            StreamAddressSpace addressSpace = stream.getValue();
+            addressSpace.trim(trimMark);
+
+            StreamAddressSpace current;
+            try {
+                current = streamsAddressMap.get(stream.getKey());
+            } catch (UncheckedIOException e) {
+                r.sendResponse(ctx, msg, CorfuMsgType.ERROR_SERVER_EXCEPTION.payloadMsg(new ExceptionMsg(e)));
+                return;
+            }
+            streamTailToGlobalTailMap.merge(stream.getKey(), addressSpace.getTail(), Math::max);
+            if (current == null) {
+                streamsAddressMap.put(stream.getKey(), addressSpace);
+            } else {
+                current.getAddressMap().or(addressSpace.getAddressMap());
+                current.setTrimMark(Math.max(current.getTrimMark(), addressSpace.getTrimMark()));
+            }
         }
+        streamsAddressMap.spillColdStreams();
+        scheduleAddressSpaceLoadCheck(sequencerEpoch);
 
+        log.debug("loadAddressSpaceChunk: loaded {} streams, last {}",
+                chunk.getStreamsAddressMap().size(), chunk.getLast());
+        r.sendResponse(ctx, msg, CorfuMsgType.ACK.msg());
+
+        if (chunk.getLast()) {
+            log.info("loadAddressSpaceChunk: address maps of {} streams loaded", streamsAddressMap.size());
+            completeAddressSpaceLoad();
+        }
+    }
+
+    /**
+     * Discard the conflict state of the sequencer and reset its global tail.
+     *
+     * <p>If the conflict table was kept warm as a standby, it is kept and the new sequencer
+     * wildcard is the wildcard of the table, rather than the last position of the log.</p>
+     *
+     * @param initialToken the first token to issue
+     * @return the position up to which the table is warm, or {@link Address#NON_ADDRESS}
+     */
+    private long resetConflictState(long initialToken) {
+        final long warmTail = standbyTail;
+        standbyTail = Address.NON_ADDRESS;
+        globalLogTail = initialToken;
+
+        if (warmTail != Address.NON_ADDRESS) {
+            log.info("Sequencer promoted with a warm conflict table of {} keys up to {}, wildcard {}",
+                    cache.size(), warmTail, cache.getMaxConflictWildcard());
+            cache.updateMaxConflictAddress(cache.getMaxConflictWildcard());
+            return warmTail;
+        }
+
+        // Evict all entries from the cache. This eviction triggers the callback modifying the maxConflictWildcard.
+        cache.invalidateAll();
+        cache.updateMaxConflictAddress(initialToken - 1);
+        return Address.NON_ADDRESS;
+    }
+
+    /**
+     * Set a conflict wildcard for the streams written at or after the warm tail of the
+     * conflict table, i.e. by tokens whose updates weren't received as a standby.
+     *
+     * @param warmTail position up to which the conflict table is warm
+     */
+    private void setStreamConflictWildcards(long warmTail) {
+        streamConflictWildcards = new HashMap<>();
+        if (warmTail == Address.NON_ADDRESS) {
+            return;
+        }
+
+        streamTailToGlobalTailMap.forEach((streamId, streamTail) -> {
+            if (streamTail >= warmTail) {
+                streamConflictWildcards.put(streamId, streamTail);
+            }
+        });
+        log.info("Sequencer promoted, {} streams written after the warm tail {}",
+                streamConflictWildcards.size(), warmTail);
+    }
+
+    /**
+     * Service an incoming batch of conflict-key updates from the primary sequencer, keeping
+     * the conflict table of this standby sequencer warm.
+     *
+     * <p>Batches must be contiguous. After a gap, the conflict table is cleared and its
+     * wildcard set to the start of the batch, as the updates before it are unknown.</p>
+     */
+    @ServerHandler(type = CorfuMsgType.SEQUENCER_STANDBY_UPDATE)
+    public void handleStandbyUpdate(CorfuPayloadMsg<SequencerStandbyMsg> msg,
+                                    ChannelHandlerContext ctx, IServerRouter r) {
+        final SequencerStandbyMsg batch = msg.getPayload();
+
+        // Only a sequencer which isn't the primary of the current epoch is a standby
+        if (standbyReplicator == null || batch.getSequencerEpoch() != serverContext.getServerEpoch()
+                || batch.getSequencerEpoch() == sequencerEpoch) {
+            r.sendResponse(ctx, msg, CorfuMsgType.NACK.msg());
+            return;
+        }
+
+        if (batch.getFromTail() != standbyTail) {
+            log.info("handleStandbyUpdate: updates from {} while warm up to {}, restarting",
+                    batch.getFromTail(), standbyTail);
+            cache.invalidateAll();
+            cache.updateMaxConflictAddress(batch.getFromTail() - 1);
+        }
+
+        for (SequencerStandbyMsg.ConflictUpdate update : batch.getUpdates()) {
+            cache.put(update.getStreamId(), update.getConflictParam(), update.getAddress());
+        }
+        standbyTail = batch.getToTail();
+
+        r.sendResponse(ctx, msg, CorfuMsgType.ACK.msg());
+    }
+
+    /**
+     * Mark the sequencer as ready at the bootstrap epoch.
+     *
+     * @param bootstrapMsgEpoch epoch of the bootstrap request
+     */
+    private void setReadyEpoch(long bootstrapMsgEpoch) {
         // Update epochRangeLowerBound if the bootstrap epoch is not consecutive.
         if (epochRangeLowerBound == Layout.INVALID_EPOCH || bootstrapMsgEpoch != sequencerEpoch + 1) {
             epochRangeLowerBound = bootstrapMsgEpoch;
@@ -434,10 +965,79 @@ public class SequencerServer extends AbstractServer {
         // Mark the sequencer as ready after the tails have been populated.
         sequencerEpoch = bootstrapMsgEpoch;
         serverContext.setSequencerEpoch(bootstrapMsgEpoch);
+    }
 
-        log.info("Sequencer reset with token = {}, size {} streamTailToGlobalTailMap = {}, sequencerEpoch = {}",
-                globalLogTail, streamTailToGlobalTailMap.size(), streamTailToGlobalTailMap, sequencerEpoch);
-        r.sendResponse(ctx, msg, CorfuMsgType.ACK.msg());
+    /**
+     * Mark the address maps as complete and answer the streams address requests held back
+     * while they were loading.
+     */
+    private void completeAddressSpaceLoad() {
+        addressSpaceLoaded = true;
+        cancelAddressSpaceLoadCheck();
+        List<Runnable> pending = new ArrayList<>(pendingAddressRequests);
+        pendingAddressRequests.clear();
+        pending.forEach(Runnable::run);
+    }
+
+    /**
+     * Schedule a check that the address maps of a chunked bootstrap progressed, replacing
+     * the previous one.
+     *
+     * @param loadEpoch epoch of the chunked bootstrap
+     */
+    private void scheduleAddressSpaceLoadCheck(long loadEpoch) {
+        cancelAddressSpaceLoadCheck();
+        final long progress = ++addressSpaceLoadProgress;
+        addressSpaceLoadCheck = addressSpaceLoadWatchdog.schedule(
+                () -> executor.execute(() -> checkAddressSpaceLoad(loadEpoch, progress)),
+                addressSpaceLoadTimeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void cancelAddressSpaceLoadCheck() {
+        if (addressSpaceLoadCheck != null) {
+            addressSpaceLoadCheck.cancel(false);
+            addressSpaceLoadCheck = null;
+        }
+    }
+
+    /**
+     * Fail the load of the address maps if no chunk was received since the check was
+     * scheduled, e.g. because the client loading them failed.
+     *
+     * <p>The sequencer goes back to NOT_READY, so that the streams address requests held
+     * back are retried by the clients and the management server bootstraps the sequencer
+     * again, rather than waiting forever for the missing chunks.</p>
+     *
+     * @param loadEpoch epoch of the chunked bootstrap
+     * @param progress  progress of the load when the check was scheduled
+     */
+    private void checkAddressSpaceLoad(long loadEpoch, long progress) {
+        Lock lock = stateLock.writeLock();
+        if (!resolvers.isEmpty()) {
+            lock.lock();
+        }
+        try {
+            if (addressSpaceLoaded || sequencerEpoch != loadEpoch || addressSpaceLoadProgress != progress) {
+                return;
+            }
+
+            log.warn("checkAddressSpaceLoad: no address maps chunk received for {} ms at epoch {}, "
+                    + "the sequencer needs to be bootstrapped again", addressSpaceLoadTimeoutMs, loadEpoch);
+            addressSpaceLoadCheck = null;
+            addressSpaceLoaded = true;
+            streamsAddressMap.clear();
+            sequencerEpoch = Layout.INVALID_EPOCH;
+            epochRangeLowerBound = Layout.INVALID_EPOCH;
+            serverContext.setSequencerEpoch(Layout.INVALID_EPOCH);
+
+            List<Runnable> pending = new ArrayList<>(pendingAddressRequests);
+            pendingAddressRequests.clear();
+            pending.forEach(Runnable::run);
+        } finally {
+            if (!resolvers.isEmpty()) {
+                lock.unlock();
+            }
+        }
     }
 
     /**
@@ -447,10 +1047,51 @@ public class SequencerServer extends AbstractServer {
     public void handleMetricsRequest(CorfuMsg msg, ChannelHandlerContext ctx, IServerRouter r) {
         // Sequencer Ready flag is set to true as this message will be responded to only if the
         // sequencer is in a ready state.
-        SequencerMetrics sequencerMetrics = new SequencerMetrics(SequencerStatus.READY);
+        Map<TokenType, Long> tokenCounts = new EnumMap<>(TokenType.class);
+        tokenCounters.forEach((tokenType, counter) -> tokenCounts.put(tokenType, counter.getCount()));
+
+        // The timers and the histogram are only updated if metrics collection is enabled
+        Map<String, Distribution> distributions = new HashMap<>();
+        distributions.put(QUEUE_WAIT, getDistribution(queueWait.getCount(), queueWait.getSnapshot()));
+        if (!resolvers.isEmpty()) {
+            distributions.put(RESOLVER_QUEUE_WAIT,
+                    getDistribution(resolverQueueWait.getCount(), resolverQueueWait.getSnapshot()));
+        }
+        for (String timerName : timerNameCache.values()) {
+            Timer timer = ServerContext.getMetrics().timer(timerName);
+            distributions.put(timerName.substring(METRIC_PREFIX.length()),
+                    getDistribution(timer.getCount(), timer.getSnapshot()));
+        }
+        distributions.put(CONFLICT_SET_SIZE,
+                getDistribution(conflictSetSizes.getCount(), conflictSetSizes.getSnapshot()));
+
+        SequencerMetrics sequencerMetrics = SequencerMetrics.builder()
+                .sequencerStatus(SequencerStatus.READY)
+                .tokenCounts(tokenCounts)
+                .conflictLookups(conflictLookups.getCount())
+                .conflictHits(conflictHits.getCount())
+                .conflictEvictions(cache.getEvictionCount())
+                .conflictTableSize(cache.size())
+                .distributions(distributions)
+                .build();
         r.sendResponse(ctx, msg, new CorfuPayloadMsg<>(CorfuMsgType.SEQUENCER_METRICS_RESPONSE, sequencerMetrics));
     }
 
+    /**
+     * Service a request for the conflict keys that aborted the most transactions.
+     */
+    @ServerHandler(type = CorfuMsgType.SEQUENCER_HOT_KEYS_REQUEST)
+    public void handleHotKeysRequest(CorfuPayloadMsg<Integer> msg, ChannelHandlerContext ctx, IServerRouter r) {
+        int count = Math.max(msg.getPayload(), 0);
+        r.sendResponse(ctx, msg, CorfuMsgType.SEQUENCER_HOT_KEYS_RESPONSE.payloadMsg(
+                new HotConflictKeys(hotConflictKeys.getTop(count))));
+    }
+
+    private static Distribution getDistribution(long count, Snapshot snapshot) {
+        return new Distribution(count, Math.round(snapshot.getMedian()),
+                Math.round(snapshot.get99thPercentile()), snapshot.getMax());
+    }
+
     /**
      * Service an incoming token request.
      */
@@ -462,6 +1103,15 @@ public class SequencerServer extends AbstractServer {
         TokenRequest req = msg.getPayload();
         final Timer timer = getTimer(req.getReqType());
 
+        if (req.getReqType() == TokenRequest.TK_TX) {
+            MetricsUtils.updateConditionalHistogram(conflictSetSizes, getConflictSetSize(req.getTxnResolution()));
+        }
+
+        if (req.getReqType() == TokenRequest.TK_TX && !resolvers.isEmpty()) {
+            resolveTxToken(msg, ctx, r, MetricsUtils.getConditionalContext(timer));
+            return;
+        }
+
         // dispatch request handler according to request type while collecting the timer metrics
         try (Timer.Context context = MetricsUtils.getConditionalContext(timer)) {
             switch (req.getReqType()) {
@@ -478,12 +1128,30 @@ public class SequencerServer extends AbstractServer {
                     return;
 
                 default:
-                    handleAllocation(msg, ctx, r);
+                    handleAllocation(msg, ctx, r, null);
                     return;
             }
         }
     }
 
+    /**
+     * Returns the number of conflict keys of a transaction, a stream without conflict keys
+     * counting as one.
+     */
+    private static int getConflictSetSize(TxResolutionInfo txInfo) {
+        int size = 0;
+        if (txInfo.hasFingerprints()) {
+            for (long[] fingerprints : txInfo.getConflictFingerprints().values()) {
+                size += Math.max(fingerprints.length, 1);
+            }
+        } else {
+            for (Set<byte[]> conflictParams : txInfo.getConflictSet().values()) {
+                size += conflictParams == null ? 1 : Math.max(conflictParams.size(), 1);
+            }
+        }
+        return size;
+    }
+
     /**
      * Return a timer based on the type of request. It will take the name from the cache
      * initialized at construction of the sequencer server to avoid String concatenation.
@@ -511,6 +1179,10 @@ public class SequencerServer extends AbstractServer {
         // so return the new token with current global tail and then update it.
         Token token = new Token(sequencerEpoch, globalLogTail);
         globalLogTail += req.getNumTokens();
+        if (standbyReplicator != null) {
+            standbyReplicator.advance(globalLogTail);
+        }
+        tokenCounters.get(TokenType.NORMAL).inc();
         r.sendResponse(ctx, msg, CorfuMsgType.TOKEN_RES.payloadMsg(
                 new TokenResponse(token, Collections.emptyMap())));
     }
@@ -534,22 +1206,127 @@ public class SequencerServer extends AbstractServer {
         // in the TK_TX request type, the sequencer is utilized for transaction conflict-resolution.
         // Token allocation is conditioned on commit.
         // First, we check if the transaction can commit.
-        TxResolutionResponse txResolutionResponse = txnCanCommit(req.getTxnResolution());
+        ConflictLookupCount lookupCount = new ConflictLookupCount();
+        TxResolutionResponse txResolutionResponse = txnCanCommit(req.getTxnResolution(), cacheLookup, lookupCount);
+        recordConflictLookups(lookupCount);
         if (txResolutionResponse.getTokenType() != TokenType.NORMAL) {
             // If the txn aborts, then DO NOT hand out a token.
-            Token newToken = new Token(sequencerEpoch, txResolutionResponse.getAddress());
-            r.sendResponse(ctx, msg, CorfuMsgType.TOKEN_RES.payloadMsg(new TokenResponse(
-                    txResolutionResponse.getTokenType(),
-                    txResolutionResponse.getConflictingKey(),
-                    txResolutionResponse.getConflictingStream(),
-                    newToken, Collections.emptyMap(), Collections.emptyList())));
+            r.sendResponse(ctx, msg, getAbortResponse(txResolutionResponse));
             return;
         }
 
         // if we get here, this means the transaction can commit.
         // handleAllocation() does the actual allocation of log position(s)
         // and returns the response
-        handleAllocation(msg, ctx, r);
+        handleAllocation(msg, ctx, r, null);
+    }
+
+    private CorfuMsg getAbortResponse(TxResolutionResponse txResolutionResponse) {
+        tokenCounters.get(txResolutionResponse.getTokenType()).inc();
+        // Aborts on a conflict key carry the stream of the key
+        if (txResolutionResponse.getTokenType() == TokenType.TX_ABORT_CONFLICT
+                && !txResolutionResponse.getConflictingStream().equals(TokenResponse.NO_CONFLICT_STREAM)) {
+            hotConflictKeys.add(txResolutionResponse.getConflictingStream(),
+                    txResolutionResponse.getConflictingKey());
+        }
+        Token newToken = new Token(sequencerEpoch, txResolutionResponse.getAddress());
+        return CorfuMsgType.TOKEN_RES.payloadMsg(new TokenResponse(
+                txResolutionResponse.getTokenType(),
+                txResolutionResponse.getConflictingKey(),
+                txResolutionResponse.getConflictingStream(),
+                newToken, Collections.emptyMap(), Collections.emptyList()));
+    }
+
+    /**
+     * Resolves a transaction in two stages, so that conflict resolution runs in parallel.
+     *
+     * <p>The request is first handed to a resolver thread, chosen by the streams of its
+     * conflict set. The resolver fingerprints the conflict-params and the write-params of the
+     * transaction, and runs {@link #txnCanCommit} under the read lock of the sequencer state,
+     * concurrently with the other resolvers. The state only moves forward (tails, conflict
+     * positions, wildcards and trim mark increase) until the sequencer is reset, so an abort
+     * found by the resolver is final and is returned right away.</p>
+     *
+     * <p>Otherwise the transaction is handed back to the sequencer thread, which checks it
+     * again against the current state, using the precomputed fingerprints, and allocates its
+     * tokens. The commit decision is thus taken in the same order and with the same rules as
+     * {@link #handleTxToken}, while the hashing of the conflict-params and the transactions
+     * that abort are spread over the resolvers.</p>
+     *
+     * @param msg     corfu message containing transaction token
+     * @param ctx     netty ChannelHandlerContext
+     * @param r       server router
+     * @param context timer context of the request, stopped once the request is answered
+     */
+    private void resolveTxToken(CorfuPayloadMsg<TokenRequest> msg, ChannelHandlerContext ctx,
+                                IServerRouter r, Timer.Context context) {
+        final TxResolutionInfo txInfo = msg.getPayload().getTxnResolution();
+
+        int partition = 0;
+        for (UUID streamId : txInfo.getConflictStreams()) {
+            partition ^= streamId.hashCode();
+        }
+
+        resolvers.get(Math.floorMod(partition, resolvers.size())).execute(() -> {
+            ResolvedTx resolved = new ResolvedTx(txInfo);
+
+            CorfuMsg abortResponse = null;
+            Lock lock = stateLock.readLock();
+            lock.lock();
+            try {
+                // The lookups of a transaction which may commit are recorded by the commit stage,
+                // which checks the transaction again
+                ConflictLookupCount lookupCount = new ConflictLookupCount();
+                TxResolutionResponse txResolutionResponse = txnCanCommit(txInfo, resolved.getConflictLookup(),
+                        lookupCount);
+                if (txResolutionResponse.getTokenType() != TokenType.NORMAL) {
+                    recordConflictLookups(lookupCount);
+                    abortResponse = getAbortResponse(txResolutionResponse);
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (abortResponse != null) {
+                r.sendResponse(ctx, msg, abortResponse);
+                MetricsUtils.stopConditionalContext(context);
+                return;
+            }
+
+            executor.execute(() -> {
+                Lock writeLock = stateLock.writeLock();
+                writeLock.lock();
+                try {
+                    commitResolvedTx(msg, ctx, r, resolved);
+                } finally {
+                    writeLock.unlock();
+                    MetricsUtils.stopConditionalContext(context);
+                }
+            });
+        });
+    }
+
+    /**
+     * Commits a transaction that the resolver let go, if it still can commit.
+     */
+    private void commitResolvedTx(CorfuPayloadMsg<TokenRequest> msg, ChannelHandlerContext ctx,
+                                  IServerRouter r, ResolvedTx resolved) {
+        // The sequencer may have moved to a new epoch since the request was received
+        if (!isServerReadyToHandleMsg(msg)) {
+            r.sendResponse(ctx, msg, CorfuMsgType.NOT_READY.msg());
+            return;
+        }
+
+        ConflictLookupCount lookupCount = new ConflictLookupCount();
+        TxResolutionResponse txResolutionResponse = txnCanCommit(msg.getPayload().getTxnResolution(),
+                resolved.getConflictLookup(), lookupCount);
+        recordConflictLookups(lookupCount);
+        if (txResolutionResponse.getTokenType() != TokenType.NORMAL) {
+            r.sendResponse(ctx, msg, getAbortResponse(txResolutionResponse));
+            return;
+        }
+
+        handleAllocation(msg, ctx, r, resolved.writeFingerprints);
     }
 
     /**
@@ -557,14 +1334,28 @@ public class SequencerServer extends AbstractServer {
      * it also maintains stream-tails, returns a map of stream-tails for backpointers,
      * and maintains a conflict-parameters map.
      *
-     * @param msg corfu message containing allocation
-     * @param ctx netty ChannelHandlerContext
-     * @param r   server router
+     * @param msg               corfu message containing allocation
+     * @param ctx               netty ChannelHandlerContext
+     * @param r                 server router
+     * @param writeFingerprints fingerprints of the write conflict-params of the request,
+     *                          or null if they weren't computed by a resolver
      */
     private void handleAllocation(CorfuPayloadMsg<TokenRequest> msg,
-                                  ChannelHandlerContext ctx, IServerRouter r) {
+                                  ChannelHandlerContext ctx, IServerRouter r, long[] writeFingerprints) {
         final TokenRequest req = msg.getPayload();
 
+        // Page in the address maps of the streams before changing any state, as a spilled
+        // map may fail to be read. They stay on the heap until the allocation is done.
+        List<StreamAddressSpace> addressMaps = new ArrayList<>(req.getStreams().size());
+        try {
+            for (UUID id : req.getStreams()) {
+                addressMaps.add(streamsAddressMap.get(id));
+            }
+        } catch (UncheckedIOException e) {
+            r.sendResponse(ctx, msg, CorfuMsgType.ERROR_SERVER_EXCEPTION.payloadMsg(new ExceptionMsg(e)));
+            return;
+        }
+
         // extend the tail of the global log by the requested # of tokens
         // currentTail is the first available position in the global log
         long newTail = globalLogTail + req.getNumTokens();
@@ -574,6 +1365,7 @@ public class SequencerServer extends AbstractServer {
         //   2. record the new global tail as back-pointer for this stream.
         //   3. Add the allocated addresses to each stream's address map.
         ImmutableMap.Builder<UUID, Long> backPointerMap = ImmutableMap.builder();
+        Iterator<StreamAddressSpace> addressMapIterator = addressMaps.iterator();
         for (UUID id : req.getStreams()) {
 
             // step 1. and 2. (comment above)
@@ -588,27 +1380,47 @@ public class SequencerServer extends AbstractServer {
             });
 
             // step 3. add allocated addresses to each stream's address map (to keep track of all updates to this stream)
-            streamsAddressMap.compute(id, (streamId, addressMap) -> {
-                if (addressMap == null) {
-                    addressMap = new StreamAddressSpace(Address.NON_ADDRESS, new Roaring64NavigableMap());
-                }
+            StreamAddressSpace addressMap = addressMapIterator.next();
+            if (addressMap == null) {
+                // The stream may be listed twice
+                addressMap = streamsAddressMap.get(id);
+            }
+            if (addressMap == null) {
+                addressMap = new StreamAddressSpace(Address.NON_ADDRESS, new Roaring64NavigableMap());
+                streamsAddressMap.put(id, addressMap);
+            }
 
-                for (long i = globalLogTail; i < newTail; i++) {
-                    addressMap.addAddress(i);
-                }
-                return addressMap;
-            });
+            for (long i = globalLogTail; i < newTail; i++) {
+                addressMap.addAddress(i);
+            }
         }
+        streamsAddressMap.spillColdStreams();
 
         // update the cache of conflict parameters
-        if (req.getTxnResolution() != null) {
+        if (standbyReplicator != null && req.getTxnResolution() != null) {
+            req.getTxnResolution().getWriteConflictParams().forEach((streamId, conflictParams) ->
+                    standbyReplicator.append(streamId, conflictParams, newTail - 1));
+        }
+        if (writeFingerprints != null) {
+            for (long fingerprint : writeFingerprints) {
+                fingerprintTable.put(fingerprint, newTail - 1);
+            }
+        } else if (req.getTxnResolution() != null && req.getTxnResolution().hasFingerprints()) {
+            req.getTxnResolution()
+                    .getWriteFingerprints()
+                    .forEach((streamId, fingerprints) -> {
+                        for (long fingerprint : fingerprints) {
+                            cache.put(streamId, fingerprint, newTail - 1);
+                        }
+                    });
+        } else if (req.getTxnResolution() != null) {
             req.getTxnResolution()
                     .getWriteConflictParams()
                     .forEach((key, value) -> {
                         // insert an entry with the new timestamp using the
                         // hash code based on the param and the stream id.
                         value.forEach(conflictParam ->
-                                cache.put(new ConflictTxStream(key, conflictParam), newTail - 1));
+                                cache.put(key, conflictParam, newTail - 1));
                     });
         }
 
@@ -617,6 +1429,10 @@ public class SequencerServer extends AbstractServer {
         // return the token response with the global tail and the streams backpointers
         Token token = new Token(sequencerEpoch, globalLogTail);
         globalLogTail = newTail;
+        if (standbyReplicator != null) {
+            standbyReplicator.advance(newTail);
+        }
+        tokenCounters.get(TokenType.NORMAL).inc();
         r.sendResponse(ctx, msg, CorfuMsgType.TOKEN_RES.payloadMsg(
                 new TokenResponse(token, backPointerMap.build())));
     }
@@ -633,18 +1449,37 @@ public class SequencerServer extends AbstractServer {
     @ServerHandler(type = CorfuMsgType.STREAMS_ADDRESS_REQUEST)
     private void handleStreamsAddressRequest(CorfuPayloadMsg<StreamsAddressRequest> msg,
                                              ChannelHandlerContext ctx, IServerRouter r) {
+        if (!addressSpaceLoaded) {
+            log.debug("handleStreamsAddressRequest: address maps are loading, deferring {}", msg);
+            pendingAddressRequests.add(() -> handleStreamsAddressRequest(msg, ctx, r));
+            return;
+        }
+
+        // The load of the address maps failed while the request was held back
+        if (sequencerEpoch == Layout.INVALID_EPOCH) {
+            r.sendResponse(ctx, msg, CorfuMsgType.NOT_READY.msg());
+            return;
+        }
+
         StreamsAddressRequest req = msg.getPayload();
         Map<UUID, StreamAddressSpace> streamsAddressMap;
 
-        switch (req.getReqType()) {
-            case StreamsAddressRequest.STREAMS:
-                streamsAddressMap = getStreamsAddresses(req.getStreamsRanges());
-                break;
+        try {
+            switch (req.getReqType()) {
+                case StreamsAddressRequest.STREAMS:
+                    streamsAddressMap = getStreamsAddresses(req.getStreamsRanges());
+                    break;
 
-            default:
-                // Retrieve address space for all streams
-                streamsAddressMap = new HashMap<>(this.streamsAddressMap);
-                break;
+                default:
+                    // Retrieve address space for all streams
+                    streamsAddressMap = this.streamsAddressMap.getAll();
+                    break;
+            }
+        } catch (UncheckedIOException e) {
+            r.sendResponse(ctx, msg, CorfuMsgType.ERROR_SERVER_EXCEPTION.payloadMsg(new ExceptionMsg(e)));
+            return;
+        } finally {
+            this.streamsAddressMap.spillColdStreams();
         }
 
         log.trace("handleStreamsAddressRequest: return address space for streams [{}]",
@@ -666,10 +1501,11 @@ public class SequencerServer extends AbstractServer {
         for (StreamAddressRange streamAddressRange : addressRanges) {
             UUID streamId = streamAddressRange.getStreamID();
             // Get all addresses in the requested range
-            if (streamsAddressMap.containsKey(streamId)) {
-                addressMap = streamsAddressMap.get(streamId).getAddressesInRange(streamAddressRange);
+            StreamAddressSpace streamAddressSpace = streamsAddressMap.get(streamId);
+            if (streamAddressSpace != null) {
+                addressMap = streamAddressSpace.getAddressesInRange(streamAddressRange);
                 requestedAddressSpaces.put(streamId,
-                        new StreamAddressSpace(streamsAddressMap.get(streamId).getTrimMark(), addressMap));
+                        new StreamAddressSpace(streamAddressSpace.getTrimMark(), addressMap));
             } else {
                 log.warn("handleStreamsAddressRequest: address space map is not present for stream {}. " +
                         "Verify this is a valid stream.", streamId);
@@ -679,9 +1515,106 @@ public class SequencerServer extends AbstractServer {
         return requestedAddressSpaces;
     }
 
+    /**
+     * Returns the directory of the spilled stream address maps, under the log directory,
+     * or null if the server keeps its data in memory.
+     */
+    private Path getAddressMapSpillDirectory(Config config) {
+        if (config.getAddressMapStreams() == 0) {
+            return null;
+        }
+        String logPath = serverContext.getServerConfig(String.class, "--log-path");
+        if (logPath == null || Boolean.TRUE.equals(serverContext.getServerConfig().get("--memory"))) {
+            log.warn("Stream address maps can't be spilled in memory mode, keeping them all on the heap");
+            return null;
+        }
+        return Paths.get(logPath, ADDRESS_MAP_SPILL_DIRECTORY);
+    }
+
     @Override
     public void shutdown() {
         super.shutdown();
+        addressSpaceLoadWatchdog.shutdownNow();
+        if (standbyReplicator != null) {
+            standbyReplicator.shutdown();
+        }
+        streamsAddressMap.close();
+    }
+
+    /**
+     * Lookup of a conflict-param in the conflict table, given as a byte array or, if the
+     * byte array is null, as a fingerprint.
+     */
+    @FunctionalInterface
+    private interface ConflictLookup {
+        long getConflictAddress(UUID streamId, byte[] conflictParam, long fingerprint);
+    }
+
+    /**
+     * The fingerprints of the conflict-params and write-params of a transaction,
+     * computed by a resolver.
+     *
+     * <p>The fingerprints are stored in the iteration order of the conflict set and of
+     * the write set of the request, which are never modified, and are consumed in the
+     * same order by {@link #txnCanCommit} and {@link #handleAllocation}.</p>
+     */
+    private class ResolvedTx {
+        private final long[] conflictFingerprints;
+        private final long[] writeFingerprints;
+
+        ResolvedTx(TxResolutionInfo txInfo) {
+            if (txInfo.hasFingerprints()) {
+                conflictFingerprints = getKeyFingerprints(txInfo.getConflictFingerprints());
+                writeFingerprints = getKeyFingerprints(txInfo.getWriteFingerprints());
+            } else {
+                conflictFingerprints = getFingerprints(txInfo.getConflictSet());
+                writeFingerprints = getFingerprints(txInfo.getWriteConflictParams());
+            }
+        }
+
+        private long[] getKeyFingerprints(Map<UUID, long[]> conflictParams) {
+            int count = 0;
+            for (long[] params : conflictParams.values()) {
+                count += params.length;
+            }
+
+            long[] fingerprints = new long[count];
+            int index = 0;
+            for (Map.Entry<UUID, long[]> stream : conflictParams.entrySet()) {
+                for (long conflictParam : stream.getValue()) {
+                    fingerprints[index++] = FingerprintConflictTable.fingerprint(stream.getKey(), conflictParam);
+                }
+            }
+            return fingerprints;
+        }
+
+        private long[] getFingerprints(Map<UUID, Set<byte[]>> conflictParams) {
+            int count = 0;
+            for (Set<byte[]> params : conflictParams.values()) {
+                count += params == null ? 0 : params.size();
+            }
+
+            long[] fingerprints = new long[count];
+            int index = 0;
+            for (Map.Entry<UUID, Set<byte[]>> stream : conflictParams.entrySet()) {
+                if (stream.getValue() == null) {
+                    continue;
+                }
+                for (byte[] conflictParam : stream.getValue()) {
+                    fingerprints[index++] = FingerprintConflictTable.fingerprint(stream.getKey(), conflictParam);
+                }
+            }
+            return fingerprints;
+        }
+
+        /**
+         * Returns a lookup going through the conflict fingerprints from the first one.
+         */
+        ConflictLookup getConflictLookup() {
+            int[] index = {0};
+            return (streamId, conflictParam, fingerprint) ->
+                    fingerprintTable.getConflictAddress(conflictFingerprints[index[0]++]);
+        }
     }
 
     /**
@@ -691,13 +1624,41 @@ public class SequencerServer extends AbstractServer {
     @Getter
     public static class Config {
         private static final long DEFAULT_CACHE_SIZE = 250_000L;
+        private static final long DEFAULT_ADDRESS_SPACE_LOAD_TIMEOUT_MS = 60_000L;
 
         private final long initialToken;
         @Default
         private final long cacheSize = DEFAULT_CACHE_SIZE;
+        @Default
+        private final SequencerConflictTable.Type conflictTable = SequencerConflictTable.Type.CACHE;
+        @Default
+        private final int resolverThreads = 0;
+        @Default
+        private final boolean standby = false;
+        @Default
+        private final int addressMapStreams = 0;
+        @Default
+        private final long addressSpaceLoadTimeout = DEFAULT_ADDRESS_SPACE_LOAD_TIMEOUT_MS;
 
         public static Config parse(Map<String, Object> opts) {
             long cacheSize = Utils.parseLong(opts.getOrDefault("--sequencer-cache-size", DEFAULT_CACHE_SIZE));
+            int resolverThreads = (int) Utils.parseLong(opts.getOrDefault("--sequencer-resolver-threads", 0));
+            // Parallel resolution needs lookups that can run concurrently
+            SequencerConflictTable.Type conflictTable = SequencerConflictTable.Type.valueOf(
+                    opts.getOrDefault("--sequencer-conflict-table", resolverThreads > 0 ? "fingerprint" : "cache")
+                            .toString().toUpperCase());
+            if (resolverThreads > 0 && conflictTable != SequencerConflictTable.Type.FINGERPRINT) {
+                throw new IllegalArgumentException("The " + conflictTable + " conflict table can't be used "
+                        + "with resolver threads, only the fingerprint table can");
+            }
+            boolean standby = Boolean.TRUE.equals(opts.get("--sequencer-standby"));
+            int addressMapStreams = (int) Utils.parseLong(opts.getOrDefault("--sequencer-address-map-streams", 0));
+            long addressSpaceLoadTimeout = Utils.parseLong(opts.getOrDefault(
+                    "--sequencer-address-load-timeout", DEFAULT_ADDRESS_SPACE_LOAD_TIMEOUT_MS));
+            if (addressSpaceLoadTimeout < 1) {
+                throw new IllegalArgumentException("The address load timeout must be positive, got "
+                        + addressSpaceLoadTimeout);
+            }
             long initialToken = Utils.parseLong(opts.get("--initial-token"));
 
             if (Address.nonAddress(initialToken)) {
@@ -707,6 +1668,11 @@ public class SequencerServer extends AbstractServer {
             return Config.builder()
                     .initialToken(initialToken)
                     .cacheSize(cacheSize)
+                    .conflictTable(conflictTable)
+                    .resolverThreads(resolverThreads)
+                    .standby(standby)
+                    .addressMapStreams(addressMapStreams)
+                    .addressSpaceLoadTimeout(addressSpaceLoadTimeout)
                     .build();
         }
     }
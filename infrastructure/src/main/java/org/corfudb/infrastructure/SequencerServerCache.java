@@ -29,7 +29,7 @@ import java.util.concurrent.atomic.AtomicLong;
  * `.executor(Runnable::run)`
  */
 @Slf4j
-public class SequencerServerCache {
+public class SequencerServerCache implements SequencerConflictTable {
     /**
      * TX conflict-resolution information:
      * <p>
@@ -130,11 +130,18 @@ public class SequencerServerCache {
         return conflictCache.getIfPresent(conflictKey);
     }
 
+    @Override
+    public long getConflictAddress(UUID streamId, byte[] conflictParam) {
+        Long address = getIfPresent(new ConflictTxStream(streamId, conflictParam));
+        return address == null ? Address.NON_ADDRESS : address;
+    }
+
     /**
      * Invalidate all records up to a trim mark.
      *
      * @param trimMark trim mark
      */
+    @Override
     public void invalidateUpTo(long trimMark) {
         log.debug("Invalidate sequencer cache. Trim mark: {}", trimMark);
 
@@ -157,10 +164,16 @@ public class SequencerServerCache {
      *
      * @return cache size
      */
+    @Override
     public long size() {
         return conflictCache.estimatedSize();
     }
 
+    @Override
+    public long getEvictionCount() {
+        return conflictCache.stats().evictionCount();
+    }
+
     /**
      * Put a value in the cache
      *
@@ -171,9 +184,15 @@ public class SequencerServerCache {
         conflictCache.put(conflictStream, newTail);
     }
 
+    @Override
+    public void put(UUID streamId, byte[] conflictParam, long address) {
+        put(new ConflictTxStream(streamId, conflictParam), address);
+    }
+
     /**
      * Discard all entries in the cache
      */
+    @Override
     public void invalidateAll() {
         log.info("Invalidate sequencer server cache");
         conflictCache.invalidateAll();
@@ -184,6 +203,7 @@ public class SequencerServerCache {
      *
      * @param newMaxConflictWildcard new conflict wildcard
      */
+    @Override
     public void updateMaxConflictAddress(long newMaxConflictWildcard) {
         log.info("updateMaxConflictAddress, new address: {}", newMaxConflictWildcard);
         maxConflictWildcard = newMaxConflictWildcard;
@@ -0,0 +1,165 @@
+package org.corfudb.infrastructure;
+
+import static org.corfudb.util.LambdaUtils.runSansThrow;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.corfudb.protocols.wireprotocol.SequencerStandbyMsg;
+import org.corfudb.protocols.wireprotocol.SequencerStandbyMsg.ConflictUpdate;
+import org.corfudb.runtime.CorfuRuntime;
+import org.corfudb.runtime.view.Address;
+import org.corfudb.runtime.view.Layout;
+import org.corfudb.runtime.view.RuntimeLayout;
+import org.corfudb.util.concurrent.SingletonResource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replicates the conflict-key updates of the primary sequencer to the standby sequencers,
+ * i.e. to the other sequencers of the layout.
+ *
+ * <p>The sequencer appends its updates as it issues tokens, and the updates are sent in
+ * batches every flush interval. Updates are dropped rather than buffered without bound,
+ * and a batch that can't be delivered is not resent: the standby notices the gap with the
+ * next batch and starts over from it, see {@link SequencerStandbyMsg}.</p>
+ */
+@Slf4j
+class SequencerStandbyReplicator {
+
+    private final ServerContext serverContext;
+
+    private final int maxBatchSize;
+
+    private final ScheduledExecutorService flushService;
+
+    private final SingletonResource<CorfuRuntime> runtime;
+
+    private List<ConflictUpdate> updates = new ArrayList<>();
+
+    /**
+     * Set if updates were dropped since the last batch.
+     */
+    private boolean overflow = false;
+
+    private long sequencerEpoch = Layout.INVALID_EPOCH;
+
+    /**
+     * Global tail when the current batch started.
+     */
+    private long batchTail = Address.NON_ADDRESS;
+
+    /**
+     * Global tail of the sequencer, the end of the current batch.
+     */
+    private long globalTail = Address.NON_ADDRESS;
+
+    SequencerStandbyReplicator(ServerContext serverContext, int maxBatchSize, long flushIntervalMs) {
+        this.serverContext = serverContext;
+        this.maxBatchSize = maxBatchSize;
+        this.runtime = SingletonResource.withInitial(() ->
+                CorfuRuntime.fromParameters(serverContext.getDefaultRuntimeParameters()));
+        this.flushService = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder()
+                        .setDaemon(true)
+                        .setNameFormat(serverContext.getThreadPrefix() + "SequencerStandby")
+                        .build());
+        flushService.scheduleAtFixedRate(() -> runSansThrow(this::flush),
+                flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Start replicating from a new sequencer state, discarding the pending updates, unless
+     * the sequencer kept its state in the new epoch.
+     *
+     * @param epoch      epoch of the sequencer
+     * @param globalTail global tail of the sequencer
+     * @param keepState  true if the sequencer state carries over to the new epoch
+     */
+    synchronized void reset(long epoch, long globalTail, boolean keepState) {
+        sequencerEpoch = epoch;
+        if (keepState) {
+            return;
+        }
+        batchTail = globalTail;
+        this.globalTail = globalTail;
+        updates = new ArrayList<>();
+        overflow = false;
+    }
+
+    /**
+     * Append the conflict-key updates of a token.
+     *
+     * @param streamId       stream of the conflict keys
+     * @param conflictParams conflict parameters
+     * @param address        position of the updates
+     */
+    synchronized void append(UUID streamId, Iterable<byte[]> conflictParams, long address) {
+        for (byte[] conflictParam : conflictParams) {
+            if (updates.size() == maxBatchSize) {
+                overflow = true;
+                updates = new ArrayList<>();
+            }
+            if (!overflow) {
+                updates.add(new ConflictUpdate(streamId, conflictParam, address));
+            }
+        }
+    }
+
+    /**
+     * Advance the global tail, once the updates of the tokens before it were appended.
+     *
+     * @param newTail new global tail of the sequencer
+     */
+    synchronized void advance(long newTail) {
+        globalTail = newTail;
+    }
+
+    private void flush() {
+        final SequencerStandbyMsg batch;
+        synchronized (this) {
+            if (globalTail == batchTail) {
+                return;
+            }
+
+            batch = overflow ? null : new SequencerStandbyMsg(sequencerEpoch, batchTail, globalTail, updates);
+            batchTail = globalTail;
+            updates = new ArrayList<>();
+            overflow = false;
+        }
+
+        if (batch == null) {
+            log.warn("flush: standby updates dropped, standby sequencers will restart from the next batch");
+            return;
+        }
+
+        Layout layout = serverContext.getCurrentLayout();
+        // Only the primary sequencer of the current epoch replicates its updates
+        if (layout == null || layout.getEpoch() != batch.getSequencerEpoch()
+                || !layout.getPrimarySequencer().equals(serverContext.getLocalEndpoint())) {
+            return;
+        }
+
+        RuntimeLayout runtimeLayout = runtime.get().getLayoutView().getRuntimeLayout(layout);
+        for (String endpoint : layout.getSequencers()) {
+            if (endpoint.equals(serverContext.getLocalEndpoint())) {
+                continue;
+            }
+            runtimeLayout.getSequencerClient(endpoint)
+                    .sendStandbyUpdate(batch)
+                    .exceptionally(ex -> {
+                        log.debug("flush: failed to send standby updates to {}", endpoint, ex);
+                        return false;
+                    });
+        }
+    }
+
+    void shutdown() {
+        flushService.shutdownNow();
+        runtime.cleanup(CorfuRuntime::shutdown);
+    }
+}
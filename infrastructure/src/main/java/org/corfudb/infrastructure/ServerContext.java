@@ -41,6 +41,7 @@ import org.corfudb.runtime.view.Layout;
 import org.corfudb.runtime.view.Layout.LayoutSegment;
 import org.corfudb.util.MetricsUtils;
 import org.corfudb.util.NodeLocator;
+import org.corfudb.util.Utils;
 import org.corfudb.util.UuidUtils;
 
 /**
@@ -259,6 +260,8 @@ public class ServerContext implements AutoCloseable {
                 .usernameFile((String) serverConfig.get("--sasl-plain-text-username-file"))
                 .passwordFile((String) serverConfig.get("--sasl-plain-text-password-file"))
                 .bulkReadSize(Integer.parseInt((String) serverConfig.get("--batch-size")))
+                .sequencerBootstrapChunkSize(Utils.parseLong(
+                        serverConfig.getOrDefault("--sequencer-bootstrap-chunk-size", 0)))
                 .build();
     }
 
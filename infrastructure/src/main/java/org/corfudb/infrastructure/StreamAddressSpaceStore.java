@@ -0,0 +1,328 @@
+package org.corfudb.infrastructure;
+
+import com.google.common.annotations.VisibleForTesting;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import lombok.extern.slf4j.Slf4j;
+import org.corfudb.protocols.wireprotocol.ICorfuPayload;
+import org.corfudb.runtime.exceptions.unrecoverable.UnrecoverableCorfuError;
+import org.corfudb.runtime.view.Address;
+import org.corfudb.runtime.view.stream.StreamAddressSpace;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The address maps of the streams known to the sequencer.
+ *
+ * <p>The number of maps kept on the heap can be bounded. Beyond the bound, the least
+ * recently used maps are spilled to a local directory, one file per stream, and paged
+ * back in when their stream is written or requested. Trimming only walks the maps on the
+ * heap: spilled maps are trimmed when they are paged back in.</p>
+ *
+ * <p>The spill files are written and deleted by a background thread, so that the sequencer
+ * thread only serializes the maps it spills. A spilled map stays on the heap until its file
+ * is written, and is paged back in from the heap until then. The least recently used maps
+ * are only spilled by {@link #spillColdStreams()}, so that the maps returned while a request
+ * is handled stay on the heap until the request is done.</p>
+ *
+ * <p>Trimming and spilling compact the bitmaps, which keeps them in their smallest
+ * representation as address ranges are removed.</p>
+ *
+ * <p>The store is used by the sequencer thread only, apart from the spill thread.</p>
+ */
+@Slf4j
+class StreamAddressSpaceStore {
+
+    /**
+     * Maximum number of maps on the heap, 0 if unbounded.
+     */
+    private final int maxResidentStreams;
+
+    /**
+     * Directory of the spilled maps, null if maps are never spilled.
+     */
+    private final Path spillDirectory;
+
+    /**
+     * Maps on the heap, in access order.
+     */
+    private final LinkedHashMap<UUID, StreamAddressSpace> resident = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Streams whose map is spilled.
+     */
+    private final Set<UUID> spilled = new HashSet<>();
+
+    /**
+     * Spilled maps whose file is not written yet, or failed to be written, which are still
+     * on the heap. Updated by the spill thread.
+     */
+    private final Map<UUID, Spill> spilling = new ConcurrentHashMap<>();
+
+    /**
+     * Writes and deletes the spill files, null if maps are never spilled.
+     */
+    private final ExecutorService spillExecutor;
+
+    /**
+     * Trim mark applied to the spilled maps when they are paged back in.
+     */
+    private long trimMark = Address.NON_ADDRESS;
+
+    /**
+     * Creates a store.
+     *
+     * @param maxResidentStreams maximum number of maps on the heap, 0 if unbounded
+     * @param spillDirectory     directory of the spilled maps, null to keep all maps on the heap
+     */
+    StreamAddressSpaceStore(int maxResidentStreams, Path spillDirectory) {
+        if (maxResidentStreams > 0 && spillDirectory != null) {
+            this.maxResidentStreams = maxResidentStreams;
+            this.spillDirectory = spillDirectory;
+            // Maps spilled by a previous run are stale, the sequencer is bootstrapped again
+            try {
+                Files.createDirectories(spillDirectory);
+                deleteSpillFiles();
+            } catch (IOException e) {
+                throw new UnrecoverableCorfuError("Can't create address map spill directory", e);
+            }
+            this.spillExecutor = Executors.newSingleThreadExecutor(new ServerThreadFactory(
+                    "sequencer-spill-", new ServerThreadFactory.ExceptionHandler()));
+        } else {
+            this.maxResidentStreams = 0;
+            this.spillDirectory = null;
+            this.spillExecutor = null;
+        }
+    }
+
+    /**
+     * Returns the address map of a stream, paging it in if it is spilled.
+     *
+     * @param streamId stream
+     * @return the address map, or null if the stream is unknown
+     * @throws UncheckedIOException if the spilled map can't be read, in which case it
+     *                              stays spilled
+     */
+    StreamAddressSpace get(UUID streamId) {
+        StreamAddressSpace addressSpace = resident.get(streamId);
+        if (addressSpace == null && spilled.contains(streamId)) {
+            Spill spill = spilling.remove(streamId);
+            if (spill != null) {
+                addressSpace = spill.addressSpace;
+                addressSpace.trim(trimMark);
+            } else {
+                addressSpace = readSpilled(streamId);
+            }
+            spilled.remove(streamId);
+            deleteSpilled(streamId);
+            resident.put(streamId, addressSpace);
+        }
+        return addressSpace;
+    }
+
+    /**
+     * Set the address map of a stream.
+     *
+     * @param streamId     stream
+     * @param addressSpace address map
+     */
+    void put(UUID streamId, StreamAddressSpace addressSpace) {
+        if (spilled.remove(streamId)) {
+            spilling.remove(streamId);
+            deleteSpilled(streamId);
+        }
+        resident.put(streamId, addressSpace);
+    }
+
+    boolean containsKey(UUID streamId) {
+        return resident.containsKey(streamId) || spilled.contains(streamId);
+    }
+
+    /**
+     * The number of streams, on the heap or spilled.
+     */
+    int size() {
+        return resident.size() + spilled.size();
+    }
+
+    /**
+     * The number of streams whose map is on the heap.
+     */
+    int residentSize() {
+        return resident.size();
+    }
+
+    /**
+     * Remove all the address maps.
+     */
+    void clear() {
+        resident.clear();
+        for (UUID streamId : spilled) {
+            deleteSpilled(streamId);
+        }
+        spilled.clear();
+        spilling.clear();
+    }
+
+    /**
+     * Stop the spill thread, once the queued spill files are written or deleted.
+     */
+    void close() {
+        if (spillExecutor != null) {
+            spillExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Trim the addresses up to a trim mark, and compact the maps on the heap.
+     *
+     * @param newTrimMark trim mark
+     */
+    void trim(long newTrimMark) {
+        trimMark = Math.max(trimMark, newTrimMark);
+        for (StreamAddressSpace addressSpace : resident.values()) {
+            addressSpace.trim(trimMark);
+            addressSpace.getAddressMap().runOptimize();
+        }
+    }
+
+    /**
+     * Wait for the spill files queued so far to be written or deleted.
+     */
+    @VisibleForTesting
+    void awaitSpillFiles() throws InterruptedException, ExecutionException {
+        spillExecutor.submit(() -> { }).get();
+    }
+
+    /**
+     * Returns a copy of all the address maps. Spilled maps are read without being
+     * paged in.
+     *
+     * @throws UncheckedIOException if a spilled map can't be read
+     */
+    Map<UUID, StreamAddressSpace> getAll() {
+        Map<UUID, StreamAddressSpace> addressSpaces = new HashMap<>(resident);
+        for (UUID streamId : spilled) {
+            Spill spill = spilling.get(streamId);
+            addressSpaces.put(streamId, spill != null ? spill.addressSpace : readSpilled(streamId));
+        }
+        return addressSpaces;
+    }
+
+    /**
+     * Spill the least recently used maps beyond the bound. The maps are serialized by the
+     * calling thread, and their files are written in the background.
+     */
+    void spillColdStreams() {
+        if (maxResidentStreams == 0 || resident.size() <= maxResidentStreams) {
+            return;
+        }
+
+        Iterator<Map.Entry<UUID, StreamAddressSpace>> it = resident.entrySet().iterator();
+        while (resident.size() > maxResidentStreams) {
+            Map.Entry<UUID, StreamAddressSpace> coldest = it.next();
+            StreamAddressSpace addressSpace = coldest.getValue();
+            addressSpace.getAddressMap().runOptimize();
+
+            byte[] bytes;
+            ByteBuf buf = Unpooled.buffer();
+            try {
+                ICorfuPayload.serialize(buf, addressSpace);
+                bytes = getBytes(buf);
+            } finally {
+                buf.release();
+            }
+
+            UUID streamId = coldest.getKey();
+            Spill spill = new Spill(addressSpace);
+            spilling.put(streamId, spill);
+            spilled.add(streamId);
+            it.remove();
+            spillExecutor.execute(() -> writeSpilled(streamId, bytes, spill));
+        }
+    }
+
+    /**
+     * Write a spill file, and drop the spilled map from the heap unless it was paged in
+     * or spilled again meanwhile.
+     */
+    private void writeSpilled(UUID streamId, byte[] bytes, Spill spill) {
+        try {
+            Files.write(getSpillFile(streamId), bytes);
+            spilling.remove(streamId, spill);
+        } catch (IOException e) {
+            // Keep the map on the heap, it is paged in from there
+            log.warn("writeSpilled: failed to spill address map of stream {}", streamId, e);
+        }
+    }
+
+    private StreamAddressSpace readSpilled(UUID streamId) {
+        try {
+            byte[] bytes = Files.readAllBytes(getSpillFile(streamId));
+            StreamAddressSpace addressSpace = ICorfuPayload.fromBuffer(Unpooled.wrappedBuffer(bytes),
+                    StreamAddressSpace.class);
+            addressSpace.trim(trimMark);
+            return addressSpace;
+        } catch (IOException e) {
+            log.error("readSpilled: failed to read address map of stream {}", streamId, e);
+            throw new UncheckedIOException("Can't read spilled address map of stream " + streamId, e);
+        }
+    }
+
+    /**
+     * Delete a spill file in the background, after the spill file writes queued before.
+     */
+    private void deleteSpilled(UUID streamId) {
+        spillExecutor.execute(() -> {
+            try {
+                Files.deleteIfExists(getSpillFile(streamId));
+            } catch (IOException e) {
+                log.warn("deleteSpilled: failed to delete address map of stream {}", streamId, e);
+            }
+        });
+    }
+
+    private void deleteSpillFiles() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(spillDirectory)) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private Path getSpillFile(UUID streamId) {
+        return spillDirectory.resolve(streamId.toString());
+    }
+
+    private static byte[] getBytes(ByteBuf buf) {
+        byte[] bytes = new byte[buf.readableBytes()];
+        buf.readBytes(bytes);
+        return bytes;
+    }
+
+    /**
+     * A spilled map kept on the heap until its file is written.
+     */
+    private static final class Spill {
+        private final StreamAddressSpace addressSpace;
+
+        Spill(StreamAddressSpace addressSpace) {
+            this.addressSpace = addressSpace;
+        }
+    }
+}
@@ -94,6 +94,28 @@ public class LogMetadata {
         }
     }
 
+    /**
+     * Merge the metadata of a subsequent range of the log (i.e. a log segment) into
+     * this metadata. This is equivalent to updating this metadata with every entry of
+     * that range in address order.
+     *
+     * @param other metadata of a range of the log following the ranges already applied
+     */
+    public void merge(LogMetadata other) {
+        updateGlobalTail(other.getGlobalTail());
+
+        for (Map.Entry<UUID, Long> streamTail : other.getStreamTails().entrySet()) {
+            streamTails.merge(streamTail.getKey(), streamTail.getValue(), Math::max);
+        }
+
+        for (Map.Entry<UUID, StreamAddressSpace> entry : other.getStreamsAddressSpaceMap().entrySet()) {
+            // The trim mark is set by the first range in which the stream shows up
+            streamsAddressSpaceMap.putIfAbsent(entry.getKey(),
+                    new StreamAddressSpace(entry.getValue().getTrimMark(), new Roaring64NavigableMap()));
+            streamsAddressSpaceMap.get(entry.getKey()).getAddressMap().or(entry.getValue().getAddressMap());
+        }
+    }
+
     public void updateGlobalTail(long newTail) {
         globalTail = Math.max(globalTail, newTail);
     }
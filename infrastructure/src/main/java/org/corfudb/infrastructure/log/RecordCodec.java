@@ -0,0 +1,159 @@
+package org.corfudb.infrastructure.log;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import lombok.Getter;
+
+import org.corfudb.runtime.exceptions.DataCorruptionException;
+
+/**
+ * Compression codecs for the records of a log segment.
+ *
+ * <p>The codec of a segment is chosen when the segment file is created and is
+ * recorded in its {@link org.corfudb.format.Types.LogHeader}, so segments written
+ * with different codecs can be read transparently. Every record of a segment is
+ * encoded with the segment codec, the record metadata (length and checksum)
+ * describes the encoded bytes. Segments encoded with a codec other than
+ * {@link #NONE} are written with {@link StreamLogFiles#CODEC_VERSION}, which log
+ * units without codec support refuse to open.
+ */
+public enum RecordCodec {
+
+    /**
+     * Records are stored as is.
+     */
+    NONE(0) {
+        @Override
+        public byte[] encode(byte[] record) {
+            return record;
+        }
+
+        @Override
+        public byte[] decode(ByteBuffer buf) {
+            if (buf.hasArray() && buf.arrayOffset() == 0 && buf.position() == 0
+                    && buf.remaining() == buf.array().length) {
+                return buf.array();
+            }
+
+            byte[] record = new byte[buf.remaining()];
+            buf.duplicate().get(record);
+            return record;
+        }
+    },
+
+    /**
+     * Records are compressed with deflate, prefixed by their uncompressed length.
+     */
+    DEFLATE(1) {
+        @Override
+        public byte[] encode(byte[] record) {
+            Deflater deflater = DEFLATERS.get();
+            deflater.reset();
+            deflater.setInput(record);
+            deflater.finish();
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(record.length / 2 + Integer.BYTES);
+            byte[] chunk = new byte[CHUNK_SIZE];
+            out.write(ByteBuffer.allocate(Integer.BYTES).putInt(record.length).array(), 0, Integer.BYTES);
+            while (!deflater.finished()) {
+                int length = deflater.deflate(chunk);
+                out.write(chunk, 0, length);
+            }
+            return out.toByteArray();
+        }
+
+        @Override
+        public byte[] decode(ByteBuffer buf) {
+            ByteBuffer encoded = buf.duplicate();
+            if (encoded.remaining() < Integer.BYTES) {
+                throw new DataCorruptionException("Compressed record too short: " + encoded.remaining());
+            }
+
+            // The length is read from disk, check it before allocating the record
+            int recordLength = encoded.getInt();
+            long maxLength = Math.min(MAX_RECORD_SIZE, (long) encoded.remaining() * MAX_DEFLATE_RATIO);
+            if (recordLength < 0 || recordLength > maxLength) {
+                throw new DataCorruptionException("Invalid compressed record length " + recordLength
+                        + ", the maximum is " + maxLength);
+            }
+
+            byte[] record = new byte[recordLength];
+            byte[] input = new byte[encoded.remaining()];
+            encoded.get(input);
+
+            Inflater inflater = INFLATERS.get();
+            inflater.reset();
+            inflater.setInput(input);
+            try {
+                int length = inflater.inflate(record);
+                if (length != record.length || !inflater.finished()) {
+                    throw new DataCorruptionException("Compressed record length mismatch, expected "
+                            + record.length + ", inflated " + length);
+                }
+            } catch (DataFormatException e) {
+                throw new DataCorruptionException("Invalid compressed record", e);
+            }
+            return record;
+        }
+    };
+
+    private static final int CHUNK_SIZE = 4096;
+
+    // Largest array size supported by the JVMs
+    private static final int MAX_RECORD_SIZE = Integer.MAX_VALUE - 8;
+
+    // Deflate can't compress data by more than about 1032:1
+    private static final int MAX_DEFLATE_RATIO = 1032;
+
+    // Deflaters and inflaters hold native memory, they are reused by the threads
+    // that read and write records rather than allocated per record.
+    private static final ThreadLocal<Deflater> DEFLATERS =
+            ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_SPEED));
+    private static final ThreadLocal<Inflater> INFLATERS = ThreadLocal.withInitial(Inflater::new);
+
+    /**
+     * Id of the codec in the log header.
+     */
+    @Getter
+    private final int id;
+
+    RecordCodec(int id) {
+        this.id = id;
+    }
+
+    /**
+     * Encode a serialized record.
+     *
+     * @param record serialized record
+     * @return the encoded record
+     */
+    public abstract byte[] encode(byte[] record);
+
+    /**
+     * Decode a record, the buffer position is left unchanged.
+     *
+     * @param buf the encoded record
+     * @return the serialized record
+     * @throws DataCorruptionException if the record can't be decoded
+     */
+    public abstract byte[] decode(ByteBuffer buf);
+
+    /**
+     * Returns the codec with the given id.
+     *
+     * @param id codec id from a log header
+     * @return the codec
+     */
+    public static RecordCodec fromId(int id) {
+        for (RecordCodec codec : values()) {
+            if (codec.id == id) {
+                return codec;
+            }
+        }
+        throw new IllegalStateException("Unknown log record codec " + id);
+    }
+}
@@ -1,11 +1,18 @@
 package org.corfudb.infrastructure.log;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
 import lombok.NonNull;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.IOUtils;
 
 import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.util.Arrays;
 import java.util.Collections;
@@ -13,6 +20,8 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * The global log is partition into segments, each segment contains a range of consecutive
@@ -39,6 +48,43 @@ class SegmentHandle {
     private final Set<Long> pendingTrims = Collections.newSetFromMap(new ConcurrentHashMap<>());
     private volatile int refCount = 0;
 
+    /**
+     * Codec of the records of the segment, as recorded in the segment header.
+     */
+    private volatile RecordCodec codec = RecordCodec.NONE;
+
+    /**
+     * Read-only memory mapped view of the segment file, lazily created when
+     * memory mapped reads are enabled. The mapping covers the file as it was
+     * at mapping time, records appended afterwards require a re-map.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private MappedByteBuffer mappedBuffer = null;
+
+    /**
+     * Readers of the mapping hold the read lock, the mapping is replaced or released under
+     * the write lock, so that it is never unmapped while a reader is using it.
+     */
+    @Getter(AccessLevel.NONE)
+    private final ReadWriteLock mappingLock = new ReentrantReadWriteLock();
+
+    /**
+     * Reads a record from a memory mapped view of the segment.
+     *
+     * @param <R> type of the result
+     */
+    @FunctionalInterface
+    interface MappedReader<R> {
+        /**
+         * Reads a record, the buffer must not be used once this method returns.
+         *
+         * @param buf a buffer positioned at the record payload and limited to its length
+         * @return the result of the read
+         * @throws IOException IO exception
+         */
+        R read(ByteBuffer buf) throws IOException;
+    }
 
     public synchronized void retain() {
         refCount++;
@@ -51,7 +97,118 @@ class SegmentHandle {
         refCount--;
     }
 
+    /**
+     * A single mapping is limited to 2GB, records ending beyond that can't be read from it.
+     *
+     * @param metaData metadata of the record to read
+     * @return true if the record can be read with {@link #readMapped}
+     */
+    public boolean isMappable(AddressMetaData metaData) {
+        return metaData.offset + metaData.length <= Integer.MAX_VALUE;
+    }
+
+    /**
+     * Reads a record from the memory mapped segment file, the segment file is (re)mapped
+     * if the record lies beyond the current mapping. Only records that are
+     * {@link #isMappable mappable} can be read.
+     *
+     * @param metaData metadata of the record to read
+     * @param reader   reads the record from a slice of the mapping
+     * @param <R>      type of the result
+     * @return the result of the reader
+     * @throws IOException IO exception
+     */
+    public <R> R readMapped(AddressMetaData metaData, MappedReader<R> reader) throws IOException {
+        if (!isMappable(metaData)) {
+            throw new IOException("Can't map a record of segment " + fileName + " at offset "
+                    + metaData.offset + " of length " + metaData.length);
+        }
+
+        int end = Math.toIntExact(metaData.offset + metaData.length);
+        while (true) {
+            mappingLock.readLock().lock();
+            try {
+                MappedByteBuffer buffer = mappedBuffer;
+                if (buffer != null && buffer.capacity() >= end) {
+                    // Duplicate the mapping so that concurrent readers don't share position/limit
+                    ByteBuffer slice = buffer.duplicate();
+                    slice.position(Math.toIntExact(metaData.offset));
+                    slice.limit(end);
+                    return reader.read(slice.slice());
+                }
+            } finally {
+                mappingLock.readLock().unlock();
+            }
+            remap(end);
+        }
+    }
+
+    private void remap(int minSize) throws IOException {
+        mappingLock.writeLock().lock();
+        try {
+            MappedByteBuffer buffer = mappedBuffer;
+            if (buffer != null && buffer.capacity() >= minSize) {
+                // Another reader already re-mapped the segment
+                return;
+            }
+
+            long size = readChannel.size();
+            if (size < minSize) {
+                throw new IOException("Can't map segment " + fileName + " of size " + size
+                        + " for a record ending at " + minSize);
+            }
+
+            // Segments larger than a single mapping are mapped up to the mapping limit
+            size = Math.min(size, Integer.MAX_VALUE);
+            unmap();
+            mappedBuffer = readChannel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            log.trace("remap: mapped {} bytes of segment {}", size, fileName);
+        } finally {
+            mappingLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Release the current mapping rather than waiting for the buffer to be garbage
+     * collected, which keeps the file mapped, and on some platforms undeletable, meanwhile.
+     * Requires the write lock of the mapping.
+     */
+    private void unmap() {
+        MappedByteBuffer buffer = mappedBuffer;
+        mappedBuffer = null;
+        if (buffer == null) {
+            return;
+        }
+
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            try {
+                // Java 9 and later
+                Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+                Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+                theUnsafe.setAccessible(true);
+                invokeCleaner.invoke(theUnsafe.get(null), buffer);
+            } catch (NoSuchMethodException e) {
+                // Java 8
+                Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(buffer);
+                cleaner.getClass().getMethod("clean").invoke(cleaner);
+            }
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.debug("unmap: can't unmap segment {}, it is released once garbage collected",
+                    fileName, e);
+        }
+    }
+
     public void close() {
+        mappingLock.writeLock().lock();
+        try {
+            unmap();
+        } finally {
+            mappingLock.writeLock().unlock();
+        }
+
         Set<FileChannel> channels = new HashSet<>(
                 Arrays.asList(writeChannel, readChannel)
         );
@@ -66,4 +223,4 @@ class SegmentHandle {
             }
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,208 @@
+package org.corfudb.infrastructure.log;
+
+import static org.corfudb.infrastructure.utils.Persistence.syncDirectory;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+import lombok.extern.slf4j.Slf4j;
+import org.corfudb.format.Types.AddressIndexEntry;
+import org.corfudb.format.Types.Metadata;
+import org.corfudb.format.Types.SegmentIndex;
+import org.corfudb.format.Types.StreamIndexEntry;
+import org.corfudb.infrastructure.log.StreamLogFiles.Checksum;
+import org.corfudb.runtime.view.Address;
+import org.corfudb.runtime.view.stream.StreamAddressSpace;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Reads and writes the sidecar index files of sealed log segments.
+ *
+ * <p>An index file holds the offset and length of every record of a segment,
+ * along with the tail and address map of every stream present in the segment.
+ * It is written once a segment is full and allows the log unit to load the
+ * segment on startup without scanning and parsing all of its records. Index
+ * files use the same framing as log records, i.e. a {@link Metadata} field
+ * followed by the {@link SegmentIndex} payload.
+ */
+@Slf4j
+final class SegmentIndexFiles {
+
+    static final String INDEX_FILE_EXTENSION = ".idx";
+
+    private static final String TEMP_FILE_EXTENSION = ".tmp";
+
+    private SegmentIndexFiles() {
+        //prevent creating instances
+    }
+
+    /**
+     * The loaded content of a segment index.
+     */
+    static class LoadedIndex {
+        final Map<Long, AddressMetaData> knownAddresses;
+        final LogMetadata logMetadata;
+
+        LoadedIndex(Map<Long, AddressMetaData> knownAddresses, LogMetadata logMetadata) {
+            this.knownAddresses = knownAddresses;
+            this.logMetadata = logMetadata;
+        }
+    }
+
+    /**
+     * Atomically write the index of a segment.
+     *
+     * @param indexFile      path of the index file
+     * @param segment        segment number
+     * @param segmentSize    size of the segment file covered by the index
+     * @param knownAddresses address metadata of the segment records
+     * @param logMetadata    log metadata built from the segment records only
+     * @throws IOException IO exception
+     */
+    static void write(Path indexFile, long segment, long segmentSize,
+                      Map<Long, AddressMetaData> knownAddresses,
+                      LogMetadata logMetadata) throws IOException {
+        SegmentIndex.Builder index = SegmentIndex.newBuilder()
+                .setSegment(segment)
+                .setSegmentSize(segmentSize);
+
+        Long[] addresses = knownAddresses.keySet().toArray(new Long[0]);
+        Arrays.sort(addresses);
+        for (Long address : addresses) {
+            AddressMetaData metaData = knownAddresses.get(address);
+            index.addAddresses(AddressIndexEntry.newBuilder()
+                    .setAddress(address)
+                    .setChecksum(metaData.checksum)
+                    .setLength(metaData.length)
+                    .setOffset(metaData.offset)
+                    .build());
+        }
+
+        for (Map.Entry<UUID, StreamAddressSpace> entry : logMetadata.getStreamsAddressSpaceMap().entrySet()) {
+            UUID streamId = entry.getKey();
+            StreamAddressSpace addressSpace = entry.getValue();
+            index.addStreams(StreamIndexEntry.newBuilder()
+                    .setStreamIdMostSignificant(streamId.getMostSignificantBits())
+                    .setStreamIdLeastSignificant(streamId.getLeastSignificantBits())
+                    .setTail(logMetadata.getStreamTails().getOrDefault(streamId, Address.NON_ADDRESS))
+                    .setTrimMark(addressSpace.getTrimMark())
+                    .setAddresses(serialize(addressSpace.getAddressMap()))
+                    .build());
+        }
+
+        ByteBuffer buf = StreamLogFiles.getByteBufferWithMetaData(index.build());
+
+        Path tempFile = indexFile.resolveSibling(indexFile.getFileName() + TEMP_FILE_EXTENSION);
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buf.hasRemaining()) {
+                channel.write(buf);
+            }
+            channel.force(true);
+        }
+
+        Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(indexFile.getParent().toString());
+    }
+
+    /**
+     * Load the index of a segment.
+     *
+     * @param indexFile   path of the index file
+     * @param segment     expected segment number
+     * @param segmentSize current size of the segment file
+     * @return the loaded index, or null if the index doesn't exist, is corrupted
+     * or doesn't cover the whole segment file
+     */
+    static LoadedIndex read(Path indexFile, long segment, long segmentSize) {
+        if (!Files.exists(indexFile)) {
+            return null;
+        }
+
+        try {
+            SegmentIndex index = parse(Files.readAllBytes(indexFile));
+            if (index == null) {
+                log.warn("read: corrupted index {}, ignoring", indexFile);
+                return null;
+            }
+
+            if (index.getSegment() != segment || index.getSegmentSize() != segmentSize) {
+                log.warn("read: stale index {}, segment {}, size {}, expected segment {}, size {}",
+                        indexFile, index.getSegment(), index.getSegmentSize(), segment, segmentSize);
+                return null;
+            }
+
+            Map<Long, AddressMetaData> knownAddresses = new HashMap<>();
+            LogMetadata logMetadata = new LogMetadata();
+            for (AddressIndexEntry entry : index.getAddressesList()) {
+                knownAddresses.put(entry.getAddress(),
+                        new AddressMetaData(entry.getChecksum(), entry.getLength(), entry.getOffset()));
+                logMetadata.updateGlobalTail(entry.getAddress());
+            }
+
+            for (StreamIndexEntry entry : index.getStreamsList()) {
+                UUID streamId = new UUID(entry.getStreamIdMostSignificant(),
+                        entry.getStreamIdLeastSignificant());
+                logMetadata.getStreamTails().put(streamId, entry.getTail());
+                logMetadata.getStreamsAddressSpaceMap().put(streamId,
+                        new StreamAddressSpace(entry.getTrimMark(), deserialize(entry.getAddresses())));
+            }
+
+            return new LoadedIndex(knownAddresses, logMetadata);
+        } catch (IOException e) {
+            log.warn("read: failed to load index {}, ignoring", indexFile, e);
+            return null;
+        }
+    }
+
+    private static SegmentIndex parse(byte[] bytes) throws InvalidProtocolBufferException {
+        if (bytes.length < StreamLogFiles.METADATA_SIZE) {
+            return null;
+        }
+
+        Metadata metadata = Metadata.parseFrom(Arrays.copyOfRange(bytes, 0, StreamLogFiles.METADATA_SIZE));
+        if (metadata.getLengthChecksum() != Checksum.getChecksum(metadata.getLength())
+                || bytes.length != StreamLogFiles.METADATA_SIZE + metadata.getLength()) {
+            return null;
+        }
+
+        byte[] payload = Arrays.copyOfRange(bytes, StreamLogFiles.METADATA_SIZE, bytes.length);
+        if (metadata.getPayloadChecksum() != Checksum.getChecksum(payload)) {
+            return null;
+        }
+
+        return SegmentIndex.parseFrom(payload);
+    }
+
+    private static ByteString serialize(Roaring64NavigableMap addressMap) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            addressMap.serialize(out);
+        }
+        return ByteString.copyFrom(bytes.toByteArray());
+    }
+
+    private static Roaring64NavigableMap deserialize(ByteString bytes) throws IOException {
+        Roaring64NavigableMap addressMap = new Roaring64NavigableMap();
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            addressMap.deserialize(in);
+        }
+        return addressMap;
+    }
+}
@@ -1,7 +1,9 @@
 package org.corfudb.infrastructure.log;
 
 import java.io.IOException;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import org.corfudb.protocols.wireprotocol.LogData;
@@ -34,6 +36,27 @@ public interface StreamLog {
      */
     void append(List<LogData> entries);
 
+    /**
+     * Append a group of independent entries, each one at its own global address.
+     * Unlike {@link #append(List)}, the entries don't need to be consecutive and
+     * an entry that can't be written (e.g. an overwrite) doesn't prevent the other
+     * entries from being written. The addresses of the entries must be unique.
+     *
+     * @param entries entries to append
+     * @return the exceptions of the entries that could not be written, by address
+     */
+    default Map<Long, RuntimeException> appendAll(List<LogData> entries) {
+        Map<Long, RuntimeException> failures = new HashMap<>();
+        for (LogData entry : entries) {
+            try {
+                append(entry.getGlobalAddress(), entry);
+            } catch (RuntimeException e) {
+                failures.put(entry.getGlobalAddress(), e);
+            }
+        }
+        return failures;
+    }
+
     /**
      * Given an address, read the corresponding stream entry.
      * @param address  address to read from the log
@@ -6,8 +6,11 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Sets;
 import com.google.common.hash.Hasher;
 import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.protobuf.AbstractMessage;
 import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
 import com.google.protobuf.InvalidProtocolBufferException;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
@@ -42,9 +45,12 @@ import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -52,9 +58,15 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 
@@ -76,9 +88,16 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
             .build()
             .getSerializedSize();
     public static final int VERSION = 2;
+    /**
+     * Version of the segments whose records are encoded with a codec, so that log units
+     * that predate record codecs refuse them rather than parsing encoded records.
+     */
+    public static final int CODEC_VERSION = 3;
     public static final int RECORDS_PER_LOG_FILE = 10000;
+    private static final String COMPACTION_FILE_EXTENSION = ".compact";
     private final Path logDir;
     private final boolean verify;
+    private final StreamLogParams params;
 
     private final StreamLogDataStore dataStore;
 
@@ -86,6 +105,33 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
     private Set<FileChannel> channelsToSync;
     private MultiReadWriteLock segmentLocks = new MultiReadWriteLock();
 
+    /**
+     * Guards the log metadata and the tail segment, which are shared by appends
+     * to different segments running concurrently.
+     */
+    private final Object metadataLock = new Object();
+
+    /**
+     * Writes the index files of segments that became full, off the write path.
+     */
+    private final ThreadPoolExecutor segmentIndexer;
+
+    /**
+     * Segments holding records superseded by ranked overwrites, which compaction can reclaim.
+     */
+    private final Set<Long> overwrittenSegments = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Throttles the bytes copied by segment compaction.
+     */
+    private final RateLimiter compactionRateLimiter;
+
+    /**
+     * Serializes segment compactions, a compaction can be requested while a
+     * scheduled compaction is running.
+     */
+    private final Object compactionLock = new Object();
+
     //=================Log Metadata=================
     // TODO(Maithem) this should effectively be final, but it is used
     // by a reset API that clears the state of this class, on reset
@@ -102,11 +148,30 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
      * @param noVerify      Disable checksum if true
      */
     public StreamLogFiles(ServerContext serverContext, boolean noVerify) {
+        this(serverContext, StreamLogParams.builder().verifyChecksum(!noVerify).build());
+    }
+
+    /**
+     * Returns a file-based stream log object.
+     *
+     * @param serverContext Context object that provides server state such as epoch,
+     *                      segment and start address
+     * @param params        Stream log tunables
+     */
+    public StreamLogFiles(ServerContext serverContext, StreamLogParams params) {
         logDir = Paths.get(serverContext.getServerConfig().get("--log-path").toString(), "log");
         writeChannels = new ConcurrentHashMap<>();
-        channelsToSync = new HashSet<>();
-        this.verify = !noVerify;
+        channelsToSync = ConcurrentHashMap.newKeySet();
+        this.params = params;
+        this.verify = params.isVerifyChecksum();
         this.dataStore = StreamLogDataStore.builder().dataStore(serverContext.getDataStore()).build();
+        this.segmentIndexer = new ThreadPoolExecutor(1, 1, 1, TimeUnit.MINUTES,
+                new LinkedBlockingQueue<>(), new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("LogUnit-SegmentIndexer-%d")
+                .build());
+        this.segmentIndexer.allowCoreThreadTimeOut(true);
+        this.compactionRateLimiter = RateLimiter.create(params.getCompactionRate());
 
         initStreamLogDirectory();
         verifyLogs();
@@ -170,13 +235,27 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
      * addresses seen.
      *
      * consecutive segments from [startSegment, endSegment]
+     *
+     * Sealed segments that haven't been partially trimmed are loaded from
+     * their index files, if present and valid, instead of being scanned.
      */
     private void initializeLogMetadata() {
         long startingSegment = getStartingSegment();
         long tailSegment = dataStore.getTailSegment();
+        int indexedSegments = 0;
 
         long start = System.currentTimeMillis();
         for (long currentSegment = startingSegment; currentSegment <= tailSegment; currentSegment++) {
+            if (currentSegment < tailSegment
+                    && currentSegment * RECORDS_PER_LOG_FILE >= dataStore.getStartingAddress()) {
+                SegmentIndexFiles.LoadedIndex index = readSegmentIndex(currentSegment);
+                if (index != null) {
+                    logMetadata.merge(index.logMetadata);
+                    indexedSegments++;
+                    continue;
+                }
+            }
+
             // TODO(Maithem): factor out getSegmentHandleForAddress to allow getting segments by segment number
             SegmentHandle segment = getSegmentHandleForAddress(currentSegment * RECORDS_PER_LOG_FILE + 1);
             try {
@@ -196,7 +275,126 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
         // Open segment will add entries to the writeChannels map, therefore we need to clear it
         writeChannels.clear();
         long end = System.currentTimeMillis();
-        log.info("initializeStreamTails: took {} ms to load {}", end - start, logMetadata);
+        log.info("initializeStreamTails: took {} ms to load {} ({} segments loaded from index)",
+                end - start, logMetadata, indexedSegments);
+    }
+
+    private Path getSegmentFilePath(long segment) {
+        return logDir.resolve(segment + ".log");
+    }
+
+    private Path getIndexFilePath(long segment) {
+        return logDir.resolve(segment + SegmentIndexFiles.INDEX_FILE_EXTENSION);
+    }
+
+    /**
+     * Load the index of a segment, if it exists and covers the current segment file.
+     *
+     * @param segment segment number
+     * @return the loaded index or null
+     */
+    @Nullable
+    private SegmentIndexFiles.LoadedIndex readSegmentIndex(long segment) {
+        File segmentFile = getSegmentFilePath(segment).toFile();
+        if (!segmentFile.exists()) {
+            return null;
+        }
+        return SegmentIndexFiles.read(getIndexFilePath(segment), segment, segmentFile.length());
+    }
+
+    /**
+     * Schedule writing the index of a segment once all of its addresses have been written.
+     * A segment that is re-written (i.e. ranked overwrites) is re-indexed.
+     *
+     * @param segment segment handle
+     */
+    private void indexIfFull(SegmentHandle segment) {
+        if (segment.getKnownAddresses().size() < RECORDS_PER_LOG_FILE) {
+            return;
+        }
+
+        scheduleSegmentIndex(segment);
+    }
+
+    private void scheduleSegmentIndex(SegmentHandle segment) {
+        segment.retain();
+        segmentIndexer.execute(() -> {
+            try {
+                writeSegmentIndex(segment);
+            } finally {
+                segment.release();
+            }
+        });
+    }
+
+    private void writeSegmentIndex(SegmentHandle segment) {
+        try (MultiReadWriteLock.AutoCloseableLock ignored =
+                     segmentLocks.acquireReadLock(segment.getSegment())) {
+            Map<Long, AddressMetaData> knownAddresses = new HashMap<>(segment.getKnownAddresses());
+            long segmentSize = segment.getWriteChannel().size();
+
+            // A record can be written to the file before it is added to the known addresses,
+            // in which case the index is written once the record is known.
+            long coveredSize = knownAddresses.values().stream()
+                    .mapToLong(metaData -> metaData.offset + metaData.length)
+                    .max()
+                    .orElse(0L);
+            if (coveredSize != segmentSize) {
+                log.debug("writeSegmentIndex: segment {} has pending writes, skipping", segment.getSegment());
+                return;
+            }
+
+            LogMetadata segmentMetadata = new LogMetadata();
+            Long[] addresses = knownAddresses.keySet().toArray(new Long[0]);
+            Arrays.sort(addresses);
+            for (Long address : addresses) {
+                segmentMetadata.update(readRecord(segment, address));
+            }
+
+            SegmentIndexFiles.write(getIndexFilePath(segment.getSegment()), segment.getSegment(),
+                    segmentSize, knownAddresses, segmentMetadata);
+            log.debug("writeSegmentIndex: indexed {} addresses of segment {}",
+                    knownAddresses.size(), segment.getSegment());
+        } catch (Exception e) {
+            // The segment will be scanned on startup
+            log.warn("writeSegmentIndex: failed to index segment {}", segment.getSegment(), e);
+        }
+    }
+
+    /**
+     * Loads the address space of a segment into a SegmentHandle, from the segment
+     * index if the segment is sealed and indexed, otherwise by scanning the segment.
+     *
+     * @param segment Object containing state for the segment to be read
+     */
+    private void loadAddressSpace(SegmentHandle segment) throws IOException {
+        if (isSealed(segment)) {
+            FileChannel fileChannel = segment.getWriteChannel();
+            SegmentIndexFiles.LoadedIndex index = SegmentIndexFiles.read(
+                    getIndexFilePath(segment.getSegment()), segment.getSegment(), fileChannel.size());
+            if (index != null) {
+                fileChannel.position(0);
+                LogHeader header = parseHeader(fileChannel, segment.getFileName());
+                if (header != null) {
+                    segment.setCodec(RecordCodec.fromId(header.getCodec()));
+                    segment.getKnownAddresses().putAll(index.knownAddresses);
+                    fileChannel.position(fileChannel.size());
+                    return;
+                }
+            }
+        }
+
+        readAddressSpace(segment);
+    }
+
+    /**
+     * Returns the version of the segments whose records are encoded with the given codec.
+     *
+     * @param codec codec of the segment records
+     * @return log version of the segment
+     */
+    public static int getLogVersion(RecordCodec codec) {
+        return codec == RecordCodec.NONE ? VERSION : CODEC_VERSION;
     }
 
     /**
@@ -208,10 +406,25 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
      * @throws IOException I/O exception
      */
     public static void writeHeader(FileChannel fileChannel, int version, boolean verify) throws IOException {
+        writeHeader(fileChannel, version, verify, RecordCodec.NONE);
+    }
+
+    /**
+     * Write the header for a Corfu log file whose records are encoded with the given codec.
+     *
+     * @param fileChannel The file channel to use.
+     * @param version     The version number to append to the header.
+     * @param verify      Checksum verify flag
+     * @param codec       Codec of the records of the file
+     * @throws IOException I/O exception
+     */
+    public static void writeHeader(FileChannel fileChannel, int version, boolean verify,
+                                   RecordCodec codec) throws IOException {
 
         LogHeader header = LogHeader.newBuilder()
                 .setVersion(version)
                 .setVerifyChecksum(verify)
+                .setCodec(codec.getId())
                 .build();
 
         ByteBuffer buf = getByteBufferWithMetaData(header);
@@ -220,17 +433,25 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
     }
 
     private static Metadata getMetadata(AbstractMessage message) {
+        return getMetadata(message.toByteArray());
+    }
+
+    private static Metadata getMetadata(byte[] payload) {
         return Metadata.newBuilder()
-                .setPayloadChecksum(Checksum.getChecksum(message.toByteArray()))
-                .setLengthChecksum(Checksum.getChecksum(message.getSerializedSize()))
-                .setLength(message.getSerializedSize())
+                .setPayloadChecksum(Checksum.getChecksum(payload))
+                .setLengthChecksum(Checksum.getChecksum(payload.length))
+                .setLength(payload.length)
                 .build();
     }
 
     private static ByteBuffer getByteBuffer(Metadata metadata, AbstractMessage message) {
-        ByteBuffer buf = ByteBuffer.allocate(metadata.getSerializedSize() + message.getSerializedSize());
+        return getByteBuffer(metadata, message.toByteArray());
+    }
+
+    private static ByteBuffer getByteBuffer(Metadata metadata, byte[] payload) {
+        ByteBuffer buf = ByteBuffer.allocate(metadata.getSerializedSize() + payload.length);
         buf.put(metadata.toByteArray());
-        buf.put(message.toByteArray());
+        buf.put(payload);
         buf.flip();
         return buf;
     }
@@ -269,14 +490,16 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
         // TODO(Maithem) since writing a record and setting the tail segment is not
         // an atomic operation, it is possible to set an incorrect tail segment. In
         // that case we will need to scan more than one segment
-        logMetadata.updateGlobalTail(address);
-        long segment = address / RECORDS_PER_LOG_FILE;
+        synchronized (metadataLock) {
+            logMetadata.updateGlobalTail(address);
+            long segment = address / RECORDS_PER_LOG_FILE;
 
-        dataStore.updateTailSegment(segment);
+            dataStore.updateTailSegment(segment);
+        }
     }
 
     @Override
-    public void prefixTrim(long address) {
+    public synchronized void prefixTrim(long address) {
         if (isTrimmed(address)) {
             log.warn("prefixTrim: Ignoring repeated trim {}", address);
             return;
@@ -320,9 +543,11 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
                 continue;
             }
 
-            if (header.getVersion() != VERSION) {
+            // Fails on codecs this log unit doesn't know
+            int version = getLogVersion(RecordCodec.fromId(header.getCodec()));
+            if (header.getVersion() != version) {
                 String msg = String.format("Log version %s for %s should match the LogUnit log version %s",
-                        header.getVersion(), file.getAbsoluteFile(), VERSION);
+                        header.getVersion(), file.getAbsoluteFile(), version);
                 throw new IllegalStateException(msg);
             }
 
@@ -346,8 +571,11 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
     }
 
     @Override
-    public synchronized void compact() {
-        trimPrefix();
+    public void compact() {
+        synchronized (this) {
+            trimPrefix();
+        }
+        compactSegments();
     }
 
     @Override
@@ -381,6 +609,160 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
         log.info("trimPrefix: completed, end segment {}", endSegment);
     }
 
+    /**
+     * Rewrite the sealed segments that hold trimmed or overwritten records. Since
+     * {@link #trimPrefix()} deletes whole segments, trimmed records are only left in
+     * the segments around the starting address.
+     */
+    private void compactSegments() {
+        synchronized (compactionLock) {
+            long startingSegment = getStartingSegment();
+            Set<Long> candidates = new TreeSet<>(overwrittenSegments);
+            for (long segment = Math.max(startingSegment - 1, 0); segment <= startingSegment; segment++) {
+                candidates.add(segment);
+            }
+
+            long reclaimed = 0;
+            for (long segment : candidates) {
+                if (!getSegmentFilePath(segment).toFile().exists()) {
+                    overwrittenSegments.remove(segment);
+                    continue;
+                }
+
+                // The tail segment is still being written to
+                if (segment >= dataStore.getTailSegment()) {
+                    continue;
+                }
+
+                try {
+                    reclaimed += compactSegment(segment);
+                } catch (IOException e) {
+                    log.error("compactSegments: failed to compact segment {}", segment, e);
+                }
+            }
+
+            log.info("compactSegments: completed, reclaimed {} bytes", reclaimed);
+        }
+    }
+
+    /**
+     * Rewrite a segment keeping only its live records, if enough of the segment file
+     * can be reclaimed. The live records are copied to a new file at a throttled rate,
+     * which is then swapped with the segment file under the segment write lock. The
+     * swap is given up (and retried by the next compaction) if the segment was written
+     * or was in use in the meantime.
+     *
+     * @param segmentNumber segment to compact
+     * @return number of bytes reclaimed
+     * @throws IOException IO exception
+     */
+    private long compactSegment(long segmentNumber) throws IOException {
+        Path segmentFile = getSegmentFilePath(segmentNumber);
+        Path tempFile = segmentFile.resolveSibling(segmentFile.getFileName() + COMPACTION_FILE_EXTENSION);
+        Map<Long, AddressMetaData> liveAddresses = new HashMap<>();
+        SegmentHandle segment = getSegmentHandleForAddress(segmentNumber * RECORDS_PER_LOG_FILE);
+        long segmentSize;
+
+        try (FileChannel source = FileChannel.open(segmentFile, StandardOpenOption.READ)) {
+            segmentSize = segment.getWriteChannel().size();
+            LogHeader header = parseHeader(source, segment.getFileName());
+            if (header == null) {
+                return 0;
+            }
+            long headerSize = source.position();
+
+            long startingAddress = getTrimMark();
+            List<Map.Entry<Long, AddressMetaData>> liveRecords = segment.getKnownAddresses().entrySet()
+                    .stream()
+                    .filter(record -> record.getKey() >= startingAddress)
+                    .sorted(Comparator.comparingLong(record -> record.getValue().offset))
+                    .collect(Collectors.toList());
+            long liveSize = headerSize + liveRecords.stream()
+                    .mapToLong(record -> METADATA_SIZE + record.getValue().length)
+                    .sum();
+
+            long reclaimable = segmentSize - liveSize;
+            if (reclaimable <= 0 || reclaimable < segmentSize * params.getCompactionThreshold()) {
+                log.debug("compactSegment: {} of {} bytes reclaimable in segment {}, skipping",
+                        reclaimable, segmentSize, segmentNumber);
+                return 0;
+            }
+
+            try (FileChannel target = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                copy(source, 0, (int) headerSize, target);
+                for (Map.Entry<Long, AddressMetaData> record : liveRecords) {
+                    AddressMetaData metaData = record.getValue();
+                    int recordSize = METADATA_SIZE + metaData.length;
+                    compactionRateLimiter.acquire(recordSize);
+
+                    long offset = target.position() + METADATA_SIZE;
+                    copy(source, metaData.offset - METADATA_SIZE, recordSize, target);
+                    liveAddresses.put(record.getKey(),
+                            new AddressMetaData(metaData.checksum, metaData.length, offset));
+                }
+                target.force(true);
+            }
+        } finally {
+            segment.release();
+        }
+
+        synchronized (this) {
+            try (MultiReadWriteLock.AutoCloseableLock ignored =
+                         segmentLocks.acquireWriteLock(segmentNumber)) {
+                if (writeChannels.get(segment.getFileName()) != segment || segment.getRefCount() != 0
+                        || segment.getWriteChannel().size() != segmentSize) {
+                    log.info("compactSegment: segment {} changed while compacting, retrying later",
+                            segmentNumber);
+                    Files.deleteIfExists(tempFile);
+                    return 0;
+                }
+
+                Files.move(tempFile, segmentFile, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+                syncDirectory(logDir.toString());
+                // The index of the old segment file is stale
+                Files.deleteIfExists(getIndexFilePath(segmentNumber));
+
+                channelsToSync.remove(segment.getWriteChannel());
+                writeChannels.remove(segment.getFileName());
+                segment.close();
+                overwrittenSegments.remove(segmentNumber);
+
+                // A fully trimmed segment is not read anymore, so it is left closed
+                if (!liveAddresses.isEmpty()) {
+                    FileChannel writeCh = getChannel(segment.getFileName(), false);
+                    writeCh.position(writeCh.size());
+                    SegmentHandle compacted = new SegmentHandle(segmentNumber, writeCh,
+                            getChannel(segment.getFileName(), true), segment.getFileName());
+                    // The records are copied as is, along with the header
+                    compacted.setCodec(segment.getCodec());
+                    compacted.getKnownAddresses().putAll(liveAddresses);
+                    writeChannels.put(compacted.getFileName(), compacted);
+                    scheduleSegmentIndex(compacted);
+                }
+            }
+        }
+
+        long newSize = segmentFile.toFile().length();
+        log.info("compactSegment: compacted segment {} from {} to {} bytes", segmentNumber, segmentSize, newSize);
+        return segmentSize - newSize;
+    }
+
+    private static void copy(FileChannel source, long position, int length, FileChannel target)
+            throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(length);
+        while (buf.hasRemaining()) {
+            if (source.read(buf, position + buf.position()) < 0) {
+                throw new IOException("Unexpected end of file at " + (position + buf.position()));
+            }
+        }
+        buf.flip();
+        while (buf.hasRemaining()) {
+            target.write(buf);
+        }
+    }
+
     private LogData getLogData(LogEntry entry) {
         ByteBuf data = Unpooled.wrappedBuffer(entry.getData().toByteArray());
         LogData logData = new LogData(org.corfudb.protocols.wireprotocol
@@ -552,11 +934,12 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
      *
      * @param channel  file channel
      * @param metadata meta data
+     * @param codec    codec of the segment records
      * @return an log entry
      * @throws IOException IO exception
      */
-    private LogEntry parseEntry(FileChannel channel, Metadata metadata, String fileName)
-            throws IOException {
+    private LogEntry parseEntry(FileChannel channel, Metadata metadata, String fileName,
+                                RecordCodec codec) throws IOException {
 
         if (metadata == null) {
             // The metadata for this entry was partial written
@@ -583,8 +966,8 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
 
         LogEntry entry;
         try {
-            entry = LogEntry.parseFrom(buffer.array());
-        } catch (InvalidProtocolBufferException e) {
+            entry = LogEntry.parseFrom(codec.decode(buffer));
+        } catch (InvalidProtocolBufferException | DataCorruptionException e) {
             String errorMessage = getDataCorruptionErrorMessage("Invalid entry",
                     channel, fileName
             );
@@ -605,14 +988,18 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
         LogHeader header = parseHeader(fileChannel, segment.getFileName());
         if (header == null) {
             log.warn("Couldn't find log header for {}, creating new header.", segment.getFileName());
-            writeHeader(fileChannel, VERSION, verify);
+            RecordCodec codec = params.getRecordCodec();
+            writeHeader(fileChannel, getLogVersion(codec), verify, codec);
+            segment.setCodec(codec);
             return;
         }
 
+        segment.setCodec(RecordCodec.fromId(header.getCodec()));
+
         while (fileChannel.size() - fileChannel.position() > 0) {
             long channelOffset = fileChannel.position();
             Metadata metadata = parseMetadata(fileChannel, segment.getFileName());
-            LogEntry entry = parseEntry(fileChannel, metadata, segment.getFileName());
+            LogEntry entry = parseEntry(fileChannel, metadata, segment.getFileName(), segment.getCodec());
 
             if (entry == null) {
                 // Metadata or Entry were partially written
@@ -654,11 +1041,23 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
             return null;
         }
 
+        RecordCodec codec = segment.getCodec();
         try {
+            if (params.isMmapReads() && isSealed(segment) && segment.isMappable(metaData)) {
+                // The entry is parsed from a copy of the record, the mapping isn't used afterwards
+                return segment.readMapped(metaData, entryBuf -> {
+                    if (codec == RecordCodec.NONE) {
+                        return getLogData(LogEntry.parseFrom(CodedInputStream.newInstance(entryBuf)));
+                    }
+                    return getLogData(LogEntry.parseFrom(codec.decode(entryBuf)));
+                });
+            }
+
             ByteBuffer entryBuf = ByteBuffer.allocate(metaData.length);
             fileChannel.read(entryBuf, metaData.offset);
-            return getLogData(LogEntry.parseFrom(entryBuf.array()));
-        } catch (InvalidProtocolBufferException e) {
+            entryBuf.flip();
+            return getLogData(LogEntry.parseFrom(codec.decode(entryBuf)));
+        } catch (InvalidProtocolBufferException | DataCorruptionException e) {
             String errorMessage = getDataCorruptionErrorMessage("Invalid entry",
                     fileChannel, segment.getFileName()
             );
@@ -666,6 +1065,18 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
         }
     }
 
+    /**
+     * A segment is sealed once the tail segment has moved past it, in which case
+     * its file is not expected to grow (except for hole fills and state transfer)
+     * and can be served from a memory mapped view.
+     *
+     * @param segment segment handle to check
+     * @return true if the segment precedes the tail segment
+     */
+    private boolean isSealed(SegmentHandle segment) {
+        return segment.getSegment() < dataStore.getTailSegment();
+    }
+
     @Nullable
     private FileChannel getChannel(String filePath, boolean readOnly) throws IOException {
         if (readOnly) {
@@ -725,7 +1136,7 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
                 // The first time we open a file we should read to the end, to load the
                 // map of entries we already have.
                 // Once the segment address space is loaded, it should be ready to accept writes.
-                readAddressSpace(sh);
+                loadAddressSpace(sh);
                 return sh;
             } catch (IOException e) {
                 log.error("Error opening file {}", a, e);
@@ -857,9 +1268,10 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
 
         for (LogData curr : entries) {
             LogEntry logEntry = getLogEntry(curr.getGlobalAddress(), curr);
-            Metadata metadata = getMetadata(logEntry);
+            byte[] payload = segment.getCodec().encode(logEntry.toByteArray());
+            Metadata metadata = getMetadata(payload);
             metadataList.add(metadata);
-            ByteBuffer record = getByteBuffer(metadata, logEntry);
+            ByteBuffer record = getByteBuffer(metadata, payload);
             totalBytes += record.limit();
             entryBuffs.add(record);
         }
@@ -883,8 +1295,10 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
             channelsToSync.add(segment.getWriteChannel());
             // Sync the global and stream tail(s)
             // TODO(Maithem): on ioexceptions the StreamLogFiles needs to be reinitialized
-            syncTailSegment(entries.get(entries.size() - 1).getGlobalAddress());
-            logMetadata.update(entries);
+            synchronized (metadataLock) {
+                syncTailSegment(entries.get(entries.size() - 1).getGlobalAddress());
+                logMetadata.update(entries);
+            }
         }
 
         return recordsMap;
@@ -931,9 +1345,10 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
     private AddressMetaData writeRecord(SegmentHandle segment, long address,
                                         LogData entry) throws IOException {
         LogEntry logEntry = getLogEntry(address, entry);
-        Metadata metadata = getMetadata(logEntry);
+        byte[] payload = segment.getCodec().encode(logEntry.toByteArray());
+        Metadata metadata = getMetadata(payload);
 
-        ByteBuffer record = getByteBuffer(metadata, logEntry);
+        ByteBuffer record = getByteBuffer(metadata, payload);
         long channelOffset;
 
         try (MultiReadWriteLock.AutoCloseableLock ignored =
@@ -941,8 +1356,10 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
             channelOffset = segment.getWriteChannel().position() + METADATA_SIZE;
             safeWrite(segment.getWriteChannel(), record);
             channelsToSync.add(segment.getWriteChannel());
-            syncTailSegment(address);
-            logMetadata.update(entry);
+            synchronized (metadataLock) {
+                syncTailSegment(address);
+                logMetadata.update(entry);
+            }
         }
 
         return new AddressMetaData(metadata.getPayloadChecksum(), metadata.getLength(), channelOffset);
@@ -1070,11 +1487,13 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
             if (!segOneEntries.isEmpty()) {
                 Map<Long, AddressMetaData> firstSegAddresses = writeRecords(firstSh, segOneEntries);
                 firstSh.getKnownAddresses().putAll(firstSegAddresses);
+                indexIfFull(firstSh);
             }
 
             if (!segTwoEntries.isEmpty()) {
                 Map<Long, AddressMetaData> lastSegAddresses = writeRecords(lastSh, segTwoEntries);
                 lastSh.getKnownAddresses().putAll(lastSegAddresses);
+                indexIfFull(lastSh);
             }
         } catch (IOException e) {
             log.error("Disk_write[{}-{}]: Exception", first.getGlobalAddress(),
@@ -1108,11 +1527,14 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
                     assertAppendPermittedUnsafe(address, entry);
                     AddressMetaData addressMetaData = writeRecord(segment, address, entry);
                     segment.getKnownAddresses().put(address, addressMetaData);
+                    // The overwritten record can be reclaimed by compaction
+                    overwrittenSegments.add(segment.getSegment());
                 }
             } else {
                 AddressMetaData addressMetaData = writeRecord(segment, address, entry);
                 segment.getKnownAddresses().put(address, addressMetaData);
             }
+            indexIfFull(segment);
             log.trace("Disk_write[{}]: Written to disk.", address);
         } catch (IOException e) {
             log.error("Disk_write[{}]: Exception", address, e);
@@ -1122,6 +1544,62 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
         }
     }
 
+    @Override
+    public Map<Long, RuntimeException> appendAll(List<LogData> entries) {
+        Map<Long, RuntimeException> failures = new HashMap<>();
+        Map<Long, SegmentHandle> segments = new HashMap<>();
+        Map<Long, List<LogData>> segmentEntries = new TreeMap<>();
+
+        try {
+            for (LogData entry : entries) {
+                long address = entry.getGlobalAddress();
+                if (isTrimmed(address)) {
+                    failures.put(address, new OverwriteException(OverwriteCause.TRIM));
+                    continue;
+                }
+
+                SegmentHandle segment = segments.computeIfAbsent(getSegment(entry),
+                        s -> getSegmentHandleForAddress(address));
+
+                if (segment.getKnownAddresses().containsKey(address)
+                        || segment.getTrimmedAddresses().contains(address)) {
+                    // Overwrites (and ranked writes) are resolved one entry at a time
+                    try {
+                        append(address, entry);
+                    } catch (RuntimeException e) {
+                        failures.put(address, e);
+                    }
+                    continue;
+                }
+
+                segmentEntries.computeIfAbsent(segment.getSegment(), s -> new ArrayList<>()).add(entry);
+            }
+
+            // Write the new entries of each segment as a single buffer
+            for (Map.Entry<Long, List<LogData>> pending : segmentEntries.entrySet()) {
+                SegmentHandle segment = segments.get(pending.getKey());
+                List<LogData> segEntries = pending.getValue();
+                segEntries.sort(Comparator.comparingLong(LogData::getGlobalAddress));
+
+                try {
+                    Map<Long, AddressMetaData> addresses = writeRecords(segment, segEntries);
+                    segment.getKnownAddresses().putAll(addresses);
+                    indexIfFull(segment);
+                } catch (IOException e) {
+                    log.error("Disk_write[{}-{}]: Exception", segEntries.get(0).getGlobalAddress(),
+                            segEntries.get(segEntries.size() - 1).getGlobalAddress(), e);
+                    for (LogData entry : segEntries) {
+                        failures.put(entry.getGlobalAddress(), new RuntimeException(e));
+                    }
+                }
+            }
+        } finally {
+            segments.values().forEach(SegmentHandle::release);
+        }
+
+        return failures;
+    }
+
     @Override
     public LogData read(long address) {
         if (isTrimmed(address)) {
@@ -1227,6 +1705,7 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
 
         dataStore.resetStartingAddress();
         dataStore.resetTailSegment();
+        overwrittenSegments.clear();
         logMetadata = new LogMetadata();
         writeChannels.clear();
         log.info("reset: Completed, end segment {}", endSegment);
@@ -1242,6 +1721,14 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
         return writeChannels.values();
     }
 
+    /**
+     * Wait for all the scheduled segment index writes to complete.
+     */
+    @VisibleForTesting
+    void waitForSegmentIndexer() throws ExecutionException, InterruptedException {
+        segmentIndexer.submit(() -> { }).get();
+    }
+
     public static class Checksum {
 
         private Checksum() {
@@ -0,0 +1,53 @@
+package org.corfudb.infrastructure.log;
+
+import lombok.Builder;
+import lombok.Builder.Default;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Tunables for a {@link StreamLogFiles} instance.
+ */
+@Builder
+@Getter
+@ToString
+public class StreamLogParams {
+
+    public static final double DEFAULT_COMPACTION_THRESHOLD = 0.25;
+
+    public static final long DEFAULT_COMPACTION_RATE = 32L * 1000 * 1000;
+
+    /**
+     * Verify record checksums when reading the log files.
+     */
+    @Default
+    private final boolean verifyChecksum = true;
+
+    /**
+     * Serve reads of sealed (non-tail) segments from a memory-mapped view of
+     * the segment file instead of positioned channel reads.
+     */
+    @Default
+    private final boolean mmapReads = false;
+
+    /**
+     * Minimum fraction of a sealed segment file taken by trimmed or overwritten
+     * records for the segment to be rewritten by compaction.
+     */
+    @Default
+    private final double compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
+
+    /**
+     * Maximum rate in bytes per second at which compaction copies live records,
+     * so that it doesn't compete with foreground reads and writes for the disk.
+     */
+    @Default
+    private final long compactionRate = DEFAULT_COMPACTION_RATE;
+
+    /**
+     * Codec of the records of new segment files. Existing segments keep the codec
+     * they were created with.
+     */
+    @Default
+    private final RecordCodec recordCodec = RecordCodec.NONE;
+}
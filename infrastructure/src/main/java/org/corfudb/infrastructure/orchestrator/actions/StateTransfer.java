@@ -1,9 +1,5 @@
 package org.corfudb.infrastructure.orchestrator.actions;
 
-import com.google.common.collect.ContiguousSet;
-import com.google.common.collect.DiscreteDomain;
-import com.google.common.collect.Range;
-
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -87,8 +83,7 @@ public class StateTransfer {
             long ts1 = System.currentTimeMillis();
 
             Map<Long, ILogData> dataMap = runtime.getAddressSpaceView()
-                    .fetchAll(ContiguousSet.create(Range.closed(chunkStart, chunkEnd),
-                            DiscreteDomain.longs()), true);
+                    .fetchRange(chunkStart, chunkEnd, true);
 
             long ts2 = System.currentTimeMillis();
 
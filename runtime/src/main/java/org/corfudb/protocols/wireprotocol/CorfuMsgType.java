@@ -53,12 +53,19 @@ public enum CorfuMsgType {
     SEQUENCER_METRICS_RESPONSE(25, new TypeToken<CorfuPayloadMsg<SequencerMetrics>>(){}, true),
     STREAMS_ADDRESS_REQUEST(26, new TypeToken<CorfuPayloadMsg<StreamsAddressRequest>>(){}),
     STREAMS_ADDRESS_RESPONSE(27, new TypeToken<CorfuPayloadMsg<StreamsAddressResponse>>(){}),
+    BOOTSTRAP_SEQUENCER_TAILS(28, new TypeToken<CorfuPayloadMsg<SequencerTailsRecoveryMsg>>(){}),
+    SEQUENCER_ADDRESS_SPACE_CHUNK(29, new TypeToken<CorfuPayloadMsg<SequencerAddressSpaceChunkMsg>>(){}),
+    SEQUENCER_STANDBY_UPDATE(86, new TypeToken<CorfuPayloadMsg<SequencerStandbyMsg>>(){}),
+    SEQUENCER_HOT_KEYS_REQUEST(87, new TypeToken<CorfuPayloadMsg<Integer>>(){}, true),
+    SEQUENCER_HOT_KEYS_RESPONSE(88, new TypeToken<CorfuPayloadMsg<HotConflictKeys>>(){}, true),
 
     // Logging Unit Messages
     WRITE(30, new TypeToken<CorfuPayloadMsg<WriteRequest>>() {}),
     READ_REQUEST(31, new TypeToken<CorfuPayloadMsg<ReadRequest>>() {}),
     READ_RESPONSE(32, new TypeToken<CorfuPayloadMsg<ReadResponse>>() {}),
     MULTIPLE_READ_REQUEST(35, new TypeToken<CorfuPayloadMsg<MultipleReadRequest>>() {}),
+    RANGE_READ_REQUEST(36, new TypeToken<CorfuPayloadMsg<RangeReadRequest>>() {}),
+    RANGE_READ_RESPONSE(37, new TypeToken<CorfuPayloadMsg<RangeReadResponse>>() {}),
     FILL_HOLE(34, new TypeToken<CorfuPayloadMsg<FillHoleRequest>>() {}),
     PREFIX_TRIM(38, new TypeToken<CorfuPayloadMsg<TrimRequest>>() {}),
     TAIL_REQUEST(41, new TypeToken<CorfuPayloadMsg<TailsRequest>>(){}),
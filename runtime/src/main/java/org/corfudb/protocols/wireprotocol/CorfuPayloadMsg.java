@@ -1,6 +1,7 @@
 package org.corfudb.protocols.wireprotocol;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.util.ReferenceCounted;
 
 import java.lang.reflect.ParameterizedType;
 
@@ -18,10 +19,13 @@ import lombok.NoArgsConstructor;
  * <p>NEVER, EVER use this class as a raw type. This class DEPENDS on
  * the generic captured at runtime by CorfuMsg (via TypeToken).</p>
  *
+ * <p>If the payload is {@link ReferenceCounted}, so is the message: the encoder releases
+ * the message once it is serialized, and Netty releases it if it fails to write it.</p>
+ *
  * <p>Created by mwei on 8/1/16.</p>
  */
 @NoArgsConstructor
-public class CorfuPayloadMsg<T> extends CorfuMsg {
+public class CorfuPayloadMsg<T> extends CorfuMsg implements ReferenceCounted {
 
     /**
      * The payload.
@@ -59,4 +63,45 @@ public class CorfuPayloadMsg<T> extends CorfuMsg {
                 (Class)((ParameterizedType)msgType.messageType.getType())
                         .getActualTypeArguments()[0]);
     }
+
+    @Override
+    public int refCnt() {
+        return payload instanceof ReferenceCounted ? ((ReferenceCounted) payload).refCnt() : 1;
+    }
+
+    @Override
+    public CorfuPayloadMsg<T> retain() {
+        return retain(1);
+    }
+
+    @Override
+    public CorfuPayloadMsg<T> retain(int increment) {
+        if (payload instanceof ReferenceCounted) {
+            ((ReferenceCounted) payload).retain(increment);
+        }
+        return this;
+    }
+
+    @Override
+    public CorfuPayloadMsg<T> touch() {
+        return touch(null);
+    }
+
+    @Override
+    public CorfuPayloadMsg<T> touch(Object hint) {
+        if (payload instanceof ReferenceCounted) {
+            ((ReferenceCounted) payload).touch(hint);
+        }
+        return this;
+    }
+
+    @Override
+    public boolean release() {
+        return release(1);
+    }
+
+    @Override
+    public boolean release(int decrement) {
+        return payload instanceof ReferenceCounted && ((ReferenceCounted) payload).release(decrement);
+    }
 }
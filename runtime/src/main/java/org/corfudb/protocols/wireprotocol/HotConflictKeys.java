@@ -0,0 +1,69 @@
+package org.corfudb.protocols.wireprotocol;
+
+import io.netty.buffer.ByteBuf;
+
+import java.util.List;
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * The conflict keys that aborted the most transactions on a sequencer, by decreasing
+ * abort count.
+ *
+ * <p>The counts are estimated by a bounded sketch: the count of a key overestimates its
+ * aborts by at most its error.</p>
+ */
+@Data
+@AllArgsConstructor
+public class HotConflictKeys implements ICorfuPayload<HotConflictKeys> {
+
+    private final List<HotConflictKey> keys;
+
+    public HotConflictKeys(ByteBuf buf) {
+        keys = ICorfuPayload.listFromBuffer(buf, HotConflictKey.class);
+    }
+
+    @Override
+    public void doSerialize(ByteBuf buf) {
+        ICorfuPayload.serialize(buf, keys);
+    }
+
+    /**
+     * A conflict key and the number of transactions it aborted.
+     */
+    @Data
+    @AllArgsConstructor
+    public static class HotConflictKey implements ICorfuPayload<HotConflictKey> {
+
+        private final UUID streamId;
+
+        /**
+         * The conflict key, i.e. the hash of the conflict parameter.
+         */
+        private final byte[] conflictKey;
+
+        private final long abortCount;
+
+        /**
+         * Maximum overestimation of the abort count.
+         */
+        private final long error;
+
+        public HotConflictKey(ByteBuf buf) {
+            streamId = ICorfuPayload.fromBuffer(buf, UUID.class);
+            conflictKey = ICorfuPayload.fromBuffer(buf, byte[].class);
+            abortCount = buf.readLong();
+            error = buf.readLong();
+        }
+
+        @Override
+        public void doSerialize(ByteBuf buf) {
+            ICorfuPayload.serialize(buf, streamId);
+            ICorfuPayload.serialize(buf, conflictKey);
+            buf.writeLong(abortCount);
+            buf.writeLong(error);
+        }
+    }
+}
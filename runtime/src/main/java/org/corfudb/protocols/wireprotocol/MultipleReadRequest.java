@@ -19,6 +19,16 @@ public class MultipleReadRequest implements ICorfuPayload<MultipleReadRequest> {
     @Getter
     final List<Long> addresses;
 
+    /**
+     * Whether the log unit may admit the entries into its cache, bulk readers
+     * clear it so that they don't evict the working set of the cache.
+     *
+     * <p>The flag is serialized after the addresses, so that log units which don't
+     * know it ignore it, and is true when read from a request which doesn't carry it.
+     * Clients and log units can therefore be upgraded in any order.</p>
+     */
+    final boolean cacheable;
+
     /**
      * Deserialization Constructor from ByteBuf to ReadRequest.
      *
@@ -26,14 +36,20 @@ public class MultipleReadRequest implements ICorfuPayload<MultipleReadRequest> {
      */
     public MultipleReadRequest(ByteBuf buf) {
         addresses = ICorfuPayload.listFromBuffer(buf, Long.class);
+        cacheable = !buf.isReadable() || buf.readBoolean();
     }
 
     public MultipleReadRequest(Long address) {
-        addresses = Collections.singletonList(address);
+        this(Collections.singletonList(address), true);
+    }
+
+    public MultipleReadRequest(List<Long> addresses) {
+        this(addresses, true);
     }
 
     @Override
     public void doSerialize(ByteBuf buf) {
         ICorfuPayload.serialize(buf, addresses);
+        buf.writeBoolean(cacheable);
     }
 }
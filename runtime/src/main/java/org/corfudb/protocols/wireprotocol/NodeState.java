@@ -34,21 +34,21 @@ public class NodeState implements ICorfuPayload<NodeState> {
     private final HeartbeatTimestamp heartbeat;
 
     /**
-     * Sequencer metrics of the node.
+     * Sequencer metrics of the node, only its status is sent.
      */
     private final SequencerMetrics sequencerMetrics;
 
     public NodeState(ByteBuf buf) {
         connectivity = ICorfuPayload.fromBuffer(buf, NodeConnectivity.class);
         heartbeat = ICorfuPayload.fromBuffer(buf, HeartbeatTimestamp.class);
-        sequencerMetrics = ICorfuPayload.fromBuffer(buf, SequencerMetrics.class);
+        sequencerMetrics = SequencerMetrics.statusFromBuffer(buf);
     }
 
     @Override
     public void doSerialize(ByteBuf buf) {
         ICorfuPayload.serialize(buf, connectivity);
         ICorfuPayload.serialize(buf, heartbeat);
-        ICorfuPayload.serialize(buf, sequencerMetrics);
+        sequencerMetrics.serializeStatus(buf);
     }
 
     public static NodeState getUnavailableNodeState(String endpoint){
@@ -0,0 +1,58 @@
+package org.corfudb.protocols.wireprotocol;
+
+import io.netty.buffer.ByteBuf;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * A request to read a contiguous range of addresses. The log unit reads the range
+ * sequentially, bypassing its cache, and responds with a prefix of the range whose
+ * entries fit in the requested number of bytes.
+ */
+@Data
+@AllArgsConstructor
+public class RangeReadRequest implements ICorfuPayload<RangeReadRequest> {
+
+    /**
+     * First address of the range.
+     */
+    final long start;
+
+    /**
+     * Last address of the range (inclusive).
+     */
+    final long end;
+
+    /**
+     * Maximum size in bytes of the entries of a response, a response holds at least one address.
+     */
+    final long maxBytes;
+
+    /**
+     * If not empty, only the data entries of these streams are returned.
+     */
+    final Set<UUID> streams;
+
+    /**
+     * Deserialization Constructor from ByteBuf to RangeReadRequest.
+     *
+     * @param buf The buffer to deserialize
+     */
+    public RangeReadRequest(ByteBuf buf) {
+        start = buf.readLong();
+        end = buf.readLong();
+        maxBytes = buf.readLong();
+        streams = ICorfuPayload.setFromBuffer(buf, UUID.class);
+    }
+
+    @Override
+    public void doSerialize(ByteBuf buf) {
+        buf.writeLong(start);
+        buf.writeLong(end);
+        buf.writeLong(maxBytes);
+        ICorfuPayload.serialize(buf, streams);
+    }
+}
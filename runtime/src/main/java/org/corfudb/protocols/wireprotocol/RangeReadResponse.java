@@ -0,0 +1,40 @@
+package org.corfudb.protocols.wireprotocol;
+
+import io.netty.buffer.ByteBuf;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * The response to a {@link RangeReadRequest}, which covers the addresses from the start
+ * of the requested range up to {@link #end}. Unwritten addresses are returned as empty
+ * entries, while the entries filtered out by the stream filter of the request are omitted.
+ */
+@Data
+@AllArgsConstructor
+public class RangeReadResponse implements ICorfuPayload<RangeReadResponse> {
+
+    /**
+     * Last address covered by the response (inclusive).
+     */
+    final long end;
+
+    final Map<Long, LogData> addresses;
+
+    /**
+     * Deserialization Constructor from ByteBuf to RangeReadResponse.
+     *
+     * @param buf The buffer to deserialize
+     */
+    public RangeReadResponse(ByteBuf buf) {
+        end = buf.readLong();
+        addresses = ICorfuPayload.mapFromBuffer(buf, Long.class, LogData.class);
+    }
+
+    @Override
+    public void doSerialize(ByteBuf buf) {
+        buf.writeLong(end);
+        ICorfuPayload.serialize(buf, addresses);
+    }
+}
@@ -1,24 +1,38 @@
 package org.corfudb.protocols.wireprotocol;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.util.AbstractReferenceCounted;
 
 import java.util.HashMap;
 import java.util.Map;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 
 /**
  * Created by mwei on 8/15/16.
+ *
+ * <p>A response holding serialized entries owns their buffers, and releases them when it is
+ * released. It is released with its {@link CorfuPayloadMsg} once the message is written.</p>
  */
 @Data
+@EqualsAndHashCode(callSuper = false)
 @AllArgsConstructor
-public class ReadResponse implements ICorfuPayload<ReadResponse> {
+public class ReadResponse extends AbstractReferenceCounted implements ICorfuPayload<ReadResponse> {
 
     @Getter
     Map<Long, LogData> addresses;
 
+    /**
+     * Entries that are already in the {@link LogData} wire format, which the log unit
+     * ships from its cache without materializing them. These entries are never part of
+     * a deserialized response, they show up in {@link #addresses} on the receiving end.
+     * The buffers are owned by the response and are released with it.
+     */
+    private final transient Map<Long, ByteBuf> serializedAddresses = new HashMap<>();
+
     public ReadResponse(ByteBuf buf) {
         addresses = ICorfuPayload.mapFromBuffer(buf, Long.class, LogData.class);
     }
@@ -31,8 +45,50 @@ public class ReadResponse implements ICorfuPayload<ReadResponse> {
         addresses.put(address, data);
     }
 
+    /**
+     * Add an entry in the {@link LogData} wire format to the response.
+     *
+     * @param address         address of the entry
+     * @param serializedEntry serialized entry, the response takes ownership of the buffer
+     */
+    public void putSerialized(long address, ByteBuf serializedEntry) {
+        addresses.remove(address);
+        ByteBuf previous = serializedAddresses.put(address, serializedEntry);
+        if (previous != null) {
+            previous.release();
+        }
+    }
+
+    @Override
+    protected void deallocate() {
+        serializedAddresses.values().forEach(ByteBuf::release);
+        serializedAddresses.clear();
+    }
+
+    @Override
+    public ReadResponse touch(Object hint) {
+        return this;
+    }
+
+    /**
+     * Serialize the response. Serialized entries are copied as is into the buffer.
+     */
     @Override
     public void doSerialize(ByteBuf buf) {
-        ICorfuPayload.serialize(buf, addresses);
+        if (serializedAddresses.isEmpty()) {
+            ICorfuPayload.serialize(buf, addresses);
+            return;
+        }
+
+        // Same layout as a serialized map, i.e. size followed by key/value pairs
+        buf.writeInt(addresses.size() + serializedAddresses.size());
+        addresses.forEach((address, data) -> {
+            ICorfuPayload.serialize(buf, address);
+            ICorfuPayload.serialize(buf, data);
+        });
+        serializedAddresses.forEach((address, data) -> {
+            ICorfuPayload.serialize(buf, address);
+            buf.writeBytes(data, data.readerIndex(), data.readableBytes());
+        });
     }
 }
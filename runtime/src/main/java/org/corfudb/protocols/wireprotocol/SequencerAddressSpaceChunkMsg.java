@@ -0,0 +1,47 @@
+package org.corfudb.protocols.wireprotocol;
+
+import io.netty.buffer.ByteBuf;
+
+import java.util.Map;
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.corfudb.runtime.view.stream.StreamAddressSpace;
+
+/**
+ * A chunk of the stream address maps loaded by a sequencer bootstrapped with
+ * {@link SequencerTailsRecoveryMsg}.
+ *
+ * <p>The address map of a stream can be split over several chunks, the sequencer merges
+ * the chunks of a stream with the addresses it allocated since it was bootstrapped.</p>
+ */
+@Data
+@AllArgsConstructor
+public class SequencerAddressSpaceChunkMsg implements ICorfuPayload<SequencerAddressSpaceChunkMsg> {
+
+    /**
+     * Epoch of the bootstrap this chunk belongs to.
+     */
+    private final Long sequencerEpoch;
+
+    private final Map<UUID, StreamAddressSpace> streamsAddressMap;
+
+    /**
+     * True if this is the last chunk, the address maps of the sequencer are then complete.
+     */
+    private final Boolean last;
+
+    public SequencerAddressSpaceChunkMsg(ByteBuf buf) {
+        sequencerEpoch = ICorfuPayload.fromBuffer(buf, Long.class);
+        streamsAddressMap = ICorfuPayload.mapFromBuffer(buf, UUID.class, StreamAddressSpace.class);
+        last = ICorfuPayload.fromBuffer(buf, Boolean.class);
+    }
+
+    @Override
+    public void doSerialize(ByteBuf buf) {
+        ICorfuPayload.serialize(buf, sequencerEpoch);
+        ICorfuPayload.serialize(buf, streamsAddressMap);
+        ICorfuPayload.serialize(buf, last);
+    }
+}
@@ -2,11 +2,26 @@ package org.corfudb.protocols.wireprotocol;
 
 import io.netty.buffer.ByteBuf;
 
+import lombok.AllArgsConstructor;
+import lombok.Builder;
 import lombok.Data;
 
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Sequencer metrics for a node.
  *
+ * <p>Besides its readiness, a sequencer reports the outcome of the token requests it served,
+ * the activity of its conflict table and the distributions of its latencies and of the
+ * conflict-set sizes of the transactions, since it started. The static instances only carry
+ * a status.
+ *
+ * <p>The full metrics are only sent in the SEQUENCER_METRICS_RESPONSE. The heartbeats of the
+ * nodes, in {@link NodeState}, only carry the status, see {@link #serializeStatus}.
+ *
  * <p>Created by zlokhandwala on 4/12/18.
  */
 @Data
@@ -30,16 +45,187 @@ public class SequencerMetrics implements ICorfuPayload<SequencerMetrics> {
      */
     private final SequencerStatus sequencerStatus;
 
+    /**
+     * Number of token requests served, by the type of the response: tokens issued, queries
+     * and transaction aborts by cause.
+     */
+    private final Map<TokenType, Long> tokenCounts;
+
+    /**
+     * Number of conflict keys looked up in the conflict table.
+     */
+    private final long conflictLookups;
+
+    /**
+     * Number of conflict keys found in the conflict table.
+     */
+    private final long conflictHits;
+
+    /**
+     * Number of conflict keys evicted from the conflict table because it was full.
+     */
+    private final long conflictEvictions;
+
+    /**
+     * Number of conflict keys in the conflict table.
+     */
+    private final long conflictTableSize;
+
+    /**
+     * Latency distributions in nanoseconds, and the conflict-set size distribution, by name.
+     */
+    private final Map<String, Distribution> distributions;
+
     public SequencerMetrics(SequencerStatus sequencerStatus) {
+        this(sequencerStatus, Collections.emptyMap(), 0L, 0L, 0L, 0L, Collections.emptyMap());
+    }
+
+    @Builder
+    public SequencerMetrics(SequencerStatus sequencerStatus, Map<TokenType, Long> tokenCounts,
+                            long conflictLookups, long conflictHits, long conflictEvictions,
+                            long conflictTableSize, Map<String, Distribution> distributions) {
         this.sequencerStatus = sequencerStatus;
+        this.tokenCounts = tokenCounts == null ? Collections.emptyMap() : tokenCounts;
+        this.conflictLookups = conflictLookups;
+        this.conflictHits = conflictHits;
+        this.conflictEvictions = conflictEvictions;
+        this.conflictTableSize = conflictTableSize;
+        this.distributions = distributions == null ? Collections.emptyMap() : distributions;
+    }
+
+    /**
+     * Returns the static instance carrying only the given status.
+     *
+     * @param sequencerStatus status of the sequencer
+     * @return READY, NOT_READY or UNKNOWN
+     */
+    public static SequencerMetrics ofStatus(SequencerStatus sequencerStatus) {
+        switch (sequencerStatus) {
+            case READY:
+                return READY;
+            case NOT_READY:
+                return NOT_READY;
+            default:
+                return UNKNOWN;
+        }
+    }
+
+    /**
+     * Deserialize the status written by {@link #serializeStatus}.
+     *
+     * @param buf buffer to read from
+     * @return the static instance of the status
+     */
+    public static SequencerMetrics statusFromBuffer(ByteBuf buf) {
+        return ofStatus(SequencerStatus.valueOf(ICorfuPayload.fromBuffer(buf, String.class)));
+    }
+
+    /**
+     * Serialize the status only, in the encoding of the metrics of the nodes which only
+     * reported a status, so that it is understood by all the nodes.
+     *
+     * @param buf buffer to write to
+     */
+    public void serializeStatus(ByteBuf buf) {
+        ICorfuPayload.serialize(buf, sequencerStatus.toString());
     }
 
     public SequencerMetrics(ByteBuf buf) {
         sequencerStatus = SequencerStatus.valueOf(ICorfuPayload.fromBuffer(buf, String.class));
+
+        // A sequencer which only reports its status sends nothing else
+        if (!buf.isReadable()) {
+            tokenCounts = Collections.emptyMap();
+            conflictLookups = 0L;
+            conflictHits = 0L;
+            conflictEvictions = 0L;
+            conflictTableSize = 0L;
+            distributions = Collections.emptyMap();
+            return;
+        }
+
+        int numTokenTypes = buf.readInt();
+        Map<TokenType, Long> counts = new EnumMap<>(TokenType.class);
+        for (int i = 0; i < numTokenTypes; i++) {
+            counts.put(TokenType.valueOf(ICorfuPayload.fromBuffer(buf, String.class)), buf.readLong());
+        }
+        tokenCounts = counts;
+
+        conflictLookups = buf.readLong();
+        conflictHits = buf.readLong();
+        conflictEvictions = buf.readLong();
+        conflictTableSize = buf.readLong();
+
+        int numDistributions = buf.readInt();
+        Map<String, Distribution> dists = new HashMap<>();
+        for (int i = 0; i < numDistributions; i++) {
+            dists.put(ICorfuPayload.fromBuffer(buf, String.class), new Distribution(buf));
+        }
+        distributions = dists;
     }
 
     @Override
     public void doSerialize(ByteBuf buf) {
         ICorfuPayload.serialize(buf, sequencerStatus.toString());
+
+        buf.writeInt(tokenCounts.size());
+        tokenCounts.forEach((tokenType, count) -> {
+            ICorfuPayload.serialize(buf, tokenType.name());
+            buf.writeLong(count);
+        });
+
+        buf.writeLong(conflictLookups);
+        buf.writeLong(conflictHits);
+        buf.writeLong(conflictEvictions);
+        buf.writeLong(conflictTableSize);
+
+        buf.writeInt(distributions.size());
+        distributions.forEach((name, distribution) -> {
+            ICorfuPayload.serialize(buf, name);
+            distribution.doSerialize(buf);
+        });
+    }
+
+    /**
+     * Hit rate of the conflict-table lookups.
+     *
+     * @return the ratio of the lookups that found their key, 0 if there were no lookups
+     */
+    public double getConflictHitRate() {
+        return conflictLookups == 0 ? 0.0 : (double) conflictHits / conflictLookups;
+    }
+
+    /**
+     * Summary of the distribution of a metric.
+     */
+    @Data
+    @AllArgsConstructor
+    public static class Distribution implements ICorfuPayload<Distribution> {
+
+        /**
+         * Number of samples.
+         */
+        private final long count;
+
+        private final long median;
+
+        private final long p99;
+
+        private final long max;
+
+        public Distribution(ByteBuf buf) {
+            count = buf.readLong();
+            median = buf.readLong();
+            p99 = buf.readLong();
+            max = buf.readLong();
+        }
+
+        @Override
+        public void doSerialize(ByteBuf buf) {
+            buf.writeLong(count);
+            buf.writeLong(median);
+            buf.writeLong(p99);
+            buf.writeLong(max);
+        }
     }
-}
\ No newline at end of file
+}
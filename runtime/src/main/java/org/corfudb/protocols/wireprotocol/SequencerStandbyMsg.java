@@ -0,0 +1,74 @@
+package org.corfudb.protocols.wireprotocol;
+
+import io.netty.buffer.ByteBuf;
+
+import java.util.List;
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * A batch of conflict-key updates sent by the primary sequencer to a standby sequencer.
+ *
+ * <p>The batch holds the updates of the tokens issued by the primary from global-log position
+ * fromTail (inclusive) to toTail (exclusive). A standby is warm while it receives contiguous
+ * batches, i.e. while the fromTail of each batch is the toTail of the previous one.</p>
+ */
+@Data
+@AllArgsConstructor
+public class SequencerStandbyMsg implements ICorfuPayload<SequencerStandbyMsg> {
+
+    /**
+     * Epoch of the primary sequencer.
+     */
+    private final Long sequencerEpoch;
+
+    private final Long fromTail;
+
+    private final Long toTail;
+
+    private final List<ConflictUpdate> updates;
+
+    public SequencerStandbyMsg(ByteBuf buf) {
+        sequencerEpoch = ICorfuPayload.fromBuffer(buf, Long.class);
+        fromTail = ICorfuPayload.fromBuffer(buf, Long.class);
+        toTail = ICorfuPayload.fromBuffer(buf, Long.class);
+        updates = ICorfuPayload.listFromBuffer(buf, ConflictUpdate.class);
+    }
+
+    @Override
+    public void doSerialize(ByteBuf buf) {
+        ICorfuPayload.serialize(buf, sequencerEpoch);
+        ICorfuPayload.serialize(buf, fromTail);
+        ICorfuPayload.serialize(buf, toTail);
+        ICorfuPayload.serialize(buf, updates);
+    }
+
+    /**
+     * The global-log position at which a conflict key was written.
+     */
+    @Data
+    @AllArgsConstructor
+    public static class ConflictUpdate implements ICorfuPayload<ConflictUpdate> {
+
+        private final UUID streamId;
+
+        private final byte[] conflictParam;
+
+        private final long address;
+
+        public ConflictUpdate(ByteBuf buf) {
+            streamId = ICorfuPayload.fromBuffer(buf, UUID.class);
+            conflictParam = ICorfuPayload.fromBuffer(buf, byte[].class);
+            address = buf.readLong();
+        }
+
+        @Override
+        public void doSerialize(ByteBuf buf) {
+            ICorfuPayload.serialize(buf, streamId);
+            ICorfuPayload.serialize(buf, conflictParam);
+            buf.writeLong(address);
+        }
+    }
+}
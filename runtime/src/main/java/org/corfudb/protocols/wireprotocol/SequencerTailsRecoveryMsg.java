@@ -0,0 +1,38 @@
+package org.corfudb.protocols.wireprotocol;
+
+import io.netty.buffer.ByteBuf;
+
+import java.util.Map;
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * First message of a chunked sequencer bootstrap, resetting the sequencer with the
+ * global tail and the tail of every stream only.
+ *
+ * <p>The sequencer issues tokens as soon as it is reset, while the address maps of
+ * the streams are loaded with {@link SequencerAddressSpaceChunkMsg} messages.</p>
+ */
+@Data
+@AllArgsConstructor
+public class SequencerTailsRecoveryMsg implements ICorfuPayload<SequencerTailsRecoveryMsg> {
+
+    private final Long globalTail;
+    private final Map<UUID, Long> streamTails;
+    private final Long sequencerEpoch;
+
+    public SequencerTailsRecoveryMsg(ByteBuf buf) {
+        globalTail = ICorfuPayload.fromBuffer(buf, Long.class);
+        streamTails = ICorfuPayload.mapFromBuffer(buf, UUID.class, Long.class);
+        sequencerEpoch = ICorfuPayload.fromBuffer(buf, Long.class);
+    }
+
+    @Override
+    public void doSerialize(ByteBuf buf) {
+        ICorfuPayload.serialize(buf, globalTail);
+        ICorfuPayload.serialize(buf, streamTails);
+        ICorfuPayload.serialize(buf, sequencerEpoch);
+    }
+}
@@ -5,6 +5,7 @@ import com.google.common.collect.ImmutableMap;
 import io.netty.buffer.ByteBuf;
 
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
@@ -16,9 +17,19 @@ import org.corfudb.util.Utils;
 
 /**
  * Created by dmalkhi on 12/26/16.
+ *
+ * <p>The conflict-params of a transaction are either arbitrary byte arrays, or 64-bit
+ * fingerprints. A fingerprint stands for the conflict-param made of its 8 big-endian
+ * bytes, see {@link #withFingerprints}, and is sent in a compact encoding.</p>
  */
 public class TxResolutionInfo implements ICorfuPayload<TxResolutionInfo> {
 
+    /**
+     * Marker written in place of the size of the conflict set, for conflict sets
+     * encoded as fingerprints. Negative sizes are reserved for encoding versions.
+     */
+    private static final int FINGERPRINT_ENCODING_V1 = -1;
+
     @Getter
     @SuppressWarnings({"checkstyle:abbreviationaswordinname", "checkstyle:membername"})
     final UUID TXid; // transaction ID, mostly for debugging purposes
@@ -30,12 +41,18 @@ public class TxResolutionInfo implements ICorfuPayload<TxResolutionInfo> {
 
     /** A set of poisoned streams, which have a conflict against all updates. */
 
-    @Getter
     final Map<UUID, Set<byte[]>> conflictSet;
 
-    @Getter
     final Map<UUID, Set<byte[]>>  writeConflictParams;
 
+    /** Conflict-params as fingerprints, null if they are byte arrays. */
+    @Getter
+    final Map<UUID, long[]> conflictFingerprints;
+
+    /** Write conflict-params as fingerprints, null if they are byte arrays. */
+    @Getter
+    final Map<UUID, long[]> writeFingerprints;
+
     /**
      * Constructor for TxResolutionInfo.
      *
@@ -47,6 +64,8 @@ public class TxResolutionInfo implements ICorfuPayload<TxResolutionInfo> {
         this.snapshotTimestamp = snapshotTimestamp;
         this.conflictSet = Collections.emptyMap();
         this.writeConflictParams = Collections.emptyMap();
+        this.conflictFingerprints = null;
+        this.writeFingerprints = null;
     }
 
     /**
@@ -59,10 +78,82 @@ public class TxResolutionInfo implements ICorfuPayload<TxResolutionInfo> {
      */
     public TxResolutionInfo(UUID txId, Token snapshotTimestamp, Map<UUID, Set<byte[]>>
             conflictMap, Map<UUID, Set<byte[]>> writeConflictParams) {
+        this(txId, snapshotTimestamp, conflictMap, writeConflictParams, null, null);
+    }
+
+    private TxResolutionInfo(UUID txId, Token snapshotTimestamp,
+                             Map<UUID, Set<byte[]>> conflictMap, Map<UUID, Set<byte[]>> writeConflictParams,
+                             Map<UUID, long[]> conflictFingerprints, Map<UUID, long[]> writeFingerprints) {
         this.TXid = txId;
         this.snapshotTimestamp = snapshotTimestamp;
         this.conflictSet = conflictMap;
         this.writeConflictParams = writeConflictParams;
+        this.conflictFingerprints = conflictFingerprints;
+        this.writeFingerprints = writeFingerprints;
+    }
+
+
+    /**
+     * Creates a TxResolutionInfo whose conflict-params are 64-bit fingerprints.
+     *
+     * <p>The fingerprints of a stream are sent sorted and delta-encoded, so the arrays
+     * should be sorted and free of duplicates, though the encoding is correct either way.
+     * An empty array is a conflict on the whole stream.</p>
+     *
+     * @param txId                 transaction identifier
+     * @param snapshotTimestamp    transaction snapshot timestamp
+     * @param conflictFingerprints conflict-params fingerprints, arranged by stream IDs
+     * @param writeFingerprints    write conflict-params fingerprints, arranged by stream IDs
+     * @return a new TxResolutionInfo
+     */
+    public static TxResolutionInfo withFingerprints(UUID txId, Token snapshotTimestamp,
+                                                    Map<UUID, long[]> conflictFingerprints,
+                                                    Map<UUID, long[]> writeFingerprints) {
+        return new TxResolutionInfo(txId, snapshotTimestamp, null, null,
+                conflictFingerprints, writeFingerprints);
+    }
+
+    /**
+     * Whether the conflict-params are fingerprints, in which case they should be read from
+     * {@link #getConflictFingerprints()} and {@link #getWriteFingerprints()}.
+     */
+    public boolean hasFingerprints() {
+        return conflictFingerprints != null;
+    }
+
+    /**
+     * The streams of the conflict set.
+     */
+    public Set<UUID> getConflictStreams() {
+        return hasFingerprints() ? conflictFingerprints.keySet() : conflictSet.keySet();
+    }
+
+    /**
+     * The conflict set, arranged by stream IDs. Fingerprints are converted to byte arrays
+     * on every call.
+     */
+    public Map<UUID, Set<byte[]>> getConflictSet() {
+        return hasFingerprints() ? toConflictParams(conflictFingerprints) : conflictSet;
+    }
+
+    /**
+     * The write conflict-params, arranged by stream IDs. Fingerprints are converted to byte
+     * arrays on every call.
+     */
+    public Map<UUID, Set<byte[]>> getWriteConflictParams() {
+        return hasFingerprints() ? toConflictParams(writeFingerprints) : writeConflictParams;
+    }
+
+    private static Map<UUID, Set<byte[]>> toConflictParams(Map<UUID, long[]> fingerprints) {
+        ImmutableMap.Builder<UUID, Set<byte[]>> builder = ImmutableMap.builder();
+        fingerprints.forEach((streamId, streamFingerprints) -> {
+            Set<byte[]> conflictParams = new HashSet<>();
+            for (long fingerprint : streamFingerprints) {
+                conflictParams.add(Utils.longToBigEndianByteArray(fingerprint));
+            }
+            builder.put(streamId, conflictParams);
+        });
+        return builder.build();
     }
 
     /**
@@ -73,6 +164,10 @@ public class TxResolutionInfo implements ICorfuPayload<TxResolutionInfo> {
      * Next, entries are serialized one by one, first the key, then each value,
      * itself a set of objects.</p>
      *
+     * <p>For fingerprints, the size of the map is replaced by {@link #FINGERPRINT_ENCODING_V1},
+     * followed by the conflict set and the write conflict-params in the encoding of
+     * {@link #fingerprintsToBuffer}.</p>
+     *
      * @param buf        The buffer to deserialize.
      */
     public TxResolutionInfo(ByteBuf buf) {
@@ -83,6 +178,19 @@ public class TxResolutionInfo implements ICorfuPayload<TxResolutionInfo> {
 
         // conflictSet
         int numEntries = buf.readInt();
+        if (numEntries < 0) {
+            if (numEntries != FINGERPRINT_ENCODING_V1) {
+                throw new IllegalArgumentException("Unknown conflict set encoding " + numEntries);
+            }
+            conflictSet = null;
+            writeConflictParams = null;
+            conflictFingerprints = fingerprintsFromBuffer(buf);
+            writeFingerprints = fingerprintsFromBuffer(buf);
+            return;
+        }
+        conflictFingerprints = null;
+        writeFingerprints = null;
+
         ImmutableMap.Builder<UUID, Set<byte[]>> conflictMapBuilder = new ImmutableMap.Builder<>();
         for (int i = 0; i < numEntries; i++) {
             UUID k = ICorfuPayload.fromBuffer(buf, UUID.class);
@@ -114,6 +222,13 @@ public class TxResolutionInfo implements ICorfuPayload<TxResolutionInfo> {
         buf.writeLong(snapshotTimestamp.getEpoch());
         buf.writeLong(snapshotTimestamp.getSequence());
 
+        if (hasFingerprints()) {
+            buf.writeInt(FINGERPRINT_ENCODING_V1);
+            fingerprintsToBuffer(buf, conflictFingerprints);
+            fingerprintsToBuffer(buf, writeFingerprints);
+            return;
+        }
+
         // conflictSet
         buf.writeInt(conflictSet.size());
         conflictSet.entrySet().stream().forEach(x -> {
@@ -129,6 +244,58 @@ public class TxResolutionInfo implements ICorfuPayload<TxResolutionInfo> {
         });
     }
 
+    /**
+     * Serializes fingerprints arranged by stream IDs: the number of streams, then for each
+     * stream its ID, the number of fingerprints, the first fingerprint and the differences
+     * between consecutive fingerprints, as unsigned variable-length longs (7 bits per byte,
+     * low-order group first).
+     */
+    private static void fingerprintsToBuffer(ByteBuf buf, Map<UUID, long[]> fingerprints) {
+        buf.writeInt(fingerprints.size());
+        fingerprints.forEach((streamId, streamFingerprints) -> {
+            ICorfuPayload.serialize(buf, streamId);
+            buf.writeInt(streamFingerprints.length);
+            if (streamFingerprints.length == 0) {
+                return;
+            }
+
+            buf.writeLong(streamFingerprints[0]);
+            for (int i = 1; i < streamFingerprints.length; i++) {
+                long delta = streamFingerprints[i] - streamFingerprints[i - 1];
+                while ((delta & ~0x7FL) != 0) {
+                    buf.writeByte((int) ((delta & 0x7F) | 0x80));
+                    delta >>>= 7;
+                }
+                buf.writeByte((int) delta);
+            }
+        });
+    }
+
+    private static Map<UUID, long[]> fingerprintsFromBuffer(ByteBuf buf) {
+        int numEntries = buf.readInt();
+        ImmutableMap.Builder<UUID, long[]> builder = ImmutableMap.builder();
+        for (int i = 0; i < numEntries; i++) {
+            UUID streamId = ICorfuPayload.fromBuffer(buf, UUID.class);
+            long[] streamFingerprints = new long[buf.readInt()];
+            if (streamFingerprints.length > 0) {
+                streamFingerprints[0] = buf.readLong();
+            }
+            for (int j = 1; j < streamFingerprints.length; j++) {
+                long delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = buf.readByte();
+                    delta |= (long) (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                streamFingerprints[j] = streamFingerprints[j - 1] + delta;
+            }
+            builder.put(streamId, streamFingerprints);
+        }
+        return builder.build();
+    }
+
     @Override
     public String toString() {
         return "TXINFO[" + Utils.toReadableId(TXid) + "](ts="
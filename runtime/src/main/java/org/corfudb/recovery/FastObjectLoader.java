@@ -1,9 +1,6 @@
 package org.corfudb.recovery;
 
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.collect.ContiguousSet;
-import com.google.common.collect.DiscreteDomain;
-import com.google.common.collect.Range;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import lombok.Data;
 import lombok.Getter;
@@ -744,8 +741,7 @@ public class FastObjectLoader {
                 final long upper = Math.min(lower + batchReadSize - 1, logTail);
                 nextRead = upper + 1;
                 Map<Long, ILogData> range =
-                        runtime.getAddressSpaceView().fetchAll(ContiguousSet.create(
-                                Range.closed(lower, upper), DiscreteDomain.longs()), true);
+                        runtime.getAddressSpaceView().fetchRange(lower, upper, true);
 
                 // Sanity
                 for (Map.Entry<Long, ILogData> entry : range.entrySet()) {
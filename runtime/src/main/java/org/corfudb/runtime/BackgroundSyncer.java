@@ -0,0 +1,251 @@
+package org.corfudb.runtime;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.corfudb.protocols.wireprotocol.TokenResponse;
+import org.corfudb.runtime.exceptions.TrimmedException;
+import org.corfudb.runtime.object.ICorfuSMR;
+import org.corfudb.runtime.object.ICorfuSMRProxyInternal;
+import org.corfudb.runtime.object.VersionLockedObject;
+import org.corfudb.util.CorfuComponent;
+
+/**
+ * Keeps registered objects close to the tail of their streams in the background.
+ *
+ * <p>An access to an object which is behind the tail of its stream applies the new updates
+ * under the write lock of the object, so the first reader after a burst of writes pays the
+ * whole catch-up. The syncer periodically queries the tails of the streams of all the
+ * registered objects in a single sequencer request, and syncs each object forward, so that
+ * the accesses usually find the objects up to date and read them under an optimistic read
+ * lock. The objects are synced on a pool of
+ * {@link CorfuRuntime.CorfuRuntimeParameters#getBackgroundSyncThreads()} threads, and the
+ * next query is issued once they are all synced. An object which a transaction is using
+ * is skipped, so that its optimistic updates are not rolled back.
+ *
+ * <p>The lag of each registered object, the tail of its stream minus its version when it
+ * was last synced, is reported as a metric.
+ */
+@Slf4j
+public class BackgroundSyncer {
+
+    private final CorfuRuntime runtime;
+
+    private final Map<VersionLockedObject<?>, SyncedObject> syncedObjects = new ConcurrentHashMap<>();
+
+    /**
+     * The thread querying the tails, started on the first registration.
+     */
+    private ScheduledExecutorService syncThread;
+
+    /**
+     * The threads syncing the objects when there is more than one sync thread, otherwise the
+     * objects are synced by the thread querying the tails.
+     */
+    private volatile ExecutorService syncPool;
+
+    private final MetricRegistry metrics = CorfuRuntime.getDefaultMetrics();
+
+    /**
+     * A registered object.
+     */
+    private static class SyncedObject {
+        private final ICorfuSMRProxyInternal<?> proxy;
+        private final String lagMetricName;
+        private volatile long lag = 0L;
+
+        SyncedObject(ICorfuSMRProxyInternal<?> proxy, String lagMetricName) {
+            this.proxy = proxy;
+            this.lagMetricName = lagMetricName;
+        }
+    }
+
+    public BackgroundSyncer(CorfuRuntime runtime) {
+        this.runtime = runtime;
+    }
+
+    /**
+     * Register an object to be synced in the background.
+     *
+     * @param object An object opened through the object builder.
+     */
+    public synchronized void register(Object object) {
+        ICorfuSMRProxyInternal<?> proxy = getProxy(object);
+        VersionLockedObject<?> vlo = proxy.getUnderlyingObject();
+        if (syncedObjects.containsKey(vlo)) {
+            return;
+        }
+
+        String lagMetricName = String.format("%s0x%x.sync-lag.%s", CorfuComponent.OBJECT.toString(),
+                hashCode(), proxy.getStreamID());
+        SyncedObject syncedObject = new SyncedObject(proxy, lagMetricName);
+        metrics.remove(lagMetricName);
+        metrics.register(lagMetricName, (Gauge<Long>) () -> syncedObject.lag);
+        syncedObjects.put(vlo, syncedObject);
+
+        long periodMs = runtime.getParameters().getBackgroundSyncPeriod().toMillis();
+        if (syncThread == null) {
+            syncThread = Executors.newSingleThreadScheduledExecutor(
+                    new ThreadFactoryBuilder().setDaemon(true)
+                            .setNameFormat("BackgroundSyncer-%d")
+                            .build());
+            int syncThreads = runtime.getParameters().getBackgroundSyncThreads();
+            if (syncThreads > 1) {
+                syncPool = Executors.newFixedThreadPool(syncThreads,
+                        new ThreadFactoryBuilder().setDaemon(true)
+                                .setNameFormat("BackgroundSyncer-Pool-%d")
+                                .build());
+            }
+            syncThread.scheduleWithFixedDelay(this::syncAll, periodMs, periodMs, TimeUnit.MILLISECONDS);
+        }
+        log.info("register: syncing {} in the background every {}ms", proxy, periodMs);
+    }
+
+    /**
+     * Stop syncing an object in the background.
+     *
+     * @param object A registered object.
+     */
+    public synchronized void unregister(Object object) {
+        SyncedObject syncedObject = syncedObjects.remove(getProxy(object).getUnderlyingObject());
+        if (syncedObject != null) {
+            metrics.remove(syncedObject.lagMetricName);
+        }
+    }
+
+    /**
+     * Returns the lag of a registered object, i.e. the tail of its stream minus its version,
+     * when it was last synced.
+     *
+     * @param object A registered object.
+     * @return The lag of the object, or -1 if it is not registered.
+     */
+    public long getLag(Object object) {
+        SyncedObject syncedObject = syncedObjects.get(getProxy(object).getUnderlyingObject());
+        return syncedObject == null ? -1L : syncedObject.lag;
+    }
+
+    /**
+     * Stop syncing all the objects.
+     */
+    public synchronized void stop() {
+        if (syncThread != null) {
+            syncThread.shutdownNow();
+            syncThread = null;
+        }
+        if (syncPool != null) {
+            syncPool.shutdownNow();
+            syncPool = null;
+        }
+        syncedObjects.values().forEach(syncedObject -> metrics.remove(syncedObject.lagMetricName));
+        syncedObjects.clear();
+    }
+
+    /**
+     * Query the tails of the streams of all the registered objects, then sync each object
+     * and wait for all the objects to be synced.
+     */
+    private void syncAll() {
+        List<SyncedObject> objects = new ArrayList<>(syncedObjects.values());
+        if (objects.isEmpty()) {
+            return;
+        }
+
+        UUID[] streamIds = objects.stream()
+                .map(syncedObject -> syncedObject.proxy.getStreamID())
+                .distinct()
+                .toArray(UUID[]::new);
+        Map<UUID, Long> tails;
+        try {
+            tails = queryTails(streamIds);
+        } catch (Exception e) {
+            // Keep the task scheduled, the next period may succeed
+            log.error("syncAll: error querying the tails of {} streams", streamIds.length, e);
+            return;
+        }
+
+        ExecutorService pool = syncPool;
+        if (pool == null) {
+            for (SyncedObject syncedObject : objects) {
+                sync(syncedObject, tails.get(syncedObject.proxy.getStreamID()));
+            }
+            return;
+        }
+
+        List<Future<?>> syncs = new ArrayList<>(objects.size());
+        try {
+            for (SyncedObject syncedObject : objects) {
+                long tail = tails.get(syncedObject.proxy.getStreamID());
+                syncs.add(pool.submit(() -> sync(syncedObject, tail)));
+            }
+            for (Future<?> sync : syncs) {
+                sync.get();
+            }
+        } catch (RejectedExecutionException e) {
+            log.debug("syncAll: the syncer is stopped");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // sync handles its own errors
+            log.error("syncAll: unexpected error syncing the registered objects", e);
+        }
+    }
+
+    private Map<UUID, Long> queryTails(UUID[] streamIds) {
+        TokenResponse response = runtime.getSequencerView().query(streamIds);
+        Map<UUID, Long> tails = new HashMap<>();
+        if (streamIds.length == 1) {
+            // The tail of a single stream is returned as the token
+            tails.put(streamIds[0], response.getToken().getSequence());
+        } else {
+            for (int i = 0; i < streamIds.length; i++) {
+                tails.put(streamIds[i], response.getStreamTails().get(i));
+            }
+        }
+        return tails;
+    }
+
+    private void sync(SyncedObject syncedObject, long tail) {
+        ICorfuSMRProxyInternal<?> proxy = syncedObject.proxy;
+        VersionLockedObject<?> vlo = proxy.getUnderlyingObject();
+        try {
+            long version = vlo.syncForward(tail);
+            syncedObject.lag = Math.max(0L, tail - version);
+        } catch (TrimmedException te) {
+            log.warn("sync: {} encountered a trim exception, resetting the object", proxy);
+            vlo.update(o -> {
+                // A transaction started using the object meanwhile, the reset is left to it
+                if (o.getOptimisticStreamUnsafe() == null) {
+                    o.resetUnsafe();
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            log.error("sync: error syncing {}", proxy, e);
+        }
+    }
+
+    private static ICorfuSMRProxyInternal<?> getProxy(Object object) {
+        if (!(object instanceof ICorfuSMR)) {
+            throw new IllegalArgumentException(object.getClass().getName() + " is not a Corfu object");
+        }
+        return (ICorfuSMRProxyInternal<?>) ((ICorfuSMR<?>) object).getCorfuSMRProxy();
+    }
+}
@@ -116,6 +116,38 @@ public class CorfuRuntime {
         @Default
         int bulkReadSize = 10;
 
+        /**
+         * Maximum size in bytes of the entries returned by a single range read. Range reads
+         * are used by state transfer and the fast loader to read contiguous ranges of the log.
+         */
+        @Default
+        long rangeReadBytes = 8 * 1024 * 1024;
+
+        /**
+         * Maximum number of concurrent non-transactional token requests for the same
+         * streams merged into a single sequencer request, 1 disables the coalescing.
+         */
+        @Default
+        int tokenBatchSize = 1;
+
+        /**
+         * Number of stream addresses sent to a new primary sequencer per bootstrap message,
+         * 0 sends the address maps of all the streams in a single message. Otherwise the
+         * sequencer is first bootstrapped with the stream tails, and issues tokens while its
+         * address maps are loaded.
+         */
+        @Default
+        long sequencerBootstrapChunkSize = 0;
+
+        /**
+         * True, if transactions send their conflict sets to the sequencer as 64-bit
+         * fingerprints, which sequencers that predate the fingerprint encoding can't parse.
+         * The conflict keys whose serializer hash isn't 8 bytes long are fingerprinted, so
+         * all the clients writing to the same streams should use the same setting.
+         */
+        @Default
+        boolean fingerprintConflictSets = false;
+
         /**
          * How much time the Fast Loader has to get the maps up to date.
          *
@@ -303,6 +335,19 @@ public class CorfuRuntime {
         @Default
         Duration runtimeGCPeriod = Duration.ofMinutes(20);
 
+        /**
+         * Number of threads syncing the objects registered to the {@link BackgroundSyncer}.
+         */
+        @Default
+        int backgroundSyncThreads = 1;
+
+        /**
+         * The delay between two background syncs of the objects registered to the
+         * {@link BackgroundSyncer}.
+         */
+        @Default
+        Duration backgroundSyncPeriod = Duration.ofMillis(50);
+
         /**
          * The {@link UUID} for this client. Randomly generated by default.
          */
@@ -536,6 +581,12 @@ public class CorfuRuntime {
     @Getter
     final ViewsGarbageCollector garbageCollector = new ViewsGarbageCollector(this);
 
+    /**
+     * Keeps the registered objects close to the tail of their streams.
+     */
+    @Getter
+    final BackgroundSyncer backgroundSyncer = new BackgroundSyncer(this);
+
     /**
      * Notifies that the runtime is no longer used
      * and async retries to fetch the layout can be stopped.
@@ -714,6 +765,7 @@ public class CorfuRuntime {
         // Stopping async task from fetching layout.
         isShutdown = true;
         garbageCollector.stop();
+        backgroundSyncer.stop();
         runtimeExecutor.shutdownNow();
         if (layout != null) {
             try {
@@ -13,6 +13,8 @@ import org.corfudb.protocols.wireprotocol.IMetadata;
 import org.corfudb.protocols.wireprotocol.LogData;
 import org.corfudb.protocols.wireprotocol.MultipleReadRequest;
 import org.corfudb.protocols.wireprotocol.RangeWriteMsg;
+import org.corfudb.protocols.wireprotocol.RangeReadRequest;
+import org.corfudb.protocols.wireprotocol.RangeReadResponse;
 import org.corfudb.protocols.wireprotocol.ReadRequest;
 import org.corfudb.protocols.wireprotocol.ReadResponse;
 import org.corfudb.protocols.wireprotocol.StreamsAddressResponse;
@@ -27,6 +29,7 @@ import org.corfudb.util.serializer.Serializers;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
@@ -149,9 +152,42 @@ public class LogUnitClient extends AbstractClient {
      * @return a completableFuture which returns a ReadResponse on completion.
      */
     public CompletableFuture<ReadResponse> readAll(List<Long> list) {
+        return readAll(list, true);
+    }
+
+    /**
+     * Read data from the log unit server for a list of addresses.
+     *
+     * @param list      list of global addresses.
+     * @param cacheable whether the log unit may cache the entries it reads, bulk
+     *                  readers should not pollute the cache of the log unit.
+     * @return a completableFuture which returns a ReadResponse on completion.
+     */
+    public CompletableFuture<ReadResponse> readAll(List<Long> list, boolean cacheable) {
         Timer.Context context = getTimerContext("readAll");
         CompletableFuture<ReadResponse> cf = sendMessageWithFuture(
-                CorfuMsgType.MULTIPLE_READ_REQUEST.payloadMsg(new MultipleReadRequest(list)));
+                CorfuMsgType.MULTIPLE_READ_REQUEST.payloadMsg(new MultipleReadRequest(list, cacheable)));
+        return cf.thenApply(x -> {
+            context.stop();
+            return x;
+        });
+    }
+
+    /**
+     * Read a contiguous range of addresses from the log unit server, bypassing its cache.
+     * The response may only cover a prefix of the range, see {@link RangeReadResponse#getEnd()}.
+     *
+     * @param start    first address of the range
+     * @param end      last address of the range (inclusive)
+     * @param maxBytes maximum size in bytes of the entries of the response
+     * @param streams  streams to filter the data entries on, or an empty set to read all entries
+     * @return a completableFuture which returns a RangeReadResponse on completion.
+     */
+    public CompletableFuture<RangeReadResponse> readRange(long start, long end, long maxBytes,
+                                                          Set<UUID> streams) {
+        Timer.Context context = getTimerContext("readRange");
+        CompletableFuture<RangeReadResponse> cf = sendMessageWithFuture(
+                CorfuMsgType.RANGE_READ_REQUEST.payloadMsg(new RangeReadRequest(start, end, maxBytes, streams)));
         return cf.thenApply(x -> {
             context.stop();
             return x;
@@ -6,8 +6,12 @@ import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
 import org.corfudb.protocols.wireprotocol.CorfuMsgType;
+import org.corfudb.protocols.wireprotocol.HotConflictKeys;
 import org.corfudb.protocols.wireprotocol.SequencerMetrics;
+import org.corfudb.protocols.wireprotocol.SequencerAddressSpaceChunkMsg;
 import org.corfudb.protocols.wireprotocol.SequencerRecoveryMsg;
+import org.corfudb.protocols.wireprotocol.SequencerStandbyMsg;
+import org.corfudb.protocols.wireprotocol.SequencerTailsRecoveryMsg;
 import org.corfudb.protocols.wireprotocol.StreamAddressRange;
 import org.corfudb.runtime.view.stream.StreamAddressSpace;
 import org.corfudb.protocols.wireprotocol.StreamsAddressRequest;
@@ -36,6 +40,16 @@ public class SequencerClient extends AbstractClient {
         return sendMessageWithFuture(CorfuMsgType.SEQUENCER_METRICS_REQUEST.msg());
     }
 
+    /**
+     * Requests the conflict keys that aborted the most transactions on the sequencer.
+     *
+     * @param count maximum number of keys
+     * @return A completable future with the keys, by decreasing abort count.
+     */
+    public CompletableFuture<HotConflictKeys> requestHotConflictKeys(int count) {
+        return sendMessageWithFuture(CorfuMsgType.SEQUENCER_HOT_KEYS_REQUEST.payloadMsg(count));
+    }
+
     /**
      * Fetches the next available token from the sequencer.
      *
@@ -110,4 +124,47 @@ public class SequencerClient extends AbstractClient {
                                                 Long readyStateEpoch) {
         return bootstrap(initialToken, streamAddressSpaceMap, readyStateEpoch, false);
     }
+
+    /**
+     * Resets the sequencer with the specified initialToken and stream tails, without the
+     * address maps of the streams, which must then be loaded with
+     * {@link #bootstrapAddressSpace}. The sequencer issues tokens once it is reset.
+     *
+     * @param initialToken    Token Number which the sequencer starts distributing.
+     * @param streamTails     Per stream tail.
+     * @param readyStateEpoch Epoch at which the sequencer is ready and to stamp tokens.
+     * @return A CompletableFuture which completes once the sequencer is reset.
+     */
+    public CompletableFuture<Boolean> bootstrapTails(Long initialToken, Map<UUID, Long> streamTails,
+                                                     Long readyStateEpoch) {
+        return sendMessageWithFuture(CorfuMsgType.BOOTSTRAP_SEQUENCER_TAILS.payloadMsg(
+                new SequencerTailsRecoveryMsg(initialToken, streamTails, readyStateEpoch)));
+    }
+
+    /**
+     * Loads a chunk of the stream address maps into a sequencer reset with
+     * {@link #bootstrapTails}.
+     *
+     * @param readyStateEpoch       Epoch of the sequencer bootstrap.
+     * @param streamAddressSpaceMap Per stream map of address space, or part of it.
+     * @param last                  True if this is the last chunk.
+     * @return A CompletableFuture which completes with false if the sequencer rejected
+     *     the chunk, i.e. if it was reset since.
+     */
+    public CompletableFuture<Boolean> bootstrapAddressSpace(Long readyStateEpoch,
+                                                            Map<UUID, StreamAddressSpace> streamAddressSpaceMap,
+                                                            boolean last) {
+        return sendMessageWithFuture(CorfuMsgType.SEQUENCER_ADDRESS_SPACE_CHUNK.payloadMsg(
+                new SequencerAddressSpaceChunkMsg(readyStateEpoch, streamAddressSpaceMap, last)));
+    }
+
+    /**
+     * Sends a batch of conflict-key updates of the primary sequencer to a standby sequencer.
+     *
+     * @param updates Conflict-key updates of the primary sequencer.
+     * @return A CompletableFuture which completes with false if the standby rejected the batch.
+     */
+    public CompletableFuture<Boolean> sendStandbyUpdate(SequencerStandbyMsg updates) {
+        return sendMessageWithFuture(CorfuMsgType.SEQUENCER_STANDBY_UPDATE.payloadMsg(updates));
+    }
 }
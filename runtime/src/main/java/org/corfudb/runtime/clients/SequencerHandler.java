@@ -9,6 +9,7 @@ import lombok.Setter;
 
 import org.corfudb.protocols.wireprotocol.CorfuMsgType;
 import org.corfudb.protocols.wireprotocol.CorfuPayloadMsg;
+import org.corfudb.protocols.wireprotocol.HotConflictKeys;
 import org.corfudb.protocols.wireprotocol.SequencerMetrics;
 import org.corfudb.protocols.wireprotocol.StreamsAddressResponse;
 import org.corfudb.protocols.wireprotocol.TokenResponse;
@@ -45,6 +46,12 @@ public class SequencerHandler implements IClient, IHandler<SequencerClient> {
         return msg.getPayload();
     }
 
+    @ClientHandler(type = CorfuMsgType.SEQUENCER_HOT_KEYS_RESPONSE)
+    private static Object handleHotKeysResponse(CorfuPayloadMsg<HotConflictKeys> msg,
+                                                ChannelHandlerContext ctx, IClientRouter r) {
+        return msg.getPayload();
+    }
+
     @ClientHandler(type = CorfuMsgType.TOKEN_RES)
     private static Object handleTokenResponse(CorfuPayloadMsg<TokenResponse> msg,
                                               ChannelHandlerContext ctx, IClientRouter r) {
@@ -15,9 +15,11 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.Function;
@@ -37,7 +39,9 @@ import org.corfudb.annotations.CorfuObject;
 import org.corfudb.annotations.DontInstrument;
 import org.corfudb.annotations.Mutator;
 import org.corfudb.annotations.MutatorAccessor;
+import org.corfudb.annotations.PassThrough;
 import org.corfudb.annotations.TransactionalMethod;
+import org.corfudb.runtime.object.ICorfuSnapshotable;
 import org.corfudb.util.ImmuableListSetWrapper;
 
 /** The CorfuTable implements a simple key-value store.
@@ -54,12 +58,48 @@ import org.corfudb.util.ImmuableListSetWrapper;
  * that can be done on a retrieval on the index. A common projection is to emit only the
  * values.
  *
+ * <p>An index can be declared ordered, in which case its index values are kept sorted and
+ * the table can also be queried by range, by prefix or for the entries with the greatest
+ * index values, in O(log n + k) rather than with a scan of the table. Null index values
+ * are not mapped in ordered indexes.
+ *
+ * <p>The mappings and the secondary indexes are kept either in hash maps, which are updated
+ * in place, or in {@link PersistentHashMap}s, which are replaced on every update (see
+ * {@link Backend}). The backend is selected when the table is opened, by passing it to
+ * the constructor (e.g. {@code setArguments(Backend.PERSISTENT)} on the object builder).
+ *
+ * <p>Large tables can be scanned with {@link #parallelScan} and {@link #scanIterator}, which
+ * filter an immutable view of the table outside of the access to the object, so that the
+ * scan doesn't hold back the updates of the table. With the persistent backend the view is
+ * taken in constant time, otherwise it is a copy of the mappings.
+ *
  * @param <K>   The type of the primary key.
  * @param <V>   The type of the values to be mapped.
  */
 @Slf4j
 @CorfuObject
-public class CorfuTable<K ,V> implements ICorfuMap<K, V> {
+public class CorfuTable<K ,V> implements ICorfuMap<K, V>, ICorfuSnapshotable<CorfuTable<K, V>>,
+        Cloneable {
+
+    /**
+     * The data structures backing a table.
+     */
+    public enum Backend {
+        /**
+         * Hash maps updated in place. Updates compute undo records, and a snapshot of the
+         * table copies it, so no versions of the table are materialized.
+         */
+        HASH_MAP,
+
+        /**
+         * Persistent hash tries, and persistent AVL trees for the ordered secondary
+         * indexes. Every update yields a new version of the table which shares most of its
+         * structure with the previous one, so a snapshot of the table is taken in constant
+         * time. Updates are undone by restoring the snapshot taken before them rather than
+         * with undo records.
+         */
+        PERSISTENT
+    }
 
     /**
      * Denotes a function that supplies the unique name of an index registered to
@@ -104,20 +144,50 @@ public class CorfuTable<K ,V> implements ICorfuMap<K, V> {
         // A flag representing whether a single indexer or a multi indexer
         private final boolean monoIndex;
 
+        // A flag representing whether the index values are kept sorted
+        private final boolean ordered;
+
         public Index(CorfuTable.IndexName name, CorfuTable.IndexFunction<K, V, I> indexFunction) {
+            this(name, indexFunction, false);
+        }
+
+        /**
+         * Creates a single indexer, which supports range queries if it is ordered.
+         *
+         * @param name          The name of the index.
+         * @param indexFunction The function computing the index value of a record.
+         * @param ordered       Whether the index values are kept sorted.
+         */
+        public Index(CorfuTable.IndexName name, CorfuTable.IndexFunction<K, V, I> indexFunction,
+                     boolean ordered) {
             this.name = name;
             this.indexFunction = indexFunction;
             this.multiValueIndexFunction =
                     (k, v) -> Collections.singletonList(indexFunction.apply(k, v));
             monoIndex = true;
+            this.ordered = ordered;
         }
 
         public Index(CorfuTable.IndexName name,
                      CorfuTable.MultiValueIndexFunction<K, V, I> indexFunction) {
+            this(name, indexFunction, false);
+        }
+
+        /**
+         * Creates a multi indexer, which supports range queries if it is ordered.
+         *
+         * @param name          The name of the index.
+         * @param indexFunction The function computing the index values of a record.
+         * @param ordered       Whether the index values are kept sorted.
+         */
+        public Index(CorfuTable.IndexName name,
+                     CorfuTable.MultiValueIndexFunction<K, V, I> indexFunction,
+                     boolean ordered) {
             this.name = name;
             this.indexFunction = (k, v) -> indexFunction.apply(k, v).iterator().next();
             this.multiValueIndexFunction = indexFunction;
             monoIndex = false;
+            this.ordered = ordered;
         }
 
         public CorfuTable.IndexName getName() {
@@ -136,6 +206,10 @@ public class CorfuTable<K ,V> implements ICorfuMap<K, V> {
             return monoIndex;
         }
 
+        public boolean isOrdered() {
+            return ordered;
+        }
+
         @Override
         public boolean equals(Object o) {
             if (this == o) return true;
@@ -268,20 +342,39 @@ public class CorfuTable<K ,V> implements ICorfuMap<K, V> {
     }
 
     /** The "main" map which contains the primary key-value mappings. */
-    private final Map<K,V> mainMap = new HashMap<>();
+    private Map<K,V> mainMap;
     private Set<Index<K, V, ? extends Comparable>> indexSpec = new HashSet<>();
-    private final Map<String, Map<Comparable, Map<K, V>>> secondaryIndexes = new HashMap<>();
+    private Map<String, Map<Comparable, Map<K, V>>> secondaryIndexes;
 
     @Getter
     boolean indexGenerationFailed = false;
 
-    /** Generate a table with the given set of indexes. */
-    public CorfuTable(IndexRegistry<K, V> indices) {
+    /** Generate a table with the given set of indexes and backend. */
+    public CorfuTable(IndexRegistry<K, V> indices, Backend backend) {
+        if (backend == Backend.PERSISTENT) {
+            mainMap = PersistentHashMap.empty();
+            secondaryIndexes = PersistentHashMap.empty();
+        } else {
+            mainMap = new HashMap<>();
+            secondaryIndexes = new HashMap<>();
+        }
         indices.forEach(index -> {
-            secondaryIndexes.put(index.getName().get(), new HashMap<>());
+            secondaryIndexes = withMapping(secondaryIndexes, index.getName().get(),
+                    emptyIndex(backend == Backend.PERSISTENT, index.isOrdered()));
             indexSpec.add(index);
         });
-        log.info("CorfuTable: creating CorfuTable with the following indexes: {}", secondaryIndexes.keySet().toString());
+        log.info("CorfuTable: creating {} CorfuTable with the following indexes: {}", backend,
+                secondaryIndexes.keySet().toString());
+    }
+
+    /** Generate a table with the given set of indexes. */
+    public CorfuTable(IndexRegistry<K, V> indices) {
+        this(indices, Backend.HASH_MAP);
+    }
+
+    /** Generate a table without any secondary indexes, with the given backend. */
+    public CorfuTable(Backend backend) {
+        this(IndexRegistry.empty(), backend);
     }
 
     /** Default constructor. Generates a table without any secondary indexes. */
@@ -289,6 +382,54 @@ public class CorfuTable<K ,V> implements ICorfuMap<K, V> {
         this(IndexRegistry.empty());
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>With the persistent backend the snapshot shares the state of the table, otherwise
+     * it is a copy of the table.
+     */
+    @Override
+    @DontInstrument
+    @SuppressWarnings("unchecked")
+    public CorfuTable<K, V> getSnapshot() {
+        CorfuTable<K, V> snapshot;
+        try {
+            snapshot = (CorfuTable<K, V>) super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+        if (!isPersistentDataStructure()) {
+            snapshot.mainMap = new HashMap<>(mainMap);
+            snapshot.secondaryIndexes = new HashMap<>();
+            secondaryIndexes.forEach((indexName, secondaryIndex) -> {
+                Map<Comparable, Map<K, V>> copy = secondaryIndex instanceof NavigableMap
+                        ? new TreeMap<>() : new HashMap<>();
+                secondaryIndex.forEach((indexKey, slot) -> copy.put(indexKey, new HashMap<>(slot)));
+                snapshot.secondaryIndexes.put(indexName, copy);
+            });
+        }
+        return snapshot;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @DontInstrument
+    public boolean isPersistentDataStructure() {
+        return mainMap instanceof PersistentHashMap;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Only the snapshots of the persistent backend are cheap, so versions of the table are
+     * only materialized with that backend.
+     */
+    @Override
+    @DontInstrument
+    public boolean isSnapshotCheap() {
+        return isPersistentDataStructure();
+    }
+
     /** {@inheritDoc} */
     @Override
     @Accessor
@@ -397,11 +538,67 @@ public class CorfuTable<K ,V> implements ICorfuMap<K, V> {
         throw new IllegalArgumentException("Secondary Index " + secondaryIndex + " is not defined.");
     }
 
+    /**
+     * Get the mappings whose index values are within a range, using the specified
+     * ordered index. The mappings are returned by ascending index value.
+     *
+     * @param indexName     Name of the the ordered secondary index to query.
+     * @param fromIndexKey  The lower bound of the range, or null for no lower bound.
+     * @param fromInclusive Whether the lower bound is in the range.
+     * @param toIndexKey    The upper bound of the range, or null for no upper bound.
+     * @param toInclusive   Whether the upper bound is in the range.
+     * @return A list of Map.Entry<K, V>
+     */
+    @Accessor
+    public @Nonnull
+    <I extends Comparable<I>>
+    List<Entry<K, V>> getByIndexRange(@Nonnull IndexName indexName,
+                                      I fromIndexKey, boolean fromInclusive,
+                                      I toIndexKey, boolean toInclusive) {
+        return collectEntries(indexRange(getOrderedIndex(indexName), fromIndexKey, fromInclusive,
+                toIndexKey, toInclusive, false), indexKey -> true, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Get the mappings whose index values start with a prefix, using the specified ordered
+     * index, whose index values must be strings. The mappings are returned by ascending
+     * index value.
+     *
+     * @param indexName Name of the the ordered secondary index to query.
+     * @param prefix    The prefix of the index values.
+     * @return A list of Map.Entry<K, V>
+     */
+    @Accessor
+    public @Nonnull
+    List<Entry<K, V>> getByIndexPrefix(@Nonnull IndexName indexName, @Nonnull String prefix) {
+        return collectEntries(indexRange(getOrderedIndex(indexName), prefix, true,
+                null, false, false), indexKey -> ((String) indexKey).startsWith(prefix),
+                Integer.MAX_VALUE);
+    }
+
+    /**
+     * Get the mappings with the greatest index values, using the specified ordered index.
+     * The mappings are returned by descending index value.
+     *
+     * @param indexName Name of the the ordered secondary index to query.
+     * @param limit     The maximum number of mappings to return.
+     * @return A list of at most limit Map.Entry<K, V>
+     */
+    @Accessor
+    public @Nonnull
+    List<Entry<K, V>> getTopByIndex(@Nonnull IndexName indexName, int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit " + limit + " is negative.");
+        }
+        return collectEntries(indexRange(getOrderedIndex(indexName), null, false,
+                null, false, true), indexKey -> true, limit);
+    }
+
     /** {@inheritDoc} */
     @Override
     @MutatorAccessor(name = "put", undoFunction = "undoPut", undoRecordFunction = "undoPutRecord")
     public V put(@ConflictParameter K key, V value) {
-        V previous = mainMap.put(key, value);
+        V previous = putMapping(key, value);
         // If we have index functions, update the secondary indexes.
         if (!secondaryIndexes.isEmpty()) {
             unmapSecondaryIndexes(key, previous);
@@ -475,7 +672,7 @@ public class CorfuTable<K ,V> implements ICorfuMap<K, V> {
     @Override
     @Mutator(name = "put", noUpcall = true)
     public void insert(@ConflictParameter K key, V value) {
-        V previous = mainMap.put(key, value);
+        V previous = putMapping(key, value);
         // If we have index functions, update the secondary indexes.
         if (!secondaryIndexes.isEmpty()) {
             unmapSecondaryIndexes(key, previous);
@@ -508,13 +705,85 @@ public class CorfuTable<K ,V> implements ICorfuMap<K, V> {
                                     .collect(Collectors.toCollection(ArrayList::new));
     }
 
+    /**
+     * Returns an immutable view of the mappings of the table, which is the map itself with
+     * the persistent backend and a copy of the map otherwise.
+     *
+     * @return an immutable view of the mappings
+     */
+    @Accessor
+    public @Nonnull Map<K, V> getImmutableView() {
+        return isPersistentDataStructure()
+                ? mainMap
+                : Collections.unmodifiableMap(new HashMap<>(mainMap));
+    }
+
+    /**
+     * Scans an immutable view of the table in parallel, in the common fork-join pool, and
+     * returns the projections of the entries meeting a predicate. The view is the state of
+     * the table as accessed by the caller, e.g. at the snapshot of a transaction.
+     *
+     * @param entryPredicate The predicate to filter the entries with.
+     * @param projection     The projection of the filtered entries to return.
+     * @param limit          The maximum number of projections to return.
+     * @param <R>            The type of the projections.
+     * @return a list of at most limit projections, in no particular order
+     */
+    @PassThrough
+    public @Nonnull <R> List<R> parallelScan(@Nonnull Predicate<? super Entry<K, V>> entryPredicate,
+                                             @Nonnull Function<? super Entry<K, V>, ? extends R> projection,
+                                             int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit " + limit + " is negative.");
+        }
+        return getImmutableView().entrySet().parallelStream()
+                .unordered()
+                .filter(entryPredicate)
+                .limit(limit)
+                .map(projection)
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    /**
+     * Scans an immutable view of the table in parallel, and returns the entries meeting a
+     * predicate.
+     *
+     * @param entryPredicate The predicate to filter the entries with.
+     * @return a list of the matching entries, in no particular order
+     */
+    @PassThrough
+    public @Nonnull List<Entry<K, V>> parallelScan(@Nonnull Predicate<? super Entry<K, V>>
+                                                           entryPredicate) {
+        return parallelScan(entryPredicate, Function.identity(), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns an iterator over the projections of the entries of an immutable view of the
+     * table meeting a predicate. The entries are filtered as the iterator advances, so the
+     * result of the scan is never materialized.
+     *
+     * @param entryPredicate The predicate to filter the entries with.
+     * @param projection     The projection of the filtered entries to return.
+     * @param <R>            The type of the projections.
+     * @return an iterator over the projections, in no particular order
+     */
+    @PassThrough
+    public @Nonnull <R> Iterator<R> scanIterator(@Nonnull Predicate<? super Entry<K, V>> entryPredicate,
+                                                 @Nonnull Function<? super Entry<K, V>, ? extends R>
+                                                         projection) {
+        return getImmutableView().entrySet().stream()
+                .filter(entryPredicate)
+                .<R>map(projection)
+                .iterator();
+    }
+
     /** {@inheritDoc} */
     @Override
     @MutatorAccessor(name = "remove", undoFunction = "undoRemove",
                                 undoRecordFunction = "undoRemoveRecord")
     @SuppressWarnings("unchecked")
     public V remove(@ConflictParameter Object key) {
-        V previous =  mainMap.remove(key);
+        V previous = removeMapping(key);
         unmapSecondaryIndexes((K) key, previous);
         return previous;
     }
@@ -527,10 +796,10 @@ public class CorfuTable<K ,V> implements ICorfuMap<K, V> {
     @DontInstrument
     protected void undoRemove(CorfuTable<K, V> table, V undoRecord, K key) {
         if (undoRecord == null) {
-            V previous =  table.mainMap.remove(key);
+            V previous = table.removeMapping(key);
             table.unmapSecondaryIndexes(key, previous);
         } else {
-            V previous = table.mainMap.put(key, undoRecord);
+            V previous = table.putMapping(key, undoRecord);
             if (!table.secondaryIndexes.isEmpty()) {
                 table.unmapSecondaryIndexes(key, previous);
                 table.mapSecondaryIndexes(key, undoRecord);
@@ -542,7 +811,7 @@ public class CorfuTable<K ,V> implements ICorfuMap<K, V> {
     @Override
     @Mutator(name = "remove", noUpcall = true)
     public void delete(@ConflictParameter K key) {
-        V previous =  mainMap.remove(key);
+        V previous = removeMapping(key);
         unmapSecondaryIndexes(key, previous);
     }
 
@@ -555,13 +824,17 @@ public class CorfuTable<K ,V> implements ICorfuMap<K, V> {
     public void putAll(@Nonnull Map<? extends K, ? extends V> m) {
         // If we have no index functions, then just directly put all
         if (secondaryIndexes.isEmpty()) {
-            mainMap.putAll(m);
+            if (isPersistentDataStructure()) {
+                m.forEach(this::putMapping);
+            } else {
+                mainMap.putAll(m);
+            }
         } else {
             // Otherwise we must update all secondary indexes
             // TODO: Do this in parallel (need to acquire update locks, potentially)
             m.entrySet().stream()
                     .forEach(e -> {
-                        V previous = mainMap.put(e.getKey(), e.getValue());
+                        V previous = putMapping(e.getKey(), e.getValue());
                         unmapSecondaryIndexes(e.getKey(), previous);
                         mapSecondaryIndexes(e.getKey(), e.getValue());
                     });
@@ -572,8 +845,16 @@ public class CorfuTable<K ,V> implements ICorfuMap<K, V> {
     @Override
     @Mutator(name = "clear", reset = true)
     public void clear() {
-        mainMap.clear();
-        secondaryIndexes.values().forEach(Map::clear);
+        if (isPersistentDataStructure()) {
+            mainMap = PersistentHashMap.empty();
+            for (Index<K, V, ? extends Comparable> index : indexSpec) {
+                secondaryIndexes = withMapping(secondaryIndexes, index.getName().get(),
+                        emptyIndex(true, index.isOrdered()));
+            }
+        } else {
+            mainMap.clear();
+            secondaryIndexes.values().forEach(Map::clear);
+        }
     }
 
     /** {@inheritDoc} */
@@ -754,33 +1035,41 @@ public class CorfuTable<K ,V> implements ICorfuMap<K, V> {
                 for (Index<K, V, ? extends Comparable> index : indexSpec) {
                     String indexName = index.getName().get();
                     Map<Comparable, Map<K, V>> secondaryIndex = secondaryIndexes.get(indexName);
+                    Map<Comparable, Map<K, V>> updatedIndex = secondaryIndex;
                     if (index.isMonoIndex()) {
                         Comparable indexKey = index.indexFunction.apply(key, value);
-                        Map<K, V> slot = secondaryIndex.get(indexKey);
-                        if (slot != null) {
-                            slot.remove(key, value);
-                        }
+                        updatedIndex = unmapFromSlot(updatedIndex, indexKey, key, value);
                     } else {
                         for (Comparable<?> indexKey
                                 : index.getMultiValueIndexFunction().apply(key, value)) {
-                            Map<K, V> slot = secondaryIndex.get(indexKey);
-                            if (slot != null) {
-                                slot.remove(key, value);
-                            }
+                            updatedIndex = unmapFromSlot(updatedIndex, indexKey, key, value);
                         }
                     }
+                    if (updatedIndex != secondaryIndex) {
+                        secondaryIndexes = withMapping(secondaryIndexes, indexName, updatedIndex);
+                    }
                 }
             }
         } catch (Exception e) {
-            indexSpec.clear();
-            secondaryIndexes.clear();
-            indexGenerationFailed = true;
+            disableSecondaryIndexes();
             log.error("unmapSecondaryIndexes: Exception unmapping {}, {},"
                             + " UNMAPPING ALL INDEXES, indexing is disabled",
                     key, value, e);
         }
     }
 
+    /**
+     * Drops all the secondary indexes and disables indexing, after an index failed to be
+     * updated. The indexes are replaced rather than cleared in place, as snapshots of the
+     * table may share them.
+     */
+    @DontInstrument
+    protected void disableSecondaryIndexes() {
+        indexSpec = new HashSet<>();
+        secondaryIndexes = isPersistentDataStructure() ? PersistentHashMap.empty() : new HashMap<>();
+        indexGenerationFailed = true;
+    }
+
     /**
      * Maps the secondary indexes for a given key value pair.
      *
@@ -795,27 +1084,211 @@ public class CorfuTable<K ,V> implements ICorfuMap<K, V> {
                 for (Index<K, V, ? extends Comparable> index : indexSpec) {
                     String indexName = index.getName().get();
                     Map<Comparable, Map<K, V>> secondaryIndex = secondaryIndexes.get(indexName);
+                    Map<Comparable, Map<K, V>> updatedIndex = secondaryIndex;
                     if (index.isMonoIndex()) {
                         Comparable indexKey = index.getIndexFunction().apply(key, value);
-                        Map<K, V> slot = secondaryIndex.computeIfAbsent(indexKey, k -> new HashMap<>());
-                        slot.put(key, value);
+                        updatedIndex = mapToSlot(updatedIndex, indexKey, key, value);
                     } else {
                         for (Comparable<?> indexKey
                                 : index.getMultiValueIndexFunction().apply(key, value)) {
-                            Map<K, V> slot = secondaryIndex
-                                    .computeIfAbsent(indexKey, k -> new HashMap<>());
-                            slot.put(key, value);
+                            updatedIndex = mapToSlot(updatedIndex, indexKey, key, value);
                         }
                     }
+                    if (updatedIndex != secondaryIndex) {
+                        secondaryIndexes = withMapping(secondaryIndexes, indexName, updatedIndex);
+                    }
                 }
             }
         } catch (Exception e) {
-            indexSpec.clear();
-            secondaryIndexes.clear();
-            indexGenerationFailed = true;
+            disableSecondaryIndexes();
             log.error("mapSecondaryIndexes: Exception mapping {}, {},"
                     + " UNMAPPING ALL INDEXES, indexing is disabled", key, value, e);
         }
     }
 
+    /**
+     * Returns an ordered secondary index.
+     *
+     * @param indexName Name of the secondary index.
+     * @return The secondary index.
+     * @throws IllegalArgumentException if the secondary index is not defined or not ordered.
+     */
+    @DontInstrument
+    protected Map<Comparable, Map<K, V>> getOrderedIndex(@Nonnull IndexName indexName) {
+        String secondaryIndex = indexName.get();
+        Map<Comparable, Map<K, V>> secondaryMap = secondaryIndexes.get(secondaryIndex);
+        if (secondaryMap == null) {
+            log.error("CorfuTable: secondary index " + secondaryIndex + " does not exist for this table, cannot complete the range query.");
+            throw new IllegalArgumentException("Secondary Index " + secondaryIndex + " is not defined.");
+        }
+        if (!isOrdered(secondaryMap)) {
+            throw new IllegalArgumentException("Secondary Index " + secondaryIndex + " is not ordered.");
+        }
+        return secondaryMap;
+    }
+
+    /**
+     * Maps a key to a value in the main map.
+     *
+     * @param key   The primary key.
+     * @param value The value to map.
+     * @return The previous value of the key.
+     */
+    @DontInstrument
+    @SuppressWarnings("unchecked")
+    protected V putMapping(K key, V value) {
+        if (isPersistentDataStructure()) {
+            PersistentMap<K, V> previousMap = (PersistentMap<K, V>) mainMap;
+            mainMap = previousMap.plus(key, value);
+            return previousMap.get(key);
+        }
+        return mainMap.put(key, value);
+    }
+
+    /**
+     * Removes a key from the main map.
+     *
+     * @param key The primary key.
+     * @return The previous value of the key.
+     */
+    @DontInstrument
+    @SuppressWarnings("unchecked")
+    protected V removeMapping(Object key) {
+        if (isPersistentDataStructure()) {
+            PersistentMap<K, V> previousMap = (PersistentMap<K, V>) mainMap;
+            mainMap = previousMap.minus(key);
+            return previousMap.get(key);
+        }
+        return mainMap.remove(key);
+    }
+
+    /**
+     * Returns the map with a mapping added, which is the map itself updated in place
+     * unless it is persistent.
+     */
+    @SuppressWarnings("unchecked")
+    private static <A, B> Map<A, B> withMapping(Map<A, B> map, A key, B value) {
+        if (map instanceof PersistentMap) {
+            return ((PersistentMap<A, B>) map).plus(key, value);
+        }
+        map.put(key, value);
+        return map;
+    }
+
+    /**
+     * Returns an empty secondary index.
+     *
+     * @param persistent Whether the index is persistent.
+     * @param ordered    Whether the index values are kept sorted.
+     */
+    private static <K, V> Map<Comparable, Map<K, V>> emptyIndex(boolean persistent, boolean ordered) {
+        if (persistent) {
+            return ordered ? PersistentTreeMap.empty() : PersistentHashMap.empty();
+        }
+        return ordered ? new TreeMap<>() : new HashMap<>();
+    }
+
+    private static boolean isOrdered(Map<?, ?> secondaryIndex) {
+        return secondaryIndex instanceof NavigableMap || secondaryIndex instanceof PersistentTreeMap;
+    }
+
+    /**
+     * Returns an iterator over the slots of an ordered secondary index whose index keys are
+     * within a range, in ascending or descending order of the index keys.
+     */
+    @SuppressWarnings("unchecked")
+    private static <K, V> Iterator<Entry<Comparable, Map<K, V>>> indexRange(
+            Map<Comparable, Map<K, V>> secondaryIndex,
+            Comparable from, boolean fromInclusive,
+            Comparable to, boolean toInclusive,
+            boolean descending) {
+        if (from != null && to != null) {
+            int cmp = from.compareTo(to);
+            if (cmp > 0 || (cmp == 0 && !(fromInclusive && toInclusive))) {
+                return Collections.emptyIterator();
+            }
+        }
+        if (secondaryIndex instanceof PersistentTreeMap) {
+            return ((PersistentTreeMap<Comparable, Map<K, V>>) secondaryIndex)
+                    .rangeIterator(from, fromInclusive, to, toInclusive, descending);
+        }
+        NavigableMap<Comparable, Map<K, V>> range = (NavigableMap<Comparable, Map<K, V>>) secondaryIndex;
+        if (from != null) {
+            range = range.tailMap(from, fromInclusive);
+        }
+        if (to != null) {
+            range = range.headMap(to, toInclusive);
+        }
+        return (descending ? range.descendingMap() : range).entrySet().iterator();
+    }
+
+    /**
+     * Collects the mappings of consecutive slots of a secondary index, until a slot whose
+     * index key doesn't match the condition or until the limit is reached.
+     */
+    private static <K, V> List<Entry<K, V>> collectEntries(Iterator<Entry<Comparable, Map<K, V>>> slots,
+                                                          Predicate<Comparable> condition,
+                                                          int limit) {
+        List<Entry<K, V>> entries = new ArrayList<>();
+        while (slots.hasNext() && entries.size() < limit) {
+            Entry<Comparable, Map<K, V>> slot = slots.next();
+            if (!condition.test(slot.getKey())) {
+                break;
+            }
+            for (Entry<K, V> entry : slot.getValue().entrySet()) {
+                if (entries.size() == limit) {
+                    break;
+                }
+                entries.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), entry.getValue()));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Returns the secondary index with a key and value added to the slot of an index key.
+     */
+    @SuppressWarnings("unchecked")
+    private static <K, V> Map<Comparable, Map<K, V>> mapToSlot(Map<Comparable, Map<K, V>> secondaryIndex,
+                                                              Comparable indexKey, K key, V value) {
+        if (indexKey == null && isOrdered(secondaryIndex)) {
+            return secondaryIndex;
+        }
+        if (secondaryIndex instanceof PersistentMap) {
+            PersistentHashMap<K, V> slot = (PersistentHashMap<K, V>) secondaryIndex
+                    .getOrDefault(indexKey, PersistentHashMap.empty());
+            return withMapping(secondaryIndex, indexKey, slot.plus(key, value));
+        }
+        secondaryIndex.computeIfAbsent(indexKey, k -> new HashMap<>()).put(key, value);
+        return secondaryIndex;
+    }
+
+    /**
+     * Returns the secondary index with a key and value removed from the slot of an index key.
+     */
+    @SuppressWarnings("unchecked")
+    private static <K, V> Map<Comparable, Map<K, V>> unmapFromSlot(Map<Comparable, Map<K, V>> secondaryIndex,
+                                                                  Comparable indexKey, K key, V value) {
+        if (indexKey == null && isOrdered(secondaryIndex)) {
+            return secondaryIndex;
+        }
+        Map<K, V> slot = secondaryIndex.get(indexKey);
+        if (slot == null) {
+            return secondaryIndex;
+        }
+        if (secondaryIndex instanceof PersistentMap) {
+            if (!slot.containsKey(key) || !Objects.equals(slot.get(key), value)) {
+                return secondaryIndex;
+            }
+            PersistentHashMap<K, V> updatedSlot = ((PersistentHashMap<K, V>) slot).minus(key);
+            return updatedSlot.isEmpty()
+                    ? ((PersistentMap<Comparable, Map<K, V>>) secondaryIndex).minus(indexKey)
+                    : withMapping(secondaryIndex, indexKey, updatedSlot);
+        }
+        // Remove the empty slots, which range queries would otherwise go through
+        if (slot.remove(key, value) && slot.isEmpty()) {
+            secondaryIndex.remove(indexKey);
+        }
+        return secondaryIndex;
+    }
 }
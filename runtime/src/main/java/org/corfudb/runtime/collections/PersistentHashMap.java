@@ -0,0 +1,654 @@
+package org.corfudb.runtime.collections;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import javax.annotation.Nonnull;
+
+/**
+ * An immutable map implemented as a persistent hash array mapped trie.
+ *
+ * <p>The map is never modified: {@link #plus(Object, Object)} and {@link #minus(Object)}
+ * return a new map which shares all the nodes of the trie with this map, except the nodes
+ * on the path to the changed key. Updates therefore cost O(log32 n) time and memory, and a
+ * map can be kept as a version of a collection and read concurrently without any lock.
+ * The mutators of the {@link Map} interface throw {@link UnsupportedOperationException}.
+ *
+ * <p>The nodes of the trie keep their entries before their sub-nodes, and only store
+ * sub-nodes which hold more than one entry, so that a trie has a single shape per set of
+ * keys. Keys with the same hash code are kept in collision nodes at the bottom of the trie.
+ * Null keys and values are supported.
+ *
+ * <p>The spliterator of the entries splits the trie along its sub-tries, so that the
+ * parallel streams of the entries are partitioned without copying them.
+ *
+ * @param <K> The type of the keys.
+ * @param <V> The type of the values.
+ */
+public final class PersistentHashMap<K, V> extends AbstractMap<K, V>
+        implements PersistentMap<K, V> {
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final int HASH_BITS = 32;
+
+    private static final Object NOT_FOUND = new Object();
+
+    private static final PersistentHashMap<?, ?> EMPTY =
+            new PersistentHashMap<>(BitmapNode.EMPTY, 0);
+
+    private final Node root;
+    private final int size;
+
+    private PersistentHashMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Returns the empty map.
+     *
+     * @param <K> The type of the keys.
+     * @param <V> The type of the values.
+     * @return the empty map
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentHashMap<K, V> empty() {
+        return (PersistentHashMap<K, V>) EMPTY;
+    }
+
+    /**
+     * Returns a map with the mappings of the given map.
+     *
+     * @param map The mappings of the new map.
+     * @param <K> The type of the keys.
+     * @param <V> The type of the values.
+     * @return a map with the mappings of the given map
+     */
+    public static <K, V> PersistentHashMap<K, V> copyOf(Map<? extends K, ? extends V> map) {
+        PersistentHashMap<K, V> copy = empty();
+        for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            copy = copy.plus(entry.getKey(), entry.getValue());
+        }
+        return copy;
+    }
+
+    /**
+     * Returns a map with the mappings of this map and the given mapping, which replaces
+     * the mapping of the key in this map if there is one.
+     *
+     * @param key   The key of the mapping.
+     * @param value The value of the mapping.
+     * @return the new map
+     */
+    @Override
+    public PersistentHashMap<K, V> plus(K key, V value) {
+        Change change = new Change();
+        Node newRoot = root.put(key, value, hash(key), 0, change);
+        if (newRoot == root) {
+            return this;
+        }
+        return new PersistentHashMap<>(newRoot, change.added ? size + 1 : size);
+    }
+
+    /**
+     * Returns a map with the mappings of this map except the mapping of the given key.
+     *
+     * @param key The key of the mapping to remove.
+     * @return the new map, or this map if it doesn't contain the key
+     */
+    @Override
+    public PersistentHashMap<K, V> minus(Object key) {
+        Change change = new Change();
+        Node newRoot = root.remove(key, hash(key), 0, change);
+        if (!change.removed) {
+            return this;
+        }
+        return new PersistentHashMap<>(newRoot, size - 1);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return root.find(key, hash(key), 0) != NOT_FOUND;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        Object value = root.find(key, hash(key), 0);
+        return value == NOT_FOUND ? null : (V) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V getOrDefault(Object key, V defaultValue) {
+        Object value = root.find(key, hash(key), 0);
+        return value == NOT_FOUND ? defaultValue : (V) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        Objects.requireNonNull(action);
+        Deque<Node> nodes = new ArrayDeque<>();
+        nodes.push(root);
+        while (!nodes.isEmpty()) {
+            Node node = nodes.pop();
+            for (int i = 0; i < node.entryCount(); i++) {
+                action.accept((K) node.keyAt(i), (V) node.valueAt(i));
+            }
+            for (int i = 0; i < node.nodeCount(); i++) {
+                nodes.push(node.nodeAt(i));
+            }
+        }
+    }
+
+    @Override
+    @Nonnull
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<Entry<K, V>>() {
+            @Override
+            @Nonnull
+            public Iterator<Entry<K, V>> iterator() {
+                return new EntryIterator<>(root);
+            }
+
+            @Override
+            public Spliterator<Entry<K, V>> spliterator() {
+                return new EntrySpliterator<>(new ArrayDeque<>(Collections.singleton(root)), size);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private static int hash(Object key) {
+        int hash = key == null ? 0 : key.hashCode();
+        return hash ^ (hash >>> (HASH_BITS / 2));
+    }
+
+    private static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    /**
+     * The outcome of an update of the trie.
+     */
+    private static class Change {
+        private boolean added;
+        private boolean removed;
+    }
+
+    /**
+     * A node of the trie.
+     */
+    private abstract static class Node {
+
+        /**
+         * Returns the value of a key in the sub-trie of this node, or NOT_FOUND.
+         */
+        abstract Object find(Object key, int hash, int shift);
+
+        /**
+         * Returns the sub-trie with the mapping, or this node if it is already mapped.
+         */
+        abstract Node put(Object key, Object value, int hash, int shift, Change change);
+
+        /**
+         * Returns the sub-trie without the mapping of a key. If the sub-trie is left with
+         * a single entry, the returned node only holds that entry, so that the parent of
+         * this node can inline it.
+         */
+        abstract Node remove(Object key, int hash, int shift, Change change);
+
+        abstract int entryCount();
+
+        abstract Object keyAt(int index);
+
+        abstract Object valueAt(int index);
+
+        abstract int nodeCount();
+
+        abstract Node nodeAt(int index);
+    }
+
+    /**
+     * A node indexed by 5 bits of the hash of the keys, with a bitmap of the indexes of its
+     * entries and a bitmap of the indexes of its sub-nodes. The content holds the keys and
+     * values of the entries, by index, followed by the sub-nodes, by decreasing index.
+     */
+    private static final class BitmapNode extends Node {
+
+        private static final BitmapNode EMPTY = new BitmapNode(0, 0, new Object[0]);
+
+        private final int entryMap;
+        private final int nodeMap;
+        private final Object[] content;
+
+        BitmapNode(int entryMap, int nodeMap, Object[] content) {
+            this.entryMap = entryMap;
+            this.nodeMap = nodeMap;
+            this.content = content;
+        }
+
+        private int entryIndex(int bit) {
+            return Integer.bitCount(entryMap & (bit - 1));
+        }
+
+        private int nodeIndex(int bit) {
+            return Integer.bitCount(nodeMap & (bit - 1));
+        }
+
+        @Override
+        Object find(Object key, int hash, int shift) {
+            int bit = bit(hash, shift);
+            if ((entryMap & bit) != 0) {
+                int index = entryIndex(bit);
+                return Objects.equals(keyAt(index), key) ? valueAt(index) : NOT_FOUND;
+            }
+            if ((nodeMap & bit) != 0) {
+                return nodeAt(nodeIndex(bit)).find(key, hash, shift + BITS);
+            }
+            return NOT_FOUND;
+        }
+
+        @Override
+        Node put(Object key, Object value, int hash, int shift, Change change) {
+            int bit = bit(hash, shift);
+            if ((entryMap & bit) != 0) {
+                int index = entryIndex(bit);
+                Object currentKey = keyAt(index);
+                if (Objects.equals(currentKey, key)) {
+                    if (valueAt(index) == value) {
+                        return this;
+                    }
+                    Object[] newContent = content.clone();
+                    newContent[2 * index + 1] = value;
+                    return new BitmapNode(entryMap, nodeMap, newContent);
+                }
+                // Push both entries down into a new sub-node
+                change.added = true;
+                Node node = merge(currentKey, valueAt(index), hash(currentKey),
+                        key, value, hash, shift + BITS);
+                return withEntryReplacedByNode(bit, index, node);
+            }
+            if ((nodeMap & bit) != 0) {
+                int index = nodeIndex(bit);
+                Node node = nodeAt(index);
+                Node newNode = node.put(key, value, hash, shift + BITS, change);
+                return newNode == node ? this : withNode(index, newNode);
+            }
+            change.added = true;
+            return withEntry(bit, key, value);
+        }
+
+        @Override
+        Node remove(Object key, int hash, int shift, Change change) {
+            int bit = bit(hash, shift);
+            if ((entryMap & bit) != 0) {
+                int index = entryIndex(bit);
+                if (!Objects.equals(keyAt(index), key)) {
+                    return this;
+                }
+                change.removed = true;
+                if (entryCount() == 1 && nodeCount() == 0) {
+                    return EMPTY;
+                }
+                if (entryCount() == 2 && nodeCount() == 0 && shift > 0) {
+                    // The remaining entry shares the bits of the removed key up to this
+                    // level, so it can be indexed as if it was at the root
+                    int remaining = 1 - index;
+                    return new BitmapNode(bit(hash, 0), 0,
+                            new Object[] {keyAt(remaining), valueAt(remaining)});
+                }
+                return withoutEntry(bit, index);
+            }
+            if ((nodeMap & bit) != 0) {
+                int index = nodeIndex(bit);
+                Node newNode = nodeAt(index).remove(key, hash, shift + BITS, change);
+                if (!change.removed) {
+                    return this;
+                }
+                if (newNode.entryCount() == 1 && newNode.nodeCount() == 0) {
+                    if (entryCount() == 0 && nodeCount() == 1) {
+                        // Let the parent inline the remaining entry
+                        return newNode;
+                    }
+                    return withNodeReplacedByEntry(bit, index, newNode.keyAt(0), newNode.valueAt(0));
+                }
+                return withNode(index, newNode);
+            }
+            return this;
+        }
+
+        private static Node merge(Object key0, Object value0, int hash0,
+                                  Object key1, Object value1, int hash1, int shift) {
+            if (shift >= HASH_BITS) {
+                return new CollisionNode(hash0, new Object[] {key0, key1},
+                        new Object[] {value0, value1});
+            }
+            int bit0 = bit(hash0, shift);
+            int bit1 = bit(hash1, shift);
+            if (bit0 == bit1) {
+                Node node = merge(key0, value0, hash0, key1, value1, hash1, shift + BITS);
+                return new BitmapNode(0, bit0, new Object[] {node});
+            }
+            Object[] content = Integer.compareUnsigned(bit0, bit1) < 0
+                    ? new Object[] {key0, value0, key1, value1}
+                    : new Object[] {key1, value1, key0, value0};
+            return new BitmapNode(bit0 | bit1, 0, content);
+        }
+
+        private Node withNode(int index, Node node) {
+            Object[] newContent = content.clone();
+            newContent[content.length - 1 - index] = node;
+            return new BitmapNode(entryMap, nodeMap, newContent);
+        }
+
+        private Node withEntry(int bit, Object key, Object value) {
+            int offset = 2 * entryIndex(bit);
+            Object[] newContent = new Object[content.length + 2];
+            System.arraycopy(content, 0, newContent, 0, offset);
+            newContent[offset] = key;
+            newContent[offset + 1] = value;
+            System.arraycopy(content, offset, newContent, offset + 2, content.length - offset);
+            return new BitmapNode(entryMap | bit, nodeMap, newContent);
+        }
+
+        private Node withoutEntry(int bit, int index) {
+            int offset = 2 * index;
+            Object[] newContent = new Object[content.length - 2];
+            System.arraycopy(content, 0, newContent, 0, offset);
+            System.arraycopy(content, offset + 2, newContent, offset, content.length - offset - 2);
+            return new BitmapNode(entryMap ^ bit, nodeMap, newContent);
+        }
+
+        private Node withEntryReplacedByNode(int bit, int index, Node node) {
+            // Entries shrink by two slots, nodes grow by one, ending at the new node's index
+            int entryOffset = 2 * index;
+            int nodeOffset = content.length - 2 - nodeIndex(bit);
+            Object[] newContent = new Object[content.length - 1];
+            System.arraycopy(content, 0, newContent, 0, entryOffset);
+            System.arraycopy(content, entryOffset + 2, newContent, entryOffset,
+                    nodeOffset - entryOffset);
+            newContent[nodeOffset] = node;
+            System.arraycopy(content, nodeOffset + 2, newContent, nodeOffset + 1,
+                    content.length - nodeOffset - 2);
+            return new BitmapNode(entryMap ^ bit, nodeMap | bit, newContent);
+        }
+
+        private Node withNodeReplacedByEntry(int bit, int index, Object key, Object value) {
+            int nodeOffset = content.length - 1 - index;
+            int entryOffset = 2 * entryIndex(bit);
+            Object[] newContent = new Object[content.length + 1];
+            System.arraycopy(content, 0, newContent, 0, entryOffset);
+            newContent[entryOffset] = key;
+            newContent[entryOffset + 1] = value;
+            System.arraycopy(content, entryOffset, newContent, entryOffset + 2,
+                    nodeOffset - entryOffset);
+            System.arraycopy(content, nodeOffset + 1, newContent, nodeOffset + 2,
+                    content.length - nodeOffset - 1);
+            return new BitmapNode(entryMap | bit, nodeMap ^ bit, newContent);
+        }
+
+        @Override
+        int entryCount() {
+            return Integer.bitCount(entryMap);
+        }
+
+        @Override
+        Object keyAt(int index) {
+            return content[2 * index];
+        }
+
+        @Override
+        Object valueAt(int index) {
+            return content[2 * index + 1];
+        }
+
+        @Override
+        int nodeCount() {
+            return Integer.bitCount(nodeMap);
+        }
+
+        @Override
+        Node nodeAt(int index) {
+            return (Node) content[content.length - 1 - index];
+        }
+    }
+
+    /**
+     * A node holding the entries of keys which have the same hash code.
+     */
+    private static final class CollisionNode extends Node {
+
+        private final int hash;
+        private final Object[] keys;
+        private final Object[] values;
+
+        CollisionNode(int hash, Object[] keys, Object[] values) {
+            this.hash = hash;
+            this.keys = keys;
+            this.values = values;
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < keys.length; i++) {
+                if (Objects.equals(keys[i], key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        Object find(Object key, int hash, int shift) {
+            int index = indexOf(key);
+            return index < 0 ? NOT_FOUND : values[index];
+        }
+
+        @Override
+        Node put(Object key, Object value, int hash, int shift, Change change) {
+            int index = indexOf(key);
+            if (index >= 0) {
+                if (values[index] == value) {
+                    return this;
+                }
+                Object[] newValues = values.clone();
+                newValues[index] = value;
+                return new CollisionNode(hash, keys, newValues);
+            }
+            change.added = true;
+            Object[] newKeys = Arrays.copyOf(keys, keys.length + 1);
+            Object[] newValues = Arrays.copyOf(values, values.length + 1);
+            newKeys[keys.length] = key;
+            newValues[values.length] = value;
+            return new CollisionNode(hash, newKeys, newValues);
+        }
+
+        @Override
+        Node remove(Object key, int hash, int shift, Change change) {
+            int index = indexOf(key);
+            if (index < 0) {
+                return this;
+            }
+            change.removed = true;
+            if (keys.length == 2) {
+                int remaining = 1 - index;
+                return new BitmapNode(bit(hash, 0), 0,
+                        new Object[] {keys[remaining], values[remaining]});
+            }
+            Object[] newKeys = new Object[keys.length - 1];
+            Object[] newValues = new Object[values.length - 1];
+            System.arraycopy(keys, 0, newKeys, 0, index);
+            System.arraycopy(keys, index + 1, newKeys, index, keys.length - index - 1);
+            System.arraycopy(values, 0, newValues, 0, index);
+            System.arraycopy(values, index + 1, newValues, index, values.length - index - 1);
+            return new CollisionNode(hash, newKeys, newValues);
+        }
+
+        @Override
+        int entryCount() {
+            return keys.length;
+        }
+
+        @Override
+        Object keyAt(int index) {
+            return keys[index];
+        }
+
+        @Override
+        Object valueAt(int index) {
+            return values[index];
+        }
+
+        @Override
+        int nodeCount() {
+            return 0;
+        }
+
+        @Override
+        Node nodeAt(int index) {
+            throw new IndexOutOfBoundsException();
+        }
+    }
+
+    /**
+     * Iterates over the entries of a trie, depth first.
+     */
+    private static final class EntryIterator<K, V> implements Iterator<Entry<K, V>> {
+
+        private final Deque<Node> nodes = new ArrayDeque<>();
+        private Node current;
+        private int index = 0;
+
+        EntryIterator(Node root) {
+            current = root;
+            advance();
+        }
+
+        private void advance() {
+            while (current != null && index == current.entryCount()) {
+                for (int i = 0; i < current.nodeCount(); i++) {
+                    nodes.push(current.nodeAt(i));
+                }
+                current = nodes.poll();
+                index = 0;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return current != null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Entry<K, V> next() {
+            if (current == null) {
+                throw new NoSuchElementException();
+            }
+            Entry<K, V> entry = new SimpleImmutableEntry<>((K) current.keyAt(index),
+                    (V) current.valueAt(index));
+            index++;
+            advance();
+            return entry;
+        }
+    }
+
+    /**
+     * Splits the entries of a trie by handing over half of the sub-tries left to visit.
+     */
+    private static final class EntrySpliterator<K, V> implements Spliterator<Entry<K, V>> {
+
+        private final Deque<Node> nodes;
+        private Node current;
+        private int index = 0;
+        private long estimate;
+
+        EntrySpliterator(Deque<Node> nodes, long estimate) {
+            this.nodes = nodes;
+            this.estimate = estimate;
+        }
+
+        private void visit(Node node) {
+            current = node;
+            index = 0;
+            for (int i = 0; i < node.nodeCount(); i++) {
+                nodes.add(node.nodeAt(i));
+            }
+        }
+
+        private boolean isCurrentVisited() {
+            return current == null || index == current.entryCount();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean tryAdvance(Consumer<? super Entry<K, V>> action) {
+            while (isCurrentVisited()) {
+                Node next = nodes.poll();
+                if (next == null) {
+                    return false;
+                }
+                visit(next);
+            }
+            action.accept(new SimpleImmutableEntry<>((K) current.keyAt(index),
+                    (V) current.valueAt(index)));
+            index++;
+            return true;
+        }
+
+        @Override
+        public Spliterator<Entry<K, V>> trySplit() {
+            // Visit the last sub-trie left, so that its own sub-tries can be split
+            if (nodes.size() == 1 && isCurrentVisited()) {
+                visit(nodes.poll());
+            }
+            if (nodes.size() < 2) {
+                return null;
+            }
+            Deque<Node> split = new ArrayDeque<>();
+            for (int i = nodes.size() / 2; i > 0; i--) {
+                split.push(nodes.pollLast());
+            }
+            estimate >>>= 1;
+            return new EntrySpliterator<>(split, estimate);
+        }
+
+        @Override
+        public long estimateSize() {
+            return estimate;
+        }
+
+        @Override
+        public int characteristics() {
+            return DISTINCT | IMMUTABLE;
+        }
+    }
+}
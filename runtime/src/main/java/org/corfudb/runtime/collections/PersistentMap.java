@@ -0,0 +1,32 @@
+package org.corfudb.runtime.collections;
+
+import java.util.Map;
+
+/**
+ * An immutable map whose updates return a new map sharing most of its structure with the
+ * previous one. The mutators of the {@link Map} interface throw
+ * {@link UnsupportedOperationException}.
+ *
+ * @param <K> The type of the keys.
+ * @param <V> The type of the values.
+ */
+public interface PersistentMap<K, V> extends Map<K, V> {
+
+    /**
+     * Returns a map with the mappings of this map and the given mapping, which replaces
+     * the mapping of the key in this map if there is one.
+     *
+     * @param key   The key of the mapping.
+     * @param value The value of the mapping.
+     * @return the new map
+     */
+    PersistentMap<K, V> plus(K key, V value);
+
+    /**
+     * Returns a map with the mappings of this map except the mapping of the given key.
+     *
+     * @param key The key of the mapping to remove.
+     * @return the new map, or this map if it doesn't contain the key
+     */
+    PersistentMap<K, V> minus(Object key);
+}
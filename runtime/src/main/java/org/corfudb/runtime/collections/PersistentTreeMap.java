@@ -0,0 +1,357 @@
+package org.corfudb.runtime.collections;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import javax.annotation.Nonnull;
+
+/**
+ * An immutable sorted map implemented as a persistent AVL tree.
+ *
+ * <p>The map is never modified: {@link #plus(Object, Object)} and {@link #minus(Object)}
+ * return a new map which shares all the nodes of the tree with this map, except the nodes
+ * on the path to the changed key and the nodes rotated to rebalance it. Updates therefore
+ * cost O(log n) time and memory, like lookups. The entries of a range of keys are iterated
+ * in O(log n + k), in either order, with {@link #rangeIterator}.
+ *
+ * <p>The keys are sorted by their natural ordering, and must be mutually comparable. Null
+ * keys are not supported, null values are.
+ *
+ * @param <K> The type of the keys.
+ * @param <V> The type of the values.
+ */
+public final class PersistentTreeMap<K, V> extends AbstractMap<K, V>
+        implements PersistentMap<K, V> {
+
+    private static final PersistentTreeMap<?, ?> EMPTY = new PersistentTreeMap<>(null, 0);
+
+    private final Node root;
+    private final int size;
+
+    private PersistentTreeMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Returns the empty map.
+     *
+     * @param <K> The type of the keys.
+     * @param <V> The type of the values.
+     * @return the empty map
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentTreeMap<K, V> empty() {
+        return (PersistentTreeMap<K, V>) EMPTY;
+    }
+
+    /**
+     * Returns a map with the mappings of the given map.
+     *
+     * @param map The mappings of the new map.
+     * @param <K> The type of the keys.
+     * @param <V> The type of the values.
+     * @return a map with the mappings of the given map
+     */
+    public static <K, V> PersistentTreeMap<K, V> copyOf(Map<? extends K, ? extends V> map) {
+        PersistentTreeMap<K, V> copy = empty();
+        for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            copy = copy.plus(entry.getKey(), entry.getValue());
+        }
+        return copy;
+    }
+
+    @Override
+    public PersistentTreeMap<K, V> plus(K key, V value) {
+        Change change = new Change();
+        Node newRoot = put(root, key, value, change);
+        if (newRoot == root) {
+            return this;
+        }
+        return new PersistentTreeMap<>(newRoot, change.added ? size + 1 : size);
+    }
+
+    @Override
+    public PersistentTreeMap<K, V> minus(Object key) {
+        Change change = new Change();
+        Node newRoot = remove(root, key, change);
+        if (!change.removed) {
+            return this;
+        }
+        return new PersistentTreeMap<>(newRoot, size - 1);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return find(key) != null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        Node node = find(key);
+        return node == null ? null : (V) node.value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V getOrDefault(Object key, V defaultValue) {
+        Node node = find(key);
+        return node == null ? defaultValue : (V) node.value;
+    }
+
+    /**
+     * Returns an iterator over the entries whose keys are within a range, in ascending or
+     * descending order of the keys.
+     *
+     * @param from          The lower bound of the range, or null for no lower bound.
+     * @param fromInclusive Whether the lower bound is in the range.
+     * @param to            The upper bound of the range, or null for no upper bound.
+     * @param toInclusive   Whether the upper bound is in the range.
+     * @param descending    Whether to iterate from the upper bound down.
+     * @return an iterator over the entries of the range
+     */
+    public Iterator<Entry<K, V>> rangeIterator(K from, boolean fromInclusive,
+                                               K to, boolean toInclusive,
+                                               boolean descending) {
+        return new RangeIterator<>(root, from, fromInclusive, to, toInclusive, descending);
+    }
+
+    @Override
+    @Nonnull
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<Entry<K, V>>() {
+            @Override
+            @Nonnull
+            public Iterator<Entry<K, V>> iterator() {
+                return rangeIterator(null, false, null, false, false);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int compare(Object key1, Object key2) {
+        return ((Comparable<Object>) key1).compareTo(key2);
+    }
+
+    private Node find(Object key) {
+        Node node = root;
+        while (node != null) {
+            int cmp = compare(key, node.key);
+            if (cmp == 0) {
+                return node;
+            }
+            node = cmp < 0 ? node.left : node.right;
+        }
+        return null;
+    }
+
+    private static Node put(Node node, Object key, Object value, Change change) {
+        if (node == null) {
+            change.added = true;
+            return new Node(key, value, null, null);
+        }
+        int cmp = compare(key, node.key);
+        if (cmp < 0) {
+            Node left = put(node.left, key, value, change);
+            return left == node.left ? node : balance(node.key, node.value, left, node.right);
+        } else if (cmp > 0) {
+            Node right = put(node.right, key, value, change);
+            return right == node.right ? node : balance(node.key, node.value, node.left, right);
+        }
+        return value == node.value ? node : new Node(node.key, value, node.left, node.right);
+    }
+
+    private static Node remove(Node node, Object key, Change change) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(key, node.key);
+        if (cmp < 0) {
+            Node left = remove(node.left, key, change);
+            return left == node.left ? node : balance(node.key, node.value, left, node.right);
+        } else if (cmp > 0) {
+            Node right = remove(node.right, key, change);
+            return right == node.right ? node : balance(node.key, node.value, node.left, right);
+        }
+        change.removed = true;
+        if (node.left == null) {
+            return node.right;
+        } else if (node.right == null) {
+            return node.left;
+        }
+        // Replace the node with its successor
+        Node successor = node.right;
+        while (successor.left != null) {
+            successor = successor.left;
+        }
+        return balance(successor.key, successor.value, node.left, removeFirst(node.right));
+    }
+
+    private static Node removeFirst(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        return balance(node.key, node.value, removeFirst(node.left), node.right);
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    /**
+     * Returns a node with the given entry and sub-trees, rotated if the heights of the
+     * sub-trees differ by two.
+     */
+    private static Node balance(Object key, Object value, Node left, Node right) {
+        if (height(left) > height(right) + 1) {
+            if (height(left.left) >= height(left.right)) {
+                return new Node(left.key, left.value, left.left,
+                        new Node(key, value, left.right, right));
+            }
+            Node pivot = left.right;
+            return new Node(pivot.key, pivot.value,
+                    new Node(left.key, left.value, left.left, pivot.left),
+                    new Node(key, value, pivot.right, right));
+        } else if (height(right) > height(left) + 1) {
+            if (height(right.right) >= height(right.left)) {
+                return new Node(right.key, right.value,
+                        new Node(key, value, left, right.left), right.right);
+            }
+            Node pivot = right.left;
+            return new Node(pivot.key, pivot.value,
+                    new Node(key, value, left, pivot.left),
+                    new Node(right.key, right.value, pivot.right, right.right));
+        }
+        return new Node(key, value, left, right);
+    }
+
+    /**
+     * The outcome of an update of the tree.
+     */
+    private static class Change {
+        private boolean added;
+        private boolean removed;
+    }
+
+    /**
+     * A node of the tree.
+     */
+    private static final class Node {
+        private final Object key;
+        private final Object value;
+        private final Node left;
+        private final Node right;
+        private final int height;
+
+        Node(Object key, Object value, Node left, Node right) {
+            this.key = key;
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            this.height = Math.max(height(left), height(right)) + 1;
+        }
+    }
+
+    /**
+     * Iterates over the entries of a range of keys, keeping the path to the next entry.
+     */
+    private static final class RangeIterator<K, V> implements Iterator<Entry<K, V>> {
+
+        private final Deque<Node> path = new ArrayDeque<>();
+        private final Object from;
+        private final boolean fromInclusive;
+        private final Object to;
+        private final boolean toInclusive;
+        private final boolean descending;
+
+        RangeIterator(Node root, Object from, boolean fromInclusive,
+                      Object to, boolean toInclusive, boolean descending) {
+            this.from = from;
+            this.fromInclusive = fromInclusive;
+            this.to = to;
+            this.toInclusive = toInclusive;
+            this.descending = descending;
+
+            // Push the path to the first entry of the range
+            Node node = root;
+            while (node != null) {
+                if (descending ? isAboveRange(node.key) : isBelowRange(node.key)) {
+                    node = descending ? node.left : node.right;
+                } else {
+                    path.push(node);
+                    node = descending ? node.right : node.left;
+                }
+            }
+            checkEnd();
+        }
+
+        private boolean isBelowRange(Object key) {
+            if (from == null) {
+                return false;
+            }
+            int cmp = compare(key, from);
+            return cmp < 0 || (cmp == 0 && !fromInclusive);
+        }
+
+        private boolean isAboveRange(Object key) {
+            if (to == null) {
+                return false;
+            }
+            int cmp = compare(key, to);
+            return cmp > 0 || (cmp == 0 && !toInclusive);
+        }
+
+        /**
+         * Stop the iteration if the next entry is past the end of the range.
+         */
+        private void checkEnd() {
+            Node next = path.peek();
+            if (next != null && (descending ? isBelowRange(next.key) : isAboveRange(next.key))) {
+                path.clear();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !path.isEmpty();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Entry<K, V> next() {
+            Node node = path.poll();
+            if (node == null) {
+                throw new NoSuchElementException();
+            }
+            Node child = descending ? node.left : node.right;
+            while (child != null) {
+                path.push(child);
+                child = descending ? child.right : child.left;
+            }
+            checkEnd();
+            return new SimpleImmutableEntry<>((K) node.key, (V) node.value);
+        }
+    }
+}
@@ -197,7 +197,7 @@ public class CorfuCompileProxy<T> implements ICorfuSMRProxyInternal<T> {
             log.debug("Access[{}] conflictObj={} version={}", this, conflictObject, timestamp);
 
             try {
-                return underlyingObject.access(o -> o.getVersionUnsafe() >= timestamp
+                return underlyingObject.access(timestamp, o -> o.getVersionUnsafe() >= timestamp
                                 && !o.isOptimisticallyModifiedUnsafe(),
                         o -> o.syncObjectUnsafe(timestamp),
                         o -> accessMethod.access(o));
@@ -0,0 +1,44 @@
+package org.corfudb.runtime.object;
+
+/**
+ * An SMR object that can provide immutable snapshots of its state, which lets its
+ * {@link VersionLockedObject} keep several versions of the object.
+ *
+ * <p>Snapshots are taken under the write lock of the object, and are then read by
+ * concurrent accessors without any lock, so taking a snapshot should be cheap (e.g. by
+ * sharing structure with the object) and a snapshot must not be modified by the later
+ * updates of the object.</p>
+ *
+ * @param <T> type of the object
+ */
+public interface ICorfuSnapshotable<T> {
+
+    /**
+     * Returns an immutable snapshot of the current state of the object. Only accessors
+     * are called on the snapshot.
+     *
+     * @return a snapshot of the object
+     */
+    T getSnapshot();
+
+    /**
+     * Returns whether the object is a persistent data structure, i.e. whether its snapshots
+     * share its state and updates never modify a snapshot. The {@link VersionLockedObject}
+     * then undoes an update by restoring the snapshot taken before the update, rather than
+     * by computing and applying undo records.
+     *
+     * @return true if the object is a persistent data structure
+     */
+    boolean isPersistentDataStructure();
+
+    /**
+     * Returns whether a snapshot of the object is cheap to take. The
+     * {@link VersionLockedObject} doesn't materialize versions of an object whose snapshots
+     * are expensive (e.g. a copy of its state), as it would take one on every sync.
+     *
+     * @return true if a snapshot of the object is cheap to take
+     */
+    default boolean isSnapshotCheap() {
+        return true;
+    }
+}
@@ -15,6 +15,8 @@ import org.corfudb.util.Utils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
@@ -44,6 +46,12 @@ import java.util.stream.Collectors;
  * <p>syncObjectUnsafe() enables the user to bring the object to a given version, and the
  * VersionLockedObject manages any sync or rollback of updates necessary.
  *
+ * <p>If the object is {@link ICorfuSnapshotable}, the VersionLockedObject can keep a bounded
+ * number of materialized versions of the object, snapshots taken when an access brought
+ * the object to a version. Readers at the timestamp of a materialized version are served
+ * from its snapshot without locking, so that readers at different versions don't
+ * sync and roll back the object in turn.
+ *
  * <p>Created by mwei on 11/13/16.
  */
 @Slf4j
@@ -118,6 +126,23 @@ public class VersionLockedObject<T> {
      */
     private final Logger correctnessLogger = LoggerFactory.getLogger("correctness");
 
+    /**
+     * Maximum number of materialized versions, 0 if versions aren't kept.
+     */
+    private volatile int maxVersions = 0;
+
+    /**
+     * The materialized versions, from the oldest to the most recently materialized.
+     * Replaced (never modified) under the write lock, read without locking.
+     */
+    private volatile List<MaterializedVersion<T>> versions = Collections.emptyList();
+
+    /**
+     * Number of changes of the state of the object, so that a materialized version
+     * can tell whether the object is still in the same state.
+     */
+    private long stateChanges = 0;
+
 
     /**
      * The VersionLockedObject maintains a versioned object which is backed by an ISMRStream,
@@ -163,6 +188,12 @@ public class VersionLockedObject<T> {
             pendingUpcalls.removeIf(e -> e < trimMark);
             upcallResults.entrySet().removeIf(e -> e.getKey() < trimMark);
             smrStream.gc(trimMark);
+            if (!versions.isEmpty()) {
+                // Trimmed versions are not served, as they couldn't be synced to
+                versions = Collections.unmodifiableList(versions.stream()
+                        .filter(version -> version.lastTimestamp >= trimMark)
+                        .collect(Collectors.toList()));
+            }
         } finally {
             lock.unlock(ts);
         }
@@ -198,6 +229,20 @@ public class VersionLockedObject<T> {
     public <R> R access(Function<VersionLockedObject<T>, Boolean> directAccessCheckFunction,
                         Consumer<VersionLockedObject<T>> updateFunction,
                         Function<T, R> accessFunction) {
+        return accessInner(Address.NON_ADDRESS, directAccessCheckFunction, updateFunction,
+                accessFunction);
+    }
+
+    /**
+     * Access the internal state of the object, see {@link #access(Function, Consumer, Function)}.
+     *
+     * @param syncTimestamp The timestamp the updateFunction syncs the object to, or a
+     *                      negative timestamp if it is unknown.
+     */
+    private <R> R accessInner(long syncTimestamp,
+                              Function<VersionLockedObject<T>, Boolean> directAccessCheckFunction,
+                              Consumer<VersionLockedObject<T>> updateFunction,
+                              Function<T, R> accessFunction) {
         // First, we try to do an optimistic read on the object, in case it
         // meets the conditions for direct access.
         long ts = lock.tryOptimisticRead();
@@ -250,6 +295,7 @@ public class VersionLockedObject<T> {
             }
             // If not, perform the update operations
             updateFunction.accept(this);
+            materializeVersionUnsafe(syncTimestamp);
             correctnessLogger.trace("Version, {}", getVersionUnsafe());
             log.trace("Access [{}] Updated (writelock) access at {}", this, getVersionUnsafe());
             return accessFunction.apply(object);
@@ -259,6 +305,160 @@ public class VersionLockedObject<T> {
         }
     }
 
+    /**
+     * Access the internal state of the object at a timestamp, serving the access from a
+     * materialized version of the object if one is valid at the timestamp, and otherwise
+     * as {@link #access(Function, Consumer, Function)}.
+     *
+     * @param timestamp                 The timestamp of the access, which the updateFunction
+     *                                  syncs the object to. A negative timestamp isn't served
+     *                                  from the materialized versions.
+     * @param directAccessCheckFunction A function which returns True if the object can be
+     *                                  accessed without being updated.
+     * @param updateFunction            A function which is executed when direct access
+     *                                  is not allowed and the object must be updated.
+     * @param accessFunction            A function which allows the user to directly access
+     *                                  the object.
+     * @param <R>                       The type of the access function return.
+     * @return Returns the access function.
+     */
+    public <R> R access(long timestamp,
+                        Function<VersionLockedObject<T>, Boolean> directAccessCheckFunction,
+                        Consumer<VersionLockedObject<T>> updateFunction,
+                        Function<T, R> accessFunction) {
+        MaterializedVersion<T> version = getMaterializedVersion(timestamp);
+        if (version != null) {
+            try (Timer.Context versionReadDuration = VloMetricsHelper.getVersionReadContext()) {
+                log.trace("Access [{}] Materialized version access at {}", this, timestamp);
+                return accessFunction.apply(version.object);
+            }
+        }
+        return accessInner(timestamp, directAccessCheckFunction, updateFunction, accessFunction);
+    }
+
+    /**
+     * Sync the object forward to a timestamp, unless it is already at or past the timestamp,
+     * or a transaction has optimistic state on it which the sync would roll back. The write
+     * lock is only taken if the object is behind, so that this can be called periodically
+     * to keep the object close to the tail of its stream.
+     *
+     * @param timestamp The timestamp to sync the object to.
+     * @return The version of the object.
+     */
+    public long syncForward(long timestamp) {
+        long ts = lock.tryOptimisticRead();
+        if (ts != 0) {
+            long version = getVersionUnsafe();
+            boolean inTransaction = optimisticStream != null;
+            if (lock.validate(ts) && (version >= timestamp || inTransaction)) {
+                return version;
+            }
+        }
+
+        ts = lock.writeLock();
+        try {
+            if (optimisticStream == null && getVersionUnsafe() < timestamp) {
+                syncObjectUnsafe(timestamp);
+                materializeVersionUnsafe(timestamp);
+            }
+            return getVersionUnsafe();
+        } finally {
+            lock.unlock(ts);
+        }
+    }
+
+    /**
+     * Keep up to the given number of materialized versions of the object, if it is
+     * {@link ICorfuSnapshotable} and its snapshots are cheap.
+     *
+     * @param maxVersions maximum number of versions, 0 to disable
+     */
+    public void setMaxVersions(int maxVersions) {
+        if (maxVersions < 0) {
+            throw new IllegalArgumentException("Invalid number of versions " + maxVersions);
+        }
+        update(o -> {
+            this.maxVersions = maxVersions;
+            List<MaterializedVersion<T>> current = versions;
+            if (current.size() > maxVersions) {
+                versions = Collections.unmodifiableList(
+                        new ArrayList<>(current.subList(current.size() - maxVersions, current.size())));
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Returns the materialized version valid at a timestamp.
+     *
+     * @param timestamp timestamp of the access
+     * @return the version, or null if there is none
+     */
+    private MaterializedVersion<T> getMaterializedVersion(long timestamp) {
+        if (timestamp < 0) {
+            return null;
+        }
+        for (MaterializedVersion<T> version : versions) {
+            if (version.firstTimestamp <= timestamp && timestamp <= version.lastTimestamp) {
+                return version;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Materialize the current version of the object, unless it has optimistic updates.
+     *
+     * <p>The version of the object is the address of its last update, and the object was
+     * synced to syncTimestamp, so it is in the same state at every timestamp in between.
+     *
+     * <p>If the object didn't change since a version was materialized, it moved between
+     * timestamps without updates in between, so that version is extended to the current
+     * timestamps instead. Otherwise the least recently materialized version is evicted
+     * if there are too many.
+     *
+     * <p>Unsafe, requires that the caller has acquired a write lock.
+     *
+     * @param syncTimestamp the timestamp the object was synced to, or a negative timestamp
+     *                      if it is unknown
+     */
+    private void materializeVersionUnsafe(long syncTimestamp) {
+        final long firstTimestamp = getVersionUnsafe();
+        final long lastTimestamp = Math.max(firstTimestamp, syncTimestamp);
+        if (maxVersions == 0 || !(object instanceof ICorfuSnapshotable)
+                || !((ICorfuSnapshotable<?>) object).isSnapshotCheap()
+                || isOptimisticallyModifiedUnsafe() || firstTimestamp < 0) {
+            return;
+        }
+
+        List<MaterializedVersion<T>> materialized = new ArrayList<>(versions);
+        MaterializedVersion<T> current = null;
+        for (MaterializedVersion<T> version : materialized) {
+            if (version.stateChanges == stateChanges) {
+                current = version;
+            }
+        }
+
+        if (current == null) {
+            if (materialized.size() == maxVersions) {
+                materialized.remove(0);
+            }
+            @SuppressWarnings("unchecked")
+            T snapshot = ((ICorfuSnapshotable<T>) object).getSnapshot();
+            materialized.add(new MaterializedVersion<>(firstTimestamp, lastTimestamp, stateChanges,
+                    snapshot));
+        } else if (firstTimestamp < current.firstTimestamp
+                || lastTimestamp > current.lastTimestamp) {
+            materialized.set(materialized.indexOf(current), new MaterializedVersion<>(
+                    Math.min(current.firstTimestamp, firstTimestamp),
+                    Math.max(current.lastTimestamp, lastTimestamp),
+                    stateChanges, current.object));
+        } else {
+            return;
+        }
+        versions = Collections.unmodifiableList(materialized);
+    }
+
     /**
      * Update the object under a write lock.
      *
@@ -304,6 +504,8 @@ public class VersionLockedObject<T> {
      */
     public void seek(long globalAddress) {
         smrStream.seek(globalAddress);
+        // The object may not be in the state of the new position
+        stateChanges++;
     }
 
     /**
@@ -442,12 +644,24 @@ public class VersionLockedObject<T> {
         return optimisticStream != null && optimisticStream.pos() != Address.NEVER_READ;
     }
 
+    /**
+     * Check whether the object is a persistent data structure, which is rolled back by
+     * restoring snapshots instead of undo records.
+     *
+     * @return True, if the object is a persistent data structure.
+     */
+    private boolean isPersistentDataStructureUnsafe() {
+        return object instanceof ICorfuSnapshotable
+                && ((ICorfuSnapshotable<?>) object).isPersistentDataStructure();
+    }
+
     /**
      * Reset this object to the uninitialized state.
      */
     public void resetUnsafe() {
         log.debug("Reset[{}]", this);
         object = newObjectFn.get();
+        stateChanges++;
         smrStream.reset();
         optimisticStream = null;
     }
@@ -491,6 +705,13 @@ public class VersionLockedObject<T> {
         log.trace("Undo[{}] of {}@{} ({})", this, record.getSMRMethod(),
                 record.getEntry() != null ? record.getEntry().getGlobalAddress() : "OPT",
                 record.getUndoRecord());
+        stateChanges++;
+        if (isPersistentDataStructureUnsafe()) {
+            // The undo record is the state before the update. The object is restored from
+            // a snapshot of it, so that the record is not modified by later updates.
+            object = ((ICorfuSnapshotable<T>) record.getUndoRecord()).getSnapshot();
+            return;
+        }
         IUndoFunction<T> undoFunction =
                 undoFunctionMap.get(record.getSMRMethod());
         // If the undo function exists, apply it.
@@ -529,6 +750,7 @@ public class VersionLockedObject<T> {
         if (target == null) {
             throw new RuntimeException("Unknown upcall " + entry.getSMRMethod());
         }
+        stateChanges++;
 
         // No undo record is present
         // -OR- there this is an optimistic entry, calculate
@@ -537,7 +759,12 @@ public class VersionLockedObject<T> {
         // may have changed since the last time they were
         // applied, so we need to recalculate undo) --- this
         // is the case without snapshot isolation
-        if (!entry.isUndoable() || entry.getEntry() == null) {
+        if ((!entry.isUndoable() || entry.getEntry() == null) && isPersistentDataStructureUnsafe()) {
+            // The state before the update is the undo record, and restoring it
+            // undoes the update whatever it is
+            entry.setUndoRecord(((ICorfuSnapshotable<T>) object).getSnapshot());
+            log.trace("Apply[{}] Undo->SNAPSHOT", this);
+        } else if (!entry.isUndoable() || entry.getEntry() == null) {
             // Can we generate an undo record?
             IUndoRecordFunction<T> undoRecordTarget =
                     undoRecordFunctionMap
@@ -676,6 +903,24 @@ public class VersionLockedObject<T> {
         seek(globalAddress + 1);
     }
 
+    /**
+     * A snapshot of the object, in the state of the object at every timestamp from
+     * firstTimestamp to lastTimestamp.
+     */
+    private static class MaterializedVersion<T> {
+        private final long firstTimestamp;
+        private final long lastTimestamp;
+        private final long stateChanges;
+        private final T object;
+
+        MaterializedVersion(long firstTimestamp, long lastTimestamp, long stateChanges, T object) {
+            this.firstTimestamp = firstTimestamp;
+            this.lastTimestamp = lastTimestamp;
+            this.stateChanges = stateChanges;
+            this.object = object;
+        }
+    }
+
     /**
      * This class includes the metrics registry and the timer names used within VersionLockedObject
      * methods
@@ -688,6 +933,8 @@ public class VersionLockedObject<T> {
                 "vlo.updated-object-read";
         private static final String VLO_UPDATE = CorfuComponent.OBJECT.toString() + "vlo.update";
         private static final String VLO_GC = CorfuComponent.OBJECT.toString() + "vlo.gc";
+        private static final String VLO_VERSION_READ = CorfuComponent.OBJECT.toString() +
+                "vlo.version-read";
 
         private static Timer.Context getOptimisticReadContext() {
             return MetricsUtils.getConditionalContext(metrics.timer(VLO_OPTIMISTIC_READ));
@@ -704,5 +951,9 @@ public class VersionLockedObject<T> {
         private  static Timer.Context getVloGcContext() {
             return MetricsUtils.getConditionalContext(metrics.timer(VLO_GC));
         }
+
+        private static Timer.Context getVersionReadContext() {
+            return MetricsUtils.getConditionalContext(metrics.timer(VLO_VERSION_READ));
+        }
     }
 }
@@ -8,6 +8,8 @@ import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
+import com.google.common.primitives.Longs;
+import net.openhft.hashing.LongHashFunction;
 import org.corfudb.runtime.object.ICorfuSMRProxyInternal;
 
 import lombok.Getter;
@@ -28,6 +30,17 @@ public class ConflictSetInfo {
         return p.getSerializer().hash(o);
     }
 
+    /** Get a 64-bit fingerprint for the object, given a proxy.
+     *
+     * <p>Hashes of 8 bytes, as generated for most types, are used as is, so the fingerprint
+     * names the same conflict key as the hash. Longer or shorter hashes are hashed again
+     * with xxHash.</p>
+     */
+    public static long generateFingerprintFromObject(ICorfuSMRProxyInternal p, Object o) {
+        byte[] hash = p.getSerializer().hash(o);
+        return hash.length == Long.BYTES ? Longs.fromByteArray(hash) : LongHashFunction.xx().hashBytes(hash);
+    }
+
     /** Get the hashed conflict set.
      * @return              The hashed conflict set.
      */
@@ -49,6 +62,28 @@ public class ConflictSetInfo {
                         }));
     }
 
+    /** Get the conflict set as fingerprints, sorted and without duplicates.
+     * @return              The conflict set fingerprints.
+     */
+    public Map<UUID, long[]> getConflictFingerprints() {
+        Map<UUID, long[]> fingerprints = new HashMap<>();
+        conflicts.forEach((proxy, objects) -> {
+            long[] proxyFingerprints = new long[objects.size()];
+            int index = 0;
+            for (Object o : objects) {
+                proxyFingerprints[index++] = generateFingerprintFromObject(proxy, o);
+            }
+            // Combine the fingerprints if two proxies have the same stream.
+            fingerprints.merge(proxy.getStreamID(), proxyFingerprints, Longs::concat);
+        });
+
+        fingerprints.replaceAll((streamId, streamFingerprints) -> {
+            Arrays.sort(streamFingerprints);
+            return Arrays.stream(streamFingerprints).distinct().toArray();
+        });
+        return fingerprints;
+    }
+
     /** Merge a conflict set into this conflict set.
      * @param other         The conflict set to merge.
      */
@@ -24,6 +24,7 @@ import org.corfudb.runtime.exceptions.TransactionAbortedException;
 import org.corfudb.runtime.object.ICorfuSMRAccess;
 import org.corfudb.runtime.object.ICorfuSMRProxyInternal;
 import org.corfudb.runtime.object.VersionLockedObject;
+import org.corfudb.runtime.view.Address;
 
 /** A Corfu optimistic transaction context.
  *
@@ -91,9 +92,14 @@ public class OptimisticTransactionalContext extends AbstractTransactionalContext
         // updates.
         // Get snapshot timestamp in advance so it is not performed under the VLO lock
         long ts = getSnapshotTimestamp().getSequence();
+        // Without updates on the object, the access can be served from a version of the
+        // object at the position the transaction reads the stream at
+        long versionTs = getWriteSetEntrySize(proxy.getStreamID()) == 0
+                ? getKnownStreamPosition().getOrDefault(proxy.getStreamID(), ts)
+                : Address.NON_EXIST;
         return proxy
                 .getUnderlyingObject()
-                .access(o -> {
+                .access(versionTs, o -> {
                             WriteSetSMRStream stream = o.getOptimisticStreamUnsafe();
 
                             // Obtain the stream position as when transaction context last
@@ -282,13 +288,19 @@ public class OptimisticTransactionalContext extends AbstractTransactionalContext
         // This step currently happens all at once, and we get an
         // address of -1L if it is rejected.
         long address = -1L;
-        final TxResolutionInfo txInfo =
-            // TxResolution info:
-            // 1. snapshot timestamp
-            // 2. a map of conflict params, arranged by streamID's
-            // 3. a map of write conflict-params, arranged by
-            // streamID's
-            new TxResolutionInfo(getTransactionID(),
+        // TxResolution info:
+        // 1. snapshot timestamp
+        // 2. a map of conflict params (or their fingerprints), arranged by streamID's
+        // 3. a map of write conflict-params (or their fingerprints), arranged by
+        // streamID's
+        final boolean fingerprints = this.transaction.runtime.getParameters()
+                .isFingerprintConflictSets();
+        final TxResolutionInfo txInfo = fingerprints
+            ? TxResolutionInfo.withFingerprints(getTransactionID(),
+                getSnapshotTimestamp(),
+                conflictSet.getConflictFingerprints(),
+                getWriteSetInfo().getConflictFingerprints())
+            : new TxResolutionInfo(getTransactionID(),
                 getSnapshotTimestamp(),
                 conflictSet.getHashedConflictSet(),
                 getWriteSetInfo().getHashedConflictSet());
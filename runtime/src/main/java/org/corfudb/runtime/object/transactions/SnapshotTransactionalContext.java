@@ -47,8 +47,8 @@ public class SnapshotTransactionalContext extends AbstractTransactionalContext {
         // In snapshot transactions, there are no conflicts.
         // Hence, we do not need to add this access to a conflict set
         // do not add: addToReadSet(proxy, conflictObject);
-        return proxy.getUnderlyingObject().access(o -> o.getVersionUnsafe()
-                        == getSnapshotTimestamp().getSequence()
+        return proxy.getUnderlyingObject().access(getSnapshotTimestamp().getSequence(),
+                o -> o.getVersionUnsafe() == getSnapshotTimestamp().getSequence()
                         && !o.isOptimisticallyModifiedUnsafe(),
                 o -> {
                     syncWithRetryUnsafe(o, getSnapshotTimestamp(), proxy, null);
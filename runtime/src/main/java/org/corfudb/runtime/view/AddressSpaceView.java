@@ -8,7 +8,10 @@ import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 import com.google.common.cache.RemovalNotification;
+import com.google.common.collect.ContiguousSet;
+import com.google.common.collect.DiscreteDomain;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Range;
 import com.google.common.util.concurrent.UncheckedExecutionException;
 import io.netty.handler.timeout.TimeoutException;
 import lombok.extern.slf4j.Slf4j;
@@ -16,6 +19,7 @@ import org.corfudb.protocols.wireprotocol.DataType;
 import org.corfudb.protocols.wireprotocol.ILogData;
 import org.corfudb.protocols.wireprotocol.IToken;
 import org.corfudb.protocols.wireprotocol.LogData;
+import org.corfudb.protocols.wireprotocol.RangeReadResponse;
 import org.corfudb.protocols.wireprotocol.StreamsAddressResponse;
 import org.corfudb.protocols.wireprotocol.TailsResponse;
 import org.corfudb.protocols.wireprotocol.Token;
@@ -37,6 +41,8 @@ import org.corfudb.util.Utils;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -528,6 +534,23 @@ public class AddressSpaceView extends AbstractView {
      */
     @Nonnull
     public Map<Long, ILogData> fetchAll(Iterable<Long> addresses, boolean waitForWrite) {
+        return fetchAll(addresses, waitForWrite, true);
+    }
+
+    /**
+     * Fetch a collection of addresses, hinting the log units whether they may cache
+     * the entries read. Bulk readers (e.g. checkpoint loading) clear the hint so that
+     * they don't evict the working set of the log unit caches.
+     * The result map returned is ordered by address.
+     *
+     * @param addresses    collection of addresses to read from.
+     * @param waitForWrite flag whether wait for write is required or hole fill directly.
+     * @param cacheable    whether the log units may cache the entries read.
+     * @return a ordered map of read addresses.
+     */
+    @Nonnull
+    public Map<Long, ILogData> fetchAll(Iterable<Long> addresses, boolean waitForWrite,
+                                        boolean cacheable) {
         Map<Long, ILogData> result = new TreeMap<>();
 
         Iterable<List<Long>> batches = Iterables.partition(addresses,
@@ -539,7 +562,7 @@ public class AddressSpaceView extends AbstractView {
                 Map<Long, ILogData> batchResult = layoutHelper(e -> e.getLayout()
                         .getReplicationMode(batch.iterator().next())
                         .getReplicationProtocol(runtime)
-                        .readAll(e, batch, waitForWrite));
+                        .readAll(e, batch, waitForWrite, cacheable));
                 // Sanity check for returned addresses
                 if (batchResult.size() != batch.size()) {
                     log.error("fetchAll: Requested number of addresses not equal to the read result" +
@@ -557,6 +580,75 @@ public class AddressSpaceView extends AbstractView {
         return result;
     }
 
+    /**
+     * Fetch a contiguous range of addresses, bypassing the cache.
+     * The result map returned is ordered by address.
+     *
+     * <p>When the range is replicated by a single chain, it is read sequentially from
+     * the tail of the chain in chunks bounded by the range read bytes of the runtime.
+     * A chunk is only requested once the previous one is received, so that the log unit
+     * doesn't read ahead of the client. Otherwise, the range is read with {@link #fetchAll}.
+     *
+     * @param start        first address of the range.
+     * @param end          last address of the range (inclusive).
+     * @param waitForWrite flag whether wait for write is required or hole fill directly.
+     * @return a ordered map of read addresses.
+     */
+    @Nonnull
+    public Map<Long, ILogData> fetchRange(long start, long end, boolean waitForWrite) {
+        Map<Long, ILogData> result = new TreeMap<>();
+        List<Long> unwritten = new ArrayList<>();
+
+        boolean streamed = layoutHelper(e -> {
+            Layout.LayoutSegment segment = e.getLayout().getSegment(start);
+            if (segment.getReplicationMode() != Layout.ReplicationMode.CHAIN_REPLICATION
+                    || segment.getNumberOfStripes() != 1
+                    || (segment.getEnd() != -1 && segment.getEnd() <= end)) {
+                return false;
+            }
+
+            // The read may be retried on a new layout
+            result.clear();
+            unwritten.clear();
+
+            List<String> logServers = segment.getFirstStripe().getLogServers();
+            LogUnitClient client = e.getLogUnitClient(logServers.get(logServers.size() - 1));
+            long next = start;
+            while (next <= end) {
+                RangeReadResponse response = CFUtils.getUninterruptibly(client.readRange(next, end,
+                        runtime.getParameters().getRangeReadBytes(), Collections.emptySet()));
+                response.getAddresses().forEach((address, entry) -> {
+                    if (entry.isEmpty()) {
+                        unwritten.add(address);
+                    } else {
+                        result.put(address, entry);
+                    }
+                });
+                next = response.getEnd() + 1;
+            }
+            return true;
+        });
+
+        if (!streamed) {
+            return fetchAll(ContiguousSet.create(Range.closed(start, end), DiscreteDomain.longs()),
+                    waitForWrite, false);
+        }
+
+        // Wait for or hole fill the unwritten addresses
+        if (!unwritten.isEmpty()) {
+            result.putAll(fetchAll(unwritten, waitForWrite, false));
+        }
+
+        if (result.size() != end - start + 1) {
+            log.error("fetchRange: Requested range {}-{} not equal to the read result from server, "
+                    + "returned: {}", start, end, result.keySet());
+            throw new UnrecoverableCorfuError("Requested range not equal to the read result");
+        }
+
+        result.forEach(this::checkLogData);
+        return result;
+    }
+
     /**
      * Checks whether a log entry is valid or not. If a read
      * returns null, Empty, or trimmed an exception will be
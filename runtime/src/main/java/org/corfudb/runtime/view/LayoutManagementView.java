@@ -3,6 +3,8 @@ package org.corfudb.runtime.view;
 import static org.corfudb.util.Utils.getLogTail;
 
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
@@ -18,12 +20,17 @@ import lombok.extern.slf4j.Slf4j;
 
 import org.corfudb.runtime.view.stream.StreamAddressSpace;
 import org.corfudb.protocols.wireprotocol.StreamsAddressResponse;
+import org.corfudb.protocols.wireprotocol.TailsResponse;
 import org.corfudb.runtime.CorfuRuntime;
+import org.corfudb.runtime.clients.SequencerClient;
 import org.corfudb.runtime.exceptions.LayoutModificationException;
 import org.corfudb.runtime.exceptions.OutrankedException;
 import org.corfudb.runtime.exceptions.QuorumUnreachableException;
 import org.corfudb.runtime.exceptions.RecoveryException;
+import org.corfudb.runtime.exceptions.WrongEpochException;
 import org.corfudb.util.CFUtils;
+import org.roaringbitmap.longlong.LongIterator;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
 
 /**
  * A view of the Layout Manager to manage reconfigurations of the Corfu Cluster.
@@ -50,6 +57,11 @@ public class LayoutManagementView extends AbstractView {
 
     private volatile long lastKnownSequencerEpoch = Layout.INVALID_EPOCH;
 
+    /**
+     * Number of times a chunk of the sequencer address maps is sent before the load fails.
+     */
+    private static final int SEQUENCER_CHUNK_ATTEMPTS = 3;
+
     /**
      * On restart, if MANAGEMENT_LAYOUT exists in the local datastore.
      * the Management Server attempts to recover the cluster from that layout.
@@ -408,6 +420,10 @@ public class LayoutManagementView extends AbstractView {
     public void reconfigureSequencerServers(Layout originalLayout, Layout newLayout,
                                             boolean forceReconfigure) {
 
+        final long chunkSize = runtime.getParameters().getSequencerBootstrapChunkSize();
+        long previousSequencerEpoch = Layout.INVALID_EPOCH;
+        boolean loadAddressSpace = false;
+
         boolean acquiredLocked = recoverSequencerLock.tryLock();
         if (acquiredLocked) {
             try {
@@ -418,39 +434,48 @@ public class LayoutManagementView extends AbstractView {
                             + "Already bootstrapped.");
                     return;
                 }
+                previousSequencerEpoch = lastKnownSequencerEpoch;
 
                 long maxTokenRequested = -1L;
                 Map<UUID, StreamAddressSpace> streamsAddressSpace = Collections.emptyMap();
                 boolean bootstrapWithoutTailsUpdate = true;
 
-                // Reconfigure Primary Sequencer if required
-                if (forceReconfigure
+                // Reconfigure Primary Sequencer if required. The address maps of a chunked
+                // bootstrap are loaded once the lock is released, so that a bootstrap of a
+                // newer epoch isn't held back by the transfer.
+                if (chunkSize > 0 && (forceReconfigure
                         || !originalLayout.getPrimarySequencer()
-                        .equals(newLayout.getPrimarySequencer())) {
-
-                    StreamsAddressResponse streamsAddressesResponse = runtime.getAddressSpaceView()
-                            .getLogAddressSpace();
-
-                    maxTokenRequested = streamsAddressesResponse.getLogTail();
-                    streamsAddressSpace = streamsAddressesResponse.getAddressMap();
-
-                    // Incrementing the maxTokenRequested value for sequencer reset.
-                    maxTokenRequested++;
-                    bootstrapWithoutTailsUpdate = false;
-                }
-
-                // Configuring the new sequencer.
-                boolean sequencerBootstrapResult = CFUtils.getUninterruptibly(
-                        runtime.getLayoutView().getRuntimeLayout(newLayout)
-                                .getPrimarySequencerClient()
-                                .bootstrap(maxTokenRequested, streamsAddressSpace, newLayout.getEpoch(),
-                                        bootstrapWithoutTailsUpdate));
-                lastKnownSequencerEpoch = newLayout.getEpoch();
-                if (sequencerBootstrapResult) {
-                    log.info("reconfigureSequencerServers: Sequencer bootstrap successful.");
+                        .equals(newLayout.getPrimarySequencer()))) {
+                    loadAddressSpace = bootstrapSequencerTails(newLayout);
                 } else {
-                    log.warn("reconfigureSequencerServers: Sequencer bootstrap failed. "
-                            + "Already bootstrapped.");
+                    if (forceReconfigure
+                            || !originalLayout.getPrimarySequencer()
+                            .equals(newLayout.getPrimarySequencer())) {
+
+                        StreamsAddressResponse streamsAddressesResponse = runtime
+                                .getAddressSpaceView().getLogAddressSpace();
+
+                        maxTokenRequested = streamsAddressesResponse.getLogTail();
+                        streamsAddressSpace = streamsAddressesResponse.getAddressMap();
+
+                        // Incrementing the maxTokenRequested value for sequencer reset.
+                        maxTokenRequested++;
+                        bootstrapWithoutTailsUpdate = false;
+                    }
+
+                    // Configuring the new sequencer.
+                    boolean sequencerBootstrapResult = CFUtils.getUninterruptibly(
+                            runtime.getLayoutView().getRuntimeLayout(newLayout)
+                                    .getPrimarySequencerClient()
+                                    .bootstrap(maxTokenRequested, streamsAddressSpace,
+                                            newLayout.getEpoch(), bootstrapWithoutTailsUpdate));
+                    lastKnownSequencerEpoch = newLayout.getEpoch();
+                    if (sequencerBootstrapResult) {
+                        log.info("reconfigureSequencerServers: Sequencer bootstrap successful.");
+                    } else {
+                        log.warn("reconfigureSequencerServers: Sequencer bootstrap failed. "
+                                + "Already bootstrapped.");
+                    }
                 }
             } finally {
                 recoverSequencerLock.unlock();
@@ -458,6 +483,150 @@ public class LayoutManagementView extends AbstractView {
         } else {
             log.info("reconfigureSequencerServers: Sequencer reconfiguration already in progress.");
         }
+
+        if (loadAddressSpace) {
+            loadSequencerAddressSpace(newLayout, chunkSize, previousSequencerEpoch);
+        }
+    }
+
+    /**
+     * Bootstraps a new primary sequencer with the tails of the streams, the first step of
+     * a chunked bootstrap. The tails are enough for the sequencer to issue tokens, the
+     * address maps of the streams are then sent by {@link #loadSequencerAddressSpace}.
+     *
+     * @param newLayout New Layout to be reconfigured.
+     * @return True if the sequencer was bootstrapped and waits for its address maps.
+     */
+    private boolean bootstrapSequencerTails(Layout newLayout) {
+        TailsResponse tails = runtime.getAddressSpaceView().getAllTails();
+        boolean sequencerBootstrapResult = CFUtils.getUninterruptibly(
+                runtime.getLayoutView().getRuntimeLayout(newLayout).getPrimarySequencerClient()
+                        .bootstrapTails(tails.getLogTail() + 1, tails.getStreamTails(),
+                                newLayout.getEpoch()));
+        lastKnownSequencerEpoch = newLayout.getEpoch();
+        if (!sequencerBootstrapResult) {
+            log.warn("bootstrapSequencerTails: Sequencer bootstrap failed. Already bootstrapped.");
+            return false;
+        }
+        log.info("bootstrapSequencerTails: Sequencer bootstrapped with the tails of {} streams.",
+                tails.getStreamTails().size());
+        return true;
+    }
+
+    /**
+     * Sends the address maps of the streams to a sequencer bootstrapped with their tails,
+     * in chunks of at most chunkSize addresses. A chunk is sent again if it fails, as the
+     * sequencer merges them.
+     *
+     * <p>Only the messages to the sequencer are chunked: the log units serve the address
+     * maps of all the streams in a single response, which is held by the client while it is
+     * split. The address map of each stream is released once it has been chunked.</p>
+     *
+     * <p>If the load fails, the sequencer stops waiting for the missing chunks after its
+     * address load timeout and goes back to NOT_READY. The last known sequencer epoch is
+     * restored, so that it can be bootstrapped again at this epoch.</p>
+     *
+     * @param newLayout              New Layout to be reconfigured.
+     * @param chunkSize              Maximum number of addresses per chunk.
+     * @param previousSequencerEpoch Last known sequencer epoch before the bootstrap.
+     */
+    private void loadSequencerAddressSpace(Layout newLayout, long chunkSize,
+                                           long previousSequencerEpoch) {
+        try {
+            if (!sendAddressSpaceInChunks(newLayout, chunkSize)) {
+                restoreLastKnownSequencerEpoch(newLayout.getEpoch(), previousSequencerEpoch);
+            }
+        } catch (RuntimeException e) {
+            log.error("loadSequencerAddressSpace: Failed to load the sequencer address maps "
+                    + "of epoch {}", newLayout.getEpoch(), e);
+            restoreLastKnownSequencerEpoch(newLayout.getEpoch(), previousSequencerEpoch);
+            throw e;
+        }
+    }
+
+    private boolean sendAddressSpaceInChunks(Layout newLayout, long chunkSize) {
+        SequencerClient sequencerClient = runtime.getLayoutView().getRuntimeLayout(newLayout)
+                .getPrimarySequencerClient();
+
+        // The address maps also hold the addresses allocated since the sequencer was reset,
+        // which the sequencer merges with the ones it allocated.
+        Map<UUID, StreamAddressSpace> streamsAddressSpace = runtime.getAddressSpaceView()
+                .getLogAddressSpace().getAddressMap();
+
+        Map<UUID, StreamAddressSpace> chunk = new HashMap<>();
+        long chunkAddresses = 0;
+        int chunks = 0;
+        final int numStreams = streamsAddressSpace.size();
+        Iterator<Map.Entry<UUID, StreamAddressSpace>> streams = streamsAddressSpace.entrySet().iterator();
+        while (streams.hasNext()) {
+            Map.Entry<UUID, StreamAddressSpace> stream = streams.next();
+            final long trimMark = stream.getValue().getTrimMark();
+            Roaring64NavigableMap addresses = new Roaring64NavigableMap();
+            chunk.put(stream.getKey(), new StreamAddressSpace(trimMark, addresses));
+
+            // The address map of a large stream is split over several chunks
+            LongIterator it = stream.getValue().getAddressMap().getLongIterator();
+            while (it.hasNext()) {
+                if (chunkAddresses == chunkSize) {
+                    if (!sendAddressSpaceChunk(sequencerClient, newLayout, chunk, false)) {
+                        return false;
+                    }
+                    chunks++;
+                    chunk = new HashMap<>();
+                    chunkAddresses = 0;
+                    addresses = new Roaring64NavigableMap();
+                    chunk.put(stream.getKey(), new StreamAddressSpace(trimMark, addresses));
+                }
+                addresses.addLong(it.next());
+                chunkAddresses++;
+            }
+            streams.remove();
+        }
+
+        if (!sendAddressSpaceChunk(sequencerClient, newLayout, chunk, true)) {
+            return false;
+        }
+        log.info("loadSequencerAddressSpace: Sequencer address maps of {} streams loaded "
+                + "in {} chunks.", numStreams, chunks + 1);
+        return true;
+    }
+
+    private boolean sendAddressSpaceChunk(SequencerClient sequencerClient, Layout newLayout,
+                                          Map<UUID, StreamAddressSpace> chunk, boolean last) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                boolean result = CFUtils.getUninterruptibly(
+                        sequencerClient.bootstrapAddressSpace(newLayout.getEpoch(), chunk, last));
+                if (!result) {
+                    log.warn("loadSequencerAddressSpace: Sequencer rejected address maps of "
+                            + "epoch {}, it was reset since.", newLayout.getEpoch());
+                }
+                return result;
+            } catch (WrongEpochException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                if (attempt == SEQUENCER_CHUNK_ATTEMPTS) {
+                    throw e;
+                }
+                log.warn("loadSequencerAddressSpace: Failed to send address maps of epoch {}, "
+                        + "attempt {}", newLayout.getEpoch(), attempt, e);
+            }
+        }
+    }
+
+    /**
+     * Restores the last known sequencer epoch after a failed bootstrap at the given epoch,
+     * unless the sequencer was bootstrapped at another epoch since.
+     */
+    private void restoreLastKnownSequencerEpoch(long failedEpoch, long previousSequencerEpoch) {
+        recoverSequencerLock.lock();
+        try {
+            if (lastKnownSequencerEpoch == failedEpoch) {
+                lastKnownSequencerEpoch = previousSequencerEpoch;
+            }
+        } finally {
+            recoverSequencerLock.unlock();
+        }
     }
 
     /**
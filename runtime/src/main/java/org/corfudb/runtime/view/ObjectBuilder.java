@@ -53,6 +53,13 @@ public class ObjectBuilder<T> implements IObjectBuilder<T> {
     @Setter(AccessLevel.NONE)
     Object[] arguments = new Object[0];
 
+    /**
+     * Number of materialized versions kept for an object which is
+     * {@link org.corfudb.runtime.object.ICorfuSnapshotable} with cheap snapshots, 0 to keep none.
+     */
+    @Setter
+    int maxVersions = 0;
+
     @SuppressWarnings("unchecked")
     public <R> ObjectBuilder<R> setType(Class<R> type) {
         this.type = (Class<T>) type;
@@ -98,10 +105,17 @@ public class ObjectBuilder<T> implements IObjectBuilder<T> {
             streamID = CorfuRuntime.getStreamID(streamName);
         }
 
+        // Every open of an uncached object creates a new object, which would stay registered
+        if (options.contains(ObjectOpenOptions.NO_CACHE)
+                && options.contains(ObjectOpenOptions.BACKGROUND_SYNC)) {
+            throw new IllegalArgumentException("An object opened with " + ObjectOpenOptions.NO_CACHE
+                    + " can't be synced in the background");
+        }
+
         try {
             if (options.contains(ObjectOpenOptions.NO_CACHE)) {
-                return CorfuCompileWrapperBuilder.getWrapper(type, runtime, streamID,
-                        arguments, serializer);
+                return setUpObject(CorfuCompileWrapperBuilder.getWrapper(type, runtime, streamID,
+                        arguments, serializer));
             } else {
                 ObjectsView.ObjectID<T> oid = new ObjectsView.ObjectID(streamID, type);
                 return (T) runtime.getObjectsView().objectCache.computeIfAbsent(oid, x -> {
@@ -122,7 +136,7 @@ public class ObjectBuilder<T> implements IObjectBuilder<T> {
                                             oid,
                                             objectSerializer.getClass().getSimpleName());
                                 }
-                                return result;
+                                return setUpObject(result);
                             } catch (Exception ex) {
                                 throw new UnrecoverableCorfuError(ex);
                             }
@@ -136,5 +150,15 @@ public class ObjectBuilder<T> implements IObjectBuilder<T> {
         }
     }
 
+    private T setUpObject(T object) {
+        if (maxVersions > 0) {
+            ((CorfuCompileProxy) ((ICorfuSMR) object).getCorfuSMRProxy())
+                    .getUnderlyingObject().setMaxVersions(maxVersions);
+        }
+        if (options.contains(ObjectOpenOptions.BACKGROUND_SYNC)) {
+            runtime.getBackgroundSyncer().register(object);
+        }
+        return object;
+    }
 
 }
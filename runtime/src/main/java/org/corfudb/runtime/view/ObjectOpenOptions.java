@@ -5,5 +5,10 @@ package org.corfudb.runtime.view;
  */
 public enum ObjectOpenOptions {
     NO_CACHE,
-    CREATE_ONLY
+    CREATE_ONLY,
+    /**
+     * Register the object to the background syncer of the runtime. Can't be combined with
+     * {@link #NO_CACHE}.
+     */
+    BACKGROUND_SYNC
 }
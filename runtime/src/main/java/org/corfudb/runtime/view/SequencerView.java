@@ -1,24 +1,36 @@
 package org.corfudb.runtime.view;
 
+import com.codahale.metrics.Histogram;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
 import com.google.common.collect.Lists;
 import org.corfudb.protocols.wireprotocol.StreamAddressRange;
+import org.corfudb.protocols.wireprotocol.Token;
 import org.corfudb.runtime.view.stream.StreamAddressSpace;
 import org.corfudb.protocols.wireprotocol.StreamsAddressResponse;
 import org.corfudb.protocols.wireprotocol.TokenResponse;
 import org.corfudb.protocols.wireprotocol.TxResolutionInfo;
 import org.corfudb.runtime.CorfuRuntime;
+import org.corfudb.runtime.exceptions.unrecoverable.UnrecoverableCorfuInterruptedError;
 import org.corfudb.util.CFUtils;
 import org.corfudb.util.CorfuComponent;
 import org.corfudb.util.MetricsUtils;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Created by mwei on 12/10/15.
@@ -33,8 +45,15 @@ public class SequencerView extends AbstractView {
     private Timer sequencerDeprecatedNextOneStream;
     private Timer sequencerDeprecatedNextMultipleStream;
     private Timer sequencerTrimCache;
+    private Histogram tokenBatchSize;
+    private Histogram tokenBatchWait;
     private static MetricRegistry metricRegistry = CorfuRuntime.getDefaultMetrics();
 
+    /**
+     * Pending token requests, by set of requested streams.
+     */
+    private final Map<Set<UUID>, TokenBatch> tokenBatches = new ConcurrentHashMap<>();
+
     public SequencerView(CorfuRuntime runtime) {
         super(runtime);
 
@@ -58,6 +77,10 @@ public class SequencerView extends AbstractView {
                 "deprecated-particular-next");
         sequencerDeprecatedNextMultipleStream = metricRegistry.timer(CorfuComponent.CLIENT_SEQUENCER +
                 "deprecated-multiple-next");
+        tokenBatchSize = metricRegistry.histogram(CorfuComponent.CLIENT_SEQUENCER +
+                "token-batch-size");
+        tokenBatchWait = metricRegistry.histogram(CorfuComponent.CLIENT_SEQUENCER +
+                "token-batch-wait-us");
     }
 
     /**
@@ -87,6 +110,11 @@ public class SequencerView extends AbstractView {
      */
     public TokenResponse next(UUID ... streamIds) {
         try (Timer.Context context = MetricsUtils.getConditionalContext(sequencerNextOneStream)){
+            if (runtime.getParameters().getTokenBatchSize() > 1) {
+                return tokenBatches.computeIfAbsent(new HashSet<>(Arrays.asList(streamIds)), TokenBatch::new)
+                        .next();
+            }
+
             return layoutHelper(e -> CFUtils.getUninterruptibly(e.getPrimarySequencerClient()
                     .nextToken(Arrays.asList(streamIds), 1)));
         }
@@ -165,4 +193,151 @@ public class SequencerView extends AbstractView {
             runtime.getLayoutView().getRuntimeLayout().getPrimarySequencerClient().trimCache(address);
         }
     }
+
+    /**
+     * Coalesces the concurrent token requests for a set of streams.
+     *
+     * <p>Requests are queued, and whichever requesting thread finds no request in flight
+     * sends the queued requests as a single multi-token request. The sequencer allocates
+     * the tokens of a multi-token request to all of its streams, so only requests for the
+     * same streams are merged: the first token gets the backpointers of the response, and
+     * each following token points back to the previous one. Once done, the sending thread
+     * wakes up the next queued request, if any, to send the following batch.</p>
+     *
+     * <p>A batch with no queued requests left is removed from {@link #tokenBatches}, so
+     * the map only holds the stream sets being requested. A request racing the removal
+     * still completes on the removed batch, the next one creates a new batch.</p>
+     */
+    private class TokenBatch {
+
+        private final Set<UUID> key;
+
+        private final List<UUID> streams;
+
+        private final Queue<PendingToken> queue = new ConcurrentLinkedQueue<>();
+
+        private final AtomicBoolean inFlight = new AtomicBoolean(false);
+
+        TokenBatch(Set<UUID> streams) {
+            this.key = streams;
+            this.streams = new ArrayList<>(streams);
+        }
+
+        TokenResponse next() {
+            PendingToken pending = new PendingToken();
+            queue.add(pending);
+            boolean interrupted = false;
+
+            while (!pending.isDone()) {
+                if (inFlight.compareAndSet(false, true)) {
+                    try {
+                        send();
+                    } finally {
+                        inFlight.set(false);
+                    }
+
+                    wakeUpNextOrRemove();
+                } else {
+                    LockSupport.park(this);
+                    // A request that isn't sent yet can be given up, otherwise its
+                    // token is being allocated and has to be handed out
+                    if (Thread.interrupted()) {
+                        if (queue.remove(pending)) {
+                            // This thread might have been woken up to send the next batch
+                            wakeUpNextOrRemove();
+                            throw new UnrecoverableCorfuInterruptedError("Interrupted in token request",
+                                    new InterruptedException());
+                        }
+                        interrupted = true;
+                    }
+                }
+            }
+
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+
+            if (pending.error instanceof Error) {
+                throw (Error) pending.error;
+            } else if (pending.error != null) {
+                throw (RuntimeException) pending.error;
+            }
+            return pending.response;
+        }
+
+        /**
+         * Wake up the next queued request to send the following batch, or remove this
+         * batch from the pending batches if there are no queued requests.
+         */
+        private void wakeUpNextOrRemove() {
+            PendingToken next = queue.peek();
+            if (next != null) {
+                LockSupport.unpark(next.thread);
+            } else {
+                tokenBatches.remove(key, this);
+                // A request queued before the removal must not be left without a sender
+                next = queue.peek();
+                if (next != null) {
+                    LockSupport.unpark(next.thread);
+                }
+            }
+        }
+
+        private void send() {
+            List<PendingToken> batch = new ArrayList<>();
+            PendingToken pending;
+            while (batch.size() < runtime.getParameters().getTokenBatchSize()
+                    && (pending = queue.poll()) != null) {
+                batch.add(pending);
+            }
+
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            long now = System.nanoTime();
+            MetricsUtils.updateConditionalHistogram(tokenBatchSize, batch.size());
+            for (PendingToken p : batch) {
+                MetricsUtils.updateConditionalHistogram(tokenBatchWait,
+                        TimeUnit.NANOSECONDS.toMicros(now - p.requestTime));
+            }
+
+            TokenResponse response;
+            try {
+                response = layoutHelper(e -> CFUtils.getUninterruptibly(e.getPrimarySequencerClient()
+                        .nextToken(streams, batch.size())));
+            } catch (RuntimeException | Error e) {
+                batch.forEach(p -> p.complete(null, e));
+                return;
+            }
+
+            batch.get(0).complete(response, null);
+            for (int i = 1; i < batch.size(); i++) {
+                long sequence = response.getSequence() + i;
+                Map<UUID, Long> backpointers = new HashMap<>();
+                for (UUID stream : streams) {
+                    backpointers.put(stream, sequence - 1);
+                }
+                batch.get(i).complete(new TokenResponse(
+                        new Token(response.getEpoch(), sequence), backpointers), null);
+            }
+        }
+    }
+
+    private static class PendingToken {
+        final Thread thread = Thread.currentThread();
+        final long requestTime = System.nanoTime();
+        volatile TokenResponse response;
+        volatile Throwable error;
+
+        boolean isDone() {
+            return response != null || error != null;
+        }
+
+        void complete(TokenResponse response, Throwable error) {
+            this.response = response;
+            this.error = error;
+            LockSupport.unpark(thread);
+        }
+    }
 }
\ No newline at end of file
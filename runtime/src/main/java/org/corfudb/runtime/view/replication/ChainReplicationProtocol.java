@@ -97,6 +97,18 @@ public class ChainReplicationProtocol extends AbstractReplicationProtocol {
     public Map<Long, ILogData> readAll(RuntimeLayout runtimeLayout,
                                        List<Long> addresses,
                                        boolean waitForWrite) {
+        return readAll(runtimeLayout, addresses, waitForWrite, true);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Nonnull
+    public Map<Long, ILogData> readAll(RuntimeLayout runtimeLayout,
+                                       List<Long> addresses,
+                                       boolean waitForWrite,
+                                       boolean cacheable) {
 
         // A map of log unit server endpoint to addresses it's responsible for
         Map<String, List<Long>> serverAddressMap = new HashMap<>();
@@ -110,7 +122,7 @@ public class ChainReplicationProtocol extends AbstractReplicationProtocol {
 
         // Send read requests to log unit servers in parallel
         List<CompletableFuture<ReadResponse>> futures = serverAddressMap.entrySet().stream()
-                .map(entry -> runtimeLayout.getLogUnitClient(entry.getKey()).readAll(entry.getValue()))
+                .map(entry -> runtimeLayout.getLogUnitClient(entry.getKey()).readAll(entry.getValue(), cacheable))
                 .collect(Collectors.toList());
 
         // Merge the read responses from different log unit servers
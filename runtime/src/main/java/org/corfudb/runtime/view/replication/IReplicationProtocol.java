@@ -71,6 +71,24 @@ public interface IReplicationProtocol {
     @Nonnull
     Map<Long, ILogData> readAll(RuntimeLayout runtimeLayout, List<Long> addresses, boolean waitForWrite);
 
+    /**
+     * Read data from all the given addresses, hinting the log units whether
+     * they may cache the entries read.
+     *
+     * <p>The default implementation ignores the hint.
+     *
+     * @param runtimeLayout the RuntimeLayout stamped with layout to use for the read.
+     * @param addresses     a list of addresses to read from.
+     * @param waitForWrite  flag whether wait for write is required or hole fill directly.
+     * @param cacheable     whether the log units may cache the entries read.
+     * @return a map of addresses to data commit at these address, hole filling if necessary.
+     */
+    @Nonnull
+    default Map<Long, ILogData> readAll(RuntimeLayout runtimeLayout, List<Long> addresses,
+                                        boolean waitForWrite, boolean cacheable) {
+        return readAll(runtimeLayout, addresses, waitForWrite);
+    }
+
     /**
      * Peek data from a given address.
      *
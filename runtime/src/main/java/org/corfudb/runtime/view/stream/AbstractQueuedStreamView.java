@@ -262,9 +262,24 @@ public abstract class AbstractQueuedStreamView extends
 
     @Nonnull
     protected List<ILogData> readAll(@Nonnull List<Long> addresses) {
+        return readAll(addresses, true);
+    }
+
+    /**
+     * Read a list of addresses. Addresses that are not cacheable (e.g. checkpoint
+     * entries, which are only read once) bypass the read cache and are not cached
+     * by the log units either.
+     *
+     * @param addresses addresses to read
+     * @param cacheable whether the entries read may be cached
+     * @return the entries read, in the order of the addresses
+     */
+    @Nonnull
+    protected List<ILogData> readAll(@Nonnull List<Long> addresses, boolean cacheable) {
         try {
-            Map<Long, ILogData> dataMap =
-                    runtime.getAddressSpaceView().read(addresses);
+            Map<Long, ILogData> dataMap = cacheable
+                    ? runtime.getAddressSpaceView().read(addresses)
+                    : runtime.getAddressSpaceView().fetchAll(addresses, true, false);
             return addresses.stream().map(dataMap::get).collect(Collectors.toList());
         } catch (TrimmedException te) {
             processTrimmedException(te);
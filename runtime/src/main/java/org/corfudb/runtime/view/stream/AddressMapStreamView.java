@@ -218,7 +218,7 @@ public class AddressMapStreamView extends AbstractQueuedStreamView {
             }
 
             try {
-                List<ILogData> entries = readAll(batch);
+                List<ILogData> entries = readAll(batch, false);
                 for (ILogData data : entries) {
                     checkpointResolved = filterCheckpointEntry(data, filter, queue);
                     if (checkpointResolved) {
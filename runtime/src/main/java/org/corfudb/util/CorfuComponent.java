@@ -18,6 +18,7 @@ public enum CorfuComponent {
     // Infrastructure components
     INFRA_MSG_HANDLER("corfu.infrastructure.message-handler."),
     INFRA_SEQUENCER("corfu.infrastructure.sequencer."),
+    INFRA_LOG_UNIT("corfu.infrastructure.log-unit."),
     INFRA_STREAM_OPS("corfu.infrastructure.stream-ops.");
 
     CorfuComponent(String value) {
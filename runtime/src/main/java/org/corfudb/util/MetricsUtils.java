@@ -3,6 +3,7 @@ package org.corfudb.util;
 import com.codahale.metrics.Counter;
 import com.codahale.metrics.CsvReporter;
 import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
 import com.codahale.metrics.JmxReporter;
 import com.codahale.metrics.MetricFilter;
 import com.codahale.metrics.MetricRegistry;
@@ -259,6 +260,12 @@ public class MetricsUtils {
         }
     }
 
+    public static void updateConditionalHistogram(@NonNull Histogram histogram, long value) {
+        if (metricsCollectionEnabled) {
+            histogram.update(value);
+        }
+    }
+
     /**
      * return a gauge on direct memory used by netty's PooledByteBufAllocator
      */
@@ -2,6 +2,7 @@ package org.corfudb.protocols.wireprotocol;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 
 import com.google.common.collect.ImmutableMap;
 import io.netty.buffer.ByteBuf;
@@ -36,5 +37,31 @@ public class NodeStateTest {
         assertNotNull(deserializedMsg.getBuf());
     }
 
+    @Test
+    public void testOnlySequencerStatusIsSerialized() {
+        NodeConnectivity co = NodeConnectivity.builder()
+                .type(NodeConnectivityType.CONNECTED)
+                .endpoint("localhost:9000")
+                .connectivity(ImmutableMap.of())
+                .build();
+        SequencerMetrics metrics = SequencerMetrics.builder()
+                .sequencerStatus(SequencerMetrics.SequencerStatus.READY)
+                .tokenCounts(ImmutableMap.of(TokenType.NORMAL, 1L))
+                .conflictLookups(1L)
+                .distributions(ImmutableMap.of("queue-wait",
+                        new SequencerMetrics.Distribution(1L, 1L, 1L, 1L)))
+                .build();
+        HeartbeatTimestamp heartbeat = new HeartbeatTimestamp(0, 0);
+
+        ByteBuf buf = Unpooled.buffer();
+        new NodeState(co, heartbeat, metrics).doSerialize(buf);
+        ByteBuf statusBuf = Unpooled.buffer();
+        new NodeState(co, heartbeat, SequencerMetrics.READY).doSerialize(statusBuf);
+
+        // Nodes which only know the status can read the node state
+        assertEquals(statusBuf, buf);
+        assertSame(SequencerMetrics.READY, new NodeState(buf).getSequencerMetrics());
+    }
+
 
 }
\ No newline at end of file
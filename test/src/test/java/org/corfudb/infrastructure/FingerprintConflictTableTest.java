@@ -0,0 +1,141 @@
+package org.corfudb.infrastructure;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import org.corfudb.AbstractCorfuTest;
+import org.corfudb.runtime.view.Address;
+import org.corfudb.util.Utils;
+import org.junit.Test;
+
+public class FingerprintConflictTableTest extends AbstractCorfuTest {
+
+    private final UUID streamId = UUID.randomUUID();
+
+    private byte[] key(int x) {
+        return String.format("key%d", x).getBytes();
+    }
+
+    @Test
+    public void testPutGet() {
+        final int numKeys = 100;
+        FingerprintConflictTable table = new FingerprintConflictTable(numKeys);
+
+        for (int x = 0; x < numKeys; x++) {
+            table.put(streamId, key(x), x);
+        }
+        assertThat(table.size()).isEqualTo(numKeys);
+
+        for (int x = 0; x < numKeys; x++) {
+            assertThat(table.getConflictAddress(streamId, key(x))).isEqualTo(x);
+        }
+        assertThat(table.getConflictAddress(streamId, key(numKeys))).isEqualTo(Address.NON_ADDRESS);
+        assertThat(table.getConflictAddress(UUID.randomUUID(), key(0))).isEqualTo(Address.NON_ADDRESS);
+        assertThat(table.getMaxConflictWildcard()).isEqualTo(Address.NOT_FOUND);
+
+        // Updating a key doesn't add an entry
+        table.put(streamId, key(0), numKeys);
+        assertThat(table.size()).isEqualTo(numKeys);
+        assertThat(table.getConflictAddress(streamId, key(0))).isEqualTo(numKeys);
+    }
+
+    /**
+     * Keys are evicted in the order of their latest update, raising the wildcard
+     * to the position of each evicted key.
+     */
+    @Test
+    public void testEviction() {
+        final int maxSize = 10;
+        FingerprintConflictTable table = new FingerprintConflictTable(maxSize);
+
+        long address = 0;
+        for (int x = 0; x < maxSize; x++) {
+            table.put(streamId, key(x), address++);
+        }
+
+        // The FIFO holds the last maxSize updates: updating the first key drops its
+        // previous update, and adding a new key then evicts the second key
+        table.put(streamId, key(0), address++);
+        table.put(streamId, key(maxSize), address++);
+
+        assertThat(table.size()).isEqualTo(maxSize);
+        assertThat(table.getConflictAddress(streamId, key(0))).isEqualTo(maxSize);
+        assertThat(table.getConflictAddress(streamId, key(1))).isEqualTo(Address.NON_ADDRESS);
+        assertThat(table.getMaxConflictWildcard()).isEqualTo(1L);
+
+        // Evictions keep the table at its maximum size
+        final int numKeys = maxSize * 100;
+        for (int x = 0; x < numKeys; x++) {
+            table.put(streamId, key(x), address++);
+            assertThat(table.size()).isLessThanOrEqualTo(maxSize);
+        }
+        assertThat(table.size()).isEqualTo(maxSize);
+        assertThat(table.getMaxConflictWildcard()).isEqualTo(address - maxSize - 1);
+        for (int x = numKeys - maxSize; x < numKeys; x++) {
+            assertThat(table.getConflictAddress(streamId, key(x))).isGreaterThan(table.getMaxConflictWildcard());
+        }
+    }
+
+    @Test
+    public void testInvalidate() {
+        final int numKeys = 1000;
+        final long trimMark = 500;
+        FingerprintConflictTable table = new FingerprintConflictTable(numKeys);
+
+        for (int x = 0; x < numKeys; x++) {
+            table.put(streamId, key(x), x);
+        }
+
+        table.invalidateUpTo(trimMark);
+        assertThat(table.size()).isEqualTo(numKeys - trimMark);
+        assertThat(table.getMaxConflictWildcard()).isEqualTo(trimMark - 1);
+        for (int x = 0; x < numKeys; x++) {
+            long expected = x < trimMark ? Address.NON_ADDRESS : x;
+            assertThat(table.getConflictAddress(streamId, key(x))).isEqualTo(expected);
+        }
+
+        table.invalidateAll();
+        assertThat(table.size()).isZero();
+        assertThat(table.getMaxConflictWildcard()).isEqualTo(numKeys - 1);
+        assertThat(table.getConflictAddress(streamId, key(numKeys - 1))).isEqualTo(Address.NON_ADDRESS);
+
+        table.updateMaxConflictAddress(numKeys);
+        assertThat(table.getMaxConflictWildcard()).isEqualTo(numKeys);
+        assertThat(table.getMaxConflictNewSequencer()).isEqualTo(numKeys);
+    }
+
+    @Test
+    public void testFingerprints() {
+        final int numKeys = 100_000;
+        Set<Long> fingerprints = new HashSet<>();
+        for (int x = 0; x < numKeys; x++) {
+            fingerprints.add(FingerprintConflictTable.fingerprint(streamId, key(x)));
+        }
+        assertThat(fingerprints).hasSize(numKeys);
+
+        // Leading zeros and the stream are part of the fingerprint
+        assertThat(FingerprintConflictTable.fingerprint(streamId, new byte[]{1}))
+                .isNotEqualTo(FingerprintConflictTable.fingerprint(streamId, new byte[]{0, 1}));
+        assertThat(FingerprintConflictTable.fingerprint(streamId, key(0)))
+                .isNotEqualTo(FingerprintConflictTable.fingerprint(UUID.randomUUID(), key(0)));
+    }
+
+    @Test
+    public void testParamFingerprints() {
+        final long[] params = {0L, 1L, -1L, Long.MIN_VALUE, Long.MAX_VALUE, 0x0123456789ABCDEFL};
+        FingerprintConflictTable table = new FingerprintConflictTable(params.length);
+
+        // A parameter fingerprint is the same key as its 8 big-endian bytes
+        for (int x = 0; x < params.length; x++) {
+            byte[] bytes = Utils.longToBigEndianByteArray(params[x]);
+            assertThat(FingerprintConflictTable.fingerprint(streamId, params[x]))
+                    .isEqualTo(FingerprintConflictTable.fingerprint(streamId, bytes));
+
+            table.put(streamId, params[x], x);
+            assertThat(table.getConflictAddress(streamId, bytes)).isEqualTo(x);
+        }
+    }
+}
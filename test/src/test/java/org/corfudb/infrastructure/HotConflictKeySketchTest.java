@@ -0,0 +1,113 @@
+package org.corfudb.infrastructure;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.corfudb.AbstractCorfuTest;
+import org.corfudb.protocols.wireprotocol.HotConflictKeys.HotConflictKey;
+import org.junit.Test;
+
+public class HotConflictKeySketchTest extends AbstractCorfuTest {
+
+    private final UUID stream = UUID.randomUUID();
+
+    private byte[] key(int i) {
+        return ("key" + i).getBytes();
+    }
+
+    @Test
+    public void topKeysAreOrderedByCount() {
+        final int capacity = 8;
+        HotConflictKeySketch sketch = new HotConflictKeySketch(capacity);
+        for (int i = 0; i < capacity; i++) {
+            for (int j = 0; j <= i; j++) {
+                sketch.add(stream, key(i));
+            }
+        }
+
+        final int top = 3;
+        List<HotConflictKey> keys = sketch.getTop(top);
+        assertThat(keys).hasSize(top);
+        for (int i = 0; i < top; i++) {
+            assertThat(keys.get(i).getStreamId()).isEqualTo(stream);
+            assertThat(keys.get(i).getConflictKey()).isEqualTo(key(capacity - 1 - i));
+            assertThat(keys.get(i).getAbortCount()).isEqualTo(capacity - i);
+            assertThat(keys.get(i).getError()).isZero();
+        }
+        assertThat(sketch.getTop(capacity * 2)).hasSize(capacity);
+    }
+
+    @Test
+    public void heavyHittersSurviveManyColdKeys() {
+        final int capacity = 16;
+        final int hotAborts = 100;
+        final int coldKeys = 1000;
+        HotConflictKeySketch sketch = new HotConflictKeySketch(capacity);
+        byte[] hotKey = "hot".getBytes();
+
+        // Interleave the aborts of the hot key with the ones of many cold keys
+        for (int i = 0; i < coldKeys; i++) {
+            sketch.add(stream, key(i));
+            if (i % (coldKeys / hotAborts) == 0) {
+                sketch.add(stream, hotKey);
+            }
+        }
+
+        HotConflictKey top = sketch.getTop(1).get(0);
+        assertThat(top.getConflictKey()).isEqualTo(hotKey);
+        // The count overestimates the aborts by at most the error
+        assertThat(top.getAbortCount()).isGreaterThanOrEqualTo(hotAborts);
+        assertThat(top.getAbortCount() - top.getError()).isLessThanOrEqualTo(hotAborts);
+    }
+
+    @Test
+    public void hotKeysAddedBeforeColdKeysAreKept() {
+        final int capacity = 2;
+        final int hotAborts = 3;
+        HotConflictKeySketch sketch = new HotConflictKeySketch(capacity);
+        byte[] hotKey = "hot".getBytes();
+
+        for (int i = 0; i < hotAborts; i++) {
+            sketch.add(stream, hotKey);
+        }
+        // The second cold key replaces the first one, not the hot key
+        sketch.add(stream, key(0));
+        sketch.add(stream, key(1));
+
+        List<HotConflictKey> keys = sketch.getTop(capacity);
+        assertThat(keys.get(0).getConflictKey()).isEqualTo(hotKey);
+        assertThat(keys.get(0).getAbortCount()).isEqualTo(hotAborts);
+        assertThat(keys.get(1).getConflictKey()).isEqualTo(key(1));
+        assertThat(keys.get(1).getAbortCount()).isEqualTo(2);
+        assertThat(keys.get(1).getError()).isEqualTo(1);
+    }
+
+    @Test
+    public void smallestCountIsEvictedWhateverTheInsertionOrder() {
+        final int capacity = 32;
+        HotConflictKeySketch sketch = new HotConflictKeySketch(capacity);
+
+        // Fill the sketch with keys of decreasing counts
+        for (int i = 0; i < capacity; i++) {
+            for (int j = 0; j < capacity - i; j++) {
+                sketch.add(stream, key(i));
+            }
+        }
+        // Each new key evicts the key with the smallest count
+        sketch.add(stream, key(capacity));
+
+        List<HotConflictKey> keys = sketch.getTop(capacity);
+        assertThat(keys).hasSize(capacity);
+        for (int i = 0; i < capacity - 2; i++) {
+            assertThat(keys.get(i).getConflictKey()).isEqualTo(key(i));
+            assertThat(keys.get(i).getAbortCount()).isEqualTo(capacity - i);
+        }
+        // The new key and the last remaining key both have two aborts
+        assertThat(keys.subList(capacity - 2, capacity).stream()
+                .map(key -> new String(key.getConflictKey())))
+                .containsExactlyInAnyOrder(new String(key(capacity - 2)), new String(key(capacity)));
+        assertThat(keys.get(capacity - 1).getAbortCount()).isEqualTo(2);
+    }
+}
@@ -4,6 +4,7 @@ import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import org.apache.commons.io.FileUtils;
 import org.assertj.core.api.Assertions;
+import org.corfudb.infrastructure.log.RecordCodec;
 import org.corfudb.infrastructure.log.StreamLogFiles;
 import org.corfudb.protocols.wireprotocol.*;
 import org.corfudb.runtime.CorfuRuntime;
@@ -374,6 +375,29 @@ public class LogUnitServerTest extends AbstractServerTest {
         LogUnitServer logunit = new LogUnitServer(context);
     }
 
+    /**
+     * Verifies that compressed segments must carry the codec log version, which log units
+     * that predate record codecs reject.
+     */
+    @Test (expected = RuntimeException.class)
+    public void testCompressedLogWithPlainVersion() throws Exception {
+        String tempDir = PARAMETERS.TEST_TEMP_DIR;
+        File logDir = new File(tempDir + File.separator + "log");
+        logDir.mkdir();
+        File logFile = new File(logDir, "0.log");
+        logFile.createNewFile();
+        try (RandomAccessFile file = new RandomAccessFile(logFile, "rw")) {
+            StreamLogFiles.writeHeader(file.getChannel(), StreamLogFiles.VERSION, true,
+                    RecordCodec.DEFLATE);
+        }
+
+        ServerContextBuilder builder = new ServerContextBuilder();
+        builder.setMemory(false);
+        builder.setLogPath(tempDir);
+        ServerContext context = builder.build();
+        LogUnitServer logunit = new LogUnitServer(context);
+    }
+
     @Test (expected = RuntimeException.class)
     public void testVerifyWithNoVerifyLog() throws Exception {
         boolean noVerify = true;
@@ -484,5 +508,16 @@ public class LogUnitServerTest extends AbstractServerTest {
 
         assertThat(s1).hasCorrectCacheSize(randomCacheRatio);
     }
+
+    /**
+     * Verifies that a log unit can't be configured without write lanes.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void zeroWriteLanesAreRejected() {
+        Map<String, Object> opts = new HashMap<>();
+        opts.put("--cache-heap-ratio", "0.5");
+        opts.put("--write-lanes", "0");
+        LogUnitServer.LogUnitServerConfig.parse(opts);
+    }
 }
 
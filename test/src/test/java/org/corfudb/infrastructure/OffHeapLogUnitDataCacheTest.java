@@ -0,0 +1,216 @@
+package org.corfudb.infrastructure;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.corfudb.AbstractCorfuTest;
+import org.corfudb.protocols.wireprotocol.CorfuMsgType;
+import org.corfudb.protocols.wireprotocol.DataType;
+import org.corfudb.protocols.wireprotocol.ILogData;
+import org.corfudb.protocols.wireprotocol.LogData;
+import org.corfudb.protocols.wireprotocol.NettyCorfuMessageEncoder;
+import org.corfudb.protocols.wireprotocol.ReadResponse;
+import org.corfudb.util.serializer.Serializers;
+import org.junit.Test;
+
+public class OffHeapLogUnitDataCacheTest extends AbstractCorfuTest {
+
+    private LogData getEntry(long address) {
+        ByteBuf b = Unpooled.buffer();
+        Serializers.CORFU.serialize(String.format("Payload%08d", address).getBytes(), b);
+        LogData ld = new LogData(DataType.DATA, b);
+        ld.setGlobalAddress(address);
+        return ld;
+    }
+
+    @Test
+    public void testPutGet() {
+        final long holeAddress = 1;
+        final long missAddress = 2;
+        final long unwrittenAddress = 3;
+        Map<Long, LogData> log = new HashMap<>();
+        log.put(missAddress, getEntry(missAddress));
+        AtomicInteger loads = new AtomicInteger();
+
+        OffHeapLogUnitDataCache cache = new OffHeapLogUnitDataCache(Long.MAX_VALUE, address -> {
+            loads.incrementAndGet();
+            return log.get(address);
+        });
+
+        LogData entry = getEntry(0);
+        cache.put(0, entry);
+        cache.put(holeAddress, LogData.getHole(holeAddress));
+        assertThat(cache.get(0)).isEqualTo(entry);
+        assertThat(((LogData) cache.get(0)).getData()).isEqualTo(entry.getData());
+        assertThat(cache.get(holeAddress).isHole()).isTrue();
+        assertThat(cache.get(holeAddress).getGlobalAddress()).isEqualTo(holeAddress);
+        assertThat(loads.get()).isZero();
+
+        // A miss is admitted when it misses again, an unwritten address isn't cached
+        assertThat(cache.get(missAddress)).isEqualTo(log.get(missAddress));
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get(missAddress)).isEqualTo(log.get(missAddress));
+        assertThat(cache.get(missAddress)).isEqualTo(log.get(missAddress));
+        assertThat(cache.get(unwrittenAddress)).isNull();
+        assertThat(loads.get()).isEqualTo(3);
+        assertThat(cache.size()).isEqualTo(3);
+
+        cache.invalidateAll();
+        assertThat(cache.size()).isZero();
+        assertThat(cache.getBytes()).isZero();
+        assertThat(cache.get(0)).isNull();
+    }
+
+    @Test
+    public void testEviction() {
+        final int numEntries = PARAMETERS.NUM_ITERATIONS_MODERATE;
+        final int cachedEntries = numEntries / 10;
+        final long hotAddress = 0;
+        Map<Long, LogData> log = new HashMap<>();
+        for (long x = 0; x < numEntries; x++) {
+            log.put(x, getEntry(x));
+        }
+
+        // Size the cache to a fraction of the entries
+        OffHeapLogUnitDataCache sizing = new OffHeapLogUnitDataCache(Long.MAX_VALUE, log::get);
+        sizing.put(numEntries, getEntry(numEntries));
+        final long maxBytes = sizing.getBytes() * cachedEntries;
+
+        OffHeapLogUnitDataCache cache = new OffHeapLogUnitDataCache(maxBytes, log::get);
+        for (long x = 0; x < numEntries; x++) {
+            cache.put(x, log.get(x));
+            // Keep reading the first entry, so that the clock hand gives it second chances
+            assertThat(cache.get(hotAddress)).isEqualTo(log.get(hotAddress));
+            assertThat(cache.getBytes()).isLessThanOrEqualTo(maxBytes);
+        }
+
+        assertThat(cache.size()).isGreaterThan(0).isLessThanOrEqualTo(cachedEntries);
+        for (long x = 0; x < numEntries; x++) {
+            assertThat(cache.get(x)).isEqualTo(log.get(x));
+        }
+    }
+
+    @Test
+    public void testScanResistance() {
+        final int numEntries = PARAMETERS.NUM_ITERATIONS_MODERATE;
+        final int cachedEntries = numEntries / 10;
+        Map<Long, LogData> log = new HashMap<>();
+        for (long x = 0; x < numEntries; x++) {
+            log.put(x, getEntry(x));
+        }
+
+        OffHeapLogUnitDataCache sizing = new OffHeapLogUnitDataCache(Long.MAX_VALUE, log::get);
+        sizing.put(numEntries, getEntry(numEntries));
+        final long maxBytes = sizing.getBytes() * cachedEntries;
+
+        // Fill the cache with written entries, then scan the log once
+        OffHeapLogUnitDataCache cache = new OffHeapLogUnitDataCache(maxBytes, log::get);
+        for (long x = 0; x < cachedEntries; x++) {
+            cache.put(x, log.get(x));
+        }
+        final long bytes = cache.getBytes();
+        for (long x = cachedEntries; x < numEntries; x++) {
+            assertThat(cache.get(x)).isEqualTo(log.get(x));
+        }
+
+        // None of the scanned entries was admitted
+        assertThat(cache.size()).isEqualTo(cachedEntries);
+        assertThat(cache.getBytes()).isEqualTo(bytes);
+
+        // Reads that aren't cacheable are never admitted
+        final long address = numEntries - 1;
+        assertThat(cache.get(address, false)).isEqualTo(log.get(address));
+        assertThat(cache.get(address, false)).isEqualTo(log.get(address));
+        ByteBuf buf = cache.getSerialized(address, false);
+        buf.release();
+        assertThat(cache.size()).isEqualTo(cachedEntries);
+    }
+
+    @Test
+    public void testOverwrite() {
+        OffHeapLogUnitDataCache cache = new OffHeapLogUnitDataCache(Long.MAX_VALUE, address -> null);
+        final long address = 5;
+        cache.put(address, getEntry(address));
+        final long bytes = cache.getBytes();
+
+        ILogData hole = LogData.getHole(address);
+        cache.put(address, hole);
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.getBytes()).isLessThan(bytes);
+        assertThat(cache.get(address).isHole()).isTrue();
+    }
+
+    @Test
+    public void testHeapCacheSerializesOnRead() {
+        final long address = 0;
+        final long unwrittenAddress = 1;
+        HeapLogUnitDataCache cache = new HeapLogUnitDataCache(Long.MAX_VALUE, x -> null);
+        LogData entry = getEntry(address);
+        cache.put(address, entry);
+
+        ByteBuf buf = cache.getSerialized(address, true);
+        LogData read = new LogData(buf);
+        buf.release();
+        assertThat(read).isEqualTo(entry);
+        assertThat(read.getData()).isEqualTo(entry.getData());
+        assertThat(cache.getSerialized(unwrittenAddress, true)).isNull();
+    }
+
+    @Test
+    public void testSerializedReadResponse() {
+        final long cachedAddress = 0;
+        final long missAddress = 1;
+        final long unwrittenAddress = 2;
+        final long emptyAddress = 3;
+        Map<Long, LogData> log = new HashMap<>();
+        log.put(missAddress, getEntry(missAddress));
+
+        OffHeapLogUnitDataCache cache = new OffHeapLogUnitDataCache(Long.MAX_VALUE, log::get);
+        cache.put(cachedAddress, getEntry(cachedAddress));
+
+        // Miss once, so that the serialized read admits the entry
+        cache.get(missAddress);
+        ByteBuf cached = cache.getSerialized(cachedAddress, true);
+        ByteBuf loaded = cache.getSerialized(missAddress, true);
+        assertThat(cache.getSerialized(unwrittenAddress, true)).isNull();
+
+        // A response mixing materialized and serialized entries
+        ReadResponse rr = new ReadResponse();
+        rr.putSerialized(cachedAddress, cached);
+        rr.putSerialized(missAddress, loaded);
+        rr.put(emptyAddress, LogData.getEmpty(emptyAddress));
+
+        ByteBuf buf = Unpooled.buffer();
+        rr.doSerialize(buf);
+        ByteBuf again = Unpooled.buffer();
+        rr.doSerialize(again);
+        assertThat(again).isEqualTo(buf);
+
+        // The entries are released once the response is written
+        EmbeddedChannel channel = new EmbeddedChannel(new NettyCorfuMessageEncoder());
+        channel.writeOutbound(CorfuMsgType.READ_RESPONSE.payloadMsg(rr));
+        assertThat(rr.refCnt()).isZero();
+        assertThat(cached.refCnt()).isEqualTo(1);
+        assertThat(loaded.refCnt()).isEqualTo(1);
+        channel.finishAndReleaseAll();
+
+        ReadResponse received = new ReadResponse(buf);
+        assertThat(received.getAddresses()).containsOnlyKeys(cachedAddress, missAddress, emptyAddress);
+        assertThat(received.getAddresses().get(cachedAddress).getData())
+                .isEqualTo(getEntry(cachedAddress).getData());
+        assertThat(received.getAddresses().get(missAddress).getData())
+                .isEqualTo(log.get(missAddress).getData());
+        assertThat(received.getAddresses().get(emptyAddress).isEmpty()).isTrue();
+
+        // Evicting the cached entries releases their memory
+        cache.invalidateAll();
+        assertThat(cached.refCnt()).isZero();
+    }
+}
@@ -3,19 +3,36 @@ package org.corfudb.infrastructure;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.util.Collections;
+import java.util.Set;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import org.corfudb.protocols.wireprotocol.CorfuMsgType;
 import org.corfudb.protocols.wireprotocol.CorfuPayloadMsg;
+import org.corfudb.protocols.wireprotocol.HotConflictKeys;
+import org.corfudb.protocols.wireprotocol.HotConflictKeys.HotConflictKey;
+import org.corfudb.protocols.wireprotocol.SequencerAddressSpaceChunkMsg;
+import org.corfudb.protocols.wireprotocol.SequencerMetrics;
+import org.corfudb.protocols.wireprotocol.SequencerMetrics.SequencerStatus;
 import org.corfudb.protocols.wireprotocol.SequencerRecoveryMsg;
+import org.corfudb.protocols.wireprotocol.SequencerStandbyMsg;
+import org.corfudb.protocols.wireprotocol.SequencerStandbyMsg.ConflictUpdate;
+import org.corfudb.protocols.wireprotocol.SequencerTailsRecoveryMsg;
+import org.corfudb.protocols.wireprotocol.StreamsAddressRequest;
+import org.corfudb.protocols.wireprotocol.StreamsAddressResponse;
 import org.corfudb.runtime.view.stream.StreamAddressSpace;
 import org.corfudb.protocols.wireprotocol.Token;
 import org.corfudb.protocols.wireprotocol.TokenRequest;
 import org.corfudb.protocols.wireprotocol.TokenResponse;
 import org.corfudb.protocols.wireprotocol.TokenType;
+import org.corfudb.protocols.wireprotocol.TxResolutionInfo;
 import org.corfudb.runtime.view.Address;
+import org.corfudb.runtime.view.Layout;
+import org.corfudb.util.Utils;
 import org.junit.Before;
 import org.junit.Test;
 import org.roaringbitmap.longlong.Roaring64NavigableMap;
@@ -55,6 +72,43 @@ public class SequencerServerTest extends AbstractServerTest {
                 .isEqualTo(CorfuMsgType.SEQUENCER_METRICS_RESPONSE);
     }
 
+    private SequencerMetrics requestMetrics() {
+        sendMessage(CorfuMsgType.SEQUENCER_METRICS_REQUEST.msg());
+        SequencerMetrics metrics = getLastPayloadMessageAs(SequencerMetrics.class);
+        // The metrics go through the wire format
+        ByteBuf buf = Unpooled.buffer();
+        metrics.doSerialize(buf);
+        return new SequencerMetrics(buf);
+    }
+
+    /**
+     * Verifies that the metrics response counts the tokens by response type and the
+     * conflict-table lookups. The counters are shared by the servers of the process, so
+     * only their increments are checked.
+     */
+    @Test
+    public void sequencerMetricsCountOutcomes() throws Exception {
+        final UUID streamA = UUID.nameUUIDFromBytes("streamA".getBytes());
+        final byte[] key = "key".getBytes();
+        SequencerMetrics before = requestMetrics();
+
+        long keyAddress = sendTxRequest(streamA, key, Address.NON_ADDRESS).getSequence();
+        assertThat(sendTxRequest(streamA, key, keyAddress - 1).getRespType())
+                .isEqualTo(TokenType.TX_ABORT_CONFLICT);
+
+        SequencerMetrics after = requestMetrics();
+        assertThat(after.getSequencerStatus()).isEqualTo(SequencerStatus.READY);
+        assertThat(after.getTokenCounts().get(TokenType.NORMAL) - before.getTokenCounts().get(TokenType.NORMAL))
+                .isEqualTo(1L);
+        assertThat(after.getTokenCounts().get(TokenType.TX_ABORT_CONFLICT)
+                - before.getTokenCounts().get(TokenType.TX_ABORT_CONFLICT))
+                .isEqualTo(1L);
+        assertThat(after.getConflictLookups() - before.getConflictLookups()).isEqualTo(2L);
+        assertThat(after.getConflictHits() - before.getConflictHits()).isEqualTo(1L);
+        assertThat(after.getConflictTableSize()).isEqualTo(1L);
+        assertThat(after.getDistributions()).containsKeys("queue-wait", "tx-token", "tx-conflict-set-size");
+    }
+
     @Test
     public void responseForEachRequest() {
         for (int i = 0; i < PARAMETERS.NUM_ITERATIONS_LOW; i++) {
@@ -287,4 +341,302 @@ public class SequencerServerTest extends AbstractServerTest {
                         Collections.emptyMap(), Collections.emptyList()));
     }
 
+    /**
+     * Verifies that a sequencer bootstrapped with the stream tails issues tokens right away,
+     * and answers streams address requests once all the address maps chunks are loaded.
+     */
+    @Test
+    public void chunkedBootstrapLoadsAddressMaps() {
+        final UUID streamA = UUID.nameUUIDFromBytes("streamA".getBytes());
+        final long streamTail = 5L;
+        final long globalTail = 10L;
+
+        long newEpoch = serverContext.getServerEpoch() + 1;
+        serverContext.setServerEpoch(newEpoch, serverContext.getServerRouter());
+        sendMessage(CorfuMsgType.BOOTSTRAP_SEQUENCER_TAILS.payloadMsg(new SequencerTailsRecoveryMsg(
+                globalTail, Collections.singletonMap(streamA, streamTail), newEpoch)));
+        assertThat(getLastMessage().getMsgType()).isEqualTo(CorfuMsgType.ACK);
+
+        // Tokens are issued while the address maps are loading
+        sendMessage(CorfuMsgType.TOKEN_REQ.payloadMsg(new TokenRequest(1L, Collections.singletonList(streamA))));
+        TokenResponse token = getLastPayloadMessageAs(TokenResponse.class);
+        assertThat(token.getSequence()).isEqualTo(globalTail);
+        assertThat(token.getBackpointerMap()).containsEntry(streamA, streamTail);
+
+        // A delta bootstrap can't complete the loading
+        sendMessage(CorfuMsgType.BOOTSTRAP_SEQUENCER.payloadMsg(new SequencerRecoveryMsg(
+                Address.NON_EXIST, Collections.emptyMap(), newEpoch + 1, true)));
+        assertThat(getLastMessage().getMsgType()).isEqualTo(CorfuMsgType.NACK);
+
+        // Streams address requests wait for the address maps
+        final int responses = getResponseMessages().size();
+        sendMessage(CorfuMsgType.STREAMS_ADDRESS_REQUEST.payloadMsg(
+                new StreamsAddressRequest(StreamsAddressRequest.ALL_STREAMS)));
+        assertThat(getResponseMessages()).hasSize(responses);
+
+        sendMessage(CorfuMsgType.SEQUENCER_ADDRESS_SPACE_CHUNK.payloadMsg(new SequencerAddressSpaceChunkMsg(
+                newEpoch, Collections.singletonMap(streamA, new StreamAddressSpace(Address.NON_ADDRESS,
+                Roaring64NavigableMap.bitmapOf(1L, 3L))), false)));
+        assertThat(getLastMessage().getMsgType()).isEqualTo(CorfuMsgType.ACK);
+        assertThat(getResponseMessages()).hasSize(responses + 1);
+
+        sendMessage(CorfuMsgType.SEQUENCER_ADDRESS_SPACE_CHUNK.payloadMsg(new SequencerAddressSpaceChunkMsg(
+                newEpoch, Collections.singletonMap(streamA, new StreamAddressSpace(Address.NON_ADDRESS,
+                Roaring64NavigableMap.bitmapOf(streamTail))), true)));
+        assertThat(getResponseMessages()).hasSize(responses + 3);
+        assertThat(getResponseMessages().get(responses + 1).getMsgType()).isEqualTo(CorfuMsgType.ACK);
+
+        StreamsAddressResponse addresses = getLastPayloadMessageAs(StreamsAddressResponse.class);
+        assertThat(addresses.getAddressMap().get(streamA).getAddressMap())
+                .isEqualTo(Roaring64NavigableMap.bitmapOf(1L, 3L, streamTail, globalTail));
+
+        // Chunks are rejected once the address maps are loaded
+        sendMessage(CorfuMsgType.SEQUENCER_ADDRESS_SPACE_CHUNK.payloadMsg(new SequencerAddressSpaceChunkMsg(
+                newEpoch, Collections.emptyMap(), true)));
+        assertThat(getLastMessage().getMsgType()).isEqualTo(CorfuMsgType.NACK);
+    }
+
+    /**
+     * Verifies that a sequencer whose address maps stop arriving answers the streams
+     * address requests it held back with NOT_READY, and can be bootstrapped again.
+     */
+    @Test
+    public void stalledChunkedBootstrapIsNotReady() throws Exception {
+        serverContext = new ServerContextBuilder()
+                .setSingle(true)
+                .setSeqAddressLoadTimeout("100")
+                .setServerRouter(router)
+                .build();
+        server = new SequencerServer(serverContext);
+        setServer(server);
+
+        final UUID streamA = UUID.nameUUIDFromBytes("streamA".getBytes());
+        final long streamTail = 5L;
+        final long globalTail = 10L;
+
+        long newEpoch = serverContext.getServerEpoch() + 1;
+        serverContext.setServerEpoch(newEpoch, serverContext.getServerRouter());
+        sendMessage(CorfuMsgType.BOOTSTRAP_SEQUENCER_TAILS.payloadMsg(new SequencerTailsRecoveryMsg(
+                globalTail, Collections.singletonMap(streamA, streamTail), newEpoch)));
+        assertThat(getLastMessage().getMsgType()).isEqualTo(CorfuMsgType.ACK);
+
+        final int responses = getResponseMessages().size();
+        sendMessage(CorfuMsgType.STREAMS_ADDRESS_REQUEST.payloadMsg(
+                new StreamsAddressRequest(StreamsAddressRequest.ALL_STREAMS)));
+        for (int i = 0; i < PARAMETERS.NUM_ITERATIONS_LOW && getResponseMessages().size() == responses; i++) {
+            Thread.sleep(PARAMETERS.TIMEOUT_VERY_SHORT.toMillis());
+        }
+        assertThat(getResponseMessages()).hasSize(responses + 1);
+        assertThat(getLastMessage().getMsgType()).isEqualTo(CorfuMsgType.NOT_READY);
+        assertThat(server.getSequencerEpoch()).isEqualTo(Layout.INVALID_EPOCH);
+
+        // A late chunk is rejected, a new bootstrap of the same epoch is accepted
+        sendMessage(CorfuMsgType.SEQUENCER_ADDRESS_SPACE_CHUNK.payloadMsg(new SequencerAddressSpaceChunkMsg(
+                newEpoch, Collections.emptyMap(), true)));
+        assertThat(getLastMessage().getMsgType()).isEqualTo(CorfuMsgType.NACK);
+        sendMessage(CorfuMsgType.BOOTSTRAP_SEQUENCER.payloadMsg(new SequencerRecoveryMsg(
+                globalTail, Collections.singletonMap(streamA, new StreamAddressSpace(Address.NON_ADDRESS,
+                Roaring64NavigableMap.bitmapOf(streamTail))), newEpoch, false)));
+        assertThat(getLastMessage().getMsgType()).isEqualTo(CorfuMsgType.ACK);
+        assertThat(server.getSequencerEpoch()).isEqualTo(newEpoch);
+    }
+
+    /**
+     * Verifies that a standby sequencer promoted with a warm conflict table only aborts
+     * the transactions it can't resolve.
+     */
+    @Test
+    public void promotedStandbyKeepsConflictState() throws Exception {
+        serverContext = new ServerContextBuilder()
+                .setSingle(true)
+                .setSeqStandby(true)
+                .setServerRouter(router)
+                .build();
+        server = new SequencerServer(serverContext);
+        setServer(server);
+
+        final UUID streamA = UUID.nameUUIDFromBytes("streamA".getBytes());
+        final UUID streamB = UUID.nameUUIDFromBytes("streamB".getBytes());
+        final byte[] key = "key".getBytes();
+        final byte[] otherKey = "otherKey".getBytes();
+        final long keyAddress = 4L;
+        final long warmTail = 12L;
+        final long streamBTail = 13L;
+        final long globalTail = 15L;
+
+        long epoch = serverContext.getServerEpoch() + 1;
+        serverContext.setServerEpoch(epoch, serverContext.getServerRouter());
+
+        // Updates of another epoch are rejected
+        sendMessage(CorfuMsgType.SEQUENCER_STANDBY_UPDATE.payloadMsg(new SequencerStandbyMsg(
+                epoch + 1, 0L, warmTail, Collections.emptyList())));
+        assertThat(getLastMessage().getMsgType()).isEqualTo(CorfuMsgType.NACK);
+
+        sendMessage(CorfuMsgType.SEQUENCER_STANDBY_UPDATE.payloadMsg(new SequencerStandbyMsg(
+                epoch, 0L, keyAddress + 1, Collections.singletonList(new ConflictUpdate(streamA, key, keyAddress)))));
+        assertThat(getLastMessage().getMsgType()).isEqualTo(CorfuMsgType.ACK);
+        sendMessage(CorfuMsgType.SEQUENCER_STANDBY_UPDATE.payloadMsg(new SequencerStandbyMsg(
+                epoch, keyAddress + 1, warmTail, Collections.emptyList())));
+        assertThat(getLastMessage().getMsgType()).isEqualTo(CorfuMsgType.ACK);
+
+        // Promote the standby, streamB was written after the last update
+        Map<UUID, StreamAddressSpace> addressSpaces = new HashMap<>();
+        addressSpaces.put(streamA, new StreamAddressSpace(Address.NON_ADDRESS,
+                Roaring64NavigableMap.bitmapOf(keyAddress)));
+        addressSpaces.put(streamB, new StreamAddressSpace(Address.NON_ADDRESS,
+                Roaring64NavigableMap.bitmapOf(streamBTail)));
+        sendMessage(CorfuMsgType.BOOTSTRAP_SEQUENCER.payloadMsg(new SequencerRecoveryMsg(
+                globalTail, addressSpaces, epoch, false)));
+        assertThat(getLastMessage().getMsgType()).isEqualTo(CorfuMsgType.ACK);
+
+        // The replicated key conflicts, other keys of the stream can commit
+        assertThat(sendTxRequest(streamA, key, keyAddress - 1).getRespType())
+                .isEqualTo(TokenType.TX_ABORT_CONFLICT);
+        assertThat(sendTxRequest(streamA, otherKey, keyAddress - 1).getRespType())
+                .isEqualTo(TokenType.NORMAL);
+
+        // The keys of streamB are unknown up to its tail
+        assertThat(sendTxRequest(streamB, key, streamBTail - 1).getRespType())
+                .isEqualTo(TokenType.TX_ABORT_NEWSEQ);
+        assertThat(sendTxRequest(streamB, key, streamBTail).getRespType())
+                .isEqualTo(TokenType.NORMAL);
+    }
+
+    /**
+     * Verifies that a conflict-param sent as a fingerprint conflicts with the same
+     * conflict-param sent as its big-endian bytes.
+     */
+    @Test
+    public void fingerprintsConflictWithConflictParams() throws Exception {
+        final UUID streamA = UUID.nameUUIDFromBytes("streamA".getBytes());
+        final long key = 7L;
+        final long otherKey = 9L;
+
+        long keyAddress = sendTxRequest(streamA, Utils.longToBigEndianByteArray(key), Address.NON_ADDRESS)
+                .getSequence();
+
+        Map<UUID, long[]> conflictMap = Collections.singletonMap(streamA, new long[]{key});
+        sendMessage(CorfuMsgType.TOKEN_REQ.payloadMsg(new TokenRequest(1L,
+                Collections.singletonList(streamA),
+                TxResolutionInfo.withFingerprints(UUID.randomUUID(), new Token(0L, keyAddress - 1),
+                        conflictMap, conflictMap))));
+        TokenResponse response = getLastPayloadMessageAs(TokenResponse.class);
+        assertThat(response.getRespType()).isEqualTo(TokenType.TX_ABORT_CONFLICT);
+        assertThat(response.getConflictKey()).isEqualTo(Utils.longToBigEndianByteArray(key));
+
+        Map<UUID, long[]> otherMap = Collections.singletonMap(streamA, new long[]{otherKey});
+        sendMessage(CorfuMsgType.TOKEN_REQ.payloadMsg(new TokenRequest(1L,
+                Collections.singletonList(streamA),
+                TxResolutionInfo.withFingerprints(UUID.randomUUID(), new Token(0L, keyAddress),
+                        otherMap, otherMap))));
+        response = getLastPayloadMessageAs(TokenResponse.class);
+        assertThat(response.getRespType()).isEqualTo(TokenType.NORMAL);
+
+        assertThat(sendTxRequest(streamA, Utils.longToBigEndianByteArray(otherKey), keyAddress).getRespType())
+                .isEqualTo(TokenType.TX_ABORT_CONFLICT);
+    }
+
+    /**
+     * Verifies that the conflict keys that abort transactions are reported by the
+     * SEQUENCER_HOT_KEYS_REQUEST.
+     */
+    @Test
+    public void hotConflictKeysAreReported() throws Exception {
+        final UUID streamA = UUID.nameUUIDFromBytes("streamA".getBytes());
+        final byte[] hotKey = "hot".getBytes();
+        final byte[] coldKey = "cold".getBytes();
+        final int aborts = 3;
+
+        long hotAddress = sendTxRequest(streamA, hotKey, Address.NON_ADDRESS).getSequence();
+        long coldAddress = sendTxRequest(streamA, coldKey, hotAddress).getSequence();
+        for (int i = 0; i < aborts; i++) {
+            assertThat(sendTxRequest(streamA, hotKey, hotAddress - 1).getRespType())
+                    .isEqualTo(TokenType.TX_ABORT_CONFLICT);
+        }
+        assertThat(sendTxRequest(streamA, coldKey, coldAddress - 1).getRespType())
+                .isEqualTo(TokenType.TX_ABORT_CONFLICT);
+
+        sendMessage(CorfuMsgType.SEQUENCER_HOT_KEYS_REQUEST.payloadMsg(1));
+        List<HotConflictKey> keys = getLastPayloadMessageAs(HotConflictKeys.class).getKeys();
+        assertThat(keys).hasSize(1);
+        assertThat(keys.get(0).getStreamId()).isEqualTo(streamA);
+        assertThat(keys.get(0).getConflictKey()).isEqualTo(hotKey);
+        assertThat(keys.get(0).getAbortCount()).isEqualTo(aborts);
+    }
+
+    private TokenResponse sendTxRequest(UUID streamId, byte[] conflictParam, long snapshot)
+            throws Exception {
+        final Map<UUID, Set<byte[]>> conflictMap =
+                Collections.singletonMap(streamId, Collections.singleton(conflictParam));
+        final int responses = getResponseMessages().size();
+        sendMessage(CorfuMsgType.TOKEN_REQ.payloadMsg(new TokenRequest(1L,
+                Collections.singletonList(streamId),
+                new TxResolutionInfo(UUID.randomUUID(), new Token(0L, snapshot), conflictMap, conflictMap))));
+
+        // Transactions are answered asynchronously by the resolvers
+        while (getResponseMessages().size() == responses) {
+            Thread.sleep(1);
+        }
+        return getLastPayloadMessageAs(TokenResponse.class);
+    }
+
+    /**
+     * Verifies that transactions resolved by resolver threads commit and abort
+     * as they would on the sequencer thread.
+     */
+    @Test
+    public void parallelResolutionDetectsConflicts() throws Exception {
+        serverContext = new ServerContextBuilder()
+                .setSingle(true)
+                .setSeqResolverThreads("2")
+                .setServerRouter(router)
+                .build();
+        server = new SequencerServer(serverContext);
+        setServer(server);
+        server.setSequencerEpoch(0L);
+
+        final UUID streamA = UUID.nameUUIDFromBytes("streamA".getBytes());
+        final UUID streamB = UUID.nameUUIDFromBytes("streamB".getBytes());
+        final byte[] key = "key".getBytes();
+        final byte[] otherKey = "otherKey".getBytes();
+        SequencerMetrics before = requestMetrics();
+
+        TokenResponse response = sendTxRequest(streamA, key, Address.NON_ADDRESS);
+        assertThat(response.getRespType()).isEqualTo(TokenType.NORMAL);
+        final long commitAddress = response.getSequence();
+
+        // A write to the same key after the snapshot conflicts
+        response = sendTxRequest(streamA, key, commitAddress - 1);
+        assertThat(response.getRespType()).isEqualTo(TokenType.TX_ABORT_CONFLICT);
+        assertThat(response.getConflictKey()).isEqualTo(key);
+
+        // Other keys and later snapshots don't
+        response = sendTxRequest(streamA, otherKey, commitAddress - 1);
+        assertThat(response.getRespType()).isEqualTo(TokenType.NORMAL);
+        response = sendTxRequest(streamB, key, Address.NON_ADDRESS);
+        assertThat(response.getRespType()).isEqualTo(TokenType.NORMAL);
+        response = sendTxRequest(streamA, key, response.getSequence());
+        assertThat(response.getRespType()).isEqualTo(TokenType.NORMAL);
+        assertThat(server.getGlobalLogTail()).isEqualTo(response.getSequence() + 1);
+
+        // Each lookup is counted once, although committed transactions are checked twice
+        final long lookups = 5L;
+        final long hits = 2L;
+        SequencerMetrics after = requestMetrics();
+        assertThat(after.getConflictLookups() - before.getConflictLookups()).isEqualTo(lookups);
+        assertThat(after.getConflictHits() - before.getConflictHits()).isEqualTo(hits);
+    }
+
+    /**
+     * Verifies that a conflict table which can't be looked up concurrently is rejected
+     * with resolver threads.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void resolverThreadsRejectCacheConflictTable() {
+        Map<String, Object> opts = new HashMap<>();
+        opts.put("--initial-token", "-1");
+        opts.put("--sequencer-resolver-threads", "2");
+        opts.put("--sequencer-conflict-table", "cache");
+        SequencerServer.Config.parse(opts);
+    }
 }
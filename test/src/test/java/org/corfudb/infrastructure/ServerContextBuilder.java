@@ -38,6 +38,9 @@ public class ServerContextBuilder {
     String address = "test";
     int port = 9000;
     String seqCache = "1000";
+    String seqResolverThreads = "0";
+    boolean seqStandby = false;
+    String seqAddressLoadTimeout = "60000";
     String batchSize = "100";
     String managementBootstrapEndpoint = null;
     IServerRouter serverRouter;
@@ -62,6 +65,9 @@ public class ServerContextBuilder {
                 .put("--Threads", numThreads)
                 .put("--HandshakeTimeout", handshakeTimeout)
                 .put("--sequencer-cache-size", seqCache)
+                .put("--sequencer-resolver-threads", seqResolverThreads)
+                .put("--sequencer-standby", seqStandby)
+                .put("--sequencer-address-load-timeout", seqAddressLoadTimeout)
                 .put("--batch-size", batchSize)
                 .put("--metadata-retention", retention);
         if (logPath != null) {
@@ -0,0 +1,119 @@
+package org.corfudb.infrastructure;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.UUID;
+
+import org.corfudb.AbstractCorfuTest;
+import org.corfudb.runtime.view.Address;
+import org.corfudb.runtime.view.stream.StreamAddressSpace;
+import org.junit.Test;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+
+public class StreamAddressSpaceStoreTest extends AbstractCorfuTest {
+
+    private final Path spillDirectory = Paths.get(PARAMETERS.TEST_TEMP_DIR, "address-maps");
+
+    private StreamAddressSpace addressSpace(long... addresses) {
+        return new StreamAddressSpace(Address.NON_ADDRESS, Roaring64NavigableMap.bitmapOf(addresses));
+    }
+
+    @Test
+    public void coldStreamsAreSpilled() throws Exception {
+        final int maxResident = 2;
+        final UUID streamA = UUID.randomUUID();
+        final UUID streamB = UUID.randomUUID();
+        final UUID streamC = UUID.randomUUID();
+        StreamAddressSpaceStore store = new StreamAddressSpaceStore(maxResident, spillDirectory);
+
+        store.put(streamA, addressSpace(1L, 2L));
+        store.put(streamB, addressSpace(3L));
+        // streamA is more recently used than streamB
+        store.get(streamA).addAddress(4L);
+        store.put(streamC, addressSpace(5L));
+        // Nothing is spilled until the cold streams are spilled explicitly
+        assertThat(store.residentSize()).isEqualTo(3);
+        store.spillColdStreams();
+        store.awaitSpillFiles();
+
+        assertThat(store.size()).isEqualTo(3);
+        assertThat(store.residentSize()).isEqualTo(maxResident);
+        assertThat(spillDirectory.resolve(streamB.toString())).exists();
+        assertThat(store.containsKey(streamB)).isTrue();
+
+        // Requesting all the maps doesn't page them in
+        Map<UUID, StreamAddressSpace> all = store.getAll();
+        assertThat(all).containsOnlyKeys(streamA, streamB, streamC);
+        assertThat(all.get(streamA).getAddressMap()).isEqualTo(Roaring64NavigableMap.bitmapOf(1L, 2L, 4L));
+        assertThat(store.residentSize()).isEqualTo(maxResident);
+
+        // Paging streamB in spills streamA
+        assertThat(store.get(streamB).getAddressMap()).isEqualTo(Roaring64NavigableMap.bitmapOf(3L));
+        store.spillColdStreams();
+        store.awaitSpillFiles();
+        assertThat(spillDirectory.resolve(streamB.toString())).doesNotExist();
+        assertThat(spillDirectory.resolve(streamA.toString())).exists();
+        assertThat(store.get(UUID.randomUUID())).isNull();
+
+        store.clear();
+        store.awaitSpillFiles();
+        assertThat(store.size()).isZero();
+        assertThat(spillDirectory.resolve(streamA.toString())).doesNotExist();
+        store.close();
+    }
+
+    @Test
+    public void spilledStreamsAreTrimmedWhenPagedIn() throws Exception {
+        final UUID streamA = UUID.randomUUID();
+        final UUID streamB = UUID.randomUUID();
+        final long trimMark = 2L;
+        StreamAddressSpaceStore store = new StreamAddressSpaceStore(1, spillDirectory);
+
+        store.put(streamA, addressSpace(1L, 2L, 3L));
+        store.put(streamB, addressSpace(1L, 4L));
+        store.spillColdStreams();
+        store.awaitSpillFiles();
+        store.trim(trimMark);
+
+        assertThat(store.get(streamB).getAddressMap()).isEqualTo(Roaring64NavigableMap.bitmapOf(4L));
+        StreamAddressSpace pagedIn = store.get(streamA);
+        assertThat(pagedIn.getAddressMap()).isEqualTo(Roaring64NavigableMap.bitmapOf(3L));
+        assertThat(pagedIn.getTrimMark()).isEqualTo(trimMark);
+        store.close();
+    }
+
+    @Test
+    public void failedPageInLeavesTheStreamSpilled() throws Exception {
+        final UUID streamA = UUID.randomUUID();
+        final UUID streamB = UUID.randomUUID();
+        StreamAddressSpaceStore store = new StreamAddressSpaceStore(1, spillDirectory);
+
+        store.put(streamA, addressSpace(1L));
+        store.put(streamB, addressSpace(2L));
+        store.spillColdStreams();
+        store.awaitSpillFiles();
+        Files.delete(spillDirectory.resolve(streamA.toString()));
+
+        assertThatThrownBy(() -> store.get(streamA)).isInstanceOf(UncheckedIOException.class);
+        assertThat(store.containsKey(streamA)).isTrue();
+        assertThat(store.residentSize()).isEqualTo(1);
+        store.close();
+    }
+
+    @Test
+    public void unboundedStoreKeepsAllStreams() {
+        StreamAddressSpaceStore store = new StreamAddressSpaceStore(0, null);
+        final int numStreams = 100;
+        for (int i = 0; i < numStreams; i++) {
+            store.put(UUID.randomUUID(), addressSpace(i));
+        }
+        store.spillColdStreams();
+        assertThat(store.residentSize()).isEqualTo(numStreams);
+    }
+}
@@ -13,9 +13,12 @@ import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
 
 import org.apache.commons.io.FileUtils;
 import org.assertj.core.api.Assertions;
@@ -96,6 +99,132 @@ public class StreamLogFilesTest extends AbstractCorfuTest {
         assertThat(writeEntries).isEqualTo(readEntries);
     }
 
+    @Test
+    public void testAppendAll() throws Exception {
+        ServerContext sc = getContext();
+        StreamLog log = new StreamLogFiles(sc, false);
+
+        final long trimMark = 10;
+        final long existingAddress = trimMark + 1;
+        log.append(existingAddress, getEntry(existingAddress));
+        log.prefixTrim(trimMark);
+
+        // Non consecutive, unordered entries spanning two segments, along with
+        // an overwrite and a write to a trimmed address
+        final long segTwoAddress = StreamLogFiles.RECORDS_PER_LOG_FILE + 1;
+        final long[] newAddresses = {segTwoAddress, existingAddress + 2, existingAddress + 1};
+        List<LogData> entries = new ArrayList<>();
+        for (long address : newAddresses) {
+            entries.add(getEntry(address));
+        }
+        entries.add(getEntry(existingAddress));
+        entries.add(getEntry(trimMark));
+
+        Map<Long, RuntimeException> failures = log.appendAll(entries);
+        assertThat(failures).containsOnlyKeys(existingAddress, trimMark);
+        assertThat(failures.get(existingAddress)).isInstanceOf(OverwriteException.class);
+        assertThat(failures.get(trimMark)).isInstanceOf(OverwriteException.class);
+        log.sync(true);
+
+        StreamLog log2 = new StreamLogFiles(sc, false);
+        for (long address : newAddresses) {
+            assertThat(log2.read(address)).isEqualTo(getEntry(address));
+        }
+        assertThat(log2.getLogTail()).isEqualTo(segTwoAddress);
+    }
+
+    @Test
+    public void testMemoryMappedReads() throws Exception {
+        ServerContext sc = getContext();
+        StreamLogParams params = StreamLogParams.builder().mmapReads(true).build();
+        StreamLog log = new StreamLogFiles(sc, params);
+
+        // Write the first segment, except for its last address, and part of the
+        // second one, so that the first segment is sealed and served from a
+        // memory mapped view
+        final long holeAddress = StreamLogFiles.RECORDS_PER_LOG_FILE - 1;
+        final int numIter = StreamLogFiles.RECORDS_PER_LOG_FILE + StreamLogFiles.RECORDS_PER_LOG_FILE / 2;
+        List<LogData> writeEntries = new ArrayList<>();
+        for (int x = 0; x < numIter; x++) {
+            if (x != holeAddress) {
+                writeEntries.add(getEntry(x));
+            }
+        }
+
+        for (LogData entry : writeEntries) {
+            log.append(entry.getGlobalAddress(), entry);
+        }
+        log.sync(true);
+
+        for (LogData entry : writeEntries) {
+            assertThat(log.read(entry.getGlobalAddress())).isEqualTo(entry);
+        }
+
+        // Fill the hole in the sealed segment after it has been mapped, the
+        // segment has to be re-mapped to serve the new record
+        log.append(holeAddress, LogData.getHole(holeAddress));
+        assertThat(log.read(holeAddress).isHole()).isTrue();
+
+        // Closing the log unmaps the segments, they are mapped again by the next reads
+        log.close();
+        for (LogData entry : writeEntries) {
+            assertThat(log.read(entry.getGlobalAddress())).isEqualTo(entry);
+        }
+
+        StreamLog log2 = new StreamLogFiles(sc, params);
+        for (LogData entry : writeEntries) {
+            assertThat(log2.read(entry.getGlobalAddress())).isEqualTo(entry);
+        }
+        assertThat(log2.read(holeAddress).isHole()).isTrue();
+
+        // Trimmed segments are unmapped and removed
+        log2.prefixTrim(holeAddress);
+        log2.compact();
+        assertThat(log2.read(0L).isTrimmed()).isTrue();
+        assertThat(log2.read(holeAddress + 1)).isEqualTo(getEntry(holeAddress + 1));
+        log.close();
+        log2.close();
+    }
+
+    @Test
+    public void testSegmentIndex() throws Exception {
+        ServerContext sc = getContext();
+        StreamLogFiles log = new StreamLogFiles(sc, false);
+        final UUID streamA = UUID.randomUUID();
+        final UUID streamB = UUID.randomUUID();
+
+        // Fill two segments and write part of the third one, alternating between two streams
+        final int numIter = StreamLogFiles.RECORDS_PER_LOG_FILE * 2 + StreamLogFiles.RECORDS_PER_LOG_FILE / 2;
+        for (long x = 0; x < numIter; x++) {
+            LogData entry = getEntry(x);
+            entry.setBackpointerMap(Collections.singletonMap(x % 2 == 0 ? streamA : streamB, x - 2));
+            log.append(x, entry);
+        }
+        log.sync(true);
+        log.waitForSegmentIndexer();
+
+        String logDir = sc.getServerConfig().get("--log-path") + File.separator + "log";
+        assertThat(new File(logDir, "0.idx")).exists();
+        assertThat(new File(logDir, "1.idx")).exists();
+        assertThat(new File(logDir, "2.idx")).doesNotExist();
+
+        // The indexed segments should be loaded with the same metadata and address space
+        StreamLogFiles log2 = new StreamLogFiles(sc, false);
+        assertThat(log2.getAllTails()).isEqualTo(log.getAllTails());
+        assertThat(log2.getStreamsAddressSpace().getAddressMap().get(streamA).getAddressMap())
+                .isEqualTo(log.getStreamsAddressSpace().getAddressMap().get(streamA).getAddressMap());
+        assertThat(readRange(0, numIter, log2)).isEqualTo(readRange(0, numIter, log));
+
+        // A corrupted index is ignored and the segment is scanned instead
+        try (RandomAccessFile file = new RandomAccessFile(new File(logDir, "1.idx"), "rw")) {
+            file.seek(METADATA_SIZE + 1);
+            file.writeInt(Integer.MAX_VALUE);
+        }
+        StreamLogFiles log3 = new StreamLogFiles(sc, false);
+        assertThat(log3.getAllTails()).isEqualTo(log.getAllTails());
+        assertThat(readRange(0, numIter, log3)).isEqualTo(readRange(0, numIter, log));
+    }
+
     @Test
     public void testRangeWriteTrim() throws Exception {
         StreamLog log = new StreamLogFiles(getContext(), false);
@@ -376,6 +505,48 @@ public class StreamLogFilesTest extends AbstractCorfuTest {
         }
     }
 
+    @Test
+    public void multiThreadedAppendAcrossSegments() throws Exception {
+        ServerContext sc = getContext();
+        StreamLog log = new StreamLogFiles(sc, false);
+        final UUID streamId = UUID.randomUUID();
+
+        final int num_threads = PARAMETERS.CONCURRENCY_SOME;
+        final int num_entries = PARAMETERS.NUM_ITERATIONS_LOW;
+        final int batchSize = 10;
+
+        // Each thread appends batches to its own segment, as the write lanes of the batch processor do
+        scheduleConcurrently(num_threads, threadNumber -> {
+            long base = (long) threadNumber * StreamLogFiles.RECORDS_PER_LOG_FILE;
+            for (long address = base; address < base + num_entries; address += batchSize) {
+                List<LogData> entries = new ArrayList<>();
+                for (long x = address; x < address + batchSize; x++) {
+                    LogData entry = getEntry(x);
+                    entry.setBackpointerMap(Collections.singletonMap(streamId, x - 1));
+                    entries.add(entry);
+                }
+                assertThat(log.appendAll(entries)).isEmpty();
+            }
+        });
+
+        executeScheduled(num_threads, PARAMETERS.TIMEOUT_LONG);
+        log.sync(true);
+
+        final long lastAddress = (long) (num_threads - 1) * StreamLogFiles.RECORDS_PER_LOG_FILE + num_entries - 1;
+        assertThat(log.getLogTail()).isEqualTo(lastAddress);
+        assertThat(log.getAllTails().getStreamTails()).containsEntry(streamId, lastAddress);
+        assertThat(log.getStreamsAddressSpace().getAddressMap().get(streamId).getAddressMap()
+                .getLongCardinality()).isEqualTo((long) num_threads * num_entries);
+
+        StreamLog log2 = new StreamLogFiles(sc, false);
+        for (int thread = 0; thread < num_threads; thread++) {
+            long base = (long) thread * StreamLogFiles.RECORDS_PER_LOG_FILE;
+            for (long address = base; address < base + num_entries; address++) {
+                assertThat(log2.read(address).getGlobalAddress()).isEqualTo(address);
+            }
+        }
+    }
+
     @Test
     @SuppressWarnings("checkstyle:magicnumber")
     public void testSync() throws Exception {
@@ -461,7 +632,7 @@ public class StreamLogFilesTest extends AbstractCorfuTest {
 
         File logs = new File(logDir);
 
-        assertThat((long) logs.list().length).isEqualTo(numSegments * filesPerSegment);
+        assertThat((long) listSegmentFiles(logs).length).isEqualTo(numSegments * filesPerSegment);
 
         final long endSegment = 25;
         long trimAddress = endSegment * StreamLogFiles.RECORDS_PER_LOG_FILE + 1;
@@ -481,7 +652,7 @@ public class StreamLogFilesTest extends AbstractCorfuTest {
         assertThat(((StreamLogFiles)log).getSegmentHandles().size()).isEqualTo((int) endSegment);
 
         // Verify that first 25 segments have been deleted
-        String[] afterTrimFiles = logs.list();
+        String[] afterTrimFiles = listSegmentFiles(logs);
         assertThat(afterTrimFiles).hasSize((int)((numSegments - endSegment + 1) * filesPerSegment));
 
         Set<String> fileNames = new HashSet(Arrays.asList(afterTrimFiles));
@@ -547,7 +718,124 @@ public class StreamLogFilesTest extends AbstractCorfuTest {
 
         File logs = new File(logDir);
         final int lastTwoSegmentsFiles = 2;
-        assertThat(logs.list()).hasSize(lastTwoSegmentsFiles);
+        assertThat(listSegmentFiles(logs)).hasSize(lastTwoSegmentsFiles);
+    }
+
+    @Test
+    public void testCompactSegments() throws Exception {
+        ServerContext sc = getContext();
+        String logDir = sc.getServerConfig().get("--log-path") + File.separator + "log";
+        StreamLogFiles log = new StreamLogFiles(sc, false);
+
+        final long numSegments = 3;
+        final long numRecords = RECORDS_PER_LOG_FILE * numSegments;
+        for (long x = 0; x < numRecords; x++) {
+            log.append(x, getEntry(x));
+        }
+        log.sync(true);
+
+        File firstSegment = new File(logDir, "0.log");
+        File secondSegment = new File(logDir, "1.log");
+        File tailSegment = new File(logDir, "2.log");
+        final long segmentSize = secondSegment.length();
+        final long tailSegmentSize = tailSegment.length();
+
+        // Trim the first segment and half of the second one
+        final long trimAddress = RECORDS_PER_LOG_FILE + RECORDS_PER_LOG_FILE / 2;
+        log.prefixTrim(trimAddress);
+        log.compact();
+
+        // The trimmed records are reclaimed, the tail segment is left untouched
+        assertThat(firstSegment.length()).isLessThan(METADATA_SIZE * 2);
+        final long compactedSize = secondSegment.length();
+        assertThat(compactedSize).isLessThan(segmentSize * 3 / 4);
+        assertThat(tailSegment.length()).isEqualTo(tailSegmentSize);
+        assertThat(listSegmentFiles(new File(logDir))).hasSize((int) numSegments);
+
+        List<LogData> liveRecords = readRange(trimAddress + 1, numRecords, log);
+        for (LogData entry : liveRecords) {
+            assertThat(entry.getData()).isEqualTo(getEntry(entry.getGlobalAddress()).getData());
+        }
+        assertThat(log.read(trimAddress).isTrimmed()).isTrue();
+
+        // Compacting again doesn't reclaim anything
+        log.compact();
+        assertThat(secondSegment.length()).isEqualTo(compactedSize);
+
+        // The compacted segments are loaded on startup
+        StreamLogFiles log2 = new StreamLogFiles(sc, false);
+        assertThat(log2.getLogTail()).isEqualTo(numRecords - 1);
+        assertThat(log2.getTrimMark()).isEqualTo(trimAddress + 1);
+        assertThat(readRange(trimAddress + 1, numRecords, log2)).isEqualTo(liveRecords);
+        assertThat(log2.read(trimAddress + 1).getData()).isEqualTo(getEntry(trimAddress + 1).getData());
+    }
+
+    @Test
+    public void testRecordCompression() throws Exception {
+        ServerContext sc = getContext();
+        String logDir = sc.getServerConfig().get("--log-path") + File.separator + "log";
+        final int payloadSize = 1024;
+        byte[] payload = new byte[payloadSize];
+        Arrays.fill(payload, (byte) 'a');
+
+        // The first segment is written uncompressed, the following ones compressed
+        StreamLog log = new StreamLogFiles(sc, false);
+        for (long x = 0; x < RECORDS_PER_LOG_FILE; x++) {
+            log.append(x, getEntry(x, payload));
+        }
+        log.sync(true);
+        log.close();
+
+        StreamLogParams params = StreamLogParams.builder().recordCodec(RecordCodec.DEFLATE).build();
+        StreamLog log2 = new StreamLogFiles(sc, params);
+        final long numRecords = RECORDS_PER_LOG_FILE * 2 + RECORDS_PER_LOG_FILE / 2;
+        for (long x = RECORDS_PER_LOG_FILE; x < numRecords; x++) {
+            log2.append(x, getEntry(x, payload));
+        }
+        log2.sync(true);
+
+        assertThat(new File(logDir, "1.log").length()).isLessThan(new File(logDir, "0.log").length() / 2);
+        for (long x = 0; x < numRecords; x++) {
+            assertThat(log2.read(x).getData()).isEqualTo(getEntry(x, payload).getData());
+        }
+        log2.close();
+
+        // Each segment is read with the codec of its header, whatever the configured codec
+        StreamLog log3 = new StreamLogFiles(sc, StreamLogParams.builder().mmapReads(true).build());
+        assertThat(log3.getLogTail()).isEqualTo(numRecords - 1);
+        for (long x = 0; x < numRecords; x++) {
+            assertThat(log3.read(x).getData()).isEqualTo(getEntry(x, payload).getData());
+        }
+    }
+
+    @Test
+    public void testCorruptedCompressedRecordLength() {
+        final int payloadSize = 1024;
+        byte[] encoded = RecordCodec.DEFLATE.encode(new byte[payloadSize]);
+
+        ByteBuffer negative = ByteBuffer.wrap(encoded.clone());
+        negative.putInt(0, -1);
+        assertThatThrownBy(() -> RecordCodec.DEFLATE.decode(negative))
+                .isInstanceOf(DataCorruptionException.class);
+
+        ByteBuffer tooLarge = ByteBuffer.wrap(encoded.clone());
+        tooLarge.putInt(0, Integer.MAX_VALUE);
+        assertThatThrownBy(() -> RecordCodec.DEFLATE.decode(tooLarge))
+                .isInstanceOf(DataCorruptionException.class);
+
+        assertThat(RecordCodec.DEFLATE.decode(ByteBuffer.wrap(encoded))).isEqualTo(new byte[payloadSize]);
+    }
+
+    private LogData getEntry(long address, byte[] payload) {
+        ByteBuf b = Unpooled.buffer();
+        Serializers.CORFU.serialize(payload, b);
+        LogData ld = new LogData(DataType.DATA, b);
+        ld.setGlobalAddress(address);
+        return ld;
+    }
+
+    private String[] listSegmentFiles(File logDir) {
+        return logDir.list((dir, name) -> name.endsWith(".log"));
     }
 
     /**
@@ -572,7 +860,7 @@ public class StreamLogFilesTest extends AbstractCorfuTest {
         final int expectedFilesBeforeReset = (int) (numSegments - filesToBeTrimmed);
         final long globalTailBeforeReset = (RECORDS_PER_LOG_FILE * numSegments) - 1;
         final long trimMarkBeforeReset = (RECORDS_PER_LOG_FILE * (filesToBeTrimmed + 1)) + 1;
-        assertThat(logsDir.list()).hasSize(expectedFilesBeforeReset);
+        assertThat(listSegmentFiles(logsDir)).hasSize(expectedFilesBeforeReset);
         assertThat(log.getLogTail()).isEqualTo(globalTailBeforeReset);
         assertThat(log.getTrimMark()).isEqualTo(trimMarkBeforeReset);
 
@@ -581,7 +869,7 @@ public class StreamLogFilesTest extends AbstractCorfuTest {
         final int expectedFilesAfterReset = 0;
         final long globalTailAfterReset = Address.NON_ADDRESS;
         final long trimMarkAfterReset = 0L;
-        assertThat(logsDir.list()).hasSize(expectedFilesAfterReset);
+        assertThat(listSegmentFiles(logsDir)).hasSize(expectedFilesAfterReset);
         assertThat(log.getLogTail()).isEqualTo(globalTailAfterReset);
         assertThat(log.getTrimMark()).isEqualTo(trimMarkAfterReset);
     }
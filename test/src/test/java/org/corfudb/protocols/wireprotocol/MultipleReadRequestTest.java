@@ -0,0 +1,36 @@
+package org.corfudb.protocols.wireprotocol;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class MultipleReadRequestTest {
+
+    private final List<Long> addresses = Arrays.asList(1L, 2L, 3L);
+
+    @Test
+    public void cacheableRoundTrip() {
+        ByteBuf buf = Unpooled.buffer();
+        new MultipleReadRequest(addresses, false).doSerialize(buf);
+        MultipleReadRequest request = new MultipleReadRequest(buf);
+        assertThat(buf.readableBytes()).isZero();
+        assertThat(request.getAddresses()).isEqualTo(addresses);
+        assertThat(request.isCacheable()).isFalse();
+    }
+
+    @Test
+    public void requestWithoutCacheableIsCacheable() {
+        // A request serialized by a client which doesn't know the flag
+        ByteBuf buf = Unpooled.buffer();
+        ICorfuPayload.serialize(buf, addresses);
+        MultipleReadRequest request = new MultipleReadRequest(buf);
+        assertThat(request.getAddresses()).isEqualTo(addresses);
+        assertThat(request.isCacheable()).isTrue();
+    }
+}
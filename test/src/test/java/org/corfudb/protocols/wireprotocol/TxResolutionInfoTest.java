@@ -0,0 +1,89 @@
+package org.corfudb.protocols.wireprotocol;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.corfudb.util.Utils;
+import org.junit.Test;
+
+public class TxResolutionInfoTest {
+
+    private final UUID streamA = UUID.randomUUID();
+    private final UUID streamB = UUID.randomUUID();
+
+    private TxResolutionInfo roundTrip(TxResolutionInfo txInfo) {
+        ByteBuf buf = Unpooled.buffer();
+        txInfo.doSerialize(buf);
+        TxResolutionInfo deserialized = new TxResolutionInfo(buf);
+        assertThat(buf.readableBytes()).isZero();
+        return deserialized;
+    }
+
+    @Test
+    public void fingerprintsRoundTrip() {
+        final long[] fingerprints = {Long.MIN_VALUE, -1L, 0L, 1L, 2L, 1L << 40, Long.MAX_VALUE};
+        Map<UUID, long[]> conflictMap = new HashMap<>();
+        conflictMap.put(streamA, fingerprints);
+        // A stream without conflict-params
+        conflictMap.put(streamB, new long[0]);
+
+        TxResolutionInfo txInfo = roundTrip(TxResolutionInfo.withFingerprints(UUID.randomUUID(),
+                new Token(1L, 2L), conflictMap, Collections.singletonMap(streamA, new long[]{2L})));
+
+        assertThat(txInfo.hasFingerprints()).isTrue();
+        assertThat(txInfo.getSnapshotTimestamp()).isEqualTo(new Token(1L, 2L));
+        assertThat(txInfo.getConflictStreams()).containsOnly(streamA, streamB);
+        assertThat(txInfo.getConflictFingerprints().get(streamA)).containsExactly(fingerprints);
+        assertThat(txInfo.getConflictFingerprints().get(streamB)).isEmpty();
+        assertThat(txInfo.getWriteFingerprints().get(streamA)).containsExactly(2L);
+
+        // Fingerprints stand for their big-endian bytes
+        Set<byte[]> writeParams = txInfo.getWriteConflictParams().get(streamA);
+        assertThat(writeParams).hasSize(1);
+        assertThat(writeParams.iterator().next()).isEqualTo(Utils.longToBigEndianByteArray(2L));
+    }
+
+    @Test
+    public void fingerprintsAreCompact() {
+        final int numKeys = 1000;
+        long[] fingerprints = new long[numKeys];
+        Map<UUID, Set<byte[]>> conflictMap = new HashMap<>();
+        conflictMap.put(streamA, new HashSet<>());
+        for (int i = 0; i < numKeys; i++) {
+            fingerprints[i] = i;
+            conflictMap.get(streamA).add(Utils.longToBigEndianByteArray(i));
+        }
+
+        ByteBuf compact = Unpooled.buffer();
+        TxResolutionInfo.withFingerprints(UUID.randomUUID(), new Token(0L, 0L),
+                Collections.singletonMap(streamA, fingerprints), Collections.emptyMap()).doSerialize(compact);
+        ByteBuf legacy = Unpooled.buffer();
+        new TxResolutionInfo(UUID.randomUUID(), new Token(0L, 0L), conflictMap, Collections.emptyMap())
+                .doSerialize(legacy);
+
+        assertThat(compact.readableBytes()).isLessThan(legacy.readableBytes() / Long.BYTES);
+    }
+
+    @Test
+    public void conflictParamsRoundTrip() {
+        final byte[] param = "key".getBytes();
+        Map<UUID, Set<byte[]>> conflictMap = Collections.singletonMap(streamA, Collections.singleton(param));
+
+        TxResolutionInfo txInfo = roundTrip(new TxResolutionInfo(UUID.randomUUID(),
+                new Token(0L, 1L), conflictMap, conflictMap));
+
+        assertThat(txInfo.hasFingerprints()).isFalse();
+        assertThat(txInfo.getConflictStreams()).containsOnly(streamA);
+        assertThat(txInfo.getConflictSet().get(streamA).iterator().next()).isEqualTo(param);
+        assertThat(txInfo.getWriteConflictParams().get(streamA).iterator().next()).isEqualTo(param);
+    }
+}
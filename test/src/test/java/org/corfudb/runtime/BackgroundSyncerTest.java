@@ -0,0 +1,138 @@
+package org.corfudb.runtime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.google.common.reflect.TypeToken;
+import org.corfudb.runtime.collections.CorfuTable;
+import org.corfudb.runtime.object.ICorfuSMR;
+import org.corfudb.runtime.object.ICorfuSMRProxyInternal;
+import org.corfudb.runtime.object.VersionLockedObject;
+import org.corfudb.runtime.view.AbstractViewTest;
+import org.corfudb.runtime.view.ObjectOpenOptions;
+import org.corfudb.util.Sleep;
+import org.junit.Test;
+
+public class BackgroundSyncerTest extends AbstractViewTest {
+
+    private static final String STREAM_NAME = "table";
+
+    private CorfuTable<String, String> openTable(ObjectOpenOptions option) {
+        return getDefaultRuntime().getObjectsView().build()
+                .setStreamName(STREAM_NAME)
+                .setTypeToken(new TypeToken<CorfuTable<String, String>>() {})
+                .addOption(option)
+                .open();
+    }
+
+    private VersionLockedObject<?> getVlo(Object object) {
+        return ((ICorfuSMRProxyInternal<?>) ((ICorfuSMR<?>) object).getCorfuSMRProxy())
+                .getUnderlyingObject();
+    }
+
+    @Test
+    public void registeredObjectFollowsTheTail() {
+        CorfuTable<String, String> synced = openTable(ObjectOpenOptions.BACKGROUND_SYNC);
+        CorfuTable<String, String> writer = openTable(ObjectOpenOptions.NO_CACHE);
+        BackgroundSyncer syncer = getDefaultRuntime().getBackgroundSyncer();
+
+        for (int i = 0; i < PARAMETERS.NUM_ITERATIONS_LOW; i++) {
+            writer.put("k" + i, "v" + i);
+        }
+        long tail = getDefaultRuntime().getSequencerView()
+                .query(CorfuRuntime.getStreamID(STREAM_NAME)).getToken().getSequence();
+
+        // The registered object is synced without being accessed
+        for (int i = 0; i < PARAMETERS.NUM_ITERATIONS_MODERATE; i++) {
+            if (getVlo(synced).getVersionUnsafe() == tail && syncer.getLag(synced) == 0L) {
+                break;
+            }
+            Sleep.sleepUninterruptibly(PARAMETERS.TIMEOUT_VERY_SHORT);
+        }
+        assertThat(getVlo(synced).getVersionUnsafe()).isEqualTo(tail);
+        assertThat(syncer.getLag(synced)).isZero();
+        assertThat(synced.size()).isEqualTo(PARAMETERS.NUM_ITERATIONS_LOW);
+
+        // The writer was not registered
+        assertThat(syncer.getLag(writer)).isEqualTo(-1L);
+
+        syncer.unregister(synced);
+        assertThat(syncer.getLag(synced)).isEqualTo(-1L);
+    }
+
+    @Test
+    public void objectsAreSyncedOnThePool() {
+        final int syncThreads = 2;
+        getDefaultRuntime().getParameters().setBackgroundSyncThreads(syncThreads);
+        CorfuTable<String, String> synced = openTable(ObjectOpenOptions.BACKGROUND_SYNC);
+        CorfuTable<String, String> other = getDefaultRuntime().getObjectsView().build()
+                .setStreamName("other")
+                .setTypeToken(new TypeToken<CorfuTable<String, String>>() {})
+                .addOption(ObjectOpenOptions.BACKGROUND_SYNC)
+                .open();
+        CorfuTable<String, String> writer = openTable(ObjectOpenOptions.NO_CACHE);
+        BackgroundSyncer syncer = getDefaultRuntime().getBackgroundSyncer();
+
+        for (int i = 0; i < PARAMETERS.NUM_ITERATIONS_LOW; i++) {
+            writer.put("k" + i, "v" + i);
+        }
+        long tail = getDefaultRuntime().getSequencerView()
+                .query(CorfuRuntime.getStreamID(STREAM_NAME)).getToken().getSequence();
+
+        for (int i = 0; i < PARAMETERS.NUM_ITERATIONS_MODERATE; i++) {
+            if (getVlo(synced).getVersionUnsafe() == tail && syncer.getLag(synced) == 0L) {
+                break;
+            }
+            Sleep.sleepUninterruptibly(PARAMETERS.TIMEOUT_VERY_SHORT);
+        }
+        assertThat(getVlo(synced).getVersionUnsafe()).isEqualTo(tail);
+        assertThat(syncer.getLag(synced)).isZero();
+        assertThat(synced.size()).isEqualTo(PARAMETERS.NUM_ITERATIONS_LOW);
+        assertThat(other.size()).isZero();
+    }
+
+    @Test
+    public void transactionalUpdatesSurviveSyncs() {
+        final int syncPeriods = 5;
+        CorfuTable<String, String> synced = openTable(ObjectOpenOptions.BACKGROUND_SYNC);
+        CorfuTable<String, String> writer = openTable(ObjectOpenOptions.NO_CACHE);
+        writer.put("k", "v0");
+
+        getDefaultRuntime().getObjectsView().TXBegin();
+        try {
+            synced.put("tx", "v");
+            assertThat(synced.get("tx")).isEqualTo("v");
+            long version = getVlo(synced).getVersionUnsafe();
+
+            // Writes outside of the transaction move the tail past the version of the object
+            for (int i = 1; i <= PARAMETERS.NUM_ITERATIONS_LOW; i++) {
+                writer.put("k", "v" + i);
+            }
+            Sleep.sleepUninterruptibly(getDefaultRuntime().getParameters()
+                    .getBackgroundSyncPeriod().multipliedBy(syncPeriods));
+
+            // The object was skipped, its optimistic updates are still applied
+            assertThat(getVlo(synced).isOptimisticallyModifiedUnsafe()).isTrue();
+            assertThat(getVlo(synced).getVersionUnsafe()).isEqualTo(version);
+            assertThat(synced.get("tx")).isEqualTo("v");
+            assertThat(synced.get("k")).isEqualTo("v0");
+        } finally {
+            getDefaultRuntime().getObjectsView().TXAbort();
+        }
+
+        // The aborted updates are rolled back by the next access
+        assertThat(synced.get("tx")).isNull();
+        assertThat(synced.get("k")).isEqualTo("v" + PARAMETERS.NUM_ITERATIONS_LOW);
+    }
+
+    @Test
+    public void uncachedObjectsCantBeSynced() {
+        assertThatThrownBy(() -> getDefaultRuntime().getObjectsView().build()
+                .setStreamName(STREAM_NAME)
+                .setTypeToken(new TypeToken<CorfuTable<String, String>>() {})
+                .addOption(ObjectOpenOptions.NO_CACHE)
+                .addOption(ObjectOpenOptions.BACKGROUND_SYNC)
+                .open())
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
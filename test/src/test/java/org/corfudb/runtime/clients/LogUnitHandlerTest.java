@@ -36,6 +36,7 @@ import org.corfudb.protocols.wireprotocol.DataType;
 import org.corfudb.protocols.wireprotocol.ILogData;
 import org.corfudb.protocols.wireprotocol.IMetadata;
 import org.corfudb.protocols.wireprotocol.LogData;
+import org.corfudb.protocols.wireprotocol.RangeReadResponse;
 import org.corfudb.protocols.wireprotocol.ReadResponse;
 import org.corfudb.runtime.view.stream.StreamAddressSpace;
 import org.corfudb.protocols.wireprotocol.StreamsAddressResponse;
@@ -121,6 +122,38 @@ public class LogUnitHandlerTest extends AbstractClientTest {
         assertThat(LogData.getEmpty(0)).isEqualTo(LogData.getEmpty(0));
     }
 
+    @Test
+    public void readRange() throws Exception {
+        final long numWritten = 10;
+        final long rangeEnd = numWritten + 1;
+        final UUID streamA = CorfuRuntime.getStreamID("a");
+        final UUID streamB = CorfuRuntime.getStreamID("b");
+        byte[] testString = "hello world".getBytes();
+        for (long x = 0; x < numWritten; x++) {
+            UUID stream = x % 2 == 0 ? streamA : streamB;
+            client.write(x, null, testString, Collections.singletonMap(stream, Address.NON_ADDRESS)).get();
+        }
+
+        // Unwritten addresses are returned as empty entries
+        RangeReadResponse all = client.readRange(0, rangeEnd, Long.MAX_VALUE, Collections.emptySet()).get();
+        assertThat(all.getEnd()).isEqualTo(rangeEnd);
+        assertThat(all.getAddresses()).hasSize((int) rangeEnd + 1);
+        assertThat(all.getAddresses().get(numWritten).isEmpty()).isTrue();
+        assertThat(all.getAddresses().get(0L).getPayload(new CorfuRuntime())).isEqualTo(testString);
+
+        // A byte budget smaller than an entry returns a single entry
+        RangeReadResponse first = client.readRange(0, rangeEnd, 1, Collections.emptySet()).get();
+        assertThat(first.getEnd()).isEqualTo(0L);
+        assertThat(first.getAddresses()).containsOnlyKeys(0L);
+
+        // Only the entries of the requested streams are returned
+        RangeReadResponse filtered = client.readRange(0, numWritten - 1, Long.MAX_VALUE,
+                Collections.singleton(streamB)).get();
+        assertThat(filtered.getEnd()).isEqualTo(numWritten - 1);
+        assertThat(filtered.getAddresses().keySet()).allMatch(x -> x % 2 == 1);
+        assertThat(filtered.getAddresses()).hasSize((int) numWritten / 2);
+    }
+
     @Test
     public void writeNonSequentialRange() throws Exception {
         final long address0 = 0;
@@ -211,14 +244,14 @@ public class LogUnitHandlerTest extends AbstractClientTest {
         serverRouter.reset();
         serverRouter.addServer(server2);
 
-        assertThat(server2.getDataCache().asMap().size()).isEqualTo(0);
+        assertThat(server2.getDataCache().size()).isEqualTo(0);
         byte[] testString = "hello world".getBytes();
         client.write(0, null, testString, Collections.emptyMap()).get();
-        assertThat(server2.getDataCache().asMap().size()).isEqualTo(1);
+        assertThat(server2.getDataCache().size()).isEqualTo(1);
         client.flushCache().get();
-        assertThat(server2.getDataCache().asMap().size()).isEqualTo(0);
+        assertThat(server2.getDataCache().size()).isEqualTo(0);
         LogData r = client.read(0).get().getAddresses().get(0L);
-        assertThat(server2.getDataCache().asMap().size()).isEqualTo(1);
+        assertThat(server2.getDataCache().size()).isEqualTo(1);
     }
 
     @Test
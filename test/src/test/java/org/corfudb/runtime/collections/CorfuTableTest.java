@@ -5,10 +5,15 @@ import com.google.common.reflect.TypeToken;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
 import org.assertj.core.data.MapEntry;
+import org.corfudb.protocols.wireprotocol.Token;
+import org.corfudb.runtime.CorfuRuntime;
+import org.corfudb.runtime.object.transactions.TransactionType;
 import org.corfudb.runtime.view.AbstractViewTest;
 import org.junit.Test;
 
@@ -181,4 +186,192 @@ public class CorfuTableTest extends AbstractViewTest {
                 .containsExactly("a");
     }
 
+    private CorfuTable<String, String> openPersistentTable() {
+        return getDefaultRuntime().getObjectsView().build()
+                .setTypeToken(CorfuTable.<String, String>getTableType())
+                .setArguments(new StringIndexer(), CorfuTable.Backend.PERSISTENT)
+                .setStreamName("test")
+                .open();
+    }
+
+    /**
+     * The persistent backend maintains the map and the indexes.
+     */
+    @Test
+    public void persistentBackendUpdatesIndexes() {
+        CorfuTable<String, String> corfuTable = openPersistentTable();
+
+        corfuTable.put("k1", "a");
+        corfuTable.put("k2", "ab");
+        corfuTable.put("k3", "b");
+        corfuTable.put("k3", "ac");
+        corfuTable.remove("k2");
+
+        assertThat(corfuTable).containsOnly(MapEntry.entry("k1", "a"), MapEntry.entry("k3", "ac"));
+        assertThat(project(corfuTable.getByIndex(StringIndexer.BY_FIRST_LETTER, "a")))
+                .containsExactlyInAnyOrder("a", "ac");
+        assertThat(corfuTable.getByIndex(StringIndexer.BY_FIRST_LETTER, "b")).isEmpty();
+
+        corfuTable.clear();
+        assertThat(corfuTable).isEmpty();
+        assertThat(corfuTable.getByIndex(StringIndexer.BY_VALUE, "a")).isEmpty();
+    }
+
+    /**
+     * The persistent backend is rolled back to older versions and its optimistic updates
+     * are undone, by restoring the snapshots taken before the updates.
+     */
+    @Test
+    public void persistentBackendRollsBack() {
+        CorfuTable<String, String> corfuTable = openPersistentTable();
+
+        corfuTable.put("k1", "a");
+        final long firstVersion = getDefaultRuntime().getSequencerView()
+                .query(CorfuRuntime.getStreamID("test")).getToken().getSequence();
+        corfuTable.put("k1", "b");
+        corfuTable.put("k2", "ab");
+        assertThat(corfuTable).hasSize(2);
+
+        getDefaultRuntime().getObjectsView().TXBuild()
+                .type(TransactionType.SNAPSHOT)
+                .snapshot(new Token(0L, firstVersion))
+                .build()
+                .begin();
+        assertThat(corfuTable).containsOnly(MapEntry.entry("k1", "a"));
+        assertThat(project(corfuTable.getByIndex(StringIndexer.BY_FIRST_LETTER, "a")))
+                .containsExactly("a");
+        getDefaultRuntime().getObjectsView().TXEnd();
+
+        getDefaultRuntime().getObjectsView().TXBegin();
+        corfuTable.put("k3", "c");
+        assertThat(corfuTable.get("k3")).isEqualTo("c");
+        getDefaultRuntime().getObjectsView().TXAbort();
+
+        assertThat(corfuTable).containsOnly(MapEntry.entry("k1", "b"), MapEntry.entry("k2", "ab"));
+        assertThat(project(corfuTable.getByIndex(StringIndexer.BY_FIRST_LETTER, "a")))
+                .containsExactly("ab");
+    }
+
+    private CorfuTable<String, String> openOrderedTable(CorfuTable.Backend backend) {
+        return getDefaultRuntime().getObjectsView().build()
+                .setTypeToken(CorfuTable.<String, String>getTableType())
+                .setArguments(new StringOrderedIndexer(), backend)
+                .setStreamName("test")
+                .open();
+    }
+
+    private void verifyOrderedIndexQueries(CorfuTable<String, String> corfuTable) {
+        corfuTable.put("k1", "apple");
+        corfuTable.put("k2", "apricot");
+        corfuTable.put("k3", "banana");
+        corfuTable.put("k4", "cherry");
+        corfuTable.put("k5", "date");
+
+        assertThat(project(corfuTable.getByIndexRange(StringOrderedIndexer.BY_VALUE,
+                "apricot", true, "cherry", false)))
+                .containsExactly("apricot", "banana");
+        assertThat(project(corfuTable.getByIndexRange(StringOrderedIndexer.BY_VALUE,
+                null, false, "b", true)))
+                .containsExactly("apple", "apricot");
+        assertThat(project(corfuTable.getByIndexPrefix(StringOrderedIndexer.BY_VALUE, "ap")))
+                .containsExactly("apple", "apricot");
+        assertThat(project(corfuTable.getTopByIndex(StringOrderedIndexer.BY_VALUE, 2)))
+                .containsExactly("date", "cherry");
+
+        // The index is maintained by the updates
+        corfuTable.remove("k1");
+        corfuTable.put("k4", "avocado");
+        assertThat(project(corfuTable.getByIndexPrefix(StringOrderedIndexer.BY_VALUE, "a")))
+                .containsExactly("apricot", "avocado");
+        assertThat(project(corfuTable.getTopByIndex(StringOrderedIndexer.BY_VALUE, 2)))
+                .containsExactly("date", "banana");
+        assertThat(project(corfuTable.getByIndex(StringOrderedIndexer.BY_VALUE, "avocado")))
+                .containsExactly("avocado");
+
+        corfuTable.clear();
+        assertThat(corfuTable.getByIndexRange(StringOrderedIndexer.BY_VALUE,
+                null, false, null, false)).isEmpty();
+    }
+
+    /**
+     * An ordered index supports range, prefix and top queries with the hash map backend.
+     */
+    @Test
+    public void orderedIndexSupportsRangeQueries() {
+        verifyOrderedIndexQueries(openOrderedTable(CorfuTable.Backend.HASH_MAP));
+    }
+
+    /**
+     * An ordered index supports range, prefix and top queries with the persistent backend.
+     */
+    @Test
+    public void persistentOrderedIndexSupportsRangeQueries() {
+        verifyOrderedIndexQueries(openOrderedTable(CorfuTable.Backend.PERSISTENT));
+    }
+
+    /**
+     * Verify that a range query throws an exception on an index which is not ordered.
+     */
+    @Test (expected = IllegalArgumentException.class)
+    public void cannotQueryRangeOfUnorderedIndex() {
+        CorfuTable<String, String> corfuTable = openOrderedTable(CorfuTable.Backend.HASH_MAP);
+        corfuTable.put("k1", "a");
+        corfuTable.getByIndexRange(StringOrderedIndexer.BY_FIRST_LETTER, "a", true, "b", true);
+    }
+
+    private void verifyParallelScan(CorfuTable<String, String> corfuTable) {
+        final int numEntries = PARAMETERS.NUM_ITERATIONS_MODERATE;
+        final int limit = 10;
+        for (int i = 0; i < numEntries; i++) {
+            corfuTable.put("k" + i, i % 2 == 0 ? "even" + i : "odd" + i);
+        }
+        final long version = getDefaultRuntime().getSequencerView()
+                .query(CorfuRuntime.getStreamID("test")).getToken().getSequence();
+        corfuTable.put("k" + numEntries, "even" + numEntries);
+
+        assertThat(corfuTable.parallelScan(e -> e.getValue().startsWith("even")))
+                .hasSize(numEntries / 2 + 1);
+        List<String> keys = corfuTable.parallelScan(e -> e.getValue().startsWith("odd"),
+                Map.Entry::getKey, limit);
+        assertThat(keys).hasSize(limit);
+        assertThat(keys).allMatch(key -> Integer.parseInt(key.substring(1)) % 2 == 1);
+
+        List<String> values = new ArrayList<>();
+        Iterator<String> iterator = corfuTable.scanIterator(
+                e -> e.getValue().startsWith("even"), Map.Entry::getValue);
+        iterator.forEachRemaining(values::add);
+        assertThat(values).hasSize(numEntries / 2 + 1).contains("even" + numEntries);
+
+        // The scans see the snapshot of a transaction
+        getDefaultRuntime().getObjectsView().TXBuild()
+                .type(TransactionType.SNAPSHOT)
+                .snapshot(new Token(0L, version))
+                .build()
+                .begin();
+        assertThat(corfuTable.parallelScan(e -> e.getValue().startsWith("even")))
+                .hasSize(numEntries / 2);
+        assertThat(corfuTable.scanIterator(e -> e.getKey().equals("k" + numEntries),
+                Map.Entry::getValue).hasNext()).isFalse();
+        getDefaultRuntime().getObjectsView().TXEnd();
+    }
+
+    /**
+     * The parallel scans filter and project the entries of a table.
+     */
+    @Test
+    public void parallelScanFiltersAndProjects() {
+        verifyParallelScan(getDefaultRuntime().getObjectsView().build()
+                .setTypeToken(CorfuTable.<String, String>getTableType())
+                .setStreamName("test")
+                .open());
+    }
+
+    /**
+     * The parallel scans filter and project the entries of a table with the persistent
+     * backend, whose immutable view is split without being copied.
+     */
+    @Test
+    public void persistentParallelScanFiltersAndProjects() {
+        verifyParallelScan(openPersistentTable());
+    }
 }
@@ -0,0 +1,141 @@
+package org.corfudb.runtime.collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.data.MapEntry.entry;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+import org.corfudb.AbstractCorfuTest;
+import org.junit.Test;
+
+public class PersistentHashMapTest extends AbstractCorfuTest {
+
+    /**
+     * A key with a chosen hash code, to force collisions.
+     */
+    private static class CollidingKey {
+        private final int id;
+        private final int hash;
+
+        CollidingKey(int id, int hash) {
+            this.id = id;
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof CollidingKey && ((CollidingKey) o).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    @Test
+    public void updatesDontModifyPreviousVersions() {
+        PersistentHashMap<String, String> empty = PersistentHashMap.empty();
+        PersistentHashMap<String, String> v1 = empty.plus("k1", "a");
+        PersistentHashMap<String, String> v2 = v1.plus("k1", "b").plus("k2", "c");
+        PersistentHashMap<String, String> v3 = v2.minus("k1");
+
+        assertThat(empty).isEmpty();
+        assertThat(v1).containsOnly(entry("k1", "a"));
+        assertThat(v2).containsOnly(entry("k1", "b"), entry("k2", "c"));
+        assertThat(v3).containsOnly(entry("k2", "c"));
+        assertThat(v3.minus("k1")).isSameAs(v3);
+    }
+
+    @Test
+    public void nullKeysAndValuesAreMapped() {
+        PersistentHashMap<String, String> map = PersistentHashMap.<String, String>empty()
+                .plus(null, "a")
+                .plus("k1", null);
+
+        assertThat(map).hasSize(2);
+        assertThat(map.get(null)).isEqualTo("a");
+        assertThat(map.containsKey("k1")).isTrue();
+        assertThat(map.get("k1")).isNull();
+        assertThat(map.minus(null).minus("k1")).isEmpty();
+    }
+
+    @Test
+    public void collidingKeysAreMapped() {
+        final int numKeys = 10;
+        final int hash = 42;
+        PersistentHashMap<CollidingKey, Integer> map = PersistentHashMap.empty();
+        for (int i = 0; i < numKeys; i++) {
+            map = map.plus(new CollidingKey(i, hash), i);
+        }
+        map = map.plus(new CollidingKey(numKeys, hash + 1), numKeys);
+
+        assertThat(map).hasSize(numKeys + 1);
+        for (int i = 0; i < numKeys; i++) {
+            assertThat(map.get(new CollidingKey(i, hash))).isEqualTo(i);
+        }
+        for (int i = 0; i < numKeys; i++) {
+            map = map.minus(new CollidingKey(i, hash));
+        }
+        assertThat(map).containsOnly(entry(new CollidingKey(numKeys, hash + 1), numKeys));
+    }
+
+    @Test
+    public void behavesLikeAHashMap() {
+        final int numOps = PARAMETERS.NUM_ITERATIONS_LARGE;
+        final int numKeys = 1000;
+        Random random = new Random(0);
+        Map<Integer, Integer> expected = new HashMap<>();
+        PersistentHashMap<Integer, Integer> map = PersistentHashMap.empty();
+
+        for (int i = 0; i < numOps; i++) {
+            // Small hash codes share the low bits of the trie, large ones spread over it
+            int key = random.nextBoolean() ? random.nextInt(numKeys) : random.nextInt();
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.minus(key);
+            } else {
+                expected.put(key, i);
+                map = map.plus(key, i);
+            }
+            assertThat(map.size()).isEqualTo(expected.size());
+        }
+
+        assertThat(map).isEqualTo(expected);
+        Map<Integer, Integer> iterated = new HashMap<>();
+        map.forEach(iterated::put);
+        assertThat(iterated).isEqualTo(expected);
+        for (Integer key : expected.keySet()) {
+            map = map.minus(key);
+        }
+        assertThat(map).isEmpty();
+    }
+
+    @Test
+    public void spliteratorPartitionsTheEntries() {
+        final int numKeys = PARAMETERS.NUM_ITERATIONS_LARGE;
+        Map<Integer, Integer> expected = new HashMap<>();
+        PersistentHashMap<Integer, Integer> map = PersistentHashMap.empty();
+        for (int i = 0; i < numKeys; i++) {
+            expected.put(i, i);
+            map = map.plus(i, i);
+        }
+
+        Spliterator<Map.Entry<Integer, Integer>> spliterator = map.entrySet().spliterator();
+        Spliterator<Map.Entry<Integer, Integer>> split = spliterator.trySplit();
+        assertThat(split).isNotNull();
+        Map<Integer, Integer> iterated = new HashMap<>();
+        split.forEachRemaining(e -> iterated.put(e.getKey(), e.getValue()));
+        assertThat(iterated).isNotEmpty();
+        spliterator.forEachRemaining(e -> assertThat(iterated.put(e.getKey(), e.getValue())).isNull());
+        assertThat(iterated).isEqualTo(expected);
+
+        assertThat(map.entrySet().parallelStream()
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue)))
+                .isEqualTo(expected);
+    }
+}
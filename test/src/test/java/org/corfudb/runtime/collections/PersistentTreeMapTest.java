@@ -0,0 +1,66 @@
+package org.corfudb.runtime.collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.data.MapEntry.entry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.corfudb.AbstractCorfuTest;
+import org.junit.Test;
+
+public class PersistentTreeMapTest extends AbstractCorfuTest {
+
+    @Test
+    public void updatesDontModifyPreviousVersions() {
+        PersistentTreeMap<String, String> empty = PersistentTreeMap.empty();
+        PersistentTreeMap<String, String> v1 = empty.plus("k1", "a");
+        PersistentTreeMap<String, String> v2 = v1.plus("k1", "b").plus("k2", "c");
+        PersistentTreeMap<String, String> v3 = v2.minus("k1");
+
+        assertThat(empty).isEmpty();
+        assertThat(v1).containsOnly(entry("k1", "a"));
+        assertThat(v2).containsExactly(entry("k1", "b"), entry("k2", "c"));
+        assertThat(v3).containsOnly(entry("k2", "c"));
+        assertThat(v3.minus("k1")).isSameAs(v3);
+    }
+
+    @Test
+    public void behavesLikeATreeMap() {
+        final int numOps = PARAMETERS.NUM_ITERATIONS_LARGE;
+        final int numKeys = 1000;
+        final int numRanges = 100;
+        Random random = new Random(0);
+        NavigableMap<Integer, Integer> expected = new TreeMap<>();
+        PersistentTreeMap<Integer, Integer> map = PersistentTreeMap.empty();
+
+        for (int i = 0; i < numOps; i++) {
+            int key = random.nextInt(numKeys);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.minus(key);
+            } else {
+                expected.put(key, i);
+                map = map.plus(key, i);
+            }
+            assertThat(map.size()).isEqualTo(expected.size());
+        }
+        assertThat(new ArrayList<>(map.entrySet())).isEqualTo(new ArrayList<>(expected.entrySet()));
+
+        for (int i = 0; i < numRanges; i++) {
+            int from = random.nextInt(numKeys);
+            int to = from + random.nextInt(numKeys - from);
+            boolean descending = random.nextBoolean();
+            NavigableMap<Integer, Integer> range = expected.subMap(from, true, to, false);
+
+            List<Map.Entry<Integer, Integer>> entries = new ArrayList<>();
+            map.rangeIterator(from, true, to, false, descending).forEachRemaining(entries::add);
+            assertThat(entries).isEqualTo(new ArrayList<>(
+                    (descending ? range.descendingMap() : range).entrySet()));
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package org.corfudb.runtime.object;
+
+import org.corfudb.annotations.Accessor;
+import org.corfudb.annotations.CorfuObject;
+import org.corfudb.annotations.DontInstrument;
+import org.corfudb.annotations.Mutator;
+
+/**
+ * A counter which can provide snapshots of its value, to test the materialized versions
+ * of the VersionLockedObject.
+ */
+@CorfuObject
+public class CorfuSnapshotableCounter implements ICorfuSnapshotable<CorfuSnapshotableCounter> {
+    int value = 0;
+
+    public CorfuSnapshotableCounter(int initValue) { value = initValue; }
+
+    public CorfuSnapshotableCounter() { this(0); }
+
+    @Accessor
+    public int getValue() { return value; }
+
+    @Mutator(name = "setValue")
+    public void setValue(int newValue) { value = newValue; }
+
+    @Override
+    @DontInstrument
+    public CorfuSnapshotableCounter getSnapshot() {
+        return new CorfuSnapshotableCounter(value);
+    }
+
+    @Override
+    @DontInstrument
+    public boolean isPersistentDataStructure() {
+        return false;
+    }
+}
@@ -0,0 +1,203 @@
+package org.corfudb.runtime.object;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.reflect.TypeToken;
+import org.corfudb.protocols.wireprotocol.Token;
+import org.corfudb.runtime.CorfuRuntime;
+import org.corfudb.runtime.collections.CorfuTable;
+import org.corfudb.runtime.object.transactions.TransactionType;
+import org.corfudb.runtime.view.AbstractViewTest;
+import org.junit.Test;
+
+/**
+ * Tests the materialized versions of the VersionLockedObject.
+ */
+public class VersionLockedObjectVersionsTest extends AbstractViewTest {
+
+    private static final String STREAM_NAME = "counter";
+
+    private CorfuSnapshotableCounter openCounter(int maxVersions) {
+        return getDefaultRuntime().getObjectsView().build()
+                .setStreamName(STREAM_NAME)
+                .setTypeToken(new TypeToken<CorfuSnapshotableCounter>() {})
+                .setMaxVersions(maxVersions)
+                .open();
+    }
+
+    @SuppressWarnings("unchecked")
+    private VersionLockedObject<CorfuSnapshotableCounter> getVlo(CorfuSnapshotableCounter counter) {
+        return ((ICorfuSMRProxyInternal<CorfuSnapshotableCounter>)
+                ((ICorfuSMR<CorfuSnapshotableCounter>) counter).getCorfuSMRProxy()).getUnderlyingObject();
+    }
+
+    private long setValue(CorfuSnapshotableCounter counter, int value) {
+        counter.setValue(value);
+        return getDefaultRuntime().getSequencerView()
+                .query(CorfuRuntime.getStreamID(STREAM_NAME)).getToken().getSequence();
+    }
+
+    private long writeOtherStream() {
+        return getDefaultRuntime().getStreamsView()
+                .append("other".getBytes(), null, CorfuRuntime.getStreamID("other"));
+    }
+
+    private int getValueAt(CorfuSnapshotableCounter counter, long timestamp) {
+        getDefaultRuntime().getObjectsView().TXBuild()
+                .type(TransactionType.SNAPSHOT)
+                .snapshot(new Token(0L, timestamp))
+                .build()
+                .begin();
+        try {
+            return counter.getValue();
+        } finally {
+            getDefaultRuntime().getObjectsView().TXEnd();
+        }
+    }
+
+    @Test
+    public void oldVersionIsServedWithoutRollback() {
+        final int maxVersions = 4;
+        final int first = 1;
+        final int second = 2;
+        final int third = 3;
+        CorfuSnapshotableCounter counter = openCounter(maxVersions);
+
+        long firstTs = setValue(counter, first);
+        assertThat(getValueAt(counter, firstTs)).isEqualTo(first);
+        setValue(counter, second);
+        long tail = setValue(counter, third);
+
+        // Bring the object to the tail, the version at the first timestamp is kept
+        assertThat(counter.getValue()).isEqualTo(third);
+        assertThat(getVlo(counter).getVersionUnsafe()).isEqualTo(tail);
+
+        assertThat(getValueAt(counter, firstTs)).isEqualTo(first);
+        assertThat(getVlo(counter).getVersionUnsafe()).isEqualTo(tail);
+
+        // The tail version is served as well once the object moved back
+        getVlo(counter).update(o -> {
+            o.syncObjectUnsafe(firstTs);
+            return null;
+        });
+        assertThat(getValueAt(counter, tail)).isEqualTo(third);
+        assertThat(getVlo(counter).getVersionUnsafe()).isEqualTo(firstTs);
+    }
+
+    @Test
+    public void versionIsServedBetweenUpdates() {
+        final int maxVersions = 4;
+        final int first = 1;
+        final int second = 2;
+        CorfuSnapshotableCounter counter = openCounter(maxVersions);
+
+        long firstTs = setValue(counter, first);
+        final long between = writeOtherStream();
+        final long beforeSecond = writeOtherStream();
+        long tail = setValue(counter, second);
+
+        // Reading between the updates materializes the version up to the snapshot
+        assertThat(getValueAt(counter, between)).isEqualTo(first);
+        assertThat(getVlo(counter).getVersionUnsafe()).isEqualTo(firstTs);
+        assertThat(counter.getValue()).isEqualTo(second);
+        assertThat(getVlo(counter).getVersionUnsafe()).isEqualTo(tail);
+
+        assertThat(getValueAt(counter, firstTs)).isEqualTo(first);
+        assertThat(getValueAt(counter, between)).isEqualTo(first);
+        assertThat(getVlo(counter).getVersionUnsafe()).isEqualTo(tail);
+
+        // A snapshot past the materialized one is synced, then served as well
+        assertThat(getValueAt(counter, beforeSecond)).isEqualTo(first);
+        assertThat(getVlo(counter).getVersionUnsafe()).isEqualTo(firstTs);
+        assertThat(counter.getValue()).isEqualTo(second);
+        assertThat(getValueAt(counter, beforeSecond)).isEqualTo(first);
+        assertThat(getVlo(counter).getVersionUnsafe()).isEqualTo(tail);
+    }
+
+    @Test
+    public void versionIsNotServedPastItsSnapshot() {
+        final int maxVersions = 4;
+        final int first = 1;
+        final int second = 2;
+        CorfuSnapshotableCounter counter = openCounter(maxVersions);
+
+        long firstTs = setValue(counter, first);
+        assertThat(getValueAt(counter, firstTs)).isEqualTo(first);
+        final long between = writeOtherStream();
+        long tail = setValue(counter, second);
+        assertThat(counter.getValue()).isEqualTo(second);
+
+        // The version of the first update was only synced to its own address, so a
+        // snapshot after it isn't known to be in the same state and is synced
+        assertThat(getValueAt(counter, between)).isEqualTo(first);
+        assertThat(getVlo(counter).getVersionUnsafe()).isEqualTo(firstTs);
+        assertThat(getValueAt(counter, tail)).isEqualTo(second);
+    }
+
+    @Test
+    public void evictedVersionIsSynced() {
+        final int maxVersions = 1;
+        final int first = 1;
+        final int second = 2;
+        CorfuSnapshotableCounter counter = openCounter(maxVersions);
+
+        long firstTs = setValue(counter, first);
+        assertThat(getValueAt(counter, firstTs)).isEqualTo(first);
+        long tail = setValue(counter, second);
+        assertThat(counter.getValue()).isEqualTo(second);
+
+        // Only the tail version is kept, the object is synced back and its version
+        // at the first timestamp replaces the tail one
+        assertThat(getValueAt(counter, firstTs)).isEqualTo(first);
+        assertThat(getVlo(counter).getVersionUnsafe()).isEqualTo(firstTs);
+        assertThat(getValueAt(counter, tail)).isEqualTo(second);
+        assertThat(getVlo(counter).getVersionUnsafe()).isEqualTo(tail);
+    }
+
+    @Test
+    public void versionsAreNotKeptByDefault() {
+        final int first = 1;
+        final int second = 2;
+        CorfuSnapshotableCounter counter = openCounter(0);
+
+        long firstTs = setValue(counter, first);
+        assertThat(getValueAt(counter, firstTs)).isEqualTo(first);
+        setValue(counter, second);
+        assertThat(counter.getValue()).isEqualTo(second);
+
+        assertThat(getValueAt(counter, firstTs)).isEqualTo(first);
+        assertThat(getVlo(counter).getVersionUnsafe()).isEqualTo(firstTs);
+    }
+
+    @Test
+    public void versionsOfExpensiveSnapshotsAreNotKept() {
+        final int maxVersions = 4;
+        CorfuTable<String, String> table = getDefaultRuntime().getObjectsView().build()
+                .setStreamName(STREAM_NAME)
+                .setTypeToken(new TypeToken<CorfuTable<String, String>>() {})
+                .setMaxVersions(maxVersions)
+                .open();
+        VersionLockedObject<?> vlo = ((ICorfuSMRProxyInternal<?>)
+                ((ICorfuSMR<?>) table).getCorfuSMRProxy()).getUnderlyingObject();
+
+        table.put("k", "v1");
+        long firstTs = getDefaultRuntime().getSequencerView()
+                .query(CorfuRuntime.getStreamID(STREAM_NAME)).getToken().getSequence();
+        assertThat(table.get("k")).isEqualTo("v1");
+        table.put("k", "v2");
+        assertThat(table.get("k")).isEqualTo("v2");
+
+        // A snapshot of the hash map backend is a copy, so the old version is rolled back to
+        getDefaultRuntime().getObjectsView().TXBuild()
+                .type(TransactionType.SNAPSHOT)
+                .snapshot(new Token(0L, firstTs))
+                .build()
+                .begin();
+        try {
+            assertThat(table.get("k")).isEqualTo("v1");
+        } finally {
+            getDefaultRuntime().getObjectsView().TXEnd();
+        }
+        assertThat(vlo.getVersionUnsafe()).isEqualTo(firstTs);
+    }
+}
@@ -116,6 +116,32 @@ public class OptimisticTransactionContextTest extends AbstractTransactionContext
                     .isInstanceOf(TransactionAbortedException.class);
     }
 
+    /**
+     * Same as customConflictObjectsConflictAborts, with the conflict sets sent to the
+     * sequencer as fingerprints.
+     */
+    @Test
+    public void fingerprintedConflictObjectsConflictAborts() {
+        getDefaultRuntime().getParameters().setFingerprintConflictSets(true);
+        CustomConflictObject c1 = new CustomConflictObject("a", "a");
+        CustomConflictObject c2 = new CustomConflictObject("a", "a");
+
+        Map<CustomConflictObject, String> map = getDefaultRuntime().getObjectsView()
+                        .build()
+                        .setTypeToken(new TypeToken<SMRMap<CustomConflictObject, String>>() {})
+                        .setStreamName("test")
+                        .open();
+
+        t(1, this::OptimisticTXBegin);
+        t(2, this::OptimisticTXBegin);
+        t(1, () -> map.put(c1 , "v1"));
+        t(2, () -> map.put(c2 , "v2"));
+        t(1, this::TXEnd);
+        t(2, this::TXEnd)
+                .assertThrows()
+                    .isInstanceOf(TransactionAbortedException.class);
+    }
+
     /**
      * This test checks if optimistic transactions are aborted in the scenario of slow writers and
      * fast readers accessing the same stream, i.e., a reader accesses the address already given to
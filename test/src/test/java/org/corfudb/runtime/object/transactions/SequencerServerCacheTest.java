@@ -6,6 +6,7 @@ import com.github.benmanes.caffeine.cache.CacheWriter;
 import com.github.benmanes.caffeine.cache.RemovalCause;
 import com.google.common.reflect.TypeToken;
 import lombok.extern.slf4j.Slf4j;
+import org.corfudb.infrastructure.SequencerConflictTable;
 import org.corfudb.infrastructure.SequencerServer;
 import org.corfudb.infrastructure.SequencerServerCache;
 import org.corfudb.infrastructure.SequencerServerCache.ConflictTxStream;
@@ -48,7 +49,7 @@ public class SequencerServerCacheTest extends AbstractObjectTest {
         }
 
         SequencerServer sequencerServer = getSequencer(0);
-        SequencerServerCache cache = sequencerServer.getCache();
+        SequencerConflictTable cache = sequencerServer.getCache();
         assertThat(cache.size()).isEqualTo(numTxn);
         getDefaultRuntime().getAddressSpaceView().prefixTrim(trimAddress);
         assertThat(cache.size()).isEqualTo((int) trimAddress.getSequence());
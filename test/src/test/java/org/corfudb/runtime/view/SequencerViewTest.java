@@ -2,10 +2,17 @@ package org.corfudb.runtime.view;
 
 import lombok.Getter;
 import org.corfudb.protocols.wireprotocol.Token;
+import org.corfudb.protocols.wireprotocol.TokenResponse;
 import org.corfudb.runtime.CorfuRuntime;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -96,4 +103,51 @@ public class SequencerViewTest extends AbstractViewTest {
         assertThat(r.getSequencerView().next(streamB).getBackpointerMap())
                 .containsEntry(streamB, 1L);
     }
+
+    /**
+     * Concurrent token requests are coalesced, and each stream still gets a
+     * chain of backpointers through all of its tokens.
+     */
+    @Test
+    public void coalescedTokensChainBackPointers() throws Exception {
+        CorfuRuntime r = getDefaultRuntime();
+        final int batchSize = 8;
+        r.getParameters().setTokenBatchSize(batchSize);
+        UUID streamA = UUID.nameUUIDFromBytes("stream A".getBytes());
+        UUID streamB = UUID.nameUUIDFromBytes("stream B".getBytes());
+
+        final int numThreads = 8;
+        final int numTokens = 100;
+        Map<UUID, Map<Long, Long>> backpointers = new ConcurrentHashMap<>();
+        backpointers.put(streamA, Collections.synchronizedMap(new TreeMap<>()));
+        backpointers.put(streamB, Collections.synchronizedMap(new TreeMap<>()));
+
+        scheduleConcurrently(numThreads, threadNumber -> {
+            UUID stream = threadNumber % 2 == 0 ? streamA : streamB;
+            for (int i = 0; i < numTokens; i++) {
+                TokenResponse token = r.getSequencerView().next(stream);
+                backpointers.get(stream).put(token.getSequence(), token.getBackpointerMap().get(stream));
+            }
+        });
+        executeScheduled(numThreads, PARAMETERS.TIMEOUT_LONG);
+
+        List<Long> tokens = new ArrayList<>();
+        for (Map<Long, Long> streamBackpointers : backpointers.values()) {
+            long previous = Address.NON_EXIST;
+            for (Map.Entry<Long, Long> token : streamBackpointers.entrySet()) {
+                assertThat(token.getValue()).isEqualTo(previous);
+                previous = token.getKey();
+                tokens.add(token.getKey());
+            }
+        }
+
+        // No token is lost or handed out twice
+        Collections.sort(tokens);
+        assertThat(tokens).hasSize(numThreads * numTokens);
+        for (int i = 0; i < tokens.size(); i++) {
+            assertThat(tokens.get(i)).isEqualTo((long) i);
+        }
+        assertThat(r.getSequencerView().query().getToken())
+                .isEqualTo(new Token(0L, numThreads * numTokens - 1));
+    }
 }